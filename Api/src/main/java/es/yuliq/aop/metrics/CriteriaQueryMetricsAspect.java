@@ -0,0 +1,102 @@
+package es.yuliq.aop.metrics;
+
+import es.yuliq.service.CriteriaShape;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import tech.jhipster.service.Criteria;
+
+/**
+ * Aspect timing the criteria queries of the query services, per entity, method and {@link CriteriaShape}.
+ * <p>
+ * The {@value #METRIC} timer tells how often each shape is queried and how long it takes, which is what decides
+ * the indexes worth adding. Shapes come from the request parameters, so only the first
+ * {@code application.query-metrics.max-shapes} distinct shapes are tagged as such, and the others are counted
+ * together under {@value #OTHER_SHAPES}.
+ */
+@Aspect
+public class CriteriaQueryMetricsAspect {
+
+    public static final String METRIC = "criteria.query";
+
+    static final String OTHER_SHAPES = "other";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxShapes;
+
+    private final Set<String> shapes = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public CriteriaQueryMetricsAspect(MeterRegistry meterRegistry, int maxShapes) {
+        this.meterRegistry = meterRegistry;
+        this.maxShapes = maxShapes;
+    }
+
+    /**
+     * Pointcut that matches the public methods of the query services taking a criteria first.
+     */
+    @Pointcut("execution(public * es.yuliq.service.*QueryService.*(tech.jhipster.service.Criteria+, ..))")
+    public void criteriaQueryPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times a criteria query, whether it succeeds or not.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable throws {@link Throwable} of the query.
+     */
+    @Around("criteriaQueryPointcut()")
+    public Object timeCriteriaQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        String entity = entity(joinPoint);
+        String operation = joinPoint.getSignature().getName();
+        String shape = tagged(CriteriaShape.of((Criteria) joinPoint.getArgs()[0]));
+        Timer timer = timers.computeIfAbsent(
+            entity + ' ' + operation + ' ' + shape,
+            key ->
+                Timer
+                    .builder(METRIC)
+                    .description("Criteria queries of the query services")
+                    .tag("entity", entity)
+                    .tag("operation", operation)
+                    .tag("shape", shape)
+                    .register(meterRegistry)
+        );
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return the entity of a query service, from its name.
+     */
+    static String entity(JoinPoint joinPoint) {
+        return joinPoint.getSignature().getDeclaringType().getSimpleName().replace("QueryService", "");
+    }
+
+    private String tagged(String shape) {
+        if (shapes.contains(shape)) {
+            return shape;
+        }
+        // The limit may be exceeded by a few concurrent shapes, which is harmless
+        if (shapes.size() < maxShapes) {
+            shapes.add(shape);
+            return shape;
+        }
+        return OTHER_SHAPES;
+    }
+}
@@ -0,0 +1,271 @@
+package es.yuliq.aop.metrics;
+
+import es.yuliq.service.CriteriaShape;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import tech.jhipster.service.Criteria;
+
+/**
+ * Development and test advisor of the missing indexes of the criteria queries.
+ * <p>
+ * While a query service runs a criteria query, the SQL statements which Hibernate prepares are recorded under
+ * the {@link CriteriaShape} of the criteria. {@link #advise()} then runs {@code EXPLAIN} on each of them and
+ * reports the tables which are read in full, although the criteria filters them. H2 and PostgreSQL plans are
+ * understood; on PostgreSQL the statements are explained with a generic plan, as their parameters are unknown.
+ * <p>
+ * The advice is logged when the application stops. It is enabled by {@code application.index-advisor.enabled},
+ * and must not be in production, as every statement goes through {@link #inspect(String)}.
+ */
+@Aspect
+public class IndexAdvisor implements StatementInspector {
+
+    static final int MAX_STATEMENTS = 1000;
+
+    private static final Pattern H2_TABLE_ACCESS = Pattern.compile(
+        "(?:FROM|JOIN)\\s+\"?PUBLIC\"?\\.\"?(\\w+)\"?[^/]*/\\*\\s*([^*]+?)\\s*\\*/",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    private static final Pattern POSTGRESQL_SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final Logger log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ThreadLocal<String> currentShape = new ThreadLocal<>();
+
+    private final Map<String, Set<String>> statementsByShape = new ConcurrentHashMap<>();
+
+    private final AtomicInteger statementCount = new AtomicInteger();
+
+    public IndexAdvisor(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Advice that records the shape of a criteria query while it runs.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable throws {@link Throwable} of the query.
+     */
+    @Around("es.yuliq.aop.metrics.CriteriaQueryMetricsAspect.criteriaQueryPointcut()")
+    public Object recordShape(ProceedingJoinPoint joinPoint) throws Throwable {
+        String shape = CriteriaShape.of((Criteria) joinPoint.getArgs()[0]);
+        if (CriteriaShape.UNFILTERED.equals(shape)) {
+            return joinPoint.proceed();
+        }
+        String previous = currentShape.get();
+        currentShape.set(CriteriaQueryMetricsAspect.entity(joinPoint) + "." + joinPoint.getSignature().getName() + "(" + shape + ")");
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (previous == null) {
+                currentShape.remove();
+            } else {
+                currentShape.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String shape = currentShape.get();
+        if (shape != null && statementCount.get() < MAX_STATEMENTS) {
+            if (statementsByShape.computeIfAbsent(shape, key -> ConcurrentHashMap.newKeySet()).add(sql)) {
+                statementCount.incrementAndGet();
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * @return the shapes of the filtered criteria queries run so far, as {@code Entity.method(shape)}.
+     */
+    public Set<String> getShapes() {
+        return Collections.unmodifiableSet(new TreeSet<>(statementsByShape.keySet()));
+    }
+
+    /**
+     * Explain the statements recorded so far.
+     *
+     * @return the tables read in full by each shape.
+     */
+    public List<IndexAdvice> advise() {
+        String database = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+        );
+        boolean postgresql = POSTGRESQL.equals(database);
+        List<IndexAdvice> advice = new ArrayList<>();
+        for (String shape : getShapes()) {
+            for (String sql : statementsByShape.get(shape)) {
+                try {
+                    String plan = postgresql ? explainPostgresql(sql) : explainH2(sql);
+                    for (String table : scannedTables(plan, postgresql)) {
+                        advice.add(new IndexAdvice(shape, table, sql, plan));
+                    }
+                } catch (DataAccessException e) {
+                    log.debug("Could not explain {}: {}", sql, e.getMessage());
+                }
+            }
+        }
+        return advice;
+    }
+
+    /**
+     * Log the advice when the application stops.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void logAdvice() {
+        List<IndexAdvice> advice = advise();
+        if (advice.isEmpty()) {
+            log.info("Index advisor: the {} criteria shapes used are served by indexes", statementsByShape.size());
+        }
+        for (IndexAdvice item : advice) {
+            log.warn("Index advisor: {} reads all of {}: {}", item.getShape(), item.getTable(), item.getStatement());
+        }
+    }
+
+    private String explainH2(String sql) {
+        return jdbcTemplate.query(
+            "EXPLAIN " + sql,
+            ps -> {
+                for (int i = 1; i <= ps.getParameterMetaData().getParameterCount(); i++) {
+                    ps.setObject(i, null);
+                }
+            },
+            (ResultSetExtractor<String>) IndexAdvisor::readPlan
+        );
+    }
+
+    /**
+     * Explain the generic plan of a prepared statement, so that the null parameters are not folded into the plan.
+     */
+    private String explainPostgresql(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        StringBuilder nulls = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+                nulls.append(parameter == 1 ? "NULL" : ", NULL");
+            } else {
+                numbered.append(c);
+            }
+        }
+        String arguments = parameter == 0 ? "" : "(" + nulls + ")";
+        return jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET plan_cache_mode = force_generic_plan");
+                    statement.execute("PREPARE index_advisor AS " + numbered);
+                    try (ResultSet plan = statement.executeQuery("EXPLAIN EXECUTE index_advisor" + arguments)) {
+                        return readPlan(plan);
+                    } finally {
+                        statement.execute("DEALLOCATE index_advisor");
+                        statement.execute("RESET plan_cache_mode");
+                    }
+                }
+            }
+        );
+    }
+
+    private static String readPlan(ResultSet rows) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        while (rows.next()) {
+            plan.append(rows.getString(1)).append('\n');
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Find the tables of a plan which are scanned: in H2, the ones read by a table scan or by an index without any
+     * condition, in PostgreSQL the sequential scans.
+     */
+    static Set<String> scannedTables(String plan, boolean postgresql) {
+        Set<String> tables = new LinkedHashSet<>();
+        if (postgresql) {
+            Matcher scan = POSTGRESQL_SEQ_SCAN.matcher(plan);
+            while (scan.find()) {
+                tables.add(scan.group(1).toLowerCase());
+            }
+            return tables;
+        }
+        Matcher access = H2_TABLE_ACCESS.matcher(plan);
+        while (access.find()) {
+            String index = access.group(2);
+            if (index.endsWith(".tableScan") || !index.contains(":")) {
+                tables.add(access.group(1).toLowerCase());
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * A table read in full by a criteria shape.
+     */
+    public static final class IndexAdvice {
+
+        private final String shape;
+
+        private final String table;
+
+        private final String statement;
+
+        private final String plan;
+
+        IndexAdvice(String shape, String table, String statement, String plan) {
+            this.shape = shape;
+            this.table = table;
+            this.statement = statement;
+            this.plan = plan;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getStatement() {
+            return statement;
+        }
+
+        public String getPlan() {
+            return plan;
+        }
+
+        @Override
+        public String toString() {
+            return "IndexAdvice{shape='" + shape + "', table='" + table + "'}";
+        }
+    }
+}
@@ -9,4 +9,394 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final ImageStore imageStore = new ImageStore();
+
+    private final ImageDerivatives imageDerivatives = new ImageDerivatives();
+
+    private final CountEstimate countEstimate = new CountEstimate();
+
+    private final EntityCache entityCache = new EntityCache();
+
+    private final CriteriaCache criteriaCache = new CriteriaCache();
+
+    private final Suggest suggest = new Suggest();
+
+    private final QueryMetrics queryMetrics = new QueryMetrics();
+
+    private final IndexAdvisor indexAdvisor = new IndexAdvisor();
+
+    private final CartToken cartToken = new CartToken();
+
+    private final CartStore cartStore = new CartStore();
+
+    public ImageStore getImageStore() {
+        return imageStore;
+    }
+
+    public ImageDerivatives getImageDerivatives() {
+        return imageDerivatives;
+    }
+
+    public CountEstimate getCountEstimate() {
+        return countEstimate;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    public CriteriaCache getCriteriaCache() {
+        return criteriaCache;
+    }
+
+    public Suggest getSuggest() {
+        return suggest;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    public IndexAdvisor getIndexAdvisor() {
+        return indexAdvisor;
+    }
+
+    public CartToken getCartToken() {
+        return cartToken;
+    }
+
+    public CartStore getCartStore() {
+        return cartStore;
+    }
+
+    public static class ImageStore {
+
+        /**
+         * Root directory of the content-addressed image store.
+         */
+        private String directory = "data/images";
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    public static class ImageDerivatives {
+
+        /**
+         * Root directory of the thumbnails, recompressed variants and placeholders generated from the stored images.
+         */
+        private String directory = "data/image-derivatives";
+
+        /**
+         * Number of threads generating derivatives.
+         */
+        private int poolSize = 2;
+
+        /**
+         * Maximum number of pending images; further images are dropped and generated on their first request.
+         */
+        private int queueCapacity = 100;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class CountEstimate {
+
+        /**
+         * Seconds an estimated count is reused for the same entity and criteria.
+         */
+        private int timeToLiveSeconds = 60;
+
+        /**
+         * Maximum number of cached counts.
+         */
+        private long maxEntries = 1000;
+
+        /**
+         * Minimum number of rows estimated by the PostgreSQL planner for the estimate to be used
+         * instead of counting the rows of an unfiltered table.
+         */
+        private long plannerThreshold = 10000;
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getPlannerThreshold() {
+            return plannerThreshold;
+        }
+
+        public void setPlannerThreshold(long plannerThreshold) {
+            this.plannerThreshold = plannerThreshold;
+        }
+    }
+
+    public static class CriteriaCache {
+
+        /**
+         * Seconds a criteria query result is served without being refreshed.
+         */
+        private int timeToLiveSeconds = 5;
+
+        /**
+         * Seconds after the time to live during which the expired result is still served while it is
+         * refreshed in the background.
+         */
+        private int staleWhileRevalidateSeconds = 30;
+
+        /**
+         * Maximum number of cached results.
+         */
+        private int maxEntries = 1000;
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public int getStaleWhileRevalidateSeconds() {
+            return staleWhileRevalidateSeconds;
+        }
+
+        public void setStaleWhileRevalidateSeconds(int staleWhileRevalidateSeconds) {
+            this.staleWhileRevalidateSeconds = staleWhileRevalidateSeconds;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class Suggest {
+
+        /**
+         * Seconds after which the suggestions are rebuilt, to follow the units sold.
+         */
+        private int refreshSeconds = 300;
+
+        public int getRefreshSeconds() {
+            return refreshSeconds;
+        }
+
+        public void setRefreshSeconds(int refreshSeconds) {
+            this.refreshSeconds = refreshSeconds;
+        }
+    }
+
+    public static class QueryMetrics {
+
+        /**
+         * Distinct criteria shapes tagged in the query metrics; the others share one tag.
+         */
+        private int maxShapes = 100;
+
+        public int getMaxShapes() {
+            return maxShapes;
+        }
+
+        public void setMaxShapes(int maxShapes) {
+            this.maxShapes = maxShapes;
+        }
+    }
+
+    public static class IndexAdvisor {
+
+        /**
+         * Whether to explain the statements of the criteria queries, to find the missing indexes; development and
+         * tests only.
+         */
+        private boolean enabled = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    public static class CartToken {
+
+        /**
+         * Seconds during which the cart of an anonymous visitor is kept, from its last change.
+         */
+        private long validityInSeconds = 2592000;
+
+        /**
+         * Most productos in the cart of an anonymous visitor, which bounds the size of the token.
+         */
+        private int maxItems = 50;
+
+        public long getValidityInSeconds() {
+            return validityInSeconds;
+        }
+
+        public void setValidityInSeconds(long validityInSeconds) {
+            this.validityInSeconds = validityInSeconds;
+        }
+
+        public int getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(int maxItems) {
+            this.maxItems = maxItems;
+        }
+    }
+
+    public static class CartStore {
+
+        /**
+         * Directory of the write-ahead log of the carrito changes not yet written to the database.
+         */
+        private String directory = "data/cart-wal";
+
+        /**
+         * Seconds between two writes of the changed carritos to the database, which bounds how long the lists of
+         * carritos lag behind their lines.
+         */
+        private int flushIntervalSeconds = 5;
+
+        /**
+         * Seconds after which a carrito left unchanged and already written is dropped from memory.
+         */
+        private int idleSeconds = 600;
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getFlushIntervalSeconds() {
+            return flushIntervalSeconds;
+        }
+
+        public void setFlushIntervalSeconds(int flushIntervalSeconds) {
+            this.flushIntervalSeconds = flushIntervalSeconds;
+        }
+
+        public int getIdleSeconds() {
+            return idleSeconds;
+        }
+
+        public void setIdleSeconds(int idleSeconds) {
+            this.idleSeconds = idleSeconds;
+        }
+    }
+
+    /**
+     * Regions of the Hibernate second-level cache.
+     */
+    public static class EntityCache {
+
+        private final CacheRegion producto = new CacheRegion(1000, 3600);
+
+        private final CacheRegion banner = new CacheRegion(100, 3600);
+
+        private final CacheRegion authority = new CacheRegion(10, 86400);
+
+        private final CacheRegion userAuthorities = new CacheRegion(1000, 3600);
+
+        public CacheRegion getProducto() {
+            return producto;
+        }
+
+        public CacheRegion getBanner() {
+            return banner;
+        }
+
+        public CacheRegion getAuthority() {
+            return authority;
+        }
+
+        public CacheRegion getUserAuthorities() {
+            return userAuthorities;
+        }
+    }
+
+    public static class CacheRegion {
+
+        /**
+         * Maximum number of entries kept on heap.
+         */
+        private long maxEntries;
+
+        /**
+         * Seconds an entry stays in the region.
+         */
+        private long timeToLiveSeconds;
+
+        public CacheRegion(long maxEntries, long timeToLiveSeconds) {
+            this.maxEntries = maxEntries;
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+}
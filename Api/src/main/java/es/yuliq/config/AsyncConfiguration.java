@@ -1,6 +1,12 @@
 package es.yuliq.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
@@ -11,6 +17,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import tech.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 
@@ -39,6 +46,30 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor of the image derivative generation, kept apart from the {@code taskExecutor} so that
+     * slow image processing never delays the emails. Its queue is bounded: images rejected when it is
+     * full get their derivatives generated on their first request.
+     * <p>
+     * The pool is exposed as the {@code executor.*} metrics tagged {@code name=imageTaskExecutor};
+     * {@code executor.queued} is the queue depth.
+     */
+    @Bean(name = "imageTaskExecutor")
+    public ExecutorService imageTaskExecutor(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        log.debug("Creating Image Task Executor");
+        ApplicationProperties.ImageDerivatives properties = applicationProperties.getImageDerivatives();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            properties.getPoolSize(),
+            properties.getPoolSize(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+            new CustomizableThreadFactory("yuliq-image-"),
+            (task, pool) -> log.warn("Image task queue is full, dropping task")
+        );
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "imageTaskExecutor");
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
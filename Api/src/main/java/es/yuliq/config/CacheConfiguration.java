@@ -3,8 +3,10 @@ package es.yuliq.config;
 import java.time.Duration;
 import org.ehcache.config.builders.*;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.boot.info.GitProperties;
 import org.springframework.cache.annotation.EnableCaching;
@@ -21,34 +23,70 @@ public class CacheConfiguration {
     private BuildProperties buildProperties;
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    private final ApplicationProperties applicationProperties;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
 
-        jcacheConfiguration =
-            Eh107Configuration.fromEhcacheCacheConfiguration(
-                CacheConfigurationBuilder
-                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                    .build()
-            );
+        jcacheConfiguration = jcacheConfiguration(ehcache.getMaxEntries(), ehcache.getTimeToLiveSeconds());
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
     }
 
     @Bean
     public JCacheManagerCustomizer cacheManagerCustomizer() {
+        ApplicationProperties.CountEstimate countEstimate = applicationProperties.getCountEstimate();
+        ApplicationProperties.EntityCache entityCache = applicationProperties.getEntityCache();
         return cm -> {
             createCache(cm, es.yuliq.repository.UserRepository.USERS_BY_LOGIN_CACHE);
             createCache(cm, es.yuliq.repository.UserRepository.USERS_BY_EMAIL_CACHE);
+            createCache(
+                cm,
+                es.yuliq.service.CountEstimator.COUNTS_CACHE,
+                jcacheConfiguration(countEstimate.getMaxEntries(), countEstimate.getTimeToLiveSeconds())
+            );
+            createCache(cm, es.yuliq.domain.Authority.class.getName(), entityCache.getAuthority());
+            createCache(cm, es.yuliq.domain.User.class.getName() + ".authorities", entityCache.getUserAuthorities());
+            createCache(cm, es.yuliq.domain.Producto.class.getName(), entityCache.getProducto());
+            createCache(cm, es.yuliq.domain.Banner.class.getName(), entityCache.getBanner());
             // jhipster-needle-ehcache-add-entry
         };
     }
 
+    private static javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(long maxEntries, long timeToLiveSeconds) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds)))
+                .build()
+        );
+    }
+
+    private void createCache(javax.cache.CacheManager cm, String cacheName, ApplicationProperties.CacheRegion region) {
+        createCache(cm, cacheName, jcacheConfiguration(region.getMaxEntries(), region.getTimeToLiveSeconds()));
+    }
+
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        createCache(cm, cacheName, jcacheConfiguration);
+    }
+
+    private void createCache(
+        javax.cache.CacheManager cm,
+        String cacheName,
+        javax.cache.configuration.Configuration<Object, Object> configuration
+    ) {
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, configuration);
         }
+        // Statistics back the hit and miss metrics of the cache
+        cm.enableStatistics(cacheName, true);
     }
 
     @Autowired(required = false)
@@ -0,0 +1,25 @@
+package es.yuliq.config;
+
+import es.yuliq.service.cart.CartWriteAheadLog;
+import java.nio.file.Paths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configure the {@link CartWriteAheadLog} of the {@link es.yuliq.service.cart.CartStore}, in a directory of the
+ * local disk.
+ */
+@Configuration
+public class CartStoreConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(CartStoreConfiguration.class);
+
+    @Bean
+    public CartWriteAheadLog cartWriteAheadLog(ApplicationProperties applicationProperties) {
+        String directory = applicationProperties.getCartStore().getDirectory();
+        log.debug("Logging the cart changes in {}", directory);
+        return new CartWriteAheadLog(Paths.get(directory));
+    }
+}
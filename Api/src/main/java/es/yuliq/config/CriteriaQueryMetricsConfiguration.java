@@ -0,0 +1,15 @@
+package es.yuliq.config;
+
+import es.yuliq.aop.metrics.CriteriaQueryMetricsAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.*;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class CriteriaQueryMetricsConfiguration {
+
+    @Bean
+    public CriteriaQueryMetricsAspect criteriaQueryMetricsAspect(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        return new CriteriaQueryMetricsAspect(meterRegistry, applicationProperties.getQueryMetrics().getMaxShapes());
+    }
+}
@@ -0,0 +1,38 @@
+package es.yuliq.config;
+
+import es.yuliq.service.image.FileSystemImageStore;
+import es.yuliq.service.image.ImageDerivativeService;
+import es.yuliq.service.image.ImageStore;
+import java.nio.file.Paths;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configure the {@link ImageStore} holding product and banner images, and the {@link ImageDerivativeService}
+ * generating their thumbnails.
+ * <p>
+ * Declare another {@link ImageStore} bean to replace the local filesystem implementation.
+ */
+@Configuration
+public class ImageStoreConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(ImageStoreConfiguration.class);
+
+    @Bean
+    @ConditionalOnMissingBean(ImageStore.class)
+    public ImageStore imageStore(ApplicationProperties applicationProperties) {
+        String directory = applicationProperties.getImageStore().getDirectory();
+        log.debug("Storing images in {}", directory);
+        return new FileSystemImageStore(Paths.get(directory));
+    }
+
+    @Bean
+    public ImageDerivativeService imageDerivativeService(ImageStore imageStore, ApplicationProperties applicationProperties) {
+        String directory = applicationProperties.getImageDerivatives().getDirectory();
+        log.debug("Storing image derivatives in {}", directory);
+        return new ImageDerivativeService(imageStore, Paths.get(directory));
+    }
+}
@@ -0,0 +1,25 @@
+package es.yuliq.config;
+
+import es.yuliq.aop.metrics.IndexAdvisor;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@EnableAspectJAutoProxy
+@ConditionalOnProperty(prefix = "application.index-advisor", name = "enabled", havingValue = "true")
+public class IndexAdvisorConfiguration {
+
+    @Bean
+    public IndexAdvisor indexAdvisor(DataSource dataSource) {
+        return new IndexAdvisor(new JdbcTemplate(dataSource));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer indexAdvisorStatementInspector(IndexAdvisor indexAdvisor) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, indexAdvisor);
+    }
+}
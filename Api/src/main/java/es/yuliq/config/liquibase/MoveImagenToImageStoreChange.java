@@ -0,0 +1,89 @@
+package es.yuliq.config.liquibase;
+
+import es.yuliq.service.image.FileSystemImageStore;
+import es.yuliq.service.image.ImageStore;
+import es.yuliq.service.image.StoredImage;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+/**
+ * Liquibase change moving the {@code imagen} blobs of a table into the {@link ImageStore},
+ * filling its {@code imagen_hash} and {@code imagen_size} columns.
+ */
+public class MoveImagenToImageStoreChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 25;
+
+    private String tableName;
+
+    private String directory;
+
+    private int movedImages;
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        ImageStore imageStore = new FileSystemImageStore(Paths.get(directory));
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (
+            PreparedStatement select = connection.prepareStatement("select id, imagen from " + tableName + " where imagen is not null");
+            PreparedStatement update = connection.prepareStatement(
+                "update " + tableName + " set imagen_hash = ?, imagen_size = ? where id = ?"
+            )
+        ) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    StoredImage image = imageStore.store(resultSet.getBytes(2));
+                    update.setString(1, image.getHash());
+                    update.setLong(2, image.getSize());
+                    update.setLong(3, resultSet.getLong(1));
+                    update.addBatch();
+                    if (++movedImages % BATCH_SIZE == 0) {
+                        update.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+        } catch (Exception e) {
+            throw new CustomChangeException("Could not move the images of " + tableName + " to " + directory, e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Moved " + movedImages + " images of " + tableName + " to " + directory;
+    }
+
+    @Override
+    public void setUp() {
+        // Nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // No resources are read
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("tableName", tableName);
+        errors.checkRequiredField("directory", directory);
+        return errors;
+    }
+}
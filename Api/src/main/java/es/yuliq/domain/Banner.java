@@ -4,12 +4,15 @@ import java.io.Serializable;
 import java.time.Instant;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A Banner.
  */
 @Entity
 @Table(name = "banner")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Banner implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -19,9 +22,16 @@ public class Banner implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
-    @Lob
-    @Column(name = "imagen")
-    private byte[] imagen;
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Size(max = 64)
+    @Column(name = "imagen_hash", length = 64)
+    private String imagenHash;
+
+    @Column(name = "imagen_size")
+    private Long imagenSize;
 
     @Column(name = "imagen_content_type")
     private String imagenContentType;
@@ -44,17 +54,38 @@ public class Banner implements Serializable {
         return this;
     }
 
-    public byte[] getImagen() {
-        return this.imagen;
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getImagenHash() {
+        return this.imagenHash;
+    }
+
+    public Banner imagenHash(String imagenHash) {
+        this.imagenHash = imagenHash;
+        return this;
+    }
+
+    public void setImagenHash(String imagenHash) {
+        this.imagenHash = imagenHash;
+    }
+
+    public Long getImagenSize() {
+        return this.imagenSize;
     }
 
-    public Banner imagen(byte[] imagen) {
-        this.imagen = imagen;
+    public Banner imagenSize(Long imagenSize) {
+        this.imagenSize = imagenSize;
         return this;
     }
 
-    public void setImagen(byte[] imagen) {
-        this.imagen = imagen;
+    public void setImagenSize(Long imagenSize) {
+        this.imagenSize = imagenSize;
     }
 
     public String getImagenContentType() {
@@ -98,8 +129,8 @@ public class Banner implements Serializable {
 
     @Override
     public int hashCode() {
-        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // From the id only, see EntityHashCode
+        return EntityHashCode.of(id, getClass());
     }
 
     // prettier-ignore
@@ -107,7 +138,8 @@ public class Banner implements Serializable {
     public String toString() {
         return "Banner{" +
             "id=" + getId() +
-            ", imagen='" + getImagen() + "'" +
+            ", imagenHash='" + getImagenHash() + "'" +
+            ", imagenSize=" + getImagenSize() +
             ", imagenContentType='" + getImagenContentType() + "'" +
             ", fechaPuesta='" + getFechaPuesta() + "'" +
             "}";
@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
+import org.hibernate.annotations.OptimisticLock;
 
 /**
  * A Carrito.
@@ -21,15 +22,30 @@ public class Carrito implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    /**
+     * Incremented by {@link es.yuliq.service.cart.CartStore} for every change of the carrito, lines or fields, so the
+     * fields do not increment it again when written.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @OptimisticLock(excluded = true)
     @Column(name = "cantidad")
     private Integer cantidad;
 
+    @OptimisticLock(excluded = true)
     @Column(name = "fecha_carrito")
     private Instant fechaCarrito;
 
-    @ManyToOne
+    @OptimisticLock(excluded = true)
+    @ManyToOne(fetch = FetchType.LAZY)
     private User assignedTo;
 
+    /**
+     * The join table also holds the number of units of each producto, which only {@link es.yuliq.service.cart.CartStore}
+     * writes once the carrito exists; the lines inserted through this mapping, when it is created, hold one unit.
+     */
     @ManyToMany
     @JoinTable(
         name = "rel_carrito__producto",
@@ -53,6 +69,14 @@ public class Carrito implements Serializable {
         return this;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Integer getCantidad() {
         return this.cantidad;
     }
@@ -132,8 +156,8 @@ public class Carrito implements Serializable {
 
     @Override
     public int hashCode() {
-        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // From the id only, see EntityHashCode
+        return EntityHashCode.of(id, getClass());
     }
 
     // prettier-ignore
@@ -18,16 +18,27 @@ public class Compra implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "cantidad_comprada")
     private Integer cantidadComprada;
 
     @Column(name = "precio_pagado")
     private Float precioPagado;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = { "compras", "assignedTo" }, allowSetters = true)
     private Factura factura;
 
+    /**
+     * The producto bought, set by the checkout; the compras created otherwise have none.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnoreProperties(value = { "compra", "carritos" }, allowSetters = true)
+    private Producto producto;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -42,6 +53,14 @@ public class Compra implements Serializable {
         return this;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Integer getCantidadComprada() {
         return this.cantidadComprada;
     }
@@ -81,6 +100,19 @@ public class Compra implements Serializable {
         this.factura = factura;
     }
 
+    public Producto getProducto() {
+        return this.producto;
+    }
+
+    public Compra producto(Producto producto) {
+        this.setProducto(producto);
+        return this;
+    }
+
+    public void setProducto(Producto producto) {
+        this.producto = producto;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -96,8 +128,8 @@ public class Compra implements Serializable {
 
     @Override
     public int hashCode() {
-        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // From the id only, see EntityHashCode
+        return EntityHashCode.of(id, getClass());
     }
 
     // prettier-ignore
@@ -0,0 +1,26 @@
+package es.yuliq.domain;
+
+/**
+ * Hash code of the entities, which are equal when they have the same id.
+ * <p>
+ * It is taken from the id only, so that all the instances of a row share it, wherever they were read or mapped from.
+ * A constant hash code would stay the same when an entity is persisted and receives its id, but it puts every entity
+ * of a hash set in the same bucket, so that adding, removing or finding an element in a large association takes a
+ * time proportional to its size. Instead, the entities are given their id before they are put in a hash set: they
+ * are persisted first, which takes the id from the pooled {@code sequence_generator} without a round trip to the
+ * database for most of them. A transient entity has the hash code of its class, and must not be put in a hash set
+ * it should still be found in once persisted.
+ */
+final class EntityHashCode {
+
+    private EntityHashCode() {}
+
+    /**
+     * @param id the id of the entity, null if it is transient.
+     * @param type the class of the entity.
+     * @return the hash code.
+     */
+    static int of(Long id, Class<?> type) {
+        return id != null ? Long.hashCode(id) : type.hashCode();
+    }
+}
@@ -21,6 +21,10 @@ public class Factura implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "fecha_factura")
     private Instant fechaFactura;
 
@@ -31,7 +35,7 @@ public class Factura implements Serializable {
     @JsonIgnoreProperties(value = { "factura" }, allowSetters = true)
     private Set<Compra> compras = new HashSet<>();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User assignedTo;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here
@@ -48,6 +52,14 @@ public class Factura implements Serializable {
         return this;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Instant getFechaFactura() {
         return this.fechaFactura;
     }
@@ -133,8 +145,8 @@ public class Factura implements Serializable {
 
     @Override
     public int hashCode() {
-        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // From the id only, see EntityHashCode
+        return EntityHashCode.of(id, getClass());
     }
 
     // prettier-ignore
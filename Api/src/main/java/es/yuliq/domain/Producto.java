@@ -2,17 +2,22 @@ package es.yuliq.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import es.yuliq.domain.enumeration.TipoProducto;
+import es.yuliq.service.columnar.ProductoColumnsListener;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A Producto.
  */
 @Entity
 @Table(name = "producto")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(ProductoColumnsListener.class)
 public class Producto implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -22,6 +27,10 @@ public class Producto implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @NotNull
     @Size(max = 250)
     @Column(name = "nombre_producto", length = 250, nullable = false)
@@ -31,9 +40,12 @@ public class Producto implements Serializable {
     @Column(name = "calorias")
     private Integer calorias;
 
-    @Lob
-    @Column(name = "imagen")
-    private byte[] imagen;
+    @Size(max = 64)
+    @Column(name = "imagen_hash", length = 64)
+    private String imagenHash;
+
+    @Column(name = "imagen_size")
+    private Long imagenSize;
 
     @Column(name = "imagen_content_type")
     private String imagenContentType;
@@ -52,7 +64,7 @@ public class Producto implements Serializable {
     @Column(name = "tipoproducto")
     private TipoProducto tipoproducto;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnoreProperties(value = { "factura" }, allowSetters = true)
     private Compra compra;
 
@@ -74,6 +86,14 @@ public class Producto implements Serializable {
         return this;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getNombreProducto() {
         return this.nombreProducto;
     }
@@ -100,17 +120,30 @@ public class Producto implements Serializable {
         this.calorias = calorias;
     }
 
-    public byte[] getImagen() {
-        return this.imagen;
+    public String getImagenHash() {
+        return this.imagenHash;
+    }
+
+    public Producto imagenHash(String imagenHash) {
+        this.imagenHash = imagenHash;
+        return this;
+    }
+
+    public void setImagenHash(String imagenHash) {
+        this.imagenHash = imagenHash;
+    }
+
+    public Long getImagenSize() {
+        return this.imagenSize;
     }
 
-    public Producto imagen(byte[] imagen) {
-        this.imagen = imagen;
+    public Producto imagenSize(Long imagenSize) {
+        this.imagenSize = imagenSize;
         return this;
     }
 
-    public void setImagen(byte[] imagen) {
-        this.imagen = imagen;
+    public void setImagenSize(Long imagenSize) {
+        this.imagenSize = imagenSize;
     }
 
     public String getImagenContentType() {
@@ -224,8 +257,8 @@ public class Producto implements Serializable {
 
     @Override
     public int hashCode() {
-        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
-        return getClass().hashCode();
+        // From the id only, see EntityHashCode
+        return EntityHashCode.of(id, getClass());
     }
 
     // prettier-ignore
@@ -235,7 +268,8 @@ public class Producto implements Serializable {
             "id=" + getId() +
             ", nombreProducto='" + getNombreProducto() + "'" +
             ", calorias=" + getCalorias() +
-            ", imagen='" + getImagen() + "'" +
+            ", imagenHash='" + getImagenHash() + "'" +
+            ", imagenSize=" + getImagenSize() +
             ", imagenContentType='" + getImagenContentType() + "'" +
             ", precio=" + getPrecio() +
             ", existencias=" + getExistencias() +
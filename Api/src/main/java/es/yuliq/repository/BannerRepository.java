@@ -1,7 +1,9 @@
 package es.yuliq.repository;
 
 import es.yuliq.domain.Banner;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +11,9 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface BannerRepository extends JpaRepository<Banner, Long>, JpaSpecificationExecutor<Banner> {}
+public interface BannerRepository extends JpaRepository<Banner, Long>, JpaSpecificationExecutor<Banner> {
+    @Query(
+        "select banner.imagenHash as imagenHash, banner.imagenContentType as imagenContentType from Banner banner where banner.id = :id"
+    )
+    Optional<ImagenProjection> findImagenById(@Param("id") Long id);
+}
@@ -0,0 +1,10 @@
+package es.yuliq.repository;
+
+/**
+ * Projection of a row of the join table between {@link es.yuliq.domain.Carrito} and {@link es.yuliq.domain.Producto}.
+ */
+public interface CarritoProductoId {
+    Long getCarritoId();
+
+    Long getProductoId();
+}
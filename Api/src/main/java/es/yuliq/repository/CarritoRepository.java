@@ -1,12 +1,15 @@
 package es.yuliq.repository;
 
 import es.yuliq.domain.Carrito;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -17,17 +20,37 @@ public interface CarritoRepository extends JpaRepository<Carrito, Long>, JpaSpec
     @Query("select carrito from Carrito carrito where carrito.assignedTo.login = ?#{principal.username}")
     List<Carrito> findByAssignedToIsCurrentUser();
 
-    @Query(
-        value = "select distinct carrito from Carrito carrito left join fetch carrito.productos",
-        countQuery = "select count(distinct carrito) from Carrito carrito"
-    )
-    Page<Carrito> findAllWithEagerRelationships(Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = "assignedTo")
+    Page<Carrito> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "assignedTo")
+    Page<Carrito> findAll(@Nullable Specification<Carrito> spec, Pageable pageable);
 
-    @Query("select distinct carrito from Carrito carrito left join fetch carrito.productos")
+    @Override
+    @EntityGraph(attributePaths = "assignedTo")
+    List<Carrito> findAll(@Nullable Specification<Carrito> spec);
+
+    @Query("select distinct carrito from Carrito carrito left join fetch carrito.assignedTo left join fetch carrito.productos")
     List<Carrito> findAllWithEagerRelationships();
 
-    @Query("select carrito from Carrito carrito left join fetch carrito.productos where carrito.id =:id")
+    @Query(
+        "select carrito from Carrito carrito left join fetch carrito.assignedTo left join fetch carrito.productos where carrito.id =:id"
+    )
     Optional<Carrito> findOneWithEagerRelationships(@Param("id") Long id);
 
+    /**
+     * The second query of a page of carritos with their relationships, once the ids of the page are known.
+     */
+    @Query(
+        "select distinct carrito from Carrito carrito left join fetch carrito.assignedTo left join fetch carrito.productos " +
+        "where carrito.id in :ids"
+    )
+    List<Carrito> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
 
+    @Query(
+        "select carrito.id as carritoId, producto.id as productoId from Carrito carrito join carrito.productos producto where carrito.id in :ids"
+    )
+    List<CarritoProductoId> findProductoIdsByCarritoIdIn(@Param("ids") Collection<Long> ids);
 }
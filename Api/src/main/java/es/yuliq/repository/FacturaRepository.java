@@ -2,7 +2,11 @@ package es.yuliq.repository;
 
 import es.yuliq.domain.Factura;
 import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -13,4 +17,16 @@ import org.springframework.stereotype.Repository;
 public interface FacturaRepository extends JpaRepository<Factura, Long>, JpaSpecificationExecutor<Factura> {
     @Query("select factura from Factura factura where factura.assignedTo.login = ?#{principal.username}")
     List<Factura> findByAssignedToIsCurrentUser();
+
+    @Override
+    @EntityGraph(attributePaths = "assignedTo")
+    Page<Factura> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "assignedTo")
+    Page<Factura> findAll(@Nullable Specification<Factura> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "assignedTo")
+    List<Factura> findAll(@Nullable Specification<Factura> spec);
 }
@@ -0,0 +1,10 @@
+package es.yuliq.repository;
+
+/**
+ * Projection of the image reference held by {@link es.yuliq.domain.Producto} and {@link es.yuliq.domain.Banner}.
+ */
+public interface ImagenProjection {
+    String getImagenHash();
+
+    String getImagenContentType();
+}
@@ -1,7 +1,10 @@
 package es.yuliq.repository;
 
 import es.yuliq.domain.Producto;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +12,16 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto> {}
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto> {
+    @Query(
+        "select producto.imagenHash as imagenHash, producto.imagenContentType as imagenContentType from Producto producto where producto.id = :id"
+    )
+    Optional<ImagenProjection> findImagenById(@Param("id") Long id);
+
+    @Query(
+        "select producto.nombreProducto as nombreProducto, coalesce(sum(compra.cantidadComprada), 0) as ventas" +
+        " from Producto producto left join Compra compra on compra.producto = producto or compra.id = producto.compra.id" +
+        " group by producto.nombreProducto"
+    )
+    List<VentasProjection> findVentasByNombreProducto();
+}
@@ -0,0 +1,10 @@
+package es.yuliq.repository;
+
+/**
+ * Projection of the units sold of the productos with a given name, from the {@link es.yuliq.domain.Compra} they belong to.
+ */
+public interface VentasProjection {
+    String getNombreProducto();
+
+    Long getVentas();
+}
@@ -0,0 +1,144 @@
+package es.yuliq.security;
+
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.security.jwt.TokenProvider;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs and checks the cart tokens of the anonymous visitors, which hold the productos of their cart and the units
+ * of each, so that these carts are kept by the browser instead of the database.
+ * <p>
+ * A token is {@code payload.signature}, both in unpadded Base64url. The payload is the expiry in epoch seconds, a
+ * {@code ;}, then the items as {@code productoId:cantidad} separated by commas. The signature is the HMAC-SHA256
+ * of the payload, truncated to 128 bits, with a key derived from the key of the JWTs. Checking a token needs no
+ * database access.
+ */
+@Component
+public class CartTokenProvider {
+
+    public static final String HEADER = "X-Cart-Token";
+
+    public static final String COOKIE = "cart-token";
+
+    private static final String KEY_PURPOSE = "cart-token";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int SIGNATURE_BYTES = 16;
+
+    private static final int MAX_TOKEN_LENGTH = 4096;
+
+    private final Logger log = LoggerFactory.getLogger(CartTokenProvider.class);
+
+    private final SecretKeySpec key;
+
+    private final long validityInSeconds;
+
+    private final int maxItems;
+
+    public CartTokenProvider(TokenProvider tokenProvider, ApplicationProperties applicationProperties) {
+        this.key = new SecretKeySpec(tokenProvider.deriveKey(KEY_PURPOSE), ALGORITHM);
+        this.validityInSeconds = applicationProperties.getCartToken().getValidityInSeconds();
+        this.maxItems = applicationProperties.getCartToken().getMaxItems();
+    }
+
+    public long getValidityInSeconds() {
+        return validityInSeconds;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * @param items the units of each producto, each at least one.
+     * @return the signed token of the cart, valid for {@code application.cart-token.validity-in-seconds}.
+     * @throws IllegalArgumentException if there are more than {@code application.cart-token.max-items} productos.
+     */
+    public String createToken(Map<Long, Integer> items) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("A cart token holds at most " + maxItems + " productos");
+        }
+        StringJoiner payload = new StringJoiner(",", (Instant.now().getEpochSecond() + validityInSeconds) + ";", "");
+        new TreeMap<>(items).forEach((productoId, cantidad) -> payload.add(productoId + ":" + cantidad));
+        byte[] payloadBytes = payload.toString().getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * @param token the token sent by the browser, may be null.
+     * @return the units of each producto of the cart, sorted by producto, or empty if the token is missing, invalid
+     * or expired.
+     */
+    public Optional<SortedMap<Long, Integer>> parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            int dot = token.indexOf('.');
+            if (token.length() > MAX_TOKEN_LENGTH || dot < 0) {
+                throw new IllegalArgumentException("Malformed cart token");
+            }
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payloadBytes = decoder.decode(token.substring(0, dot));
+            if (!MessageDigest.isEqual(sign(payloadBytes), decoder.decode(token.substring(dot + 1)))) {
+                throw new IllegalArgumentException("Invalid cart token signature");
+            }
+            String payload = new String(payloadBytes, StandardCharsets.UTF_8);
+            int semicolon = payload.indexOf(';');
+            if (Long.parseLong(payload.substring(0, semicolon)) < Instant.now().getEpochSecond()) {
+                log.debug("Expired cart token.");
+                return Optional.empty();
+            }
+            return Optional.of(parseItems(payload.substring(semicolon + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            log.info("Invalid cart token.");
+            log.trace("Invalid cart token trace.", e);
+            return Optional.empty();
+        }
+    }
+
+    private SortedMap<Long, Integer> parseItems(String items) {
+        SortedMap<Long, Integer> parsed = new TreeMap<>();
+        if (items.isEmpty()) {
+            return parsed;
+        }
+        for (String item : items.split(",")) {
+            int colon = item.indexOf(':');
+            int cantidad = Integer.parseInt(item.substring(colon + 1));
+            if (cantidad < 1 || parsed.put(Long.valueOf(item.substring(0, colon)), cantidad) != null) {
+                throw new IllegalArgumentException("Invalid cart token item " + item);
+            }
+        }
+        if (parsed.size() > maxItems) {
+            throw new IllegalArgumentException("Too many items in the cart token");
+        }
+        return parsed;
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
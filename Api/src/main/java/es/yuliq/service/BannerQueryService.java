@@ -6,16 +6,21 @@ import es.yuliq.repository.BannerRepository;
 import es.yuliq.service.criteria.BannerCriteria;
 import es.yuliq.service.dto.BannerDTO;
 import es.yuliq.service.mapper.BannerMapper;
+import java.time.Instant;
 import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import tech.jhipster.service.QueryService;
 
 /**
  * Service for executing complex queries for {@link Banner} entities in the database.
@@ -25,7 +30,7 @@ import tech.jhipster.service.QueryService;
  */
 @Service
 @Transactional(readOnly = true)
-public class BannerQueryService extends QueryService<Banner> {
+public class BannerQueryService extends ProjectionQueryService<Banner> {
 
     private final Logger log = LoggerFactory.getLogger(BannerQueryService.class);
 
@@ -33,9 +38,18 @@ public class BannerQueryService extends QueryService<Banner> {
 
     private final BannerMapper bannerMapper;
 
-    public BannerQueryService(BannerRepository bannerRepository, BannerMapper bannerMapper) {
+    private final CountEstimator countEstimator;
+
+    public BannerQueryService(
+        BannerRepository bannerRepository,
+        BannerMapper bannerMapper,
+        EntityManager entityManager,
+        CountEstimator countEstimator
+    ) {
+        super(entityManager, Banner.class);
         this.bannerRepository = bannerRepository;
         this.bannerMapper = bannerMapper;
+        this.countEstimator = countEstimator;
     }
 
     /**
@@ -63,6 +77,72 @@ public class BannerQueryService extends QueryService<Banner> {
         return bannerRepository.findAll(specification, page).map(bannerMapper::toDto);
     }
 
+    /**
+     * Return a {@link Page} of {@link BannerDTO} which matches the criteria from the database,
+     * reading only the scalar columns.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<BannerDTO> findProjectedByCriteria(BannerCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Banner> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            BannerQueryService::listSelection,
+            BannerQueryService::toListDto,
+            () -> bannerRepository.count(specification)
+        );
+    }
+
+    /**
+     * Return a {@link Page} of {@link BannerDTO} which matches the criteria from the database, like
+     * {@link #findProjectedByCriteria(BannerCriteria, Pageable)}, but with an estimated total.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<BannerDTO> findProjectedByCriteriaWithEstimatedCount(BannerCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria with estimated count : {}, page: {}", criteria, page);
+        final Specification<Banner> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            BannerQueryService::listSelection,
+            BannerQueryService::toListDto,
+            () -> countEstimator.estimate(Banner.class, criteria, () -> bannerRepository.count(specification))
+        );
+    }
+
+    /**
+     * Return a {@link Slice} of {@link BannerDTO} which matches the criteria from the database, without counting them.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<BannerDTO> findProjectedSliceByCriteria(BannerCriteria criteria, Pageable page) {
+        log.debug("find projected slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Banner> specification = createSpecification(criteria);
+        return findProjectedSlice(specification, page, BannerQueryService::listSelection, BannerQueryService::toListDto);
+    }
+
+    /**
+     * Return the page of {@link BannerDTO} which matches the criteria from the database and follows a keyset pagination cursor.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The cursor, size and sort of the page.
+     * @return the matching entities and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<BannerDTO> findProjectedByCriteria(BannerCriteria criteria, KeysetPageRequest page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Banner> specification = createSpecification(criteria);
+        return findProjected(specification, page, BannerQueryService::listSelection, BannerQueryService::toListDto);
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -92,4 +172,26 @@ public class BannerQueryService extends QueryService<Banner> {
         }
         return specification;
     }
+
+    private static List<Selection<?>> listSelection(Root<Banner> root) {
+        return List.of(
+            root.get(Banner_.id).alias("id"),
+            root.get(Banner_.version).alias("version"),
+            root.get(Banner_.imagenHash).alias("imagenHash"),
+            root.get(Banner_.imagenSize).alias("imagenSize"),
+            root.get(Banner_.imagenContentType).alias("imagenContentType"),
+            root.get(Banner_.fechaPuesta).alias("fechaPuesta")
+        );
+    }
+
+    private static BannerDTO toListDto(Tuple tuple) {
+        BannerDTO bannerDTO = new BannerDTO();
+        bannerDTO.setId(tuple.get("id", Long.class));
+        bannerDTO.setVersion(tuple.get("version", Long.class));
+        bannerDTO.setImagenHash(tuple.get("imagenHash", String.class));
+        bannerDTO.setImagenSize(tuple.get("imagenSize", Long.class));
+        bannerDTO.setImagenContentType(tuple.get("imagenContentType", String.class));
+        bannerDTO.setFechaPuesta(tuple.get("fechaPuesta", Instant.class));
+        return bannerDTO;
+    }
 }
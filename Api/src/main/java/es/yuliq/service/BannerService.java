@@ -12,16 +12,18 @@ public interface BannerService {
     /**
      * Save a banner.
      *
-     * @param bannerDTO the entity to save.
-     * @return the persisted entity.
+     * @param bannerDTO the entity to save; an update with a version only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     BannerDTO save(BannerDTO bannerDTO);
 
     /**
      * Partially updates a banner.
      *
-     * @param bannerDTO the entity to update partially.
-     * @return the persisted entity.
+     * @param bannerDTO the entity to update partially; with a version, it only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     Optional<BannerDTO> partialUpdate(BannerDTO bannerDTO);
 
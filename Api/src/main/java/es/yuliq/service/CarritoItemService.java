@@ -0,0 +1,170 @@
+package es.yuliq.service;
+
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.User;
+import es.yuliq.repository.UserRepository;
+import es.yuliq.service.cart.CartContents;
+import es.yuliq.service.cart.CartStore;
+import es.yuliq.service.dto.CarritoItemDTO;
+import es.yuliq.service.dto.CarritoSummaryDTO;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for changing one line of a {@link Carrito} at a time.
+ * <p>
+ * The lines are changed in the {@link CartStore}, which absorbs the bursts of changes of a carrito being filled and
+ * writes them to {@code rel_carrito__producto} later. Each change increments the version of the carrito, and the
+ * changes of the same carrito are applied one after the other. A change made on an older version, in another tab or
+ * device, is merged as long as it changes another line than the ones changed since.
+ */
+@Service
+@Transactional
+public class CarritoItemService {
+
+    private final Logger log = LoggerFactory.getLogger(CarritoItemService.class);
+
+    private final EntityManager entityManager;
+
+    private final UserRepository userRepository;
+
+    private final CartStore cartStore;
+
+    public CarritoItemService(EntityManager entityManager, UserRepository userRepository, CartStore cartStore) {
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.cartStore = cartStore;
+    }
+
+    /**
+     * Set the number of units of a producto in a carrito, adding the line if needed.
+     *
+     * @param carritoId the id of the carrito.
+     * @param item the producto, which must exist, and its number of units.
+     * @param baseVersion the version of the carrito the change was made on, null for the current one; an older one
+     * only applies if the line of the producto did not change since.
+     * @return the summary of the carrito, empty if the carrito does not exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the line changed since the version.
+     */
+    public Optional<CarritoSummaryDTO> putItem(Long carritoId, CarritoItemDTO item, Long baseVersion) {
+        log.debug("Request to put the item {} in Carrito : {}", item, carritoId);
+        return cartStore
+            .update(carritoId, baseVersion, items -> Collections.singletonMap(item.getProductoId(), item.getCantidad()))
+            .map(this::summary);
+    }
+
+    /**
+     * Remove the line of a producto from a carrito, if it has one.
+     *
+     * @param carritoId the id of the carrito.
+     * @param productoId the id of the producto.
+     * @param baseVersion the version of the carrito the change was made on, null for the current one; an older one
+     * only applies if the line of the producto did not change since.
+     * @return the summary of the carrito, empty if the carrito does not exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the line changed since the version.
+     */
+    public Optional<CarritoSummaryDTO> removeItem(Long carritoId, Long productoId, Long baseVersion) {
+        log.debug("Request to remove the producto {} from Carrito : {}", productoId, carritoId);
+        return cartStore.update(carritoId, baseVersion, items -> Collections.singletonMap(productoId, 0)).map(this::summary);
+    }
+
+    /**
+     * Add the items of an anonymous cart to the latest carrito of a user, creating it if the user has none. A producto
+     * already in the carrito keeps the larger of its units and the ones of the cart, rather than their sum, so that
+     * merging the same cart again, as the token is sent again on another login, changes nothing. The productos that
+     * no longer exist are left out. The items are applied as one change of the carrito.
+     *
+     * @param login the login of the user.
+     * @param items the units of each producto in the anonymous cart.
+     * @return the summary of the carrito, empty if the user does not exist.
+     */
+    public Optional<CarritoSummaryDTO> mergeItems(String login, Map<Long, Integer> items) {
+        log.debug("Request to merge {} items in the Carrito of User : {}", items.size(), login);
+        Optional<User> user = userRepository.findOneByLogin(login);
+        if (!user.isPresent()) {
+            return Optional.empty();
+        }
+        Long carritoId = entityManager
+            .createQuery("select carrito.id from Carrito carrito where carrito.assignedTo = :user order by carrito.id desc", Long.class)
+            .setParameter("user", user.get())
+            .setMaxResults(1)
+            .getResultStream()
+            .findFirst()
+            .orElse(null);
+        if (carritoId == null) {
+            Carrito carrito = new Carrito().fechaCarrito(Instant.now()).assignedTo(user.get());
+            entityManager.persist(carrito);
+            entityManager.flush();
+            carritoId = carrito.getId();
+        }
+        List<Long> productoIds = items.isEmpty()
+            ? Collections.emptyList()
+            : entityManager
+                .createQuery("select producto.id from Producto producto where producto.id in :ids", Long.class)
+                .setParameter("ids", items.keySet())
+                .getResultList();
+        return cartStore
+            .update(
+                carritoId,
+                current -> {
+                    Map<Long, Integer> merged = new HashMap<>();
+                    for (Long productoId : productoIds) {
+                        merged.put(productoId, Math.max(current.getOrDefault(productoId, 0), items.get(productoId)));
+                    }
+                    return merged;
+                }
+            )
+            .map(this::summary);
+    }
+
+    /**
+     * @param carritoId the id of the carrito.
+     * @return the summary of the carrito, empty if the carrito does not exist.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CarritoSummaryDTO> findSummary(Long carritoId) {
+        log.debug("Request to get the summary of Carrito : {}", carritoId);
+        return cartStore.get(carritoId).map(this::summary);
+    }
+
+    private CarritoSummaryDTO summary(CartContents contents) {
+        CarritoSummaryDTO summary = new CarritoSummaryDTO();
+        summary.setId(contents.getCarritoId());
+        summary.setVersion(contents.getVersion());
+        Map<Long, Float> precios = new HashMap<>();
+        if (!contents.getItems().isEmpty()) {
+            List<Object[]> rows = entityManager
+                .createQuery("select producto.id, producto.precio from Producto producto where producto.id in :ids", Object[].class)
+                .setParameter("ids", contents.getItems().keySet())
+                .getResultList();
+            for (Object[] row : rows) {
+                precios.put((Long) row[0], (Float) row[1]);
+            }
+        }
+        int unidades = 0;
+        double total = 0;
+        for (Map.Entry<Long, Integer> item : contents.getItems().entrySet()) {
+            Float precio = precios.get(item.getKey());
+            // A producto deleted since it was added is left out, as it is when the carrito is written
+            if (precio == null) {
+                continue;
+            }
+            int cantidad = item.getValue();
+            summary.getItems().add(new CarritoItemDTO(item.getKey(), cantidad));
+            unidades += cantidad;
+            total += cantidad * precio.doubleValue();
+        }
+        summary.setUnidades(unidades);
+        summary.setTotal(total);
+        return summary;
+    }
+}
@@ -2,20 +2,33 @@ package es.yuliq.service;
 
 import es.yuliq.domain.*; // for static metamodels
 import es.yuliq.domain.Carrito;
+import es.yuliq.repository.CarritoProductoId;
 import es.yuliq.repository.CarritoRepository;
+import es.yuliq.service.cart.CartStore;
 import es.yuliq.service.criteria.CarritoCriteria;
 import es.yuliq.service.dto.CarritoDTO;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.dto.UserDTO;
 import es.yuliq.service.mapper.CarritoMapper;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import tech.jhipster.service.QueryService;
 
 /**
  * Service for executing complex queries for {@link Carrito} entities in the database.
@@ -25,7 +38,7 @@ import tech.jhipster.service.QueryService;
  */
 @Service
 @Transactional(readOnly = true)
-public class CarritoQueryService extends QueryService<Carrito> {
+public class CarritoQueryService extends ProjectionQueryService<Carrito> {
 
     private final Logger log = LoggerFactory.getLogger(CarritoQueryService.class);
 
@@ -33,9 +46,33 @@ public class CarritoQueryService extends QueryService<Carrito> {
 
     private final CarritoMapper carritoMapper;
 
-    public CarritoQueryService(CarritoRepository carritoRepository, CarritoMapper carritoMapper) {
+    private final CountEstimator countEstimator;
+
+    private final CartStore cartStore;
+
+    public CarritoQueryService(
+        CarritoRepository carritoRepository,
+        CarritoMapper carritoMapper,
+        EntityManager entityManager,
+        CountEstimator countEstimator,
+        CartStore cartStore
+    ) {
+        super(entityManager, Carrito.class);
         this.carritoRepository = carritoRepository;
         this.carritoMapper = carritoMapper;
+        this.countEstimator = countEstimator;
+        this.cartStore = cartStore;
+    }
+
+    /**
+     * The version of a carrito held by the {@link CartStore} is ahead of the database until its lines are written,
+     * so it is the one the entity tags are checked against.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        Optional<Long> held = cartStore.findVersion(id);
+        return held.isPresent() ? held : super.findVersion(id);
     }
 
     /**
@@ -63,6 +100,110 @@ public class CarritoQueryService extends QueryService<Carrito> {
         return carritoRepository.findAll(specification, page).map(carritoMapper::toDto);
     }
 
+    /**
+     * Return a {@link Page} of {@link CarritoDTO} which matches the criteria from the database, with their assigned
+     * user and productos. The ids of the page are read first, then the carritos of these ids with a fetch join.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<CarritoDTO> findWithEagerRelationshipsByCriteria(CarritoCriteria criteria, Pageable page) {
+        log.debug("find with eager relationships by criteria : {}, page: {}", criteria, page);
+        final Specification<Carrito> specification = createSpecification(criteria);
+        return findFetched(
+            specification,
+            page,
+            carritoRepository::findAllWithEagerRelationshipsByIdIn,
+            () -> carritoRepository.count(specification)
+        )
+            .map(carritoMapper::toDto);
+    }
+
+    /**
+     * Return a {@link Page} of {@link CarritoDTO} which matches the criteria from the database,
+     * reading only the scalar columns, the id and login of the assigned user and the ids of the productos.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<CarritoDTO> findProjectedByCriteria(CarritoCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Carrito> specification = createSpecification(criteria);
+        Page<CarritoDTO> carritos = findProjected(
+            specification,
+            page,
+            CarritoQueryService::listSelection,
+            CarritoQueryService::toListDto,
+            () -> carritoRepository.count(specification)
+        );
+        addProductoIds(carritos.getContent());
+        return carritos;
+    }
+
+    /**
+     * Return a {@link Page} of {@link CarritoDTO} which matches the criteria from the database, like
+     * {@link #findProjectedByCriteria(CarritoCriteria, Pageable)}, but with an estimated total.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<CarritoDTO> findProjectedByCriteriaWithEstimatedCount(CarritoCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria with estimated count : {}, page: {}", criteria, page);
+        final Specification<Carrito> specification = createSpecification(criteria);
+        Page<CarritoDTO> carritos = findProjected(
+            specification,
+            page,
+            CarritoQueryService::listSelection,
+            CarritoQueryService::toListDto,
+            () -> countEstimator.estimate(Carrito.class, criteria, () -> carritoRepository.count(specification))
+        );
+        addProductoIds(carritos.getContent());
+        return carritos;
+    }
+
+    /**
+     * Return a {@link Slice} of {@link CarritoDTO} which matches the criteria from the database, without counting them.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CarritoDTO> findProjectedSliceByCriteria(CarritoCriteria criteria, Pageable page) {
+        log.debug("find projected slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Carrito> specification = createSpecification(criteria);
+        Slice<CarritoDTO> carritos = findProjectedSlice(
+            specification,
+            page,
+            CarritoQueryService::listSelection,
+            CarritoQueryService::toListDto
+        );
+        addProductoIds(carritos.getContent());
+        return carritos;
+    }
+
+    /**
+     * Return the page of {@link CarritoDTO} which matches the criteria from the database and follows a keyset pagination cursor.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The cursor, size and sort of the page.
+     * @return the matching entities and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<CarritoDTO> findProjectedByCriteria(CarritoCriteria criteria, KeysetPageRequest page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Carrito> specification = createSpecification(criteria);
+        KeysetSlice<CarritoDTO> carritos = findProjected(
+            specification,
+            page,
+            CarritoQueryService::listSelection,
+            CarritoQueryService::toListDto
+        );
+        addProductoIds(carritos.getContent());
+        return carritos;
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -107,4 +248,47 @@ public class CarritoQueryService extends QueryService<Carrito> {
         }
         return specification;
     }
+
+    private static List<Selection<?>> listSelection(Root<Carrito> root) {
+        Join<Carrito, User> assignedTo = root.join(Carrito_.assignedTo, JoinType.LEFT);
+        return List.of(
+            root.get(Carrito_.id).alias("id"),
+            root.get(Carrito_.version).alias("version"),
+            root.get(Carrito_.cantidad).alias("cantidad"),
+            root.get(Carrito_.fechaCarrito).alias("fechaCarrito"),
+            assignedTo.get(User_.id).alias("assignedToId"),
+            assignedTo.get(User_.login).alias("assignedToLogin")
+        );
+    }
+
+    private static CarritoDTO toListDto(Tuple tuple) {
+        CarritoDTO carritoDTO = new CarritoDTO();
+        carritoDTO.setId(tuple.get("id", Long.class));
+        carritoDTO.setVersion(tuple.get("version", Long.class));
+        carritoDTO.setCantidad(tuple.get("cantidad", Integer.class));
+        carritoDTO.setFechaCarrito(tuple.get("fechaCarrito", Instant.class));
+        Long assignedToId = tuple.get("assignedToId", Long.class);
+        if (assignedToId != null) {
+            UserDTO assignedTo = new UserDTO();
+            assignedTo.setId(assignedToId);
+            assignedTo.setLogin(tuple.get("assignedToLogin", String.class));
+            carritoDTO.setAssignedTo(assignedTo);
+        }
+        return carritoDTO;
+    }
+
+    private void addProductoIds(List<CarritoDTO> carritos) {
+        if (carritos.isEmpty()) {
+            return;
+        }
+        Map<Long, CarritoDTO> carritosById = new HashMap<>();
+        for (CarritoDTO carritoDTO : carritos) {
+            carritosById.put(carritoDTO.getId(), carritoDTO);
+        }
+        for (CarritoProductoId carritoProducto : carritoRepository.findProductoIdsByCarritoIdIn(carritosById.keySet())) {
+            ProductoDTO productoDTO = new ProductoDTO();
+            productoDTO.setId(carritoProducto.getProductoId());
+            carritosById.get(carritoProducto.getCarritoId()).getProductos().add(productoDTO);
+        }
+    }
 }
@@ -12,16 +12,21 @@ public interface CarritoService {
     /**
      * Save a carrito.
      *
-     * @param carritoDTO the entity to save.
-     * @return the persisted entity.
+     * @param carritoDTO the entity to save; an update with an older version is merged with the changes made since,
+     * and one without a version replaces the current carrito.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the changes made since the version
+     * cannot be merged.
      */
     CarritoDTO save(CarritoDTO carritoDTO);
 
     /**
      * Partially updates a carrito.
      *
-     * @param carritoDTO the entity to update partially.
-     * @return the persisted entity.
+     * @param carritoDTO the entity to update partially; with an older version, it is merged with the changes made since.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the changes made since the version
+     * cannot be merged.
      */
     Optional<CarritoDTO> partialUpdate(CarritoDTO carritoDTO);
 
@@ -0,0 +1,191 @@
+package es.yuliq.service;
+
+import es.yuliq.domain.Compra;
+import es.yuliq.domain.Factura;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.User;
+import es.yuliq.repository.UserRepository;
+import es.yuliq.service.cart.CartContents;
+import es.yuliq.service.cart.CartStore;
+import es.yuliq.service.dto.FacturaDTO;
+import es.yuliq.service.mapper.FacturaMapper;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service turning the carrito of a user into a {@link Factura}, with a {@link Compra} for each of its lines.
+ * <p>
+ * A checkout is one transaction. The factura and its compras are inserted in JDBC batches of
+ * {@code hibernate.jdbc.batch_size}, with ids taken from the pooled {@code sequence_generator}; the units bought are
+ * taken from the stock of the productos by the {@link StockService}, all or none; and the lines are removed from the
+ * carrito.
+ * <p>
+ * The lines are removed from the {@link CartStore} first, on the version that was read, so that of two checkouts of
+ * the same carrito, or of a checkout and a change of one of its lines, only one goes through. They are put back if
+ * the transaction rolls back.
+ */
+@Service
+@Transactional
+public class CheckoutService {
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutService.class);
+
+    private final EntityManager entityManager;
+
+    private final UserRepository userRepository;
+
+    private final CartStore cartStore;
+
+    private final FacturaMapper facturaMapper;
+
+    private final StockService stockService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CheckoutService(
+        EntityManager entityManager,
+        UserRepository userRepository,
+        CartStore cartStore,
+        FacturaMapper facturaMapper,
+        StockService stockService,
+        ApplicationEventPublisher eventPublisher
+    ) {
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.cartStore = cartStore;
+        this.facturaMapper = facturaMapper;
+        this.stockService = stockService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Check out the latest carrito of a user. The lines of productos deleted since they were added are dropped.
+     *
+     * @param login the login of the user.
+     * @return the factura, empty if the user does not exist.
+     * @throws EmptyCarritoException if the user has no carrito, or no line of an existing producto.
+     * @throws OutOfStockException if some productos do not have enough units in stock; nothing is changed.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the lines of the carrito changed
+     * meanwhile.
+     */
+    public Optional<FacturaDTO> checkout(String login) {
+        log.debug("Request to check out the Carrito of User : {}", login);
+        Optional<User> user = userRepository.findOneByLogin(login);
+        if (!user.isPresent()) {
+            return Optional.empty();
+        }
+        Long carritoId = entityManager
+            .createQuery("select carrito.id from Carrito carrito where carrito.assignedTo = :user order by carrito.id desc", Long.class)
+            .setParameter("user", user.get())
+            .setMaxResults(1)
+            .getResultStream()
+            .findFirst()
+            .orElseThrow(EmptyCarritoException::new);
+        CartContents contents = cartStore.get(carritoId).orElseThrow(EmptyCarritoException::new);
+        SortedMap<Long, Integer> items = contents.getItems();
+        if (items.isEmpty()) {
+            throw new EmptyCarritoException();
+        }
+        // The productos themselves are not loaded, as their stock is changed behind the back of Hibernate
+        SortedMap<Long, Float> precios = new TreeMap<>();
+        List<Object[]> rows = entityManager
+            .createQuery("select producto.id, producto.precio from Producto producto where producto.id in :ids", Object[].class)
+            .setParameter("ids", items.keySet())
+            .getResultList();
+        for (Object[] row : rows) {
+            precios.put((Long) row[0], (Float) row[1]);
+        }
+        if (precios.isEmpty()) {
+            throw new EmptyCarritoException();
+        }
+        Map<Long, Integer> lines = new HashMap<>();
+        precios.keySet().forEach(productoId -> lines.put(productoId, items.get(productoId)));
+        List<Long> outOfStock = stockService.decrement(lines);
+        if (!outOfStock.isEmpty()) {
+            throw new OutOfStockException(outOfStock);
+        }
+
+        removeLines(carritoId, contents);
+
+        double total = 0;
+        for (Map.Entry<Long, Float> precio : precios.entrySet()) {
+            total += lines.get(precio.getKey()) * precio.getValue().doubleValue();
+        }
+        // Whole units, as in the column
+        Factura factura = new Factura().fechaFactura(Instant.now()).cantidadPagada((int) Math.round(total)).assignedTo(user.get());
+        entityManager.persist(factura);
+        precios.forEach(
+            (productoId, precio) -> {
+                int cantidad = lines.get(productoId);
+                Compra compra = new Compra()
+                    .cantidadComprada(cantidad)
+                    .precioPagado(cantidad * precio)
+                    .factura(factura)
+                    .producto(entityManager.getReference(Producto.class, productoId));
+                // Persisted first, so that it has its id once in the compras of the factura
+                entityManager.persist(compra);
+                factura.addCompra(compra);
+                eventPublisher.publishEvent(new EntityChangedEvent(Compra.class, compra.getId()));
+            }
+        );
+        // Written now, so that a failure of the batches rolls back before the lines of the carrito are written
+        entityManager.flush();
+        cartStore.flush(carritoId);
+        return Optional.of(facturaMapper.toDto(factura));
+    }
+
+    /**
+     * Remove the lines read from the carrito, failing if any of them changed since, and put them back if the current
+     * transaction does not commit.
+     */
+    private void removeLines(Long carritoId, CartContents contents) {
+        Map<Long, Integer> removed = new HashMap<>();
+        contents.getItems().keySet().forEach(productoId -> removed.put(productoId, 0));
+        cartStore.update(carritoId, contents.getVersion(), current -> removed).orElseThrow(EmptyCarritoException::new);
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        restoreLines(carritoId, contents.getItems());
+                    }
+                }
+            }
+        );
+    }
+
+    private void restoreLines(Long carritoId, Map<Long, Integer> items) {
+        try {
+            cartStore.update(
+                carritoId,
+                current -> {
+                    // A producto added again meanwhile keeps its new line
+                    Map<Long, Integer> restored = new HashMap<>();
+                    items.forEach(
+                        (productoId, cantidad) -> {
+                            if (!current.containsKey(productoId)) {
+                                restored.put(productoId, cantidad);
+                            }
+                        }
+                    );
+                    return restored;
+                }
+            );
+        } catch (RuntimeException e) {
+            log.warn("Could not put back the lines of Carrito {} after a failed checkout: {}", carritoId, e.getMessage());
+        }
+    }
+}
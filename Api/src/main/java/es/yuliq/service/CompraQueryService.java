@@ -5,17 +5,22 @@ import es.yuliq.domain.Compra;
 import es.yuliq.repository.CompraRepository;
 import es.yuliq.service.criteria.CompraCriteria;
 import es.yuliq.service.dto.CompraDTO;
+import es.yuliq.service.dto.FacturaDTO;
 import es.yuliq.service.mapper.CompraMapper;
 import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import tech.jhipster.service.QueryService;
 
 /**
  * Service for executing complex queries for {@link Compra} entities in the database.
@@ -25,7 +30,7 @@ import tech.jhipster.service.QueryService;
  */
 @Service
 @Transactional(readOnly = true)
-public class CompraQueryService extends QueryService<Compra> {
+public class CompraQueryService extends ProjectionQueryService<Compra> {
 
     private final Logger log = LoggerFactory.getLogger(CompraQueryService.class);
 
@@ -33,9 +38,18 @@ public class CompraQueryService extends QueryService<Compra> {
 
     private final CompraMapper compraMapper;
 
-    public CompraQueryService(CompraRepository compraRepository, CompraMapper compraMapper) {
+    private final CountEstimator countEstimator;
+
+    public CompraQueryService(
+        CompraRepository compraRepository,
+        CompraMapper compraMapper,
+        EntityManager entityManager,
+        CountEstimator countEstimator
+    ) {
+        super(entityManager, Compra.class);
         this.compraRepository = compraRepository;
         this.compraMapper = compraMapper;
+        this.countEstimator = countEstimator;
     }
 
     /**
@@ -63,6 +77,72 @@ public class CompraQueryService extends QueryService<Compra> {
         return compraRepository.findAll(specification, page).map(compraMapper::toDto);
     }
 
+    /**
+     * Return a {@link Page} of {@link CompraDTO} which matches the criteria from the database,
+     * reading only the scalar columns and the id of the factura.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<CompraDTO> findProjectedByCriteria(CompraCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Compra> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            CompraQueryService::listSelection,
+            CompraQueryService::toListDto,
+            () -> compraRepository.count(specification)
+        );
+    }
+
+    /**
+     * Return a {@link Page} of {@link CompraDTO} which matches the criteria from the database, like
+     * {@link #findProjectedByCriteria(CompraCriteria, Pageable)}, but with an estimated total.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<CompraDTO> findProjectedByCriteriaWithEstimatedCount(CompraCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria with estimated count : {}, page: {}", criteria, page);
+        final Specification<Compra> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            CompraQueryService::listSelection,
+            CompraQueryService::toListDto,
+            () -> countEstimator.estimate(Compra.class, criteria, () -> compraRepository.count(specification))
+        );
+    }
+
+    /**
+     * Return a {@link Slice} of {@link CompraDTO} which matches the criteria from the database, without counting them.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CompraDTO> findProjectedSliceByCriteria(CompraCriteria criteria, Pageable page) {
+        log.debug("find projected slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Compra> specification = createSpecification(criteria);
+        return findProjectedSlice(specification, page, CompraQueryService::listSelection, CompraQueryService::toListDto);
+    }
+
+    /**
+     * Return the page of {@link CompraDTO} which matches the criteria from the database and follows a keyset pagination cursor.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The cursor, size and sort of the page.
+     * @return the matching entities and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<CompraDTO> findProjectedByCriteria(CompraCriteria criteria, KeysetPageRequest page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Compra> specification = createSpecification(criteria);
+        return findProjected(specification, page, CompraQueryService::listSelection, CompraQueryService::toListDto);
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -101,4 +181,31 @@ public class CompraQueryService extends QueryService<Compra> {
         }
         return specification;
     }
+
+    private static List<Selection<?>> listSelection(Root<Compra> root) {
+        return List.of(
+            root.get(Compra_.id).alias("id"),
+            root.get(Compra_.version).alias("version"),
+            root.get(Compra_.cantidadComprada).alias("cantidadComprada"),
+            root.get(Compra_.precioPagado).alias("precioPagado"),
+            root.get(Compra_.factura).get(Factura_.id).alias("facturaId"),
+            root.join(Compra_.producto, JoinType.LEFT).get(Producto_.id).alias("productoId")
+        );
+    }
+
+    private static CompraDTO toListDto(Tuple tuple) {
+        CompraDTO compraDTO = new CompraDTO();
+        compraDTO.setId(tuple.get("id", Long.class));
+        compraDTO.setVersion(tuple.get("version", Long.class));
+        compraDTO.setCantidadComprada(tuple.get("cantidadComprada", Integer.class));
+        compraDTO.setPrecioPagado(tuple.get("precioPagado", Float.class));
+        Long facturaId = tuple.get("facturaId", Long.class);
+        if (facturaId != null) {
+            FacturaDTO facturaDTO = new FacturaDTO();
+            facturaDTO.setId(facturaId);
+            compraDTO.setFactura(facturaDTO);
+        }
+        compraDTO.setProductoId(tuple.get("productoId", Long.class));
+        return compraDTO;
+    }
 }
@@ -12,16 +12,18 @@ public interface CompraService {
     /**
      * Save a compra.
      *
-     * @param compraDTO the entity to save.
-     * @return the persisted entity.
+     * @param compraDTO the entity to save; an update with a version only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     CompraDTO save(CompraDTO compraDTO);
 
     /**
      * Partially updates a compra.
      *
-     * @param compraDTO the entity to update partially.
-     * @return the persisted entity.
+     * @param compraDTO the entity to update partially; with a version, it only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     Optional<CompraDTO> partialUpdate(CompraDTO compraDTO);
 
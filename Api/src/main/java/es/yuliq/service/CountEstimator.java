@@ -0,0 +1,100 @@
+package es.yuliq.service;
+
+import es.yuliq.config.ApplicationProperties;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import javax.persistence.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import tech.jhipster.service.Criteria;
+
+/**
+ * Service estimating the number of entities matching a criteria, for list endpoints where an
+ * approximate {@code X-Total-Count} is good enough.
+ * <p>
+ * Counts are cached per entity and criteria in the {@link #COUNTS_CACHE} cache, which expires its
+ * entries after {@code application.count-estimate.time-to-live-seconds}. Criteria are compared by
+ * value, so that requests with the same filters share their count whatever the order of their
+ * parameters. When there is no filter at all and the database is PostgreSQL, the row count estimated
+ * by the planner is used instead of a count query, unless the table is too small for the estimate to
+ * be worth it.
+ */
+@Service
+public class CountEstimator {
+
+    public static final String COUNTS_CACHE = "countEstimates";
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private static final String PLANNER_ESTIMATE_QUERY = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass(?)";
+
+    private final Logger log = LoggerFactory.getLogger(CountEstimator.class);
+
+    private final Cache counts;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long plannerThreshold;
+
+    private final Map<Class<?>, Criteria> emptyCriteria = new ConcurrentHashMap<>();
+
+    private volatile Boolean postgresql;
+
+    public CountEstimator(CacheManager cacheManager, JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.counts = cacheManager.getCache(COUNTS_CACHE);
+        this.jdbcTemplate = jdbcTemplate;
+        this.plannerThreshold = applicationProperties.getCountEstimate().getPlannerThreshold();
+    }
+
+    /**
+     * Estimate the number of entities matching a criteria.
+     *
+     * @param domainClass the queried entity.
+     * @param criteria the filters which the entities should match, may be null.
+     * @param count the exact count of the matching entities, called when there is no usable estimate.
+     * @return the estimated number of matching entities.
+     */
+    public long estimate(Class<?> domainClass, Criteria criteria, LongSupplier count) {
+        boolean filtered = criteria != null && !criteria.equals(emptyCriteria(criteria.getClass()));
+        Object key = List.of(domainClass.getName(), filtered ? criteria.copy() : "");
+        Long estimate = counts.get(key, () -> filtered ? count.getAsLong() : estimateAll(domainClass, count));
+        return estimate != null ? estimate : count.getAsLong();
+    }
+
+    private long estimateAll(Class<?> domainClass, LongSupplier count) {
+        Table table = domainClass.getAnnotation(Table.class);
+        if (table != null && isPostgresql()) {
+            List<Long> estimates = jdbcTemplate.queryForList(PLANNER_ESTIMATE_QUERY, Long.class, table.name());
+            // Tables never analyzed have no estimate, small ones are cheap to count
+            if (!estimates.isEmpty() && estimates.get(0) != null && estimates.get(0) >= plannerThreshold) {
+                log.debug("Planner estimate of {} rows in {}", estimates.get(0), table.name());
+                return estimates.get(0);
+            }
+        }
+        return count.getAsLong();
+    }
+
+    private Criteria emptyCriteria(Class<? extends Criteria> type) {
+        return emptyCriteria.computeIfAbsent(type, t -> (Criteria) BeanUtils.instantiateClass(t));
+    }
+
+    private boolean isPostgresql() {
+        Boolean result = postgresql;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+            );
+            result = POSTGRESQL.equals(product);
+            postgresql = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,202 @@
+package es.yuliq.service;
+
+import es.yuliq.config.ApplicationProperties;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.jhipster.service.Criteria;
+
+/**
+ * Cache of the results of criteria queries, keyed by the query, the criteria and the page.
+ * <p>
+ * Concurrent misses for the same key are coalesced: the first caller runs the query and the others wait
+ * for its result. A result is served as is during {@code application.criteria-cache.time-to-live-seconds},
+ * then, during {@code stale-while-revalidate-seconds}, it is still served while a single background
+ * refresh runs.
+ * <p>
+ * Each result depends on a set of entity types, and is dropped, loading or not, once an
+ * {@link EntityChangedEvent} of one of them is committed. Callers in a read-write transaction bypass the
+ * cache, as they may need to see their own uncommitted changes.
+ */
+@Service
+public class CriteriaResultCache {
+
+    private final Logger log = LoggerFactory.getLogger(CriteriaResultCache.class);
+
+    private final ConcurrentMap<List<Object>, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Executor taskExecutor;
+
+    private final long timeToLiveNanos;
+
+    private final long staleNanos;
+
+    private final int maxEntries;
+
+    public CriteriaResultCache(@Qualifier("taskExecutor") Executor taskExecutor, ApplicationProperties applicationProperties) {
+        ApplicationProperties.CriteriaCache properties = applicationProperties.getCriteriaCache();
+        this.taskExecutor = taskExecutor;
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(properties.getTimeToLiveSeconds());
+        this.staleNanos = timeToLiveNanos + TimeUnit.SECONDS.toNanos(properties.getStaleWhileRevalidateSeconds());
+        this.maxEntries = properties.getMaxEntries();
+    }
+
+    /**
+     * Get the result of a criteria query, running it if needed.
+     *
+     * @param entityTypes the entity types whose changes affect the result.
+     * @param query the name of the query, unique among the callers.
+     * @param criteria the criteria of the query, which is copied; may be null.
+     * @param pageable the page of the query; may be null.
+     * @param loader the query, which must not depend on the current transaction, as it may be run in the background.
+     * @param <T> the type of the result.
+     * @return the result, shared with the other callers; it must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Set<Class<?>> entityTypes, String query, Criteria criteria, Pageable pageable, Supplier<T> loader) {
+        if (isReadWriteTransactionActive()) {
+            return loader.get();
+        }
+        List<Object> key = Arrays.asList(query, criteria == null ? null : criteria.copy(), pageable);
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                Entry loading = new Entry(entityTypes);
+                entry = entries.putIfAbsent(key, loading);
+                if (entry == null) {
+                    evictIfFull();
+                    return (T) load(key, loading, loader);
+                }
+            }
+            if (!entry.value.isDone()) {
+                return (T) join(entry);
+            }
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < timeToLiveNanos) {
+                return (T) join(entry);
+            }
+            if (age < staleNanos) {
+                refresh(key, entry, loader);
+                return (T) join(entry);
+            }
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Drop the results depending on the changed entity type, once the change is committed.
+     *
+     * @param event the change.
+     */
+    @TransactionalEventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        entries.values().removeIf(entry -> entry.entityTypes.contains(event.getEntityType()));
+    }
+
+    private static boolean isReadWriteTransactionActive() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private Object load(List<Object> key, Entry entry, Supplier<?> loader) {
+        try {
+            Object value = loader.get();
+            entry.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            entries.remove(key, entry);
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void refresh(List<Object> key, Entry entry, Supplier<?> loader) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Entry refreshed = new Entry(entry.entityTypes);
+        try {
+            taskExecutor.execute(
+                () -> {
+                    try {
+                        refreshed.complete(loader.get());
+                        // An entry dropped in the meantime must not be brought back with a result read before the change.
+                        entries.replace(key, entry, refreshed);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not refresh the result of {}: {}", key.get(0), e.getMessage());
+                        entry.refreshing.set(false);
+                    }
+                }
+            );
+        } catch (RejectedExecutionException e) {
+            log.debug("Could not schedule the refresh of {}: {}", key.get(0), e.getMessage());
+            entry.refreshing.set(false);
+        }
+    }
+
+    private Object join(Entry entry) {
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.value.isDone() && now - entry.loadedAt >= staleNanos);
+        while (entries.size() > maxEntries) {
+            entries
+                .entrySet()
+                .stream()
+                .filter(candidate -> candidate.getValue().value.isDone())
+                .min(Comparator.comparingLong(candidate -> candidate.getValue().loadedAt))
+                .ifPresentOrElse(oldest -> entries.remove(oldest.getKey(), oldest.getValue()), () -> entries.clear());
+        }
+    }
+
+    private static final class Entry {
+
+        private final Set<Class<?>> entityTypes;
+
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private volatile long loadedAt;
+
+        private Entry(Set<Class<?>> entityTypes) {
+            this.entityTypes = entityTypes;
+        }
+
+        private void complete(Object result) {
+            loadedAt = System.nanoTime();
+            value.complete(result);
+        }
+    }
+}
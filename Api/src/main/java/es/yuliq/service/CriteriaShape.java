@@ -0,0 +1,106 @@
+package es.yuliq.service;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.BeanUtils;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Utility class describing the shape of a {@link Criteria}: which filters and operators are present, whatever
+ * their values.
+ * <p>
+ * Two criteria with the same shape build the same SQL, with other parameter values, as long as Hibernate binds
+ * the literals of the criteria queries ({@code hibernate.criteria.literal_handling_mode: bind}) and pads the
+ * {@code in} lists; Hibernate then compiles the query once and finds it in its query plan cache afterwards.
+ */
+public final class CriteriaShape {
+
+    /**
+     * The shape of a criteria without any filter.
+     */
+    public static final String UNFILTERED = "none";
+
+    private static final Map<Class<?>, List<PropertyDescriptor>> FILTERS = new ConcurrentHashMap<>();
+
+    private CriteriaShape() {}
+
+    /**
+     * @param criteria the criteria, may be null.
+     * @return the filters and operators present, as {@code property.operator} in the order of the properties, such
+     * as {@code "precio.greaterThan,tipoproducto.in"}, or {@link #UNFILTERED}.
+     */
+    public static String of(Criteria criteria) {
+        if (criteria == null) {
+            return UNFILTERED;
+        }
+        StringJoiner shape = new StringJoiner(",");
+        for (PropertyDescriptor property : FILTERS.computeIfAbsent(criteria.getClass(), CriteriaShape::filters)) {
+            Filter<?> filter = read(criteria, property.getReadMethod());
+            if (filter != null) {
+                operators(filter).forEach(operator -> shape.add(property.getName() + "." + operator));
+            }
+        }
+        return shape.length() == 0 ? UNFILTERED : shape.toString();
+    }
+
+    /**
+     * List the operators set on a filter, including the ones which are overridden by {@code equals} or {@code in}
+     * when the specification is built.
+     */
+    private static List<String> operators(Filter<?> filter) {
+        List<String> operators = new ArrayList<>();
+        add(operators, "equals", filter.getEquals());
+        add(operators, "notEquals", filter.getNotEquals());
+        if (filter.getSpecified() != null) {
+            operators.add(filter.getSpecified() ? "specified" : "unspecified");
+        }
+        add(operators, "in", filter.getIn());
+        add(operators, "notIn", filter.getNotIn());
+        if (filter instanceof RangeFilter) {
+            RangeFilter<?> range = (RangeFilter<?>) filter;
+            add(operators, "greaterThan", range.getGreaterThan());
+            add(operators, "greaterThanOrEqual", range.getGreaterThanOrEqual());
+            add(operators, "lessThan", range.getLessThan());
+            add(operators, "lessThanOrEqual", range.getLessThanOrEqual());
+        }
+        if (filter instanceof StringFilter) {
+            StringFilter string = (StringFilter) filter;
+            add(operators, "contains", string.getContains());
+            add(operators, "doesNotContain", string.getDoesNotContain());
+        }
+        return operators;
+    }
+
+    private static void add(List<String> operators, String operator, Object value) {
+        if (value != null) {
+            operators.add(operator);
+        }
+    }
+
+    private static List<PropertyDescriptor> filters(Class<?> criteriaClass) {
+        List<PropertyDescriptor> filters = new ArrayList<>();
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(criteriaClass)) {
+            if (property.getReadMethod() != null && Filter.class.isAssignableFrom(property.getPropertyType())) {
+                filters.add(property);
+            }
+        }
+        return filters;
+    }
+
+    private static Filter<?> read(Criteria criteria, Method getter) {
+        try {
+            return (Filter<?>) getter.invoke(criteria);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot read " + getter.getName() + " of " + criteria.getClass().getSimpleName(), e);
+        }
+    }
+}
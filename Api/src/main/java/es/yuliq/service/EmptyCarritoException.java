@@ -0,0 +1,13 @@
+package es.yuliq.service;
+
+/**
+ * Thrown when a checkout finds no lines in the carrito of the user, or the user has no carrito.
+ */
+public class EmptyCarritoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EmptyCarritoException() {
+        super("The carrito is empty");
+    }
+}
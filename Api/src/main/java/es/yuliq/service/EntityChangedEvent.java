@@ -0,0 +1,52 @@
+package es.yuliq.service;
+
+import java.util.Objects;
+
+/**
+ * Event published by the services when they create, update or delete an entity.
+ * <p>
+ * Listeners which keep copies of the entities, such as in-memory snapshots or caches, should listen
+ * to it with a {@link org.springframework.transaction.event.TransactionalEventListener}, so that they
+ * only see the changes once they are committed.
+ */
+public final class EntityChangedEvent {
+
+    private final Class<?> entityType;
+
+    private final Object id;
+
+    public EntityChangedEvent(Class<?> entityType, Object id) {
+        this.entityType = entityType;
+        this.id = id;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EntityChangedEvent)) {
+            return false;
+        }
+        EntityChangedEvent that = (EntityChangedEvent) o;
+        return entityType.equals(that.entityType) && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityType, id);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangedEvent{entityType=" + entityType.getSimpleName() + ", id=" + id + "}";
+    }
+}
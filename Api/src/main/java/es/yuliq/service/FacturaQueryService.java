@@ -5,17 +5,24 @@ import es.yuliq.domain.Factura;
 import es.yuliq.repository.FacturaRepository;
 import es.yuliq.service.criteria.FacturaCriteria;
 import es.yuliq.service.dto.FacturaDTO;
+import es.yuliq.service.dto.UserDTO;
 import es.yuliq.service.mapper.FacturaMapper;
+import java.time.Instant;
 import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import tech.jhipster.service.QueryService;
 
 /**
  * Service for executing complex queries for {@link Factura} entities in the database.
@@ -25,7 +32,7 @@ import tech.jhipster.service.QueryService;
  */
 @Service
 @Transactional(readOnly = true)
-public class FacturaQueryService extends QueryService<Factura> {
+public class FacturaQueryService extends ProjectionQueryService<Factura> {
 
     private final Logger log = LoggerFactory.getLogger(FacturaQueryService.class);
 
@@ -33,9 +40,18 @@ public class FacturaQueryService extends QueryService<Factura> {
 
     private final FacturaMapper facturaMapper;
 
-    public FacturaQueryService(FacturaRepository facturaRepository, FacturaMapper facturaMapper) {
+    private final CountEstimator countEstimator;
+
+    public FacturaQueryService(
+        FacturaRepository facturaRepository,
+        FacturaMapper facturaMapper,
+        EntityManager entityManager,
+        CountEstimator countEstimator
+    ) {
+        super(entityManager, Factura.class);
         this.facturaRepository = facturaRepository;
         this.facturaMapper = facturaMapper;
+        this.countEstimator = countEstimator;
     }
 
     /**
@@ -63,6 +79,72 @@ public class FacturaQueryService extends QueryService<Factura> {
         return facturaRepository.findAll(specification, page).map(facturaMapper::toDto);
     }
 
+    /**
+     * Return a {@link Page} of {@link FacturaDTO} which matches the criteria from the database,
+     * reading only the scalar columns and the id and login of the assigned user.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<FacturaDTO> findProjectedByCriteria(FacturaCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Factura> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            FacturaQueryService::listSelection,
+            FacturaQueryService::toListDto,
+            () -> facturaRepository.count(specification)
+        );
+    }
+
+    /**
+     * Return a {@link Page} of {@link FacturaDTO} which matches the criteria from the database, like
+     * {@link #findProjectedByCriteria(FacturaCriteria, Pageable)}, but with an estimated total.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<FacturaDTO> findProjectedByCriteriaWithEstimatedCount(FacturaCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria with estimated count : {}, page: {}", criteria, page);
+        final Specification<Factura> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            FacturaQueryService::listSelection,
+            FacturaQueryService::toListDto,
+            () -> countEstimator.estimate(Factura.class, criteria, () -> facturaRepository.count(specification))
+        );
+    }
+
+    /**
+     * Return a {@link Slice} of {@link FacturaDTO} which matches the criteria from the database, without counting them.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<FacturaDTO> findProjectedSliceByCriteria(FacturaCriteria criteria, Pageable page) {
+        log.debug("find projected slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Factura> specification = createSpecification(criteria);
+        return findProjectedSlice(specification, page, FacturaQueryService::listSelection, FacturaQueryService::toListDto);
+    }
+
+    /**
+     * Return the page of {@link FacturaDTO} which matches the criteria from the database and follows a keyset pagination cursor.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The cursor, size and sort of the page.
+     * @return the matching entities and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<FacturaDTO> findProjectedByCriteria(FacturaCriteria criteria, KeysetPageRequest page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Factura> specification = createSpecification(criteria);
+        return findProjected(specification, page, FacturaQueryService::listSelection, FacturaQueryService::toListDto);
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -107,4 +189,32 @@ public class FacturaQueryService extends QueryService<Factura> {
         }
         return specification;
     }
+
+    private static List<Selection<?>> listSelection(Root<Factura> root) {
+        Join<Factura, User> assignedTo = root.join(Factura_.assignedTo, JoinType.LEFT);
+        return List.of(
+            root.get(Factura_.id).alias("id"),
+            root.get(Factura_.version).alias("version"),
+            root.get(Factura_.fechaFactura).alias("fechaFactura"),
+            root.get(Factura_.cantidadPagada).alias("cantidadPagada"),
+            assignedTo.get(User_.id).alias("assignedToId"),
+            assignedTo.get(User_.login).alias("assignedToLogin")
+        );
+    }
+
+    private static FacturaDTO toListDto(Tuple tuple) {
+        FacturaDTO facturaDTO = new FacturaDTO();
+        facturaDTO.setId(tuple.get("id", Long.class));
+        facturaDTO.setVersion(tuple.get("version", Long.class));
+        facturaDTO.setFechaFactura(tuple.get("fechaFactura", Instant.class));
+        facturaDTO.setCantidadPagada(tuple.get("cantidadPagada", Integer.class));
+        Long assignedToId = tuple.get("assignedToId", Long.class);
+        if (assignedToId != null) {
+            UserDTO assignedTo = new UserDTO();
+            assignedTo.setId(assignedToId);
+            assignedTo.setLogin(tuple.get("assignedToLogin", String.class));
+            facturaDTO.setAssignedTo(assignedTo);
+        }
+        return facturaDTO;
+    }
 }
@@ -12,16 +12,18 @@ public interface FacturaService {
     /**
      * Save a factura.
      *
-     * @param facturaDTO the entity to save.
-     * @return the persisted entity.
+     * @param facturaDTO the entity to save; an update with a version only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     FacturaDTO save(FacturaDTO facturaDTO);
 
     /**
      * Partially updates a factura.
      *
-     * @param facturaDTO the entity to update partially.
-     * @return the persisted entity.
+     * @param facturaDTO the entity to update partially; with a version, it only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     Optional<FacturaDTO> partialUpdate(FacturaDTO facturaDTO);
 
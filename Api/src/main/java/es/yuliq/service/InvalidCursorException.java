@@ -0,0 +1,13 @@
+package es.yuliq.service;
+
+/**
+ * Thrown when a keyset pagination cursor cannot be used for the requested page.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,191 @@
+package es.yuliq.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Request for a page of entities following a keyset pagination cursor.
+ * <p>
+ * Entities are ordered by one sort property and their id, and the page starts right after the
+ * {@code (sort property, id)} values of the last entity of the previous page, so its cost does not
+ * depend on how deep it is. The cursor is an opaque string holding those values and the sort they
+ * belong to.
+ */
+public final class KeysetPageRequest {
+
+    private static final String ID = "id";
+
+    private static final String SEPARATOR = "|";
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final int size;
+
+    private final Long lastId;
+
+    private final String lastKey;
+
+    private KeysetPageRequest(String property, Sort.Direction direction, int size, Long lastId, String lastKey) {
+        this.property = property;
+        this.direction = direction;
+        this.size = size;
+        this.lastId = lastId;
+        this.lastKey = lastKey;
+    }
+
+    /**
+     * Build the request for the page following a cursor.
+     *
+     * @param after the cursor returned with the previous page, or an empty string for the first page.
+     * @param pageable the size and sort of the page; the sort must be on a single property, optionally followed by {@code id}.
+     * @return the page request.
+     * @throws InvalidCursorException if the cursor is malformed or was returned for another sort.
+     */
+    public static KeysetPageRequest of(String after, Pageable pageable) {
+        Iterator<Sort.Order> orders = pageable.getSort().iterator();
+        Sort.Order order = orders.hasNext() ? orders.next() : Sort.Order.asc(ID);
+        if (orders.hasNext()) {
+            Sort.Order tieBreaker = orders.next();
+            if (!tieBreaker.getProperty().equals(ID) || orders.hasNext()) {
+                throw new InvalidCursorException("Cursor pagination supports a single sort property");
+            }
+        }
+        int size = pageable.isPaged() ? pageable.getPageSize() : 20;
+        if (after == null || after.isEmpty()) {
+            return new KeysetPageRequest(order.getProperty(), order.getDirection(), size, null, null);
+        }
+
+        String[] values;
+        try {
+            values = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 4);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        if (values.length != 4 || !values[0].equals(order.getProperty()) || !values[1].equals(order.getDirection().name())) {
+            throw new InvalidCursorException("Cursor does not match the requested sort");
+        }
+        try {
+            return new KeysetPageRequest(order.getProperty(), order.getDirection(), size, Long.valueOf(values[2]), values[3]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    /**
+     * @return the sort property, {@code id} when sorting only by id.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return true if this is a request for the first page.
+     */
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public boolean isSortedById() {
+        return ID.equals(property);
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * @param type the type of the sort property.
+     * @return the value of the sort property of the last entity of the previous page.
+     * @throws InvalidCursorException if the value cannot be converted to the type.
+     */
+    public Object getLastKey(Class<?> type) {
+        try {
+            return parseKey(lastKey, type);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    /**
+     * Build the cursor of the page following an entity.
+     *
+     * @param key the value of the sort property of the entity.
+     * @param id the id of the entity.
+     * @return the cursor.
+     */
+    public String cursorAfter(Object key, Long id) {
+        String cursor = property + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + formatKey(key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String formatKey(Object key) {
+        if (key instanceof Enum) {
+            return ((Enum<?>) key).name();
+        }
+        return String.valueOf(key);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object parseKey(String key, Class<?> type) {
+        if (type == String.class) {
+            return key;
+        }
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(key);
+        }
+        if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(key);
+        }
+        if (type == Float.class || type == float.class) {
+            return Float.valueOf(key);
+        }
+        if (type == Double.class || type == double.class) {
+            return Double.valueOf(key);
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(key);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return Boolean.valueOf(key);
+        }
+        if (type == Instant.class) {
+            return Instant.parse(key);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(key);
+        }
+        if (type == ZonedDateTime.class) {
+            return ZonedDateTime.parse(key);
+        }
+        if (type == UUID.class) {
+            return UUID.fromString(key);
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) type, key);
+        }
+        throw new IllegalArgumentException("Unsupported sort property type " + type.getName());
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPageRequest{property=" + property + ", direction=" + direction + ", size=" + size + ", lastId=" + lastId + "}";
+    }
+}
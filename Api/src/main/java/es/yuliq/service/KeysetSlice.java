@@ -0,0 +1,45 @@
+package es.yuliq.service;
+
+import java.util.List;
+
+/**
+ * A page of results of a {@link KeysetPageRequest}, with the cursor of the next page.
+ *
+ * @param <T> the type of the results.
+ */
+public final class KeysetSlice<T> {
+
+    private final List<T> content;
+
+    private final String nextCursor;
+
+    private final int size;
+
+    public KeysetSlice(List<T> content, String nextCursor, int size) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.size = size;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return the cursor of the next page, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * @return the requested size of the page.
+     */
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,26 @@
+package es.yuliq.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a checkout asks for more units of some productos than they have in stock.
+ */
+public class OutOfStockException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Long> productoIds;
+
+    public OutOfStockException(List<Long> productoIds) {
+        super("Not enough units in stock of the productos " + productoIds);
+        this.productoIds = Collections.unmodifiableList(productoIds);
+    }
+
+    /**
+     * @return the ids of the productos short of units, in ascending order.
+     */
+    public List<Long> getProductoIds() {
+        return productoIds;
+    }
+}
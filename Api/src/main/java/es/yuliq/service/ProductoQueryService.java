@@ -2,30 +2,49 @@ package es.yuliq.service;
 
 import es.yuliq.domain.*; // for static metamodels
 import es.yuliq.domain.Producto;
+import es.yuliq.domain.enumeration.TipoProducto;
 import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.columnar.ProductoColumnarIndex;
+import es.yuliq.service.columnar.ProductoColumns;
+import es.yuliq.service.columnar.ProductoFacetCounter;
 import es.yuliq.service.criteria.ProductoCriteria;
+import es.yuliq.service.dto.CompraDTO;
 import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.dto.ProductoFacetsDTO;
 import es.yuliq.service.mapper.ProductoMapper;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import tech.jhipster.service.QueryService;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Service for executing complex queries for {@link Producto} entities in the database.
  * The main input is a {@link ProductoCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
  * It returns a {@link List} of {@link ProductoDTO} or a {@link Page} of {@link ProductoDTO} which fulfills the criteria.
+ * <p>
+ * In read-only transactions, the projected pages and the counts are answered by the {@link ProductoColumnarIndex}
+ * when it {@link ProductoColumns#supports supports} the criteria and the sort, as it only holds committed changes.
  */
 @Service
 @Transactional(readOnly = true)
-public class ProductoQueryService extends QueryService<Producto> {
+public class ProductoQueryService extends ProjectionQueryService<Producto> {
 
     private final Logger log = LoggerFactory.getLogger(ProductoQueryService.class);
 
@@ -33,9 +52,22 @@ public class ProductoQueryService extends QueryService<Producto> {
 
     private final ProductoMapper productoMapper;
 
-    public ProductoQueryService(ProductoRepository productoRepository, ProductoMapper productoMapper) {
+    private final CountEstimator countEstimator;
+
+    private final ProductoColumnarIndex productoColumnarIndex;
+
+    public ProductoQueryService(
+        ProductoRepository productoRepository,
+        ProductoMapper productoMapper,
+        EntityManager entityManager,
+        CountEstimator countEstimator,
+        ProductoColumnarIndex productoColumnarIndex
+    ) {
+        super(entityManager, Producto.class);
         this.productoRepository = productoRepository;
         this.productoMapper = productoMapper;
+        this.countEstimator = countEstimator;
+        this.productoColumnarIndex = productoColumnarIndex;
     }
 
     /**
@@ -63,6 +95,85 @@ public class ProductoQueryService extends QueryService<Producto> {
         return productoRepository.findAll(specification, page).map(productoMapper::toDto);
     }
 
+    /**
+     * Return a {@link Page} of {@link ProductoDTO} which matches the criteria from the database,
+     * reading only the scalar columns and the id of the compra.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductoDTO> findProjectedByCriteria(ProductoCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        Optional<ProductoColumns> columns = columnsFor(criteria, page.getSort());
+        if (columns.isPresent()) {
+            return columns.get().findAll(criteria, page);
+        }
+        final Specification<Producto> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            ProductoQueryService::listSelection,
+            ProductoQueryService::toListDto,
+            () -> productoRepository.count(specification)
+        );
+    }
+
+    /**
+     * Return a {@link Page} of {@link ProductoDTO} which matches the criteria from the database, like
+     * {@link #findProjectedByCriteria(ProductoCriteria, Pageable)}, but with an estimated total.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductoDTO> findProjectedByCriteriaWithEstimatedCount(ProductoCriteria criteria, Pageable page) {
+        log.debug("find projected by criteria with estimated count : {}, page: {}", criteria, page);
+        Optional<ProductoColumns> columns = columnsFor(criteria, page.getSort());
+        if (columns.isPresent()) {
+            return columns.get().findAll(criteria, page);
+        }
+        final Specification<Producto> specification = createSpecification(criteria);
+        return findProjected(
+            specification,
+            page,
+            ProductoQueryService::listSelection,
+            ProductoQueryService::toListDto,
+            () -> countEstimator.estimate(Producto.class, criteria, () -> productoRepository.count(specification))
+        );
+    }
+
+    /**
+     * Return a {@link Slice} of {@link ProductoDTO} which matches the criteria from the database, without counting them.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductoDTO> findProjectedSliceByCriteria(ProductoCriteria criteria, Pageable page) {
+        log.debug("find projected slice by criteria : {}, page: {}", criteria, page);
+        Optional<ProductoColumns> columns = columnsFor(criteria, page.getSort());
+        if (columns.isPresent()) {
+            Page<ProductoDTO> found = columns.get().findAll(criteria, page);
+            return new SliceImpl<>(found.getContent(), page, found.hasNext());
+        }
+        final Specification<Producto> specification = createSpecification(criteria);
+        return findProjectedSlice(specification, page, ProductoQueryService::listSelection, ProductoQueryService::toListDto);
+    }
+
+    /**
+     * Return the page of {@link ProductoDTO} which matches the criteria from the database and follows a keyset pagination cursor.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The cursor, size and sort of the page.
+     * @return the matching entities and the cursor of the next page.
+     */
+    @Transactional(readOnly = true)
+    public KeysetSlice<ProductoDTO> findProjectedByCriteria(ProductoCriteria criteria, KeysetPageRequest page) {
+        log.debug("find projected by criteria : {}, page: {}", criteria, page);
+        final Specification<Producto> specification = createSpecification(criteria);
+        return findProjected(specification, page, ProductoQueryService::listSelection, ProductoQueryService::toListDto);
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -71,10 +182,46 @@ public class ProductoQueryService extends QueryService<Producto> {
     @Transactional(readOnly = true)
     public long countByCriteria(ProductoCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
+        Optional<ProductoColumns> columns = columnsFor(criteria, Sort.unsorted());
+        if (columns.isPresent()) {
+            return columns.get().count(criteria);
+        }
         final Specification<Producto> specification = createSpecification(criteria);
         return productoRepository.count(specification);
     }
 
+    /**
+     * Return the facets of the matching entities: the counts per type, the histograms of precio and calorias and
+     * the in-stock split. Without the columns, they are counted from a single query of these columns and the id.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param precioInterval The width of the buckets of precio.
+     * @param caloriasInterval The width of the buckets of calorias.
+     * @return the facets of the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public ProductoFacetsDTO findFacetsByCriteria(ProductoCriteria criteria, double precioInterval, double caloriasInterval) {
+        log.debug("find facets by criteria : {}", criteria);
+        ProductoFacetCounter counter = new ProductoFacetCounter(precioInterval, caloriasInterval);
+        Optional<ProductoColumns> columns = columnsFor(criteria, Sort.unsorted());
+        if (columns.isPresent()) {
+            columns.get().countFacets(criteria, counter);
+        } else {
+            final Specification<Producto> specification = createSpecification(criteria);
+            List<ProductoDTO> productos = findProjected(
+                specification,
+                Pageable.unpaged(),
+                ProductoQueryService::facetSelection,
+                ProductoQueryService::toFacetDto,
+                () -> 0L
+            )
+                .getContent();
+            // The join of the carritos repeats a producto for each matching carrito
+            Set<Long> counted = new HashSet<>();
+            productos.stream().filter(productoDTO -> counted.add(productoDTO.getId())).forEach(counter::add);
+        }
+        return counter.toDto();
+    }
+
     /**
      * Function to convert {@link ProductoCriteria} to a {@link Specification}
      * @param criteria The object which holds all the filters, which the entities should match.
@@ -116,4 +263,82 @@ public class ProductoQueryService extends QueryService<Producto> {
         }
         return specification;
     }
+
+    /**
+     * @return the columns of the productos if they can answer the query, loading them if needed.
+     */
+    private Optional<ProductoColumns> columnsFor(ProductoCriteria criteria, Sort sort) {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !ProductoColumns.supports(criteria, sort)) {
+            return Optional.empty();
+        }
+        return Optional.of(productoColumnarIndex.getColumns(this::findAllProjected));
+    }
+
+    private List<ProductoDTO> findAllProjected() {
+        return findProjected(
+            Specification.where(null),
+            Pageable.unpaged(),
+            ProductoQueryService::listSelection,
+            ProductoQueryService::toListDto,
+            () -> 0L
+        )
+            .getContent();
+    }
+
+    private static List<Selection<?>> listSelection(Root<Producto> root) {
+        return List.of(
+            root.get(Producto_.id).alias("id"),
+            root.get(Producto_.version).alias("version"),
+            root.get(Producto_.nombreProducto).alias("nombreProducto"),
+            root.get(Producto_.calorias).alias("calorias"),
+            root.get(Producto_.imagenHash).alias("imagenHash"),
+            root.get(Producto_.imagenSize).alias("imagenSize"),
+            root.get(Producto_.imagenContentType).alias("imagenContentType"),
+            root.get(Producto_.precio).alias("precio"),
+            root.get(Producto_.existencias).alias("existencias"),
+            root.get(Producto_.tipoproducto).alias("tipoproducto"),
+            root.get(Producto_.compra).get(Compra_.id).alias("compraId")
+        );
+    }
+
+    private static List<Selection<?>> facetSelection(Root<Producto> root) {
+        return List.of(
+            root.get(Producto_.id).alias("id"),
+            root.get(Producto_.calorias).alias("calorias"),
+            root.get(Producto_.precio).alias("precio"),
+            root.get(Producto_.existencias).alias("existencias"),
+            root.get(Producto_.tipoproducto).alias("tipoproducto")
+        );
+    }
+
+    private static ProductoDTO toFacetDto(Tuple tuple) {
+        ProductoDTO productoDTO = new ProductoDTO();
+        productoDTO.setId(tuple.get("id", Long.class));
+        productoDTO.setCalorias(tuple.get("calorias", Integer.class));
+        productoDTO.setPrecio(tuple.get("precio", Float.class));
+        productoDTO.setExistencias(tuple.get("existencias", Integer.class));
+        productoDTO.setTipoproducto(tuple.get("tipoproducto", TipoProducto.class));
+        return productoDTO;
+    }
+
+    private static ProductoDTO toListDto(Tuple tuple) {
+        ProductoDTO productoDTO = new ProductoDTO();
+        productoDTO.setId(tuple.get("id", Long.class));
+        productoDTO.setVersion(tuple.get("version", Long.class));
+        productoDTO.setNombreProducto(tuple.get("nombreProducto", String.class));
+        productoDTO.setCalorias(tuple.get("calorias", Integer.class));
+        productoDTO.setImagenHash(tuple.get("imagenHash", String.class));
+        productoDTO.setImagenSize(tuple.get("imagenSize", Long.class));
+        productoDTO.setImagenContentType(tuple.get("imagenContentType", String.class));
+        productoDTO.setPrecio(tuple.get("precio", Float.class));
+        productoDTO.setExistencias(tuple.get("existencias", Integer.class));
+        productoDTO.setTipoproducto(tuple.get("tipoproducto", TipoProducto.class));
+        Long compraId = tuple.get("compraId", Long.class);
+        if (compraId != null) {
+            CompraDTO compraDTO = new CompraDTO();
+            compraDTO.setId(compraId);
+            productoDTO.setCompra(compraDTO);
+        }
+        return productoDTO;
+    }
 }
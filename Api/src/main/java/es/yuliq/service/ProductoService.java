@@ -12,16 +12,18 @@ public interface ProductoService {
     /**
      * Save a producto.
      *
-     * @param productoDTO the entity to save.
-     * @return the persisted entity.
+     * @param productoDTO the entity to save; an update with a version only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     ProductoDTO save(ProductoDTO productoDTO);
 
     /**
      * Partially updates a producto.
      *
-     * @param productoDTO the entity to update partially.
-     * @return the persisted entity.
+     * @param productoDTO the entity to update partially; with a version, it only applies if it is still the current one.
+     * @return the persisted entity, with its new version.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the version is not the current one.
      */
     Optional<ProductoDTO> partialUpdate(ProductoDTO productoDTO);
 
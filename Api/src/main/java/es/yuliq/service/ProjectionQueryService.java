@@ -0,0 +1,285 @@
+package es.yuliq.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.QueryService;
+
+/**
+ * Base service for executing criteria queries that read only some columns of the matching entities.
+ * <p>
+ * The {@link Specification} built from the criteria is applied to a tuple query selecting the columns
+ * given by the subclass, so that no entity is instantiated, no eager relationship is fetched and
+ * nothing is added to the persistence context.
+ * <p>
+ * Pages are read either by offset, with or without a count of the matching entities, or after a keyset cursor.
+ *
+ * @param <ENTITY> the type of the entity which is queried.
+ */
+public abstract class ProjectionQueryService<ENTITY> extends QueryService<ENTITY> {
+
+    private static final String ID = "id";
+
+    private static final String VERSION = "version";
+
+    private static final String KEYSET_ID = "keysetId";
+
+    private static final String KEYSET_KEY = "keysetKey";
+
+    private final EntityManager entityManager;
+
+    private final Class<ENTITY> domainClass;
+
+    protected ProjectionQueryService(EntityManager entityManager, Class<ENTITY> domainClass) {
+        this.entityManager = entityManager;
+        this.domainClass = domainClass;
+    }
+
+    /**
+     * Return the version of an entity without loading it, so that a conditional request can be answered
+     * before anything is read or mapped.
+     *
+     * @param id the id of the entity.
+     * @return the version, if the entity exists.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<ENTITY> root = query.from(domainClass);
+        query.select(root.get(VERSION)).where(builder.equal(root.get(ID), id));
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+
+    /**
+     * Return a {@link Page} of projections of the entities matching the specification.
+     *
+     * @param specification the filters which the entities should match.
+     * @param page the page, which should be returned, and its sort.
+     * @param selection the columns to select, each with an alias.
+     * @param mapper the conversion of a selected row.
+     * @param count the number of matching entities, only called when it cannot be deduced from the page.
+     * @param <D> the type of the projection.
+     * @return the matching projections.
+     */
+    protected <D> Page<D> findProjected(
+        Specification<ENTITY> specification,
+        Pageable page,
+        Function<Root<ENTITY>, List<Selection<?>>> selection,
+        Function<Tuple, D> mapper,
+        LongSupplier count
+    ) {
+        List<D> content = select(specification, page, selection, mapper, 0);
+        return PageableExecutionUtils.getPage(content, page, count);
+    }
+
+    /**
+     * Return a {@link Slice} of projections of the entities matching the specification. No count
+     * query is issued: whether there is a next page is known by reading one more row than requested.
+     *
+     * @param specification the filters which the entities should match.
+     * @param page the page, which should be returned, and its sort.
+     * @param selection the columns to select, each with an alias.
+     * @param mapper the conversion of a selected row.
+     * @param <D> the type of the projection.
+     * @return the matching projections.
+     */
+    protected <D> Slice<D> findProjectedSlice(
+        Specification<ENTITY> specification,
+        Pageable page,
+        Function<Root<ENTITY>, List<Selection<?>>> selection,
+        Function<Tuple, D> mapper
+    ) {
+        if (page.isUnpaged()) {
+            return new SliceImpl<>(select(specification, page, selection, mapper, 0), page, false);
+        }
+        List<D> content = select(specification, page, selection, mapper, 1);
+        boolean hasNext = content.size() > page.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, page.getPageSize());
+        }
+        return new SliceImpl<>(content, page, hasNext);
+    }
+
+    /**
+     * Return a {@link Page} of the entities matching the specification, with the relationships fetched by
+     * {@code fetch}, in two queries: the ids of the page are selected with the offset and limit applied by the
+     * database, then the entities of these ids are fetched. A fetched collection thus never pages in memory.
+     *
+     * @param specification the filters which the entities should match.
+     * @param page the page, which should be returned, and its sort.
+     * @param fetch the query of the entities of some ids with their relationships, in any order.
+     * @param count the number of matching entities, only called when it cannot be deduced from the page.
+     * @return the matching entities, in the order of the page.
+     */
+    protected Page<ENTITY> findFetched(
+        Specification<ENTITY> specification,
+        Pageable page,
+        Function<Collection<Long>, List<ENTITY>> fetch,
+        LongSupplier count
+    ) {
+        List<Long> ids = select(specification, page, root -> List.of(root.get(ID).alias(ID)), row -> row.get(ID, Long.class), 0);
+        Map<Object, ENTITY> entitiesById = new HashMap<>();
+        if (!ids.isEmpty()) {
+            PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+            for (ENTITY entity : fetch.apply(ids)) {
+                entitiesById.put(persistenceUnitUtil.getIdentifier(entity), entity);
+            }
+        }
+        List<ENTITY> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // An entity deleted between the two queries is left out of the page
+            ENTITY entity = entitiesById.get(id);
+            if (entity != null) {
+                content.add(entity);
+            }
+        }
+        return PageableExecutionUtils.getPage(content, page, count);
+    }
+
+    private <D> List<D> select(
+        Specification<ENTITY> specification,
+        Pageable page,
+        Function<Root<ENTITY>, List<Selection<?>>> selection,
+        Function<Tuple, D> mapper,
+        int extraRows
+    ) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<ENTITY> root = query.from(domainClass);
+        query.multiselect(selection.apply(root));
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (page.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(page.getSort(), root, builder));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (page.isPaged()) {
+            typedQuery.setFirstResult((int) page.getOffset());
+            typedQuery.setMaxResults(page.getPageSize() + extraRows);
+        }
+        List<Tuple> rows = typedQuery.getResultList();
+        List<D> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(mapper.apply(row));
+        }
+        return content;
+    }
+
+    /**
+     * Return the page of projections of the entities matching the specification which follows a
+     * keyset pagination cursor. No count query is issued.
+     *
+     * @param specification the filters which the entities should match.
+     * @param page the cursor, size and sort of the page.
+     * @param selection the columns to select, each with an alias.
+     * @param mapper the conversion of a selected row.
+     * @param <D> the type of the projection.
+     * @return the matching projections and the cursor of the next page.
+     * @throws InvalidCursorException if the sort property is not a non-nullable column of the entity.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected <D> KeysetSlice<D> findProjected(
+        Specification<ENTITY> specification,
+        KeysetPageRequest page,
+        Function<Root<ENTITY>, List<Selection<?>>> selection,
+        Function<Tuple, D> mapper
+    ) {
+        SingularAttribute<? super ENTITY, ?> attribute = keysetAttribute(page.getProperty());
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<ENTITY> root = query.from(domainClass);
+        Path<Long> id = root.get(ID);
+        Path<Comparable> key = root.get(attribute.getName());
+        List<Selection<?>> selections = new ArrayList<>(selection.apply(root));
+        selections.add(id.alias(KEYSET_ID));
+        selections.add(key.alias(KEYSET_KEY));
+        query.multiselect(selections);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        boolean ascending = page.getDirection().isAscending();
+        if (!page.isFirst()) {
+            Predicate afterId = ascending ? builder.greaterThan(id, page.getLastId()) : builder.lessThan(id, page.getLastId());
+            if (page.isSortedById()) {
+                predicates.add(afterId);
+            } else {
+                Comparable lastKey = (Comparable) page.getLastKey(attribute.getJavaType());
+                Predicate afterKey = ascending ? builder.greaterThan(key, lastKey) : builder.lessThan(key, lastKey);
+                predicates.add(builder.or(afterKey, builder.and(builder.equal(key, lastKey), afterId)));
+            }
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        if (page.isSortedById()) {
+            query.orderBy(ascending ? builder.asc(id) : builder.desc(id));
+        } else {
+            query.orderBy(ascending ? builder.asc(key) : builder.desc(key), ascending ? builder.asc(id) : builder.desc(id));
+        }
+
+        // One more row than requested tells whether there is a next page
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(page.getSize() + 1).getResultList();
+        boolean hasNext = rows.size() > page.getSize();
+        if (hasNext) {
+            rows = rows.subList(0, page.getSize());
+        }
+        List<D> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(mapper.apply(row));
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            Tuple last = rows.get(rows.size() - 1);
+            nextCursor = page.cursorAfter(last.get(KEYSET_KEY), last.get(KEYSET_ID, Long.class));
+        }
+        return new KeysetSlice<>(content, nextCursor, page.getSize());
+    }
+
+    /**
+     * Only non-nullable basic columns can be seeked on, as the position of nulls in the sort order
+     * depends on the database.
+     */
+    private SingularAttribute<? super ENTITY, ?> keysetAttribute(String property) {
+        SingularAttribute<? super ENTITY, ?> attribute;
+        try {
+            attribute = entityManager.getMetamodel().entity(domainClass).getSingularAttribute(property);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Unknown sort property " + property);
+        }
+        boolean nullable = attribute.isOptional() && !attribute.isId();
+        if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC || nullable) {
+            throw new InvalidCursorException("Cursor pagination requires a non-nullable sort property, " + property + " is not");
+        }
+        return attribute;
+    }
+}
@@ -0,0 +1,182 @@
+package es.yuliq.service;
+
+import es.yuliq.domain.Producto;
+import es.yuliq.service.columnar.ProductoColumnarIndex;
+import es.yuliq.service.criteria.ProductoCriteria;
+import es.yuliq.service.dto.ProductoDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.persistence.EntityManager;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tech.jhipster.service.filter.LongFilter;
+
+/**
+ * Service for taking units from the stock of the {@link Producto}s.
+ * <p>
+ * The units are taken by conditional updates, which only apply while the producto has enough units left, instead
+ * of reading the stock, changing it and writing it back: concurrent orders of a producto neither lose each other's
+ * updates nor wait for a lock held over their whole transaction. The updates of an order are sent in one JDBC batch,
+ * in the order of the producto ids, so that two orders locking the same rows lock them in the same order. They run in
+ * the transaction of the order, whose rollback gives back the units taken when another line cannot be served.
+ * <p>
+ * Being written behind the back of Hibernate, the productos are soft locked in the second level cache until the
+ * transaction completes, as Hibernate does for the entities it updates, so that a copy read before the commit is not
+ * put back in the cache after it. They are updated in the {@link ProductoColumnarIndex} once the transaction commits,
+ * and an {@link EntityChangedEvent} is published for each of them. Their version is incremented, so that an update
+ * made on a copy read before fails instead of writing the old stock back.
+ */
+@Service
+@Transactional
+public class StockService {
+
+    private final Logger log = LoggerFactory.getLogger(StockService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ProductoQueryService productoQueryService;
+
+    private final ProductoColumnarIndex productoColumnarIndex;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StockService(
+        JdbcTemplate jdbcTemplate,
+        EntityManager entityManager,
+        ProductoQueryService productoQueryService,
+        ProductoColumnarIndex productoColumnarIndex,
+        ApplicationEventPublisher eventPublisher
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.productoQueryService = productoQueryService;
+        this.productoColumnarIndex = productoColumnarIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Take the units of all the lines of an order from the stock of their productos, or none of them.
+     *
+     * @param lines the units to take from each producto, all positive.
+     * @return the ids of the productos which do not exist or do not have enough units left, in ascending order; if
+     * there are any, the caller rolls back its transaction, which gives back the units taken from the other lines.
+     * @throws IllegalArgumentException if the units of a line are not positive.
+     * @throws org.springframework.transaction.IllegalTransactionStateException if there is no current transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Long> decrement(Map<Long, Integer> lines) {
+        log.debug("Request to take from the stock of the productos : {}", lines);
+        lines.forEach(
+            (productoId, cantidad) -> {
+                if (cantidad == null || cantidad < 1) {
+                    throw new IllegalArgumentException("The units taken from producto " + productoId + " must be positive");
+                }
+            }
+        );
+        TreeMap<Long, Integer> ordered = new TreeMap<>(lines);
+        if (ordered.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // The Hibernate changes of the productos must not be written over these updates, nor the other way around
+        entityManager.flush();
+        lockCached(ordered.keySet());
+        List<Object[]> args = new ArrayList<>(ordered.size());
+        ordered.forEach((productoId, cantidad) -> args.add(new Object[] { cantidad, productoId, cantidad }));
+        int[] updated = jdbcTemplate.batchUpdate(
+            "update producto set existencias = existencias - ?, version = version + 1 where id = ? and existencias >= ?",
+            args
+        );
+        List<Long> taken = new ArrayList<>(ordered.size());
+        List<Long> failed = new ArrayList<>();
+        int i = 0;
+        for (Long productoId : ordered.keySet()) {
+            if (updated[i++] != 0) {
+                taken.add(productoId);
+            } else {
+                failed.add(productoId);
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.debug("Not enough units in stock of the productos : {}", failed);
+            return failed;
+        }
+        changed(taken);
+        return failed;
+    }
+
+    /**
+     * Soft lock the cached productos until the current transaction completes, committed or not. Once unlocked, they
+     * are read again from the database, and only by transactions started after.
+     */
+    private void lockCached(Collection<Long> productoIds) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Producto.class);
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        EntityDataAccess cacheAccess = persister.getCacheAccessStrategy();
+        Map<Object, SoftLock> locks = new HashMap<>();
+        for (Long productoId : productoIds) {
+            Object key = cacheAccess.generateCacheKey(productoId, persister, session.getFactory(), session.getTenantIdentifier());
+            locks.put(key, cacheAccess.lockItem(session, key, null));
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    locks.forEach((key, lock) -> cacheAccess.unlockItem(session, key, lock));
+                }
+
+                @Override
+                public int getOrder() {
+                    // Before the listeners of the EntityChangedEvents, so that the productos they read are cached
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+            }
+        );
+    }
+
+    private void changed(List<Long> productoIds) {
+        LongFilter idFilter = new LongFilter();
+        idFilter.setIn(productoIds);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setId(idFilter);
+        // Read now, from the database as the columns only answer read-only transactions, and put once committed
+        List<ProductoDTO> productos = productoQueryService.findProjectedByCriteria(criteria, Pageable.unpaged()).getContent();
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Not evicted from the second level cache, which would drop their soft locks
+                    productos.forEach(productoColumnarIndex::put);
+                }
+
+                @Override
+                public int getOrder() {
+                    // Before the listeners of the EntityChangedEvents, which may read the productos again
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+            }
+        );
+        productoIds.forEach(productoId -> eventPublisher.publishEvent(new EntityChangedEvent(Producto.class, productoId)));
+    }
+}
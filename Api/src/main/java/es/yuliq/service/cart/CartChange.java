@@ -0,0 +1,44 @@
+package es.yuliq.service.cart;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * One change of a carrito, as written to the {@link CartWriteAheadLog}: the new number of units of some of its
+ * productos, zero for the ones removed, and the version of the carrito once changed.
+ * <p>
+ * The units are absolute, so applying a change more than once leaves the carrito as applying it once.
+ */
+final class CartChange {
+
+    private final long carritoId;
+
+    private final long version;
+
+    private final SortedMap<Long, Integer> items;
+
+    CartChange(long carritoId, long version, Map<Long, Integer> items) {
+        this.carritoId = carritoId;
+        this.version = version;
+        this.items = Collections.unmodifiableSortedMap(new TreeMap<>(items));
+    }
+
+    long getCarritoId() {
+        return carritoId;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    SortedMap<Long, Integer> getItems() {
+        return items;
+    }
+
+    @Override
+    public String toString() {
+        return "CartChange{carritoId=" + carritoId + ", version=" + version + ", items=" + items + "}";
+    }
+}
@@ -0,0 +1,17 @@
+package es.yuliq.service.cart;
+
+import es.yuliq.domain.Carrito;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * Thrown when a change made on an older version of a carrito cannot be merged by the {@link CartStore} with the ones
+ * made since. Unlike a version moved on in the database meanwhile, it fails again if the change is retried as is.
+ */
+public class CartConflictException extends ObjectOptimisticLockingFailureException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CartConflictException(Long carritoId) {
+        super(Carrito.class, carritoId);
+    }
+}
@@ -0,0 +1,41 @@
+package es.yuliq.service.cart;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The lines of a carrito as held by the {@link CartStore}, which may not be written to the database yet.
+ */
+public final class CartContents {
+
+    private final Long carritoId;
+
+    private final long version;
+
+    private final SortedMap<Long, Integer> items;
+
+    CartContents(Long carritoId, long version, SortedMap<Long, Integer> items) {
+        this.carritoId = carritoId;
+        this.version = version;
+        this.items = Collections.unmodifiableSortedMap(new TreeMap<>(items));
+    }
+
+    public Long getCarritoId() {
+        return carritoId;
+    }
+
+    /**
+     * @return the version of the carrito, incremented by each change of its lines.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the units of each producto, sorted by producto.
+     */
+    public SortedMap<Long, Integer> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,633 @@
+package es.yuliq.service.cart;
+
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.domain.Carrito;
+import es.yuliq.service.EntityChangedEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind store of the lines of the carritos being filled.
+ * <p>
+ * A carrito is loaded on its first use and then changed in memory, each change being appended to the
+ * {@link CartWriteAheadLog} before it is acknowledged. The changed carritos are written every
+ * {@code application.cart-store.flush-interval-seconds}, and when the application stops, in JDBC batches: only
+ * their last state is written, however many changes they got in between. The lists of carritos lag behind by up to
+ * that interval; {@link #flush(Long)} writes one carrito at once, before it is read or written as a whole.
+ * <p>
+ * On start, the changes left in the log are applied to their carritos, whose version tells the ones already
+ * written, and written by the first flush.
+ * <p>
+ * A change may be made on an older version of the carrito, as edited in another tab or device. It is merged with the
+ * changes made since when these changed other productos, which the store tells from the recent history of each
+ * carrito in memory; otherwise it fails with a {@link CartConflictException}.
+ */
+@Service
+public class CartStore {
+
+    private static final String ITEM_TABLE = "rel_carrito__producto";
+
+    /**
+     * The number of line changes kept per carrito to merge the changes made on older versions.
+     */
+    private static final int MAX_HISTORY = 256;
+
+    private final Logger log = LoggerFactory.getLogger(CartStore.class);
+
+    private final CartWriteAheadLog writeAheadLog;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final long idleNanos;
+
+    private final ConcurrentMap<Long, Cart> carts = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, List<CartChange>> recovered = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    public CartStore(
+        CartWriteAheadLog writeAheadLog,
+        JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager,
+        ApplicationEventPublisher eventPublisher,
+        ApplicationProperties applicationProperties
+    ) {
+        this.writeAheadLog = writeAheadLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(applicationProperties.getCartStore().getIdleSeconds());
+        for (CartChange change : writeAheadLog.open()) {
+            recovered.computeIfAbsent(change.getCarritoId(), carritoId -> new ArrayList<>()).add(change);
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Recovered the unwritten changes of {} carritos", recovered.size());
+        }
+    }
+
+    /**
+     * @param carritoId the id of the carrito.
+     * @return the lines of the carrito, empty if the carrito does not exist.
+     */
+    public Optional<CartContents> get(Long carritoId) {
+        return cart(carritoId).map(Cart::contents);
+    }
+
+    /**
+     * @param carritoId the id of the carrito.
+     * @return the version of the carrito if it is held in memory, where it may be ahead of the database.
+     */
+    public Optional<Long> findVersion(Long carritoId) {
+        Cart cart = carts.get(carritoId);
+        return cart != null ? Optional.of(cart.version()) : Optional.empty();
+    }
+
+    /**
+     * Change the lines of a carrito, incrementing its version. The change is logged when this returns, and written
+     * to the database later.
+     *
+     * @param carritoId the id of the carrito.
+     * @param changes given the current units of each producto, the new units of the productos to change, zero to
+     * remove them; called while the carrito is locked.
+     * @return the lines of the carrito once changed, empty if the carrito does not exist.
+     * @throws CartStoreException if the change could not be logged, in which case it is not applied.
+     */
+    public Optional<CartContents> update(Long carritoId, Function<SortedMap<Long, Integer>, Map<Long, Integer>> changes) {
+        return update(carritoId, null, changes);
+    }
+
+    /**
+     * Change the lines of a carrito as seen at a given version, incrementing its version. The change is merged with
+     * the ones made since that version, unless one of them changed the line of a producto it changes too.
+     *
+     * @param carritoId the id of the carrito.
+     * @param baseVersion the version the change was made on, null to apply it to the current one whatever it is.
+     * @param changes given the current units of each producto, the new units of the productos to change, zero to
+     * remove them; called while the carrito is locked.
+     * @return the lines of the carrito once changed, empty if the carrito does not exist.
+     * @throws CartConflictException if the line of a changed producto changed since the base
+     * version, or the history of the carrito no longer goes back to it.
+     * @throws CartStoreException if the change could not be logged, in which case it is not applied.
+     */
+    public Optional<CartContents> update(
+        Long carritoId,
+        Long baseVersion,
+        Function<SortedMap<Long, Integer>, Map<Long, Integer>> changes
+    ) {
+        return change(
+            carritoId,
+            cart -> {
+                Map<Long, Integer> changed = changes.apply(Collections.unmodifiableSortedMap(cart.items));
+                if (baseVersion != null) {
+                    for (Long productoId : changed.keySet()) {
+                        if (cart.cantidadAt(productoId, baseVersion) != cart.cantidad(productoId)) {
+                            throw new CartConflictException(carritoId);
+                        }
+                    }
+                }
+                return changed;
+            }
+        );
+    }
+
+    /**
+     * Set the productos of a carrito as edited as a whole on a given version, incrementing its version even if its
+     * lines stay the same. This is a three-way merge: only the productos added or removed since the base version
+     * are added or removed, so that the productos added or removed meanwhile by other changes are kept so. The
+     * productos it already has keep their units, the new ones get one.
+     *
+     * @param carritoId the id of the carrito.
+     * @param baseVersion the version the carrito was edited on, null to replace the current productos whatever they are.
+     * @param productoIds the productos of the carrito as edited, null to leave its lines unchanged.
+     * @param fieldsChanged whether the other fields of the carrito were edited too, which conflicts with another such
+     * edit since the base version.
+     * @return the lines of the carrito once changed, empty if the carrito does not exist.
+     * @throws CartConflictException if the changes made since the base version cannot be merged, or
+     * the history of the carrito no longer goes back to it.
+     * @throws CartStoreException if the change could not be logged, in which case it is not applied.
+     */
+    public Optional<CartContents> replace(Long carritoId, Long baseVersion, Set<Long> productoIds, boolean fieldsChanged) {
+        return change(
+            carritoId,
+            cart -> {
+                long base = baseVersion != null ? baseVersion : cart.version;
+                if (fieldsChanged && cart.fieldsVersion > base) {
+                    throw new CartConflictException(carritoId);
+                }
+                Map<Long, Integer> changed = new TreeMap<>();
+                if (productoIds != null) {
+                    Set<Long> productos = new TreeSet<>(productoIds);
+                    productos.addAll(cart.items.keySet());
+                    for (Long productoId : productos) {
+                        boolean edited = productoIds.contains(productoId);
+                        int current = cart.cantidad(productoId);
+                        if (edited == (current > 0)) {
+                            continue;
+                        }
+                        int before = cart.cantidadAt(productoId, base);
+                        if (before == Cart.UNKNOWN) {
+                            throw new CartConflictException(carritoId);
+                        }
+                        // Else left as it was by the edit, and added or removed since by another change, which is kept
+                        if (edited != (before > 0)) {
+                            changed.put(productoId, edited ? 1 : 0);
+                        }
+                    }
+                }
+                if (fieldsChanged) {
+                    cart.previousFieldsVersion = cart.fieldsVersion;
+                    cart.fieldsVersion = cart.version + 1;
+                }
+                return changed;
+            }
+        );
+    }
+
+    /**
+     * Undo a change of a carrito whose transaction rolled back: the lines it changed are put back as they were, but for
+     * the ones changed again since, and the change of the other fields it recorded, if any, is forgotten. This is a
+     * new change, incrementing the version.
+     *
+     * @param carritoId the id of the carrito.
+     * @param version the version given to the carrito by the change.
+     * @throws CartStoreException if the undoing could not be logged, in which case it is not applied.
+     */
+    public void revert(Long carritoId, long version) {
+        change(
+            carritoId,
+            cart -> {
+                Map<Long, Integer> changed = new TreeMap<>();
+                if (version <= cart.forgotten) {
+                    log.warn("Could not undo the change {} of Carrito {}, no longer in its history", version, carritoId);
+                } else {
+                    for (LineChange lineChange : cart.history) {
+                        if (lineChange.version == version) {
+                            changed.put(lineChange.productoId, lineChange.previous);
+                        } else if (lineChange.version > version) {
+                            changed.remove(lineChange.productoId);
+                        }
+                    }
+                }
+                if (cart.fieldsVersion == version) {
+                    cart.fieldsVersion = cart.previousFieldsVersion;
+                }
+                return changed;
+            }
+        );
+    }
+
+    private Optional<CartContents> change(Long carritoId, Function<Cart, Map<Long, Integer>> changes) {
+        while (true) {
+            Optional<Cart> found = cart(carritoId);
+            if (!found.isPresent()) {
+                return Optional.empty();
+            }
+            Cart cart = found.get();
+            synchronized (cart) {
+                if (cart.evicted) {
+                    // Dropped from memory meanwhile, load it again
+                    continue;
+                }
+                CartChange change = new CartChange(carritoId, cart.version + 1, changes.apply(cart));
+                writeAheadLog.append(change);
+                cart.apply(change);
+                return Optional.of(cart.contents());
+            }
+        }
+    }
+
+    /**
+     * Write the pending changes of a carrito, in the current transaction if any.
+     *
+     * @param carritoId the id of the carrito.
+     */
+    public void flush(Long carritoId) {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                Cart cart = recovered.containsKey(carritoId) ? cart(carritoId).orElse(null) : carts.get(carritoId);
+                Snapshot snapshot = cart != null ? cart.snapshot() : null;
+                if (snapshot != null) {
+                    write(Collections.singletonList(snapshot));
+                }
+            }
+        );
+    }
+
+    /**
+     * Drop a carrito from memory once the current transaction commits, when it is deleted; were it used again, it
+     * would be loaded again. Its pending changes are lost unless written with {@link #flush(Long)}.
+     *
+     * @param carritoId the id of the carrito.
+     */
+    public void evict(Long carritoId) {
+        afterCommit(
+            () -> {
+                Cart cart = carts.get(carritoId);
+                if (cart != null) {
+                    drop(cart);
+                }
+            }
+        );
+    }
+
+    /**
+     * Write the pending changes of all the carritos, then delete the segments of the log holding them, and drop from
+     * memory the carritos unchanged for {@code application.cart-store.idle-seconds}.
+     */
+    @Scheduled(fixedDelayString = "PT${application.cart-store.flush-interval-seconds:5}S")
+    public synchronized void flushAll() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (!recovered.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> new ArrayList<>(recovered.keySet()).forEach(this::cart));
+            }
+            long segment = writeAheadLog.roll();
+            List<Snapshot> snapshots = carts.values().stream().map(Cart::snapshot).filter(Objects::nonNull).collect(Collectors.toList());
+            if (!snapshots.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> write(snapshots));
+                log.debug("Wrote {} changed carritos", snapshots.size());
+            }
+            writeAheadLog.deleteBefore(segment);
+            evictIdle();
+        } catch (RuntimeException e) {
+            log.warn("Could not write the changed carritos, retrying on the next flush: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Write the pending changes before the database goes away, then close the log.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void onShutdown() {
+        flushAll();
+        closed = true;
+        writeAheadLog.close();
+    }
+
+    private Optional<Cart> cart(Long carritoId) {
+        Cart cart = carts.get(carritoId);
+        if (cart != null) {
+            return Optional.of(cart);
+        }
+        return transactionTemplate.execute(status -> load(carritoId));
+    }
+
+    private Optional<Cart> load(Long carritoId) {
+        List<CartChange> pending = recovered.get(carritoId);
+        List<Long> versions = jdbcTemplate.queryForList("select version from carrito where id = ?", Long.class, carritoId);
+        if (versions.isEmpty()) {
+            if (pending != null) {
+                log.debug("Dropping the unwritten changes of the deleted Carrito : {}", carritoId);
+                recovered.remove(carritoId, pending);
+            }
+            return Optional.empty();
+        }
+        SortedMap<Long, Integer> items = new TreeMap<>();
+        jdbcTemplate.query(
+            "select producto_id, cantidad from " + ITEM_TABLE + " where carrito_id = ?",
+            rs -> {
+                items.put(rs.getLong(1), rs.getInt(2));
+            },
+            carritoId
+        );
+        Cart loaded = new Cart(carritoId, versions.get(0), items);
+        if (pending != null) {
+            for (CartChange change : pending) {
+                // A version already in the database is a change written before the restart
+                if (change.getVersion() > loaded.version) {
+                    loaded.apply(change);
+                }
+            }
+        }
+        Cart existing = carts.putIfAbsent(carritoId, loaded);
+        if (existing != null) {
+            return Optional.of(existing);
+        }
+        if (pending != null) {
+            recovered.remove(carritoId, pending);
+        }
+        return Optional.of(loaded);
+    }
+
+    private void write(List<Snapshot> snapshots) {
+        // Only moves forward, so that a snapshot overtaken by a newer one written meanwhile leaves the newer lines
+        int[] updated = jdbcTemplate.batchUpdate(
+            "update carrito set version = ? where id = ? and version <= ?",
+            snapshots
+                .stream()
+                .map(snapshot -> new Object[] { snapshot.version, snapshot.cart.carritoId, snapshot.version })
+                .collect(Collectors.toList())
+        );
+        List<Snapshot> written = new ArrayList<>(snapshots.size());
+        List<Snapshot> overtaken = new ArrayList<>();
+        List<Cart> deleted = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            Snapshot snapshot = snapshots.get(i);
+            if (updated[i] != 0) {
+                written.add(snapshot);
+            } else if (jdbcTemplate.queryForList("select id from carrito where id = ?", Long.class, snapshot.cart.carritoId).isEmpty()) {
+                deleted.add(snapshot.cart);
+            } else {
+                overtaken.add(snapshot);
+            }
+        }
+        if (!written.isEmpty()) {
+            List<Object[]> lines = new ArrayList<>();
+            for (Snapshot snapshot : written) {
+                snapshot.items.forEach((productoId, cantidad) -> lines.add(new Object[] { snapshot.cart.carritoId, cantidad, productoId }));
+            }
+            jdbcTemplate.batchUpdate(
+                "delete from " + ITEM_TABLE + " where carrito_id = ?",
+                written.stream().map(snapshot -> new Object[] { snapshot.cart.carritoId }).collect(Collectors.toList())
+            );
+            if (!lines.isEmpty()) {
+                // Selected from producto, so that a producto deleted meanwhile is left out instead of failing the batch
+                jdbcTemplate.batchUpdate(
+                    "insert into " + ITEM_TABLE + " (carrito_id, producto_id, cantidad) select ?, id, ? from producto where id = ?",
+                    lines
+                );
+            }
+            written.forEach(snapshot -> eventPublisher.publishEvent(new EntityChangedEvent(Carrito.class, snapshot.cart.carritoId)));
+        }
+        afterCommit(
+            () -> {
+                written.forEach(snapshot -> snapshot.cart.flushed(snapshot.changes));
+                overtaken.forEach(snapshot -> snapshot.cart.flushed(snapshot.changes));
+                deleted.forEach(this::drop);
+            }
+        );
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (Cart cart : carts.values()) {
+            synchronized (cart) {
+                if (cart.changes == cart.flushed && now - cart.touchedAt > idleNanos) {
+                    drop(cart);
+                }
+            }
+        }
+    }
+
+    private void drop(Cart cart) {
+        synchronized (cart) {
+            cart.evicted = true;
+            carts.remove(cart.carritoId, cart);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            }
+        );
+    }
+
+    /**
+     * A carrito in memory; its fields are guarded by its monitor.
+     */
+    private static final class Cart {
+
+        private static final int UNKNOWN = -1;
+
+        private final Long carritoId;
+
+        private final SortedMap<Long, Integer> items;
+
+        /**
+         * The version the carrito was loaded with, which its history goes back to.
+         */
+        private final long baseline;
+
+        /**
+         * The line changes since the baseline, oldest first, up to {@code MAX_HISTORY}.
+         */
+        private final Deque<LineChange> history = new ArrayDeque<>();
+
+        private long version;
+
+        /**
+         * The version of the newest line change dropped from the history.
+         */
+        private long forgotten;
+
+        /**
+         * The version of the last change of the other fields of the carrito, or the baseline as it is not known.
+         */
+        private long fieldsVersion;
+
+        /**
+         * The version of the change of the other fields before the last one, for when the last one is undone.
+         */
+        private long previousFieldsVersion;
+
+        private long changes;
+
+        private long flushed;
+
+        private boolean evicted;
+
+        private volatile long touchedAt = System.nanoTime();
+
+        private Cart(Long carritoId, long version, SortedMap<Long, Integer> items) {
+            this.carritoId = carritoId;
+            this.baseline = version;
+            this.version = version;
+            this.fieldsVersion = version;
+            this.previousFieldsVersion = version;
+            this.items = items;
+        }
+
+        private void apply(CartChange change) {
+            change
+                .getItems()
+                .forEach(
+                    (productoId, cantidad) -> {
+                        Integer previous = cantidad > 0 ? items.put(productoId, cantidad) : items.remove(productoId);
+                        int before = previous != null ? previous : 0;
+                        if (before != cantidad) {
+                            remember(new LineChange(change.getVersion(), productoId, before));
+                        }
+                    }
+                );
+            version = change.getVersion();
+            changes++;
+            touchedAt = System.nanoTime();
+        }
+
+        private void remember(LineChange lineChange) {
+            if (history.size() == MAX_HISTORY) {
+                forgotten = history.removeFirst().version;
+            }
+            history.addLast(lineChange);
+        }
+
+        private int cantidad(Long productoId) {
+            return items.getOrDefault(productoId, 0);
+        }
+
+        /**
+         * @return the units of a producto at an older version, zero if the carrito did not have it, or
+         * {@link #UNKNOWN} if the history no longer goes back to that version.
+         */
+        private int cantidadAt(Long productoId, long atVersion) {
+            if (atVersion >= version) {
+                return cantidad(productoId);
+            }
+            if (atVersion < baseline || atVersion < forgotten) {
+                return UNKNOWN;
+            }
+            int cantidad = cantidad(productoId);
+            Iterator<LineChange> newestFirst = history.descendingIterator();
+            while (newestFirst.hasNext()) {
+                LineChange lineChange = newestFirst.next();
+                if (lineChange.version <= atVersion) {
+                    break;
+                }
+                if (lineChange.productoId.equals(productoId)) {
+                    cantidad = lineChange.previous;
+                }
+            }
+            return cantidad;
+        }
+
+        private synchronized long version() {
+            return version;
+        }
+
+        private synchronized CartContents contents() {
+            touchedAt = System.nanoTime();
+            return new CartContents(carritoId, version, items);
+        }
+
+        private synchronized Snapshot snapshot() {
+            return changes > flushed ? new Snapshot(this, version, changes, items) : null;
+        }
+
+        private synchronized void flushed(long upTo) {
+            flushed = Math.max(flushed, upTo);
+        }
+    }
+
+    /**
+     * A change of the line of a producto, and its units before it.
+     */
+    private static final class LineChange {
+
+        private final long version;
+
+        private final Long productoId;
+
+        private final int previous;
+
+        private LineChange(long version, Long productoId, int previous) {
+            this.version = version;
+            this.productoId = productoId;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * The state of a carrito to write, and how many changes it includes.
+     */
+    private static final class Snapshot {
+
+        private final Cart cart;
+
+        private final long version;
+
+        private final long changes;
+
+        private final SortedMap<Long, Integer> items;
+
+        private Snapshot(Cart cart, long version, long changes, SortedMap<Long, Integer> items) {
+            this.cart = cart;
+            this.version = version;
+            this.changes = changes;
+            this.items = new TreeMap<>(items);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package es.yuliq.service.cart;
+
+/**
+ * Thrown when the {@link CartWriteAheadLog} cannot write or read the changes of the carritos.
+ */
+public class CartStoreException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CartStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
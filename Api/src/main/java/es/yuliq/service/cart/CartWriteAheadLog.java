@@ -0,0 +1,237 @@
+package es.yuliq.service.cart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of the {@link CartChange}s not yet written to the database, kept in a local directory so that
+ * they survive a crash or a restart.
+ * <p>
+ * The log is split in numbered segments, {@code cart-0000000000000000001.wal} and so on. Each change is appended
+ * to the current segment and forced to the disk before it is acknowledged. Before the changed carritos are written
+ * to the database a new segment is started, and the older ones are deleted once the write is committed.
+ * <p>
+ * A record is the length of its payload, the payload, then its CRC-32. The payload is the id and version of the
+ * carrito, the number of items, then each producto id and its units. A record cut short by a crash fails its
+ * checksum, and the rest of its segment is ignored.
+ */
+public class CartWriteAheadLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "cart-";
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final String LOCK_FILE = "cart-wal.lock";
+
+    private static final int HEADER_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private static final int ITEM_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final Logger log = LoggerFactory.getLogger(CartWriteAheadLog.class);
+
+    private final Path directory;
+
+    private FileChannel lockChannel;
+
+    private FileChannel channel;
+
+    private long segment;
+
+    private boolean empty;
+
+    public CartWriteAheadLog(Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Lock the directory, read the changes left by the previous run, then start a new segment.
+     *
+     * @return the changes of the existing segments, in the order they were appended.
+     * @throws CartStoreException if the directory cannot be read, or is used by another process.
+     */
+    synchronized List<CartChange> open() {
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                lockChannel.close();
+                throw new IOException("The directory is used by another cart store");
+            }
+            List<CartChange> changes = new ArrayList<>();
+            TreeSet<Long> segments = segments();
+            for (Long existing : segments) {
+                read(segmentPath(existing), changes);
+            }
+            log.debug("Recovered {} cart changes from {} segments in {}", changes.size(), segments.size(), directory);
+            segment = segments.isEmpty() ? 0 : segments.last();
+            startSegment();
+            return changes;
+        } catch (IOException e) {
+            throw new CartStoreException("Could not open the cart write-ahead log in " + directory, e);
+        }
+    }
+
+    /**
+     * Append a change to the current segment and force it to the disk.
+     *
+     * @param change the change.
+     * @throws CartStoreException if the change could not be written, in which case it must not be applied.
+     */
+    synchronized void append(CartChange change) {
+        ByteBuffer buffer = encode(change);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            empty = false;
+        } catch (IOException e) {
+            throw new CartStoreException("Could not log the change of Carrito " + change.getCarritoId(), e);
+        }
+    }
+
+    /**
+     * Start a new segment, unless the current one is still empty.
+     *
+     * @return the number of the current segment; the changes of the older ones can be deleted once written.
+     */
+    synchronized long roll() {
+        if (!empty) {
+            try {
+                channel.close();
+                startSegment();
+            } catch (IOException e) {
+                throw new CartStoreException("Could not start a new segment of the cart write-ahead log", e);
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Delete the segments older than the given one, whose changes are all written to the database.
+     *
+     * @param current the number returned by {@link #roll()} before the changes were written.
+     */
+    synchronized void deleteBefore(long current) {
+        try {
+            for (Long older : segments().headSet(current)) {
+                Files.deleteIfExists(segmentPath(older));
+            }
+        } catch (IOException e) {
+            // Harmless: the changes are applied again, to the same effect, on the next start
+            log.warn("Could not delete the written segments of the cart write-ahead log: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+                if (empty) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Could not close the cart write-ahead log: {}", e.getMessage());
+        }
+    }
+
+    private void startSegment() throws IOException {
+        segment++;
+        channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        empty = true;
+    }
+
+    private TreeSet<Long> segments() throws IOException {
+        TreeSet<Long> segments = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.valueOf(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring {} in the cart write-ahead log", name);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private void read(Path file, List<CartChange> changes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+            if (length < HEADER_BYTES || length > buffer.remaining() - Integer.BYTES) {
+                log.warn("Ignoring the last {} bytes of {}, cut short", buffer.remaining() + Integer.BYTES, file.getFileName());
+                return;
+            }
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            buffer.position(buffer.position() + length);
+            if (checksum(payload.duplicate()) != buffer.getInt()) {
+                log.warn("Ignoring the end of {}, which fails its checksum", file.getFileName());
+                return;
+            }
+            changes.add(decode(payload));
+        }
+    }
+
+    private static ByteBuffer encode(CartChange change) {
+        int length = HEADER_BYTES + change.getItems().size() * ITEM_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + length + Integer.BYTES);
+        buffer.putInt(length).putLong(change.getCarritoId()).putLong(change.getVersion()).putInt(change.getItems().size());
+        change.getItems().forEach((productoId, cantidad) -> buffer.putLong(productoId).putInt(cantidad));
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(Integer.BYTES).limit(Integer.BYTES + length);
+        buffer.putInt(checksum(payload));
+        buffer.flip();
+        return buffer;
+    }
+
+    private static CartChange decode(ByteBuffer payload) {
+        long carritoId = payload.getLong();
+        long version = payload.getLong();
+        int size = payload.getInt();
+        Map<Long, Integer> items = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            items.put(payload.getLong(), payload.getInt());
+        }
+        return new CartChange(carritoId, version, items);
+    }
+
+    private static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Write-behind store of the carritos being filled, which keeps their lines in memory, logs each change to a local
+ * write-ahead log and writes them to the database in batches.
+ */
+package es.yuliq.service.cart;
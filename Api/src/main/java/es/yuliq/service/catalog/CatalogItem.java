@@ -0,0 +1,36 @@
+package es.yuliq.service.catalog;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+
+/**
+ * A producto of a {@link CatalogSnapshot}, with its JSON representation rendered once.
+ */
+public final class CatalogItem {
+
+    private final long id;
+
+    private final TipoProducto tipoproducto;
+
+    private final byte[] json;
+
+    public CatalogItem(long id, TipoProducto tipoproducto, byte[] json) {
+        this.id = id;
+        this.tipoproducto = tipoproducto;
+        this.json = json;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public TipoProducto getTipoproducto() {
+        return tipoproducto;
+    }
+
+    /**
+     * @return the UTF-8 JSON of the producto; it must not be modified.
+     */
+    byte[] getJson() {
+        return json;
+    }
+}
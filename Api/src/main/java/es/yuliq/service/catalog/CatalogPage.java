@@ -0,0 +1,40 @@
+package es.yuliq.service.catalog;
+
+/**
+ * A page of a {@link CatalogSnapshot}, rendered as the JSON array of its productos.
+ */
+public final class CatalogPage {
+
+    private final byte[] json;
+
+    private final byte[] gzip;
+
+    private final long totalElements;
+
+    CatalogPage(byte[] json, byte[] gzip, long totalElements) {
+        this.json = json;
+        this.gzip = gzip;
+        this.totalElements = totalElements;
+    }
+
+    /**
+     * @return the UTF-8 JSON array of the productos of the page; it must not be modified.
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * @return the gzip encoding of {@link #getJson()} if it was precomputed, otherwise null; it must not be modified.
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * @return the number of productos of all the pages.
+     */
+    public long getTotalElements() {
+        return totalElements;
+    }
+}
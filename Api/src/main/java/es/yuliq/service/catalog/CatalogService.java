@@ -0,0 +1,118 @@
+package es.yuliq.service.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.enumeration.TipoProducto;
+import es.yuliq.service.EntityChangedEvent;
+import es.yuliq.service.ProductoQueryService;
+import es.yuliq.service.criteria.ProductoCriteria;
+import es.yuliq.service.dto.ProductoDTO;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tech.jhipster.service.filter.LongFilter;
+
+/**
+ * Service holding the current {@link CatalogSnapshot}.
+ * <p>
+ * The snapshot is built on the first request, with the same columns as the list of productos, and
+ * then kept up to date one producto at a time when the changes of the producto service are committed.
+ */
+@Service
+public class CatalogService {
+
+    private final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    private final ProductoQueryService productoQueryService;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile CatalogSnapshot snapshot;
+
+    public CatalogService(ProductoQueryService productoQueryService, ObjectMapper objectMapper) {
+        this.productoQueryService = productoQueryService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Get a page of the catalog, in id order.
+     *
+     * @param tipoproducto the type of the productos to include, or null for all of them.
+     * @param pageable the page number and size; its sort is ignored.
+     * @return the rendered page.
+     */
+    public CatalogPage getPage(TipoProducto tipoproducto, Pageable pageable) {
+        return getSnapshot().getPage(tipoproducto, pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    /**
+     * @return the current snapshot, built if needed.
+     */
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = build();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Replace the changed producto in the snapshot, once the change is committed.
+     *
+     * @param event the change.
+     */
+    @TransactionalEventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() != Producto.class) {
+            return;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                return;
+            }
+            Long id = (Long) event.getId();
+            List<ProductoDTO> productos = productoQueryService.findProjectedByCriteria(byId(id), Pageable.unpaged()).getContent();
+            snapshot = productos.isEmpty() ? snapshot.without(id) : snapshot.with(toItem(productos.get(0)));
+            log.debug("Catalog snapshot updated for Producto : {}", id);
+        }
+    }
+
+    private CatalogSnapshot build() {
+        List<ProductoDTO> productos = productoQueryService
+            .findProjectedByCriteria(new ProductoCriteria(), Pageable.unpaged())
+            .getContent();
+        List<CatalogItem> items = new ArrayList<>(productos.size());
+        for (ProductoDTO producto : productos) {
+            items.add(toItem(producto));
+        }
+        log.debug("Catalog snapshot built with {} productos", items.size());
+        return CatalogSnapshot.of(items);
+    }
+
+    private CatalogItem toItem(ProductoDTO producto) {
+        try {
+            return new CatalogItem(producto.getId(), producto.getTipoproducto(), objectMapper.writeValueAsBytes(producto));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render Producto " + producto.getId(), e);
+        }
+    }
+
+    private static ProductoCriteria byId(Long id) {
+        LongFilter idFilter = new LongFilter();
+        idFilter.setEquals(id);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setId(idFilter);
+        return criteria;
+    }
+}
@@ -0,0 +1,157 @@
+package es.yuliq.service.catalog;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable snapshot of the productos of the catalog, in id order.
+ * <p>
+ * Changes produce a new snapshot which shares the rendered JSON of the unchanged productos, so that a
+ * page is only the concatenation of the JSON of its productos. Pages of the default size are also
+ * kept, with their gzip encoding, for as long as the snapshot is current.
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * Size of the pages kept rendered with the snapshot, the default page size of the API.
+     */
+    public static final int CACHED_PAGE_SIZE = 20;
+
+    private final List<CatalogItem> items;
+
+    private final Map<TipoProducto, List<CatalogItem>> itemsByTipo = new EnumMap<>(TipoProducto.class);
+
+    private final Map<String, CatalogPage> cachedPages = new ConcurrentHashMap<>();
+
+    private CatalogSnapshot(List<CatalogItem> items) {
+        this.items = items;
+        for (CatalogItem item : items) {
+            if (item.getTipoproducto() != null) {
+                itemsByTipo.computeIfAbsent(item.getTipoproducto(), tipo -> new ArrayList<>()).add(item);
+            }
+        }
+    }
+
+    /**
+     * @param items the productos of the catalog, in any order.
+     * @return the snapshot of the productos.
+     */
+    public static CatalogSnapshot of(Collection<CatalogItem> items) {
+        List<CatalogItem> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingLong(CatalogItem::getId));
+        return new CatalogSnapshot(Collections.unmodifiableList(sorted));
+    }
+
+    /**
+     * @param item a new or updated producto.
+     * @return a snapshot with the producto added or replaced.
+     */
+    public CatalogSnapshot with(CatalogItem item) {
+        List<CatalogItem> copy = new ArrayList<>(items.size() + 1);
+        copy.addAll(items);
+        int index = indexOf(item.getId());
+        if (index >= 0) {
+            copy.set(index, item);
+        } else {
+            copy.add(-index - 1, item);
+        }
+        return new CatalogSnapshot(Collections.unmodifiableList(copy));
+    }
+
+    /**
+     * @param id the id of a deleted producto.
+     * @return a snapshot without the producto.
+     */
+    public CatalogSnapshot without(long id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return this;
+        }
+        List<CatalogItem> copy = new ArrayList<>(items);
+        copy.remove(index);
+        return new CatalogSnapshot(Collections.unmodifiableList(copy));
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Render a page of the productos.
+     *
+     * @param tipoproducto the type of the productos to include, or null for all of them.
+     * @param page the number of the page, from 0.
+     * @param size the number of productos per page.
+     * @return the page.
+     */
+    public CatalogPage getPage(TipoProducto tipoproducto, int page, int size) {
+        List<CatalogItem> matching = tipoproducto == null
+            ? items
+            : itemsByTipo.getOrDefault(tipoproducto, Collections.emptyList());
+        long offset = (long) page * size;
+        if (size != CACHED_PAGE_SIZE || offset >= matching.size()) {
+            return render(matching, offset, size, false);
+        }
+        return cachedPages.computeIfAbsent(tipoproducto + ":" + page, key -> render(matching, offset, size, true));
+    }
+
+    private static CatalogPage render(List<CatalogItem> matching, long offset, int size, boolean withGzip) {
+        int from = (int) Math.min(offset, matching.size());
+        int to = (int) Math.min(offset + size, matching.size());
+        int length = 2 + Math.max(0, to - from - 1);
+        for (int i = from; i < to; i++) {
+            length += matching.get(i).getJson().length;
+        }
+        byte[] json = new byte[length];
+        int position = 0;
+        json[position++] = '[';
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                json[position++] = ',';
+            }
+            byte[] item = matching.get(i).getJson();
+            System.arraycopy(item, 0, json, position, item.length);
+            position += item.length;
+        }
+        json[position] = ']';
+        return new CatalogPage(json, withGzip ? gzip(json) : null, matching.size());
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private int indexOf(long id) {
+        int low = 0;
+        int high = items.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = items.get(middle).getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-memory snapshot of the product catalog, served without querying the database.
+ */
+package es.yuliq.service.catalog;
@@ -0,0 +1,196 @@
+package es.yuliq.service.columnar;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import tech.jhipster.service.filter.RangeFilter;
+
+/**
+ * A numeric column of {@link ProductoColumns}: the values of the rows which have one, in ascending order,
+ * next to the row each value belongs to.
+ * <p>
+ * The conditions of a {@link RangeFilter} are answered by binary searches over the values, and give the
+ * set of the matching rows.
+ */
+final class NumericColumn {
+
+    private final int rowCount;
+
+    private final double[] values;
+
+    private final int[] rows;
+
+    private final BitSet present;
+
+    private NumericColumn(int rowCount, double[] values, int[] rows, BitSet present) {
+        this.rowCount = rowCount;
+        this.values = values;
+        this.rows = rows;
+        this.present = present;
+    }
+
+    /**
+     * @param rowValues the value of each row, or null for the rows without one.
+     * @return the column of the values.
+     */
+    static NumericColumn of(List<? extends Number> rowValues) {
+        int rowCount = rowValues.size();
+        BitSet present = new BitSet(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            if (rowValues.get(row) != null) {
+                present.set(row);
+            }
+        }
+        int[] rows = present
+            .stream()
+            .boxed()
+            .sorted(Comparator.comparingDouble(row -> rowValues.get(row).doubleValue()))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        double[] values = new double[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            values[i] = rowValues.get(rows[i]).doubleValue();
+        }
+        return new NumericColumn(rowCount, values, rows, present);
+    }
+
+    /**
+     * @return whether every row has a value.
+     */
+    boolean isComplete() {
+        return rows.length == rowCount;
+    }
+
+    /**
+     * Evaluate a filter like {@code QueryService#buildRangeSpecification}: {@code equals} wins over everything
+     * else, then {@code in}, and otherwise all the other conditions must apply. As in SQL, rows without a value
+     * only match {@code specified=false}.
+     *
+     * @param filter the filter.
+     * @return the matching rows.
+     */
+    BitSet evaluate(RangeFilter<? extends Number> filter) {
+        if (filter.getEquals() != null) {
+            return equalTo(filter.getEquals());
+        }
+        if (filter.getIn() != null) {
+            return in(filter.getIn());
+        }
+        BitSet result = new BitSet(rowCount);
+        result.set(0, rowCount);
+        if (filter.getSpecified() != null) {
+            if (filter.getSpecified()) {
+                result.and(present);
+            } else {
+                result.andNot(present);
+            }
+        }
+        if (filter.getNotEquals() != null) {
+            result.and(present);
+            result.andNot(equalTo(filter.getNotEquals()));
+        }
+        if (filter.getNotIn() != null) {
+            result.and(present);
+            if (filter.getNotIn().stream().anyMatch(Objects::isNull)) {
+                result.clear();
+            }
+            result.andNot(in(filter.getNotIn()));
+        }
+        if (filter.getGreaterThan() != null) {
+            result.and(select(upperBound(filter.getGreaterThan().doubleValue()), rows.length));
+        }
+        if (filter.getGreaterThanOrEqual() != null) {
+            result.and(select(lowerBound(filter.getGreaterThanOrEqual().doubleValue()), rows.length));
+        }
+        if (filter.getLessThan() != null) {
+            result.and(select(0, lowerBound(filter.getLessThan().doubleValue())));
+        }
+        if (filter.getLessThanOrEqual() != null) {
+            result.and(select(0, upperBound(filter.getLessThanOrEqual().doubleValue())));
+        }
+        return result;
+    }
+
+    /**
+     * Order the rows which have a value.
+     *
+     * @param ascending the direction of the values.
+     * @param tiesAscending the direction of the rows with the same value.
+     * @return the rows in order.
+     */
+    int[] order(boolean ascending, boolean tiesAscending) {
+        int[] order = new int[rows.length];
+        int run = 0;
+        while (run < rows.length) {
+            int runEnd = run + 1;
+            while (runEnd < rows.length && values[runEnd] == values[run]) {
+                runEnd++;
+            }
+            int target = ascending ? run : rows.length - runEnd;
+            for (int i = run; i < runEnd; i++) {
+                order[target++] = rows[tiesAscending ? i : run + runEnd - 1 - i];
+            }
+            run = runEnd;
+        }
+        return order;
+    }
+
+    private BitSet equalTo(Number value) {
+        double key = value.doubleValue();
+        return select(lowerBound(key), upperBound(key));
+    }
+
+    private BitSet in(Collection<? extends Number> keys) {
+        BitSet result = new BitSet(rowCount);
+        for (Number key : keys) {
+            if (key != null) {
+                result.or(equalTo(key));
+            }
+        }
+        return result;
+    }
+
+    private BitSet select(int from, int to) {
+        BitSet result = new BitSet(rowCount);
+        for (int i = from; i < to; i++) {
+            result.set(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the index of the first value not less than the key.
+     */
+    private int lowerBound(double key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the index of the first value greater than the key.
+     */
+    private int upperBound(double key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
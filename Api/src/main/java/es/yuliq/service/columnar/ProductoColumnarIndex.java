@@ -0,0 +1,66 @@
+package es.yuliq.service.columnar;
+
+import es.yuliq.service.dto.ProductoDTO;
+import java.util.Collection;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holder of the current {@link ProductoColumns}.
+ * <p>
+ * The columns are loaded on the first query, and then kept up to date one producto at a time by
+ * {@link ProductoColumnsListener} when the changes to the productos are committed.
+ */
+@Component
+public class ProductoColumnarIndex {
+
+    private final Logger log = LoggerFactory.getLogger(ProductoColumnarIndex.class);
+
+    private volatile ProductoColumns columns;
+
+    /**
+     * @param loader the query of all the productos, called if the columns are not loaded yet.
+     * @return the current columns.
+     */
+    public ProductoColumns getColumns(Supplier<? extends Collection<ProductoDTO>> loader) {
+        ProductoColumns current = columns;
+        if (current == null) {
+            synchronized (this) {
+                current = columns;
+                if (current == null) {
+                    current = ProductoColumns.of(loader.get());
+                    log.debug("Producto columns loaded with {} productos", current.size());
+                    columns = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Add or replace a committed producto; nothing is done until the columns are loaded, as the load reads
+     * the committed productos.
+     *
+     * @param producto the producto.
+     */
+    public synchronized void put(ProductoDTO producto) {
+        if (columns != null) {
+            columns = columns.with(producto);
+            log.debug("Producto columns updated for Producto : {}", producto.getId());
+        }
+    }
+
+    /**
+     * Remove a producto once its deletion is committed.
+     *
+     * @param id the id of the producto.
+     */
+    public synchronized void remove(Long id) {
+        if (columns != null) {
+            columns = columns.without(id);
+            log.debug("Producto columns updated for deleted Producto : {}", id);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package es.yuliq.service.columnar;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import es.yuliq.service.criteria.ProductoCriteria;
+import es.yuliq.service.dto.CompraDTO;
+import es.yuliq.service.dto.ProductoDTO;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import tech.jhipster.service.filter.Filter;
+
+/**
+ * Immutable columnar snapshot of the productos, with the rows in id order.
+ * <p>
+ * {@code id}, {@code precio}, {@code calorias} and {@code existencias} are kept as {@link NumericColumn}s and
+ * {@code tipoproducto} as one bitmap per value, so that a {@link ProductoCriteria} is evaluated as the
+ * intersection of the rows matching each of its filters, with the same semantics as
+ * {@link es.yuliq.service.ProductoQueryService#createSpecification}. Filters on {@code nombreProducto} and on
+ * the relationships, and sorts other than by {@code id}, {@code precio} or {@code existencias}, are not
+ * supported and must be run against the database; see {@link #supports(ProductoCriteria, Sort)}.
+ * <p>
+ * Changes produce a new snapshot which shares the rows of the unchanged productos.
+ */
+public final class ProductoColumns {
+
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("precio", "existencias");
+
+    private static final String ID = "id";
+
+    private final List<ProductoDTO> rows;
+
+    private final NumericColumn id;
+
+    private final NumericColumn calorias;
+
+    private final NumericColumn precio;
+
+    private final NumericColumn existencias;
+
+    private final Map<TipoProducto, BitSet> tipoproducto = new EnumMap<>(TipoProducto.class);
+
+    private final BitSet tipoproductoPresent;
+
+    private final Map<Sort, int[]> orders = new ConcurrentHashMap<>();
+
+    private ProductoColumns(List<ProductoDTO> rows) {
+        this.rows = rows;
+        this.id = column(rows, ProductoDTO::getId);
+        this.calorias = column(rows, ProductoDTO::getCalorias);
+        this.precio = column(rows, ProductoDTO::getPrecio);
+        this.existencias = column(rows, ProductoDTO::getExistencias);
+        this.tipoproductoPresent = new BitSet(rows.size());
+        for (int row = 0; row < rows.size(); row++) {
+            TipoProducto value = rows.get(row).getTipoproducto();
+            if (value != null) {
+                tipoproducto.computeIfAbsent(value, key -> new BitSet(rows.size())).set(row);
+                tipoproductoPresent.set(row);
+            }
+        }
+    }
+
+    /**
+     * @param productos the productos, in any order; they must not be modified afterwards.
+     * @return the snapshot of the productos.
+     */
+    public static ProductoColumns of(Collection<ProductoDTO> productos) {
+        List<ProductoDTO> sorted = new ArrayList<>(productos);
+        sorted.sort(Comparator.comparing(ProductoDTO::getId));
+        return new ProductoColumns(Collections.unmodifiableList(sorted));
+    }
+
+    /**
+     * @param producto a new or updated producto; it must not be modified afterwards.
+     * @return a snapshot with the producto added or replaced.
+     */
+    public ProductoColumns with(ProductoDTO producto) {
+        List<ProductoDTO> copy = new ArrayList<>(rows.size() + 1);
+        copy.addAll(rows);
+        int index = indexOf(producto.getId());
+        if (index >= 0) {
+            copy.set(index, producto);
+        } else {
+            copy.add(-index - 1, producto);
+        }
+        return new ProductoColumns(Collections.unmodifiableList(copy));
+    }
+
+    /**
+     * @param productoId the id of a deleted producto.
+     * @return a snapshot without the producto.
+     */
+    public ProductoColumns without(long productoId) {
+        int index = indexOf(productoId);
+        if (index < 0) {
+            return this;
+        }
+        List<ProductoDTO> copy = new ArrayList<>(rows);
+        copy.remove(index);
+        return new ProductoColumns(Collections.unmodifiableList(copy));
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * @param criteria the filters.
+     * @param sort the sort of the page.
+     * @return whether the filters and the sort can be answered by a snapshot.
+     */
+    public static boolean supports(ProductoCriteria criteria, Sort sort) {
+        if (
+            criteria != null &&
+            (criteria.getNombreProducto() != null || criteria.getCompraId() != null || criteria.getCarritoId() != null)
+        ) {
+            return false;
+        }
+        List<Sort.Order> sortOrders = sort.toList();
+        if (sortOrders.size() > 2) {
+            return false;
+        }
+        if (sortOrders.isEmpty() || (sortOrders.size() == 1 && ID.equals(sortOrders.get(0).getProperty()))) {
+            return true;
+        }
+        return (
+            SORTABLE_PROPERTIES.contains(sortOrders.get(0).getProperty()) &&
+            (sortOrders.size() == 1 || ID.equals(sortOrders.get(1).getProperty()))
+        );
+    }
+
+    /**
+     * @param criteria the filters, which must be {@link #supports(ProductoCriteria, Sort) supported}.
+     * @return the number of matching productos.
+     */
+    public long count(ProductoCriteria criteria) {
+        return filter(criteria).cardinality();
+    }
+
+    /**
+     * Count the facets of the matching productos in one pass over their rows.
+     *
+     * @param criteria the filters, which must be {@link #supports(ProductoCriteria, Sort) supported}.
+     * @param counter the counter, to which the matching productos are added.
+     */
+    public void countFacets(ProductoCriteria criteria, ProductoFacetCounter counter) {
+        filter(criteria).stream().forEach(row -> counter.add(rows.get(row)));
+    }
+
+    /**
+     * Find a page of the matching productos.
+     *
+     * @param criteria the filters, which must be {@link #supports(ProductoCriteria, Sort) supported}.
+     * @param pageable the page, whose sort must be supported; productos are in id order when it is unsorted.
+     * @return the page, with copies of the productos.
+     */
+    public Page<ProductoDTO> findAll(ProductoCriteria criteria, Pageable pageable) {
+        BitSet matching = filter(criteria);
+        int total = matching.cardinality();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int size = pageable.isPaged() ? pageable.getPageSize() : total;
+        List<ProductoDTO> content = new ArrayList<>((int) Math.max(0, Math.min(size, total - offset)));
+        PrimitiveIterator.OfInt rowsInOrder = order(pageable.getSort());
+        long skipped = 0;
+        while (content.size() < size && rowsInOrder.hasNext()) {
+            int row = rowsInOrder.nextInt();
+            if (matching.get(row) && skipped++ >= offset) {
+                content.add(copy(rows.get(row)));
+            }
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * @param criteria the filters.
+     * @return the matching rows.
+     */
+    BitSet filter(ProductoCriteria criteria) {
+        BitSet result = new BitSet(rows.size());
+        result.set(0, rows.size());
+        if (criteria == null) {
+            return result;
+        }
+        if (criteria.getId() != null) {
+            result.and(id.evaluate(criteria.getId()));
+        }
+        if (criteria.getCalorias() != null) {
+            result.and(calorias.evaluate(criteria.getCalorias()));
+        }
+        if (criteria.getPrecio() != null) {
+            result.and(precio.evaluate(criteria.getPrecio()));
+        }
+        if (criteria.getExistencias() != null) {
+            result.and(existencias.evaluate(criteria.getExistencias()));
+        }
+        if (criteria.getTipoproducto() != null) {
+            result.and(evaluate(criteria.getTipoproducto()));
+        }
+        return result;
+    }
+
+    /**
+     * Evaluate a filter like {@code QueryService#buildSpecification}, with the same precedence as
+     * {@link NumericColumn#evaluate}.
+     */
+    private BitSet evaluate(Filter<TipoProducto> filter) {
+        if (filter.getEquals() != null) {
+            return rowsOf(List.of(filter.getEquals()));
+        }
+        if (filter.getIn() != null) {
+            return rowsOf(filter.getIn());
+        }
+        BitSet result = new BitSet(rows.size());
+        result.set(0, rows.size());
+        if (filter.getSpecified() != null) {
+            if (filter.getSpecified()) {
+                result.and(tipoproductoPresent);
+            } else {
+                result.andNot(tipoproductoPresent);
+            }
+        }
+        if (filter.getNotEquals() != null) {
+            result.and(tipoproductoPresent);
+            result.andNot(rowsOf(List.of(filter.getNotEquals())));
+        }
+        if (filter.getNotIn() != null) {
+            result.and(tipoproductoPresent);
+            if (filter.getNotIn().stream().anyMatch(Objects::isNull)) {
+                result.clear();
+            }
+            result.andNot(rowsOf(filter.getNotIn()));
+        }
+        return result;
+    }
+
+    private BitSet rowsOf(Collection<TipoProducto> values) {
+        BitSet result = new BitSet(rows.size());
+        for (TipoProducto value : values) {
+            BitSet valueRows = value == null ? null : tipoproducto.get(value);
+            if (valueRows != null) {
+                result.or(valueRows);
+            }
+        }
+        return result;
+    }
+
+    private PrimitiveIterator.OfInt order(Sort sort) {
+        List<Sort.Order> sortOrders = sort.toList();
+        if (sortOrders.isEmpty() || (sortOrders.size() == 1 && ID.equals(sortOrders.get(0).getProperty()))) {
+            int last = rows.size() - 1;
+            return sortOrders.isEmpty() || sortOrders.get(0).isAscending()
+                ? IntStream.rangeClosed(0, last).iterator()
+                : IntStream.rangeClosed(0, last).map(row -> last - row).iterator();
+        }
+        return Arrays.stream(orders.computeIfAbsent(sort, key -> sortedRows(sortOrders))).iterator();
+    }
+
+    private int[] sortedRows(List<Sort.Order> sortOrders) {
+        Sort.Order first = sortOrders.get(0);
+        NumericColumn column = "precio".equals(first.getProperty()) ? precio : existencias;
+        if (!column.isComplete()) {
+            throw new IllegalStateException("Cannot sort productos by " + first.getProperty() + " with null values");
+        }
+        boolean tiesAscending = sortOrders.size() == 1 || sortOrders.get(1).isAscending();
+        return column.order(first.isAscending(), tiesAscending);
+    }
+
+    private int indexOf(long productoId) {
+        int low = 0;
+        int high = rows.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = rows.get(middle).getId();
+            if (middleId < productoId) {
+                low = middle + 1;
+            } else if (middleId > productoId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static NumericColumn column(List<ProductoDTO> rows, Function<ProductoDTO, Number> value) {
+        return NumericColumn.of(rows.stream().map(value).collect(Collectors.toList()));
+    }
+
+    private static ProductoDTO copy(ProductoDTO producto) {
+        ProductoDTO copy = new ProductoDTO();
+        copy.setId(producto.getId());
+        copy.setVersion(producto.getVersion());
+        copy.setNombreProducto(producto.getNombreProducto());
+        copy.setCalorias(producto.getCalorias());
+        copy.setImagenHash(producto.getImagenHash());
+        copy.setImagenSize(producto.getImagenSize());
+        copy.setImagenContentType(producto.getImagenContentType());
+        copy.setPrecio(producto.getPrecio());
+        copy.setExistencias(producto.getExistencias());
+        copy.setTipoproducto(producto.getTipoproducto());
+        if (producto.getCompra() != null) {
+            CompraDTO compra = new CompraDTO();
+            compra.setId(producto.getCompra().getId());
+            copy.setCompra(compra);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,66 @@
+package es.yuliq.service.columnar;
+
+import es.yuliq.domain.Producto;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.mapper.ProductoMapper;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener of {@link Producto} which applies the changes to the {@link ProductoColumnarIndex}
+ * once the transaction which flushed them is committed, so that rolled back changes are never seen.
+ * <p>
+ * It is created by Hibernate through the Spring bean container.
+ */
+@Component
+public class ProductoColumnsListener {
+
+    private final ProductoColumnarIndex productoColumnarIndex;
+
+    private final ProductoMapper productoMapper;
+
+    public ProductoColumnsListener(ProductoColumnarIndex productoColumnarIndex, ProductoMapper productoMapper) {
+        this.productoColumnarIndex = productoColumnarIndex;
+        this.productoMapper = productoMapper;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Producto producto) {
+        // Mapped now, as the entity may be changed or detached by the time the transaction is committed.
+        ProductoDTO productoDTO = productoMapper.toDto(producto);
+        afterCommit(() -> productoColumnarIndex.put(productoDTO));
+    }
+
+    @PostRemove
+    public void onRemove(Producto producto) {
+        Long id = producto.getId();
+        afterCommit(() -> productoColumnarIndex.remove(id));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+
+                @Override
+                public int getOrder() {
+                    // Before the listeners of the committed EntityChangedEvents, which may query the columns again.
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+            }
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package es.yuliq.service.columnar;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import es.yuliq.service.dto.HistogramBucketDTO;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.dto.ProductoFacetsDTO;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counter of the facets of productos, which are added one at a time, whether they come from
+ * {@link ProductoColumns} or from the database.
+ * <p>
+ * A value falls into the bucket {@code floor(value / interval)}, as in a fixed-interval histogram, and only the
+ * buckets with productos are kept, so that there are never more buckets than productos. Productos without
+ * {@code calorias} are left out of its histogram.
+ */
+public final class ProductoFacetCounter {
+
+    private final double precioInterval;
+
+    private final double caloriasInterval;
+
+    private final long[] tipoproducto = new long[TipoProducto.values().length];
+
+    private final TreeMap<Long, Long> precio = new TreeMap<>();
+
+    private final TreeMap<Long, Long> calorias = new TreeMap<>();
+
+    private long inStock;
+
+    private long outOfStock;
+
+    /**
+     * @param precioInterval the width of the buckets of {@code precio}, greater than zero.
+     * @param caloriasInterval the width of the buckets of {@code calorias}, greater than zero.
+     */
+    public ProductoFacetCounter(double precioInterval, double caloriasInterval) {
+        if (!(precioInterval > 0) || !(caloriasInterval > 0)) {
+            throw new IllegalArgumentException("The intervals of the histograms must be greater than zero");
+        }
+        this.precioInterval = precioInterval;
+        this.caloriasInterval = caloriasInterval;
+    }
+
+    /**
+     * @param producto a producto matching the criteria; only its type, precio, calorias and existencias are read.
+     */
+    public void add(ProductoDTO producto) {
+        if (producto.getTipoproducto() != null) {
+            tipoproducto[producto.getTipoproducto().ordinal()]++;
+        }
+        if (producto.getPrecio() != null) {
+            precio.merge(bucket(producto.getPrecio(), precioInterval), 1L, Long::sum);
+        }
+        if (producto.getCalorias() != null) {
+            calorias.merge(bucket(producto.getCalorias(), caloriasInterval), 1L, Long::sum);
+        }
+        if (producto.getExistencias() != null && producto.getExistencias() > 0) {
+            inStock++;
+        } else {
+            outOfStock++;
+        }
+    }
+
+    /**
+     * @return the facets of the productos added so far.
+     */
+    public ProductoFacetsDTO toDto() {
+        Map<TipoProducto, Long> tipoproductoCounts = new EnumMap<>(TipoProducto.class);
+        for (TipoProducto value : TipoProducto.values()) {
+            tipoproductoCounts.put(value, tipoproducto[value.ordinal()]);
+        }
+        ProductoFacetsDTO facets = new ProductoFacetsDTO();
+        facets.setTipoproducto(tipoproductoCounts);
+        facets.setPrecio(buckets(precio, precioInterval));
+        facets.setCalorias(buckets(calorias, caloriasInterval));
+        facets.setInStock(inStock);
+        facets.setOutOfStock(outOfStock);
+        return facets;
+    }
+
+    private static long bucket(Number value, double interval) {
+        return (long) Math.floor(value.doubleValue() / interval);
+    }
+
+    private static List<HistogramBucketDTO> buckets(TreeMap<Long, Long> counts, double interval) {
+        List<HistogramBucketDTO> buckets = new ArrayList<>(counts.size());
+        counts.forEach((bucket, count) -> buckets.add(new HistogramBucketDTO(bucket * interval, (bucket + 1) * interval, count)));
+        return buckets;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-memory columnar index of the productos, answering criteria queries without querying the database.
+ */
+package es.yuliq.service.columnar;
@@ -1,21 +1,32 @@
 package es.yuliq.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.Objects;
-import javax.persistence.Lob;
 import javax.validation.constraints.*;
 
 /**
  * A DTO for the {@link es.yuliq.domain.Banner} entity.
  */
-public class BannerDTO implements Serializable {
+public class BannerDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
-    @Lob
+    private Long version;
+
+    /**
+     * Uploaded image content. It is moved to the image store on save and never sent back:
+     * the entity only keeps its {@link #imagenHash}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private byte[] imagen;
 
+    @Size(max = 64)
+    private String imagenHash;
+
+    private Long imagenSize;
+
     private String imagenContentType;
 
     @NotNull
@@ -29,6 +40,15 @@ public class BannerDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public byte[] getImagen() {
         return imagen;
     }
@@ -37,6 +57,22 @@ public class BannerDTO implements Serializable {
         this.imagen = imagen;
     }
 
+    public String getImagenHash() {
+        return imagenHash;
+    }
+
+    public void setImagenHash(String imagenHash) {
+        this.imagenHash = imagenHash;
+    }
+
+    public Long getImagenSize() {
+        return imagenSize;
+    }
+
+    public void setImagenSize(Long imagenSize) {
+        this.imagenSize = imagenSize;
+    }
+
     public String getImagenContentType() {
         return imagenContentType;
     }
@@ -79,7 +115,8 @@ public class BannerDTO implements Serializable {
     public String toString() {
         return "BannerDTO{" +
             "id=" + getId() +
-            ", imagen='" + getImagen() + "'" +
+            ", imagenHash='" + getImagenHash() + "'" +
+            ", imagenSize=" + getImagenSize() +
             ", fechaPuesta='" + getFechaPuesta() + "'" +
             "}";
     }
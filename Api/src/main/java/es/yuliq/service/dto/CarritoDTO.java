@@ -9,10 +9,12 @@ import java.util.Set;
 /**
  * A DTO for the {@link es.yuliq.domain.Carrito} entity.
  */
-public class CarritoDTO implements Serializable {
+public class CarritoDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     private Integer cantidad;
 
     private Instant fechaCarrito;
@@ -29,6 +31,15 @@ public class CarritoDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Integer getCantidad() {
         return cantidad;
     }
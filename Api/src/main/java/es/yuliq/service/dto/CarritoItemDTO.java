@@ -0,0 +1,54 @@
+package es.yuliq.service.dto;
+
+import java.io.Serializable;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A DTO representing a line of a {@link es.yuliq.domain.Carrito}: a producto and how many units of it are in the carrito.
+ */
+public class CarritoItemDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private Long productoId;
+
+    @NotNull
+    @Min(1)
+    private Integer cantidad;
+
+    public CarritoItemDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public CarritoItemDTO(Long productoId, Integer cantidad) {
+        this.productoId = productoId;
+        this.cantidad = cantidad;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CarritoItemDTO{" +
+            "productoId=" + getProductoId() +
+            ", cantidad=" + getCantidad() +
+            "}";
+    }
+}
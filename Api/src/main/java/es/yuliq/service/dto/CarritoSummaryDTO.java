@@ -0,0 +1,78 @@
+package es.yuliq.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO summarizing a {@link es.yuliq.domain.Carrito} after a change of its lines: the lines, the units they add
+ * up to and their price.
+ */
+public class CarritoSummaryDTO implements Serializable, VersionedDTO {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private Long version;
+
+    private List<CarritoItemDTO> items = new ArrayList<>();
+
+    private int unidades;
+
+    private double total;
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public List<CarritoItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CarritoItemDTO> items) {
+        this.items = items;
+    }
+
+    public int getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(int unidades) {
+        this.unidades = unidades;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public void setTotal(double total) {
+        this.total = total;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CarritoSummaryDTO{" +
+            "id=" + getId() +
+            ", version=" + getVersion() +
+            ", items=" + getItems() +
+            ", unidades=" + getUnidades() +
+            ", total=" + getTotal() +
+            "}";
+    }
+}
@@ -6,16 +6,20 @@ import java.util.Objects;
 /**
  * A DTO for the {@link es.yuliq.domain.Compra} entity.
  */
-public class CompraDTO implements Serializable {
+public class CompraDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     private Integer cantidadComprada;
 
     private Float precioPagado;
 
     private FacturaDTO factura;
 
+    private Long productoId;
+
     public Long getId() {
         return id;
     }
@@ -24,6 +28,15 @@ public class CompraDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Integer getCantidadComprada() {
         return cantidadComprada;
     }
@@ -48,6 +61,14 @@ public class CompraDTO implements Serializable {
         this.factura = factura;
     }
 
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -77,6 +98,7 @@ public class CompraDTO implements Serializable {
             ", cantidadComprada=" + getCantidadComprada() +
             ", precioPagado=" + getPrecioPagado() +
             ", factura=" + getFactura() +
+            ", productoId=" + getProductoId() +
             "}";
     }
 }
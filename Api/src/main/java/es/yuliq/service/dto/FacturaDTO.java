@@ -7,10 +7,12 @@ import java.util.Objects;
 /**
  * A DTO for the {@link es.yuliq.domain.Factura} entity.
  */
-public class FacturaDTO implements Serializable {
+public class FacturaDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     private Instant fechaFactura;
 
     private Integer cantidadPagada;
@@ -25,6 +27,15 @@ public class FacturaDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Instant getFechaFactura() {
         return fechaFactura;
     }
@@ -0,0 +1,62 @@
+package es.yuliq.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO representing a bucket of a histogram: the number of values from {@code from}, inclusive, to {@code to},
+ * exclusive.
+ */
+public class HistogramBucketDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private double from;
+
+    private double to;
+
+    private long count;
+
+    public HistogramBucketDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public HistogramBucketDTO(double from, double to, long count) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+    }
+
+    public double getFrom() {
+        return from;
+    }
+
+    public void setFrom(double from) {
+        this.from = from;
+    }
+
+    public double getTo() {
+        return to;
+    }
+
+    public void setTo(double to) {
+        this.to = to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "HistogramBucketDTO{" +
+            "from=" + getFrom() +
+            ", to=" + getTo() +
+            ", count=" + getCount() +
+            "}";
+    }
+}
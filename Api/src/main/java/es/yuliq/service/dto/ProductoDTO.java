@@ -1,18 +1,20 @@
 package es.yuliq.service.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import es.yuliq.domain.enumeration.TipoProducto;
 import java.io.Serializable;
 import java.util.Objects;
-import javax.persistence.Lob;
 import javax.validation.constraints.*;
 
 /**
  * A DTO for the {@link es.yuliq.domain.Producto} entity.
  */
-public class ProductoDTO implements Serializable {
+public class ProductoDTO implements Serializable, VersionedDTO {
 
     private Long id;
 
+    private Long version;
+
     @NotNull
     @Size(max = 250)
     private String nombreProducto;
@@ -20,9 +22,18 @@ public class ProductoDTO implements Serializable {
     @Max(value = 1000)
     private Integer calorias;
 
-    @Lob
+    /**
+     * Uploaded image content. It is moved to the image store on save and never sent back:
+     * the entity only keeps its {@link #imagenHash}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private byte[] imagen;
 
+    @Size(max = 64)
+    private String imagenHash;
+
+    private Long imagenSize;
+
     private String imagenContentType;
 
     @NotNull
@@ -45,6 +56,15 @@ public class ProductoDTO implements Serializable {
         this.id = id;
     }
 
+    @Override
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getNombreProducto() {
         return nombreProducto;
     }
@@ -69,6 +89,22 @@ public class ProductoDTO implements Serializable {
         this.imagen = imagen;
     }
 
+    public String getImagenHash() {
+        return imagenHash;
+    }
+
+    public void setImagenHash(String imagenHash) {
+        this.imagenHash = imagenHash;
+    }
+
+    public Long getImagenSize() {
+        return imagenSize;
+    }
+
+    public void setImagenSize(Long imagenSize) {
+        this.imagenSize = imagenSize;
+    }
+
     public String getImagenContentType() {
         return imagenContentType;
     }
@@ -137,7 +173,8 @@ public class ProductoDTO implements Serializable {
             "id=" + getId() +
             ", nombreProducto='" + getNombreProducto() + "'" +
             ", calorias=" + getCalorias() +
-            ", imagen='" + getImagen() + "'" +
+            ", imagenHash='" + getImagenHash() + "'" +
+            ", imagenSize=" + getImagenSize() +
             ", precio=" + getPrecio() +
             ", existencias=" + getExistencias() +
             ", tipoproducto='" + getTipoproducto() + "'" +
@@ -0,0 +1,89 @@
+package es.yuliq.service.dto;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO representing the facets of the productos matching a criteria: the counts per {@link TipoProducto},
+ * the histograms of {@code precio} and {@code calorias}, and how many productos are in stock.
+ */
+public class ProductoFacetsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Map<TipoProducto, Long> tipoproducto;
+
+    private List<HistogramBucketDTO> precio;
+
+    private List<HistogramBucketDTO> calorias;
+
+    private long inStock;
+
+    private long outOfStock;
+
+    /**
+     * @return the number of productos of each type, including the types without productos.
+     */
+    public Map<TipoProducto, Long> getTipoproducto() {
+        return tipoproducto;
+    }
+
+    public void setTipoproducto(Map<TipoProducto, Long> tipoproducto) {
+        this.tipoproducto = tipoproducto;
+    }
+
+    /**
+     * @return the buckets of {@code precio} which have productos, in ascending order.
+     */
+    public List<HistogramBucketDTO> getPrecio() {
+        return precio;
+    }
+
+    public void setPrecio(List<HistogramBucketDTO> precio) {
+        this.precio = precio;
+    }
+
+    /**
+     * @return the buckets of {@code calorias} which have productos, in ascending order.
+     */
+    public List<HistogramBucketDTO> getCalorias() {
+        return calorias;
+    }
+
+    public void setCalorias(List<HistogramBucketDTO> calorias) {
+        this.calorias = calorias;
+    }
+
+    /**
+     * @return the number of productos with {@code existencias} greater than zero.
+     */
+    public long getInStock() {
+        return inStock;
+    }
+
+    public void setInStock(long inStock) {
+        this.inStock = inStock;
+    }
+
+    public long getOutOfStock() {
+        return outOfStock;
+    }
+
+    public void setOutOfStock(long outOfStock) {
+        this.outOfStock = outOfStock;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductoFacetsDTO{" +
+            "tipoproducto=" + getTipoproducto() +
+            ", precio=" + getPrecio() +
+            ", calorias=" + getCalorias() +
+            ", inStock=" + getInStock() +
+            ", outOfStock=" + getOutOfStock() +
+            "}";
+    }
+}
@@ -0,0 +1,13 @@
+package es.yuliq.service.dto;
+
+/**
+ * A DTO of an entity with a JPA {@code @Version}, used to build the entity tags of the REST resources.
+ */
+public interface VersionedDTO {
+    Long getId();
+
+    /**
+     * @return the version of the entity when it was read, or null when it is not known.
+     */
+    Long getVersion();
+}
@@ -0,0 +1,92 @@
+package es.yuliq.service.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ImageStore} keeping each image in a file named after its hash, under a two-level
+ * directory fan-out ({@code ab/cd/abcd...}) so that no directory grows too large.
+ * <p>
+ * Files are written to a temporary name and atomically renamed, so readers never see a
+ * partially written image. Reads are memory-mapped and do not copy the content onto the heap.
+ */
+public class FileSystemImageStore implements ImageStore {
+
+    private final Logger log = LoggerFactory.getLogger(FileSystemImageStore.class);
+
+    private final Path root;
+
+    public FileSystemImageStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public StoredImage store(byte[] content) {
+        StoredImage image = StoredImage.of(content);
+        Path target = resolve(image.getHash());
+        if (Files.exists(target)) {
+            log.debug("Image {} already stored", image.getHash());
+            return image;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), image.getHash(), ".tmp");
+            try {
+                Files.write(temp, content);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new ImageStoreException("Could not store image " + image.getHash(), e);
+        }
+        log.debug("Stored image {} ({} bytes)", image.getHash(), image.getSize());
+        return image;
+    }
+
+    @Override
+    public Optional<ByteBuffer> read(String hash) {
+        if (!StoredImage.isValidHash(hash)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new ImageStoreException("Could not read image " + hash, e);
+        }
+    }
+
+    @Override
+    public Optional<FileChannel> open(String hash) {
+        if (!StoredImage.isValidHash(hash)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(FileChannel.open(resolve(hash), StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new ImageStoreException("Could not open image " + hash, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return StoredImage.isValidHash(hash) && Files.exists(resolve(hash));
+    }
+
+    private Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+}
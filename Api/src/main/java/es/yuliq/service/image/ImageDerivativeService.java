@@ -0,0 +1,244 @@
+package es.yuliq.service.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+
+/**
+ * Service generating the {@link ImageVariant derivatives} of the images held by the {@link ImageStore}.
+ * <p>
+ * Derivatives are cached on disk under the hash of their source, in every {@link ImageFormat} that
+ * ImageIO can write: JPEG always, WebP only when a WebP plugin is on the classpath. As the source of a
+ * hash never changes, neither do its derivatives, and they are generated only once.
+ * <p>
+ * Generation runs asynchronously on the {@code imageTaskExecutor}.
+ */
+public class ImageDerivativeService {
+
+    private final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    private final ImageStore imageStore;
+
+    private final Path root;
+
+    private final Set<ImageFormat> formats = EnumSet.noneOf(ImageFormat.class);
+
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    public ImageDerivativeService(ImageStore imageStore, Path root) {
+        this.imageStore = imageStore;
+        this.root = root.toAbsolutePath().normalize();
+        for (ImageFormat format : ImageFormat.values()) {
+            if (ImageIO.getImageWritersBySuffix(format.getExtension()).hasNext()) {
+                formats.add(format);
+            } else {
+                log.info("No ImageIO writer for {}, image derivatives will not be generated in that format", format);
+            }
+        }
+    }
+
+    /**
+     * Check whether derivatives are generated in a format.
+     *
+     * @param format the format.
+     * @return true if derivatives are generated in that format.
+     */
+    public boolean supports(ImageFormat format) {
+        return formats.contains(format);
+    }
+
+    /**
+     * Generate the missing derivatives of the "hash" image.
+     * <p>
+     * Images that cannot be decoded, and images whose derivatives are already generated or being
+     * generated, are skipped.
+     *
+     * @param hash the SHA-256 of the source image.
+     */
+    @Async("imageTaskExecutor")
+    public void generate(String hash) {
+        if (!StoredImage.isValidHash(hash) || isGenerated(hash) || !inProgress.add(hash)) {
+            return;
+        }
+        try {
+            BufferedImage source = decode(hash);
+            if (source == null) {
+                log.debug("Image {} cannot be decoded, no derivatives generated", hash);
+                return;
+            }
+            for (ImageVariant variant : ImageVariant.values()) {
+                BufferedImage scaled = scale(source, variant.getMaxSize());
+                for (ImageFormat format : formats) {
+                    write(scaled, variant, format, resolve(hash, variant, format));
+                }
+            }
+            log.debug("Generated derivatives of image {}", hash);
+        } catch (IOException e) {
+            log.warn("Could not generate derivatives of image {}: {}", hash, e.getMessage());
+        } finally {
+            inProgress.remove(hash);
+        }
+    }
+
+    /**
+     * Open a derivative of the "hash" image for zero-copy transfers.
+     *
+     * @param hash the SHA-256 of the source image.
+     * @param variant the derivative.
+     * @param format the encoding of the derivative.
+     * @return a read-only channel over the derivative, to be closed by the caller, or empty if it is not generated.
+     */
+    public Optional<FileChannel> open(String hash, ImageVariant variant, ImageFormat format) {
+        if (!StoredImage.isValidHash(hash)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(FileChannel.open(resolve(hash, variant, format), StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new ImageStoreException("Could not open " + variant.getName() + " of image " + hash, e);
+        }
+    }
+
+    private boolean isGenerated(String hash) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            for (ImageFormat format : formats) {
+                if (!Files.exists(resolve(hash, variant, format))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the source image, subsampled while reading so that large originals are never fully
+     * loaded in memory when only small derivatives are needed.
+     */
+    private BufferedImage decode(String hash) throws IOException {
+        Optional<FileChannel> channel = imageStore.open(hash);
+        if (channel.isEmpty()) {
+            return null;
+        }
+        try (
+            FileChannel source = channel.get();
+            ImageInputStream input = ImageIO.createImageInputStream(Channels.newInputStream(source))
+        ) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longest / (2 * largestVariantSize()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static int largestVariantSize() {
+        int largest = 0;
+        for (ImageVariant variant : ImageVariant.values()) {
+            largest = Math.max(largest, variant.getMaxSize());
+        }
+        return largest;
+    }
+
+    /**
+     * Scale the image to fit in a square of the given size, without enlarging it. The image is
+     * halved step by step first, as a single bilinear pass from a much larger image drops too many pixels.
+     * The result is opaque, transparent areas being painted white.
+     */
+    static BufferedImage scale(BufferedImage source, int maxSize) {
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, width, height);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, ImageVariant variant, ImageFormat format, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), variant.getName(), ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersBySuffix(format.getExtension()).next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (param.canWriteCompressed()) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    if (param.getCompressionType() == null && param.getCompressionTypes() != null) {
+                        param.setCompressionType(param.getCompressionTypes()[0]);
+                    }
+                    param.setCompressionQuality(variant.getQuality());
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path resolve(String hash, ImageVariant variant, ImageFormat format) {
+        return root
+            .resolve(hash.substring(0, 2))
+            .resolve(hash.substring(2, 4))
+            .resolve(hash)
+            .resolve(variant.getName() + "." + format.getExtension());
+    }
+}
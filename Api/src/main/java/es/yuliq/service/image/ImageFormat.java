@@ -0,0 +1,26 @@
+package es.yuliq.service.image;
+
+/**
+ * The encodings of the images generated by the {@link ImageDerivativeService}.
+ */
+public enum ImageFormat {
+    WEBP("webp", "image/webp"),
+    JPEG("jpg", "image/jpeg");
+
+    private final String extension;
+
+    private final String mediaType;
+
+    ImageFormat(String extension, String mediaType) {
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,65 @@
+package es.yuliq.service.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Detection of the media type of a stored image from its leading bytes.
+ */
+public final class ImageMediaTypes {
+
+    public static final String DEFAULT_MEDIA_TYPE = "application/octet-stream";
+
+    private static final int HEADER_LENGTH = 12;
+
+    private ImageMediaTypes() {}
+
+    /**
+     * Detect the media type of an image.
+     *
+     * @param channel a channel over the image content, its position is left unchanged.
+     * @return the media type of the image, or {@link #DEFAULT_MEDIA_TYPE} if it is not recognized.
+     * @throws IOException if the image cannot be read.
+     */
+    public static String detect(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        channel.read(header, 0);
+        header.flip();
+        return detect(header);
+    }
+
+    /**
+     * Detect the media type of an image.
+     *
+     * @param header the first bytes of the image.
+     * @return the media type of the image, or {@link #DEFAULT_MEDIA_TYPE} if it is not recognized.
+     */
+    public static String detect(ByteBuffer header) {
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        return DEFAULT_MEDIA_TYPE;
+    }
+
+    private static boolean startsWith(ByteBuffer header, int offset, int... signature) {
+        if (header.remaining() < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header.get(header.position() + offset + i) & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package es.yuliq.service.image;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for the images of {@link es.yuliq.domain.Producto} and {@link es.yuliq.domain.Banner}.
+ * <p>
+ * Images are identified by the SHA-256 of their content, so storing the same bytes twice
+ * returns the same hash and keeps a single copy.
+ */
+public interface ImageStore {
+    /**
+     * Store an image.
+     *
+     * @param content the image bytes.
+     * @return the hash and size under which the content was stored.
+     */
+    StoredImage store(byte[] content);
+
+    /**
+     * Read the content of the "hash" image.
+     *
+     * @param hash the SHA-256 of the image.
+     * @return a read-only buffer with the image content, or empty if the image is not stored.
+     */
+    Optional<ByteBuffer> read(String hash);
+
+    /**
+     * Open the "hash" image for zero-copy transfers.
+     *
+     * @param hash the SHA-256 of the image.
+     * @return a read-only channel over the image content, to be closed by the caller, or empty if the image is not stored.
+     */
+    Optional<FileChannel> open(String hash);
+
+    /**
+     * Check whether the "hash" image is stored.
+     *
+     * @param hash the SHA-256 of the image.
+     * @return true if the image is stored.
+     */
+    boolean exists(String hash);
+}
@@ -0,0 +1,13 @@
+package es.yuliq.service.image;
+
+/**
+ * Thrown when the {@link ImageStore} cannot read or write an image.
+ */
+public class ImageStoreException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ImageStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
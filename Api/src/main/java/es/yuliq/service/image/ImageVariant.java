@@ -0,0 +1,69 @@
+package es.yuliq.service.image;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The derivatives generated from each stored image by the {@link ImageDerivativeService}.
+ */
+public enum ImageVariant {
+    /**
+     * Small image for lists and carts.
+     */
+    THUMBNAIL(160, 0.8f),
+
+    /**
+     * Image sized for the product grid cards.
+     */
+    CARD(480, 0.8f),
+
+    /**
+     * Tiny low quality image shown, blurred, while the real one loads.
+     */
+    PLACEHOLDER(16, 0.5f);
+
+    private final int maxSize;
+
+    private final float quality;
+
+    ImageVariant(int maxSize, float quality) {
+        this.maxSize = maxSize;
+        this.quality = quality;
+    }
+
+    /**
+     * @return the maximum width and height of the variant, in pixels.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the compression quality of the variant, between 0 and 1.
+     */
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * @return the name of the variant in URLs and file names.
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Find a variant by its name.
+     *
+     * @param name the name of the variant, as returned by {@link #getName()}.
+     * @return the variant, or empty if there is none with that name.
+     */
+    public static Optional<ImageVariant> fromName(String name) {
+        for (ImageVariant variant : values()) {
+            if (variant.getName().equals(name)) {
+                return Optional.of(variant);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,88 @@
+package es.yuliq.service.image;
+
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Reference to an image held by an {@link ImageStore}.
+ */
+public final class StoredImage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String hash;
+
+    private final long size;
+
+    public StoredImage(String hash, long size) {
+        this.hash = hash;
+        this.size = size;
+    }
+
+    /**
+     * Compute the reference of the given content.
+     *
+     * @param content the image bytes.
+     * @return the SHA-256 hash and size of the content.
+     */
+    public static StoredImage of(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+            }
+            return new StoredImage(new String(hex), content.length);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Check that a value is a well-formed image hash (64 lowercase hexadecimal characters).
+     *
+     * @param hash the value to check.
+     * @return true if the value can be used as an image hash.
+     */
+    public static boolean isValidHash(String hash) {
+        return hash != null && HASH_PATTERN.matcher(hash).matches();
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoredImage)) {
+            return false;
+        }
+        StoredImage that = (StoredImage) o;
+        return size == that.size && hash.equals(that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash, size);
+    }
+
+    @Override
+    public String toString() {
+        return "StoredImage{hash='" + hash + "', size=" + size + "}";
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Storage of the images referenced by the catalog entities.
+ */
+package es.yuliq.service.image;
@@ -3,13 +3,19 @@ package es.yuliq.service.impl;
 import es.yuliq.domain.Banner;
 import es.yuliq.repository.BannerRepository;
 import es.yuliq.service.BannerService;
+import es.yuliq.service.EntityChangedEvent;
 import es.yuliq.service.dto.BannerDTO;
+import es.yuliq.service.image.ImageDerivativeService;
+import es.yuliq.service.image.ImageStore;
+import es.yuliq.service.image.StoredImage;
 import es.yuliq.service.mapper.BannerMapper;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,33 +32,63 @@ public class BannerServiceImpl implements BannerService {
 
     private final BannerMapper bannerMapper;
 
-    public BannerServiceImpl(BannerRepository bannerRepository, BannerMapper bannerMapper) {
+    private final ImageStore imageStore;
+
+    private final ImageDerivativeService imageDerivativeService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BannerServiceImpl(
+        BannerRepository bannerRepository,
+        BannerMapper bannerMapper,
+        ImageStore imageStore,
+        ImageDerivativeService imageDerivativeService,
+        ApplicationEventPublisher eventPublisher
+    ) {
         this.bannerRepository = bannerRepository;
         this.bannerMapper = bannerMapper;
+        this.imageStore = imageStore;
+        this.imageDerivativeService = imageDerivativeService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public BannerDTO save(BannerDTO bannerDTO) {
         log.debug("Request to save Banner : {}", bannerDTO);
+        storeImagen(bannerDTO);
         Banner banner = bannerMapper.toEntity(bannerDTO);
-        banner = bannerRepository.save(banner);
+        if (bannerDTO.getId() != null && bannerDTO.getVersion() == null) {
+            // An update without a version overwrites whatever the current one is
+            bannerRepository.findById(bannerDTO.getId()).map(Banner::getVersion).ifPresent(banner::setVersion);
+        }
+        banner = bannerRepository.saveAndFlush(banner);
+        eventPublisher.publishEvent(new EntityChangedEvent(Banner.class, banner.getId()));
         return bannerMapper.toDto(banner);
     }
 
     @Override
     public Optional<BannerDTO> partialUpdate(BannerDTO bannerDTO) {
         log.debug("Request to partially update Banner : {}", bannerDTO);
+        storeImagen(bannerDTO);
 
         return bannerRepository
             .findById(bannerDTO.getId())
             .map(
                 existingBanner -> {
+                    if (bannerDTO.getVersion() != null && bannerDTO.getVersion() != existingBanner.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Banner.class, existingBanner.getId());
+                    }
                     bannerMapper.partialUpdate(existingBanner, bannerDTO);
                     return existingBanner;
                 }
             )
-            .map(bannerRepository::save)
-            .map(bannerMapper::toDto);
+            .map(bannerRepository::saveAndFlush)
+            .map(
+                banner -> {
+                    eventPublisher.publishEvent(new EntityChangedEvent(Banner.class, banner.getId()));
+                    return bannerMapper.toDto(banner);
+                }
+            );
     }
 
     @Override
@@ -73,5 +109,20 @@ public class BannerServiceImpl implements BannerService {
     public void delete(Long id) {
         log.debug("Request to delete Banner : {}", id);
         bannerRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Banner.class, id));
+    }
+
+    /**
+     * Move the uploaded image, if any, to the {@link ImageStore} and keep only its reference in the DTO.
+     * Its derivatives are generated in the background.
+     */
+    private void storeImagen(BannerDTO bannerDTO) {
+        if (bannerDTO.getImagen() != null) {
+            StoredImage image = imageStore.store(bannerDTO.getImagen());
+            bannerDTO.setImagenHash(image.getHash());
+            bannerDTO.setImagenSize(image.getSize());
+            bannerDTO.setImagen(null);
+            imageDerivativeService.generate(image.getHash());
+        }
     }
 }
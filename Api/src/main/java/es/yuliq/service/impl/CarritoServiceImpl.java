@@ -1,58 +1,237 @@
 package es.yuliq.service.impl;
 
 import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.User;
 import es.yuliq.repository.CarritoRepository;
+import es.yuliq.service.CarritoQueryService;
 import es.yuliq.service.CarritoService;
+import es.yuliq.service.EntityChangedEvent;
+import es.yuliq.service.cart.CartConflictException;
+import es.yuliq.service.cart.CartContents;
+import es.yuliq.service.cart.CartStore;
+import es.yuliq.service.criteria.CarritoCriteria;
 import es.yuliq.service.dto.CarritoDTO;
 import es.yuliq.service.mapper.CarritoMapper;
+import java.util.HashSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Service Implementation for managing {@link Carrito}.
+ * <p>
+ * The lines of a carrito are held by the {@link CartStore}, which also owns its version. An update sets the
+ * productos through the store, merged with the changes made since the version the client had, writes the other fields,
+ * which are excluded from the optimistic lock of the entity, then the lines at once. The change of the store is undone
+ * if the transaction rolls back. The concurrent updates of a carrito wait for each other on its row; outside of a
+ * transaction, the ones timing out, chosen to break a deadlock or finding its version moved on are retried.
  */
 @Service
 @Transactional
 public class CarritoServiceImpl implements CarritoService {
 
+    private static final int MAX_ATTEMPTS = 4;
+
+    private static final long BACKOFF_MILLIS = 20;
+
     private final Logger log = LoggerFactory.getLogger(CarritoServiceImpl.class);
 
     private final CarritoRepository carritoRepository;
 
     private final CarritoMapper carritoMapper;
 
-    public CarritoServiceImpl(CarritoRepository carritoRepository, CarritoMapper carritoMapper) {
+    private final CarritoQueryService carritoQueryService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CartStore cartStore;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public CarritoServiceImpl(
+        CarritoRepository carritoRepository,
+        CarritoMapper carritoMapper,
+        CarritoQueryService carritoQueryService,
+        ApplicationEventPublisher eventPublisher,
+        CartStore cartStore,
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager
+    ) {
         this.carritoRepository = carritoRepository;
         this.carritoMapper = carritoMapper;
+        this.carritoQueryService = carritoQueryService;
+        this.eventPublisher = eventPublisher;
+        this.cartStore = cartStore;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CarritoDTO save(CarritoDTO carritoDTO) {
         log.debug("Request to save Carrito : {}", carritoDTO);
-        Carrito carrito = carritoMapper.toEntity(carritoDTO);
-        carrito = carritoRepository.save(carrito);
-        return carritoMapper.toDto(carrito);
+        return retryOnLockFailure(
+            () -> {
+                Optional<Carrito> existing = carritoDTO.getId() != null
+                    ? carritoRepository.findById(carritoDTO.getId())
+                    : Optional.empty();
+                if (!existing.isPresent()) {
+                    Carrito carrito = carritoRepository.saveAndFlush(carritoMapper.toEntity(carritoDTO));
+                    eventPublisher.publishEvent(new EntityChangedEvent(Carrito.class, carrito.getId()));
+                    return carritoMapper.toDto(carrito);
+                }
+                return update(existing.get(), carritoDTO.getVersion(), carritoMapper.toEntity(carritoDTO));
+            }
+        );
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<CarritoDTO> partialUpdate(CarritoDTO carritoDTO) {
         log.debug("Request to partially update Carrito : {}", carritoDTO);
+        return retryOnLockFailure(
+            () ->
+                carritoRepository
+                    .findById(carritoDTO.getId())
+                    .map(
+                        existingCarrito -> {
+                            Carrito changed = carritoMapper.toEntity(carritoDTO);
+                            if (carritoDTO.getCantidad() == null) {
+                                changed.setCantidad(existingCarrito.getCantidad());
+                            }
+                            if (carritoDTO.getFechaCarrito() == null) {
+                                changed.setFechaCarrito(existingCarrito.getFechaCarrito());
+                            }
+                            if (carritoDTO.getAssignedTo() == null) {
+                                changed.setAssignedTo(existingCarrito.getAssignedTo());
+                            }
+                            return update(existingCarrito, carritoDTO.getVersion(), changed);
+                        }
+                    )
+        );
+    }
 
-        return carritoRepository
-            .findById(carritoDTO.getId())
-            .map(
-                existingCarrito -> {
-                    carritoMapper.partialUpdate(existingCarrito, carritoDTO);
-                    return existingCarrito;
+    private CarritoDTO update(Carrito carrito, Long baseVersion, Carrito changed) {
+        boolean fieldsChanged =
+            !Objects.equals(carrito.getCantidad(), changed.getCantidad()) ||
+            !Objects.equals(carrito.getFechaCarrito(), changed.getFechaCarrito()) ||
+            !Objects.equals(userId(carrito.getAssignedTo()), userId(changed.getAssignedTo()));
+        CartContents replaced = cartStore
+            .replace(carrito.getId(), baseVersion, productoIds(changed.getProductos()), fieldsChanged)
+            .orElseThrow(() -> new CartConflictException(carrito.getId()));
+        revertOnRollback(carrito.getId(), replaced.getVersion());
+        if (fieldsChanged) {
+            Long userId = userId(changed.getAssignedTo());
+            carrito.setCantidad(changed.getCantidad());
+            carrito.setFechaCarrito(changed.getFechaCarrito());
+            carrito.setAssignedTo(userId != null ? entityManager.getReference(User.class, userId) : null);
+            // Checked against the version read, before the lines move it on
+            carritoRepository.saveAndFlush(carrito);
+        }
+        cartStore.flush(carrito.getId());
+        // Written behind the back of the entity, with the version and lines of the store
+        entityManager.refresh(carrito);
+        eventPublisher.publishEvent(new EntityChangedEvent(Carrito.class, carrito.getId()));
+        return carritoMapper.toDto(carrito);
+    }
+
+    /**
+     * Undo a change of the {@link CartStore}, which is not transactional, if the current transaction does not commit:
+     * the update fails as a whole, and its retry is not taken for a conflict with it.
+     */
+    private void revertOnRollback(Long carritoId, long version) {
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        try {
+                            cartStore.revert(carritoId, version);
+                        } catch (RuntimeException e) {
+                            log.warn("Could not undo the change of Carrito {} after a failed update: {}", carritoId, e.getMessage());
+                        }
+                    }
                 }
-            )
-            .map(carritoRepository::save)
-            .map(carritoMapper::toDto);
+            }
+        );
+    }
+
+    /**
+     * @return the ids of the given productos that exist, null if they are not given.
+     */
+    private Set<Long> productoIds(Set<Producto> productos) {
+        if (productos == null) {
+            return null;
+        }
+        Set<Long> ids = productos.stream().map(Producto::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        return new HashSet<>(
+            entityManager
+                .createQuery("select producto.id from Producto producto where producto.id in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getResultList()
+        );
+    }
+
+    private static Long userId(User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    /**
+     * Run an update in a new transaction, retried when it loses a lock in the database or finds the version of the
+     * carrito moved on there, as by a flush of the {@link CartStore}: each attempt reads the carrito again, with its
+     * current version. The conflicts found by the merge of the store are not retried, as the history they lack does
+     * not come back.
+     * <p>
+     * Called within a transaction, the update is run once in it: a failure rolls back the enclosing transaction as a
+     * whole, which only its caller can retry.
+     */
+    private <T> T retryOnLockFailure(Supplier<T> attempt) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return attempt.get();
+        }
+        for (int attempts = 1;; attempts++) {
+            try {
+                return transactionTemplate.execute(status -> attempt.get());
+            } catch (CartConflictException e) {
+                throw e;
+            } catch (PessimisticLockingFailureException | OptimisticLockingFailureException e) {
+                if (attempts == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Retrying the update of a Carrito after attempt {}: {}", attempts, e.getMessage());
+                try {
+                    // Randomized, so that the updates that collided do not collide again
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, BACKOFF_MILLIS * attempts));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
     }
 
     @Override
@@ -62,20 +241,24 @@ public class CarritoServiceImpl implements CarritoService {
         return carritoRepository.findAll(pageable).map(carritoMapper::toDto);
     }
 
+    @Transactional(readOnly = true)
     public Page<CarritoDTO> findAllWithEagerRelationships(Pageable pageable) {
-        return carritoRepository.findAllWithEagerRelationships(pageable).map(carritoMapper::toDto);
+        return carritoQueryService.findWithEagerRelationshipsByCriteria(new CarritoCriteria(), pageable);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<CarritoDTO> findOne(Long id) {
         log.debug("Request to get Carrito : {}", id);
+        // Not read-only: the pending lines of the carrito are written first
+        cartStore.flush(id);
         return carritoRepository.findOneWithEagerRelationships(id).map(carritoMapper::toDto);
     }
 
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Carrito : {}", id);
+        cartStore.evict(id);
         carritoRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Carrito.class, id));
     }
 }
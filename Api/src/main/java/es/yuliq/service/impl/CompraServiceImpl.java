@@ -3,13 +3,16 @@ package es.yuliq.service.impl;
 import es.yuliq.domain.Compra;
 import es.yuliq.repository.CompraRepository;
 import es.yuliq.service.CompraService;
+import es.yuliq.service.EntityChangedEvent;
 import es.yuliq.service.dto.CompraDTO;
 import es.yuliq.service.mapper.CompraMapper;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,16 +29,24 @@ public class CompraServiceImpl implements CompraService {
 
     private final CompraMapper compraMapper;
 
-    public CompraServiceImpl(CompraRepository compraRepository, CompraMapper compraMapper) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CompraServiceImpl(CompraRepository compraRepository, CompraMapper compraMapper, ApplicationEventPublisher eventPublisher) {
         this.compraRepository = compraRepository;
         this.compraMapper = compraMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public CompraDTO save(CompraDTO compraDTO) {
         log.debug("Request to save Compra : {}", compraDTO);
         Compra compra = compraMapper.toEntity(compraDTO);
-        compra = compraRepository.save(compra);
+        if (compraDTO.getId() != null && compraDTO.getVersion() == null) {
+            // An update without a version overwrites whatever the current one is
+            compraRepository.findById(compraDTO.getId()).map(Compra::getVersion).ifPresent(compra::setVersion);
+        }
+        compra = compraRepository.saveAndFlush(compra);
+        eventPublisher.publishEvent(new EntityChangedEvent(Compra.class, compra.getId()));
         return compraMapper.toDto(compra);
     }
 
@@ -47,12 +58,20 @@ public class CompraServiceImpl implements CompraService {
             .findById(compraDTO.getId())
             .map(
                 existingCompra -> {
+                    if (compraDTO.getVersion() != null && compraDTO.getVersion() != existingCompra.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Compra.class, existingCompra.getId());
+                    }
                     compraMapper.partialUpdate(existingCompra, compraDTO);
                     return existingCompra;
                 }
             )
-            .map(compraRepository::save)
-            .map(compraMapper::toDto);
+            .map(compraRepository::saveAndFlush)
+            .map(
+                compra -> {
+                    eventPublisher.publishEvent(new EntityChangedEvent(Compra.class, compra.getId()));
+                    return compraMapper.toDto(compra);
+                }
+            );
     }
 
     @Override
@@ -73,5 +92,6 @@ public class CompraServiceImpl implements CompraService {
     public void delete(Long id) {
         log.debug("Request to delete Compra : {}", id);
         compraRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Compra.class, id));
     }
 }
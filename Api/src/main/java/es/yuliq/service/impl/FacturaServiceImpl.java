@@ -10,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,7 +36,11 @@ public class FacturaServiceImpl implements FacturaService {
     public FacturaDTO save(FacturaDTO facturaDTO) {
         log.debug("Request to save Factura : {}", facturaDTO);
         Factura factura = facturaMapper.toEntity(facturaDTO);
-        factura = facturaRepository.save(factura);
+        if (facturaDTO.getId() != null && facturaDTO.getVersion() == null) {
+            // An update without a version overwrites whatever the current one is
+            facturaRepository.findById(facturaDTO.getId()).map(Factura::getVersion).ifPresent(factura::setVersion);
+        }
+        factura = facturaRepository.saveAndFlush(factura);
         return facturaMapper.toDto(factura);
     }
 
@@ -47,11 +52,14 @@ public class FacturaServiceImpl implements FacturaService {
             .findById(facturaDTO.getId())
             .map(
                 existingFactura -> {
+                    if (facturaDTO.getVersion() != null && facturaDTO.getVersion() != existingFactura.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Factura.class, existingFactura.getId());
+                    }
                     facturaMapper.partialUpdate(existingFactura, facturaDTO);
                     return existingFactura;
                 }
             )
-            .map(facturaRepository::save)
+            .map(facturaRepository::saveAndFlush)
             .map(facturaMapper::toDto);
     }
 
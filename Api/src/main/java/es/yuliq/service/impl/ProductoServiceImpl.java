@@ -2,14 +2,20 @@ package es.yuliq.service.impl;
 
 import es.yuliq.domain.Producto;
 import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.EntityChangedEvent;
 import es.yuliq.service.ProductoService;
 import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.image.ImageDerivativeService;
+import es.yuliq.service.image.ImageStore;
+import es.yuliq.service.image.StoredImage;
 import es.yuliq.service.mapper.ProductoMapper;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,33 +32,63 @@ public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoMapper productoMapper;
 
-    public ProductoServiceImpl(ProductoRepository productoRepository, ProductoMapper productoMapper) {
+    private final ImageStore imageStore;
+
+    private final ImageDerivativeService imageDerivativeService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductoServiceImpl(
+        ProductoRepository productoRepository,
+        ProductoMapper productoMapper,
+        ImageStore imageStore,
+        ImageDerivativeService imageDerivativeService,
+        ApplicationEventPublisher eventPublisher
+    ) {
         this.productoRepository = productoRepository;
         this.productoMapper = productoMapper;
+        this.imageStore = imageStore;
+        this.imageDerivativeService = imageDerivativeService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public ProductoDTO save(ProductoDTO productoDTO) {
         log.debug("Request to save Producto : {}", productoDTO);
+        storeImagen(productoDTO);
         Producto producto = productoMapper.toEntity(productoDTO);
-        producto = productoRepository.save(producto);
+        if (productoDTO.getId() != null && productoDTO.getVersion() == null) {
+            // An update without a version overwrites whatever the current one is
+            productoRepository.findById(productoDTO.getId()).map(Producto::getVersion).ifPresent(producto::setVersion);
+        }
+        producto = productoRepository.saveAndFlush(producto);
+        eventPublisher.publishEvent(new EntityChangedEvent(Producto.class, producto.getId()));
         return productoMapper.toDto(producto);
     }
 
     @Override
     public Optional<ProductoDTO> partialUpdate(ProductoDTO productoDTO) {
         log.debug("Request to partially update Producto : {}", productoDTO);
+        storeImagen(productoDTO);
 
         return productoRepository
             .findById(productoDTO.getId())
             .map(
                 existingProducto -> {
+                    if (productoDTO.getVersion() != null && productoDTO.getVersion() != existingProducto.getVersion()) {
+                        throw new ObjectOptimisticLockingFailureException(Producto.class, existingProducto.getId());
+                    }
                     productoMapper.partialUpdate(existingProducto, productoDTO);
                     return existingProducto;
                 }
             )
-            .map(productoRepository::save)
-            .map(productoMapper::toDto);
+            .map(productoRepository::saveAndFlush)
+            .map(
+                producto -> {
+                    eventPublisher.publishEvent(new EntityChangedEvent(Producto.class, producto.getId()));
+                    return productoMapper.toDto(producto);
+                }
+            );
     }
 
     @Override
@@ -73,5 +109,20 @@ public class ProductoServiceImpl implements ProductoService {
     public void delete(Long id) {
         log.debug("Request to delete Producto : {}", id);
         productoRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Producto.class, id));
+    }
+
+    /**
+     * Move the uploaded image, if any, to the {@link ImageStore} and keep only its reference in the DTO.
+     * Its derivatives are generated in the background.
+     */
+    private void storeImagen(ProductoDTO productoDTO) {
+        if (productoDTO.getImagen() != null) {
+            StoredImage image = imageStore.store(productoDTO.getImagen());
+            productoDTO.setImagenHash(image.getHash());
+            productoDTO.setImagenSize(image.getSize());
+            productoDTO.setImagen(null);
+            imageDerivativeService.generate(image.getHash());
+        }
     }
 }
@@ -8,4 +8,12 @@ import org.mapstruct.*;
  * Mapper for the entity {@link Banner} and its DTO {@link BannerDTO}.
  */
 @Mapper(componentModel = "spring", uses = {})
-public interface BannerMapper extends EntityMapper<BannerDTO, Banner> {}
+public interface BannerMapper extends EntityMapper<BannerDTO, Banner> {
+    @Mapping(target = "imagen", ignore = true)
+    BannerDTO toDto(Banner s);
+
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    void partialUpdate(@MappingTarget Banner entity, BannerDTO dto);
+}
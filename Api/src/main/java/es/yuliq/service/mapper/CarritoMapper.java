@@ -16,4 +16,10 @@ public interface CarritoMapper extends EntityMapper<CarritoDTO, Carrito> {
 
     @Mapping(target = "removeProducto", ignore = true)
     Carrito toEntity(CarritoDTO carritoDTO);
+
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "removeProducto", ignore = true)
+    void partialUpdate(@MappingTarget Carrito entity, CarritoDTO dto);
 }
@@ -10,10 +10,25 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring", uses = { FacturaMapper.class })
 public interface CompraMapper extends EntityMapper<CompraDTO, Compra> {
     @Mapping(target = "factura", source = "factura", qualifiedByName = "id")
+    @Mapping(target = "productoId", source = "producto.id")
     CompraDTO toDto(Compra s);
 
+    @Mapping(target = "producto", source = "productoId", qualifiedByName = "productoFromId")
+    Compra toEntity(CompraDTO dto);
+
     @Named("id")
     @BeanMapping(ignoreByDefault = true)
     @Mapping(target = "id", source = "id")
     CompraDTO toDtoId(Compra compra);
+
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "producto", source = "productoId", qualifiedByName = "productoFromId")
+    void partialUpdate(@MappingTarget Compra entity, CompraDTO dto);
+
+    @Named("productoFromId")
+    default Producto productoFromId(Long id) {
+        return id != null ? new Producto().id(id) : null;
+    }
 }
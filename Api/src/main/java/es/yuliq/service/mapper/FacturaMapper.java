@@ -16,4 +16,9 @@ public interface FacturaMapper extends EntityMapper<FacturaDTO, Factura> {
     @BeanMapping(ignoreByDefault = true)
     @Mapping(target = "id", source = "id")
     FacturaDTO toDtoId(Factura factura);
+
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    void partialUpdate(@MappingTarget Factura entity, FacturaDTO dto);
 }
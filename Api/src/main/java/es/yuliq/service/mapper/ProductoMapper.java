@@ -11,10 +11,16 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring", uses = { CompraMapper.class })
 public interface ProductoMapper extends EntityMapper<ProductoDTO, Producto> {
     @Mapping(target = "compra", source = "compra", qualifiedByName = "id")
+    @Mapping(target = "imagen", ignore = true)
     ProductoDTO toDto(Producto s);
 
     @Named("idSet")
     @BeanMapping(ignoreByDefault = true)
     @Mapping(target = "id", source = "id")
     Set<ProductoDTO> toDtoIdSet(Set<Producto> producto);
+
+    @Named("partialUpdate")
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "version", ignore = true)
+    void partialUpdate(@MappingTarget Producto entity, ProductoDTO dto);
 }
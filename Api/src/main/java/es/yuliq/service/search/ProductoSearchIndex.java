@@ -0,0 +1,347 @@
+package es.yuliq.service.search;
+
+import es.yuliq.service.dto.ProductoDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inverted index of the productos over {@code nombreProducto} and {@code tipoproducto}, ranked with BM25.
+ * <p>
+ * Both fields go through the {@link SpanishAnalyzer}. A query term matches the indexed terms equal to it and,
+ * for the longer terms, those within one or two edits (insertions, deletions, substitutions or transpositions),
+ * with a lower weight for each edit. The score of a producto adds up, for each query term, its best match in the
+ * name and, with a lower boost, in the type.
+ * <p>
+ * Searches run concurrently under a read lock and see every write as soon as it returns. While a rebuild is
+ * loading the productos, the productos written in the meantime are remembered, so that the rebuild does not
+ * bring back an older state of them.
+ */
+@Component
+public class ProductoSearchIndex {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final double TIPO_BOOST = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    private final Map<String, Map<Long, Integer>> nombrePostings = new HashMap<>();
+
+    private final Map<String, Set<Long>> tipoPostings = new HashMap<>();
+
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+
+    private long totalNombreLength;
+
+    private boolean rebuilding;
+
+    private volatile boolean ready;
+
+    /**
+     * @return whether the index holds all the productos, i.e. a rebuild has completed.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Add or replace a producto.
+     *
+     * @param producto the producto.
+     */
+    public void put(ProductoDTO producto) {
+        Document document = analyze(producto);
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                changedDuringRebuild.add(document.id);
+            }
+            removeDocument(document.id);
+            addDocument(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a producto, if indexed.
+     *
+     * @param productoId the id of the producto.
+     */
+    public void remove(Long productoId) {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                changedDuringRebuild.add(productoId);
+            }
+            removeDocument(productoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Start remembering the productos which are written, until the rebuild is completed or aborted.
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the content of the index, except for the productos written since {@link #beginRebuild()}.
+     *
+     * @param rebuilt the analyzed productos, as loaded since the beginning of the rebuild.
+     */
+    void completeRebuild(Collection<Document> rebuilt) {
+        lock.writeLock().lock();
+        try {
+            List<Document> changed = new ArrayList<>();
+            for (Long id : changedDuringRebuild) {
+                Document document = documents.get(id);
+                if (document != null) {
+                    changed.add(document);
+                }
+            }
+            documents.clear();
+            nombrePostings.clear();
+            tipoPostings.clear();
+            totalNombreLength = 0;
+            for (Document document : rebuilt) {
+                if (!changedDuringRebuild.contains(document.id)) {
+                    addDocument(document);
+                }
+            }
+            changed.forEach(this::addDocument);
+            rebuilding = false;
+            changedDuringRebuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stop a failed rebuild; the index keeps its current content.
+     */
+    public void abortRebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = false;
+            changedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search the productos.
+     *
+     * @param query the text to search.
+     * @param pageable the page; its sort is ignored, as the productos are ranked by relevance, then by id.
+     * @return the page of the ids of the matching productos.
+     */
+    public Page<Long> search(String query, Pageable pageable) {
+        Set<String> queryTerms = new LinkedHashSet<>(SpanishAnalyzer.analyze(query));
+        if (queryTerms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Map<Long, Double> scores;
+        lock.readLock().lock();
+        try {
+            scores = score(queryTerms);
+        } finally {
+            lock.readLock().unlock();
+        }
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int size = pageable.isPaged() ? pageable.getPageSize() : scores.size();
+        List<Long> content = scores
+            .entrySet()
+            .stream()
+            .sorted(
+                Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey())
+            )
+            .skip(offset)
+            .limit(size)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, scores.size());
+    }
+
+    /**
+     * @param producto the producto.
+     * @return the terms of the producto; this can be run outside of the lock.
+     */
+    static Document analyze(ProductoDTO producto) {
+        List<String> nombre = SpanishAnalyzer.analyze(producto.getNombreProducto());
+        Map<String, Integer> nombreFrequencies = new HashMap<>();
+        for (String term : nombre) {
+            nombreFrequencies.merge(term, 1, Integer::sum);
+        }
+        Set<String> tipo = producto.getTipoproducto() == null
+            ? Set.of()
+            : new HashSet<>(SpanishAnalyzer.analyze(producto.getTipoproducto().name()));
+        return new Document(producto.getId(), nombreFrequencies, nombre.size(), tipo);
+    }
+
+    private Map<Long, Double> score(Collection<String> queryTerms) {
+        Map<Long, Double> scores = new HashMap<>();
+        double averageLength = documents.isEmpty() ? 1 : (double) totalNombreLength / documents.size();
+        for (String queryTerm : queryTerms) {
+            int maxEdits = maxEdits(queryTerm);
+            Map<Long, Double> nombreScores = new HashMap<>();
+            for (Map.Entry<String, Map<Long, Integer>> posting : nombrePostings.entrySet()) {
+                int edits = editDistance(queryTerm, posting.getKey(), maxEdits);
+                if (edits > maxEdits) {
+                    continue;
+                }
+                double weight = idf(posting.getValue().size()) / (1 + edits);
+                for (Map.Entry<Long, Integer> frequency : posting.getValue().entrySet()) {
+                    double length = documents.get(frequency.getKey()).nombreLength;
+                    double tf = frequency.getValue();
+                    double score = weight * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                    nombreScores.merge(frequency.getKey(), score, Math::max);
+                }
+            }
+            Map<Long, Double> tipoScores = new HashMap<>();
+            for (Map.Entry<String, Set<Long>> posting : tipoPostings.entrySet()) {
+                int edits = editDistance(queryTerm, posting.getKey(), maxEdits);
+                if (edits > maxEdits) {
+                    continue;
+                }
+                double score = TIPO_BOOST * idf(posting.getValue().size()) / (1 + edits);
+                for (Long id : posting.getValue()) {
+                    tipoScores.merge(id, score, Math::max);
+                }
+            }
+            nombreScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            tipoScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+        }
+        return scores;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void addDocument(Document document) {
+        documents.put(document.id, document);
+        totalNombreLength += document.nombreLength;
+        document.nombre.forEach(
+            (term, frequency) -> nombrePostings.computeIfAbsent(term, key -> new HashMap<>()).put(document.id, frequency)
+        );
+        document.tipo.forEach(term -> tipoPostings.computeIfAbsent(term, key -> new HashSet<>()).add(document.id));
+    }
+
+    private void removeDocument(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        totalNombreLength -= document.nombreLength;
+        for (String term : document.nombre.keySet()) {
+            Map<Long, Integer> posting = nombrePostings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                nombrePostings.remove(term);
+            }
+        }
+        for (String term : document.tipo) {
+            Set<Long> posting = tipoPostings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                tipoPostings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * The number of typos tolerated grows with the length of the term, as short terms would match too much.
+     */
+    static int maxEdits(String term) {
+        if (term.length() < 3) {
+            return 0;
+        }
+        return term.length() < 6 ? 1 : 2;
+    }
+
+    /**
+     * Compute the optimal string alignment distance between two terms, i.e. the Levenshtein distance where
+     * swapping two adjacent characters also counts as one edit.
+     *
+     * @return the distance, or {@code max + 1} as soon as it is known to exceed {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        if (max == 0) {
+            return a.equals(b) ? 0 : 1;
+        }
+        int[][] distances = new int[a.length() + 1][b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            distances[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            distances[i][0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(distances[i - 1][j] + 1, distances[i][j - 1] + 1), distances[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, distances[i - 2][j - 2] + 1);
+                }
+                distances[i][j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+        }
+        return Math.min(distances[a.length()][b.length()], max + 1);
+    }
+
+    /**
+     * The analyzed fields of a producto.
+     */
+    static final class Document {
+
+        private final Long id;
+
+        private final Map<String, Integer> nombre;
+
+        private final int nombreLength;
+
+        private final Set<String> tipo;
+
+        private Document(Long id, Map<String, Integer> nombre, int nombreLength, Set<String> tipo) {
+            this.id = id;
+            this.nombre = nombre;
+            this.nombreLength = nombreLength;
+            this.tipo = tipo;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package es.yuliq.service.search;
+
+import es.yuliq.domain.Producto;
+import es.yuliq.service.EntityChangedEvent;
+import es.yuliq.service.ProductoQueryService;
+import es.yuliq.service.criteria.ProductoCriteria;
+import es.yuliq.service.dto.ProductoDTO;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Service for the full-text search of the productos, answered by the {@link ProductoSearchIndex}.
+ * <p>
+ * The index is rebuilt when the application starts, loading and analyzing ranges of ids in parallel on the
+ * {@code taskExecutor}; until then, searches fall back to the {@code nombreProducto.contains} filter. It is then
+ * kept up to date one producto at a time when the changes of the producto service are committed.
+ */
+@Service
+public class ProductoSearchService {
+
+    private static final long REBUILD_ID_RANGE = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(ProductoSearchService.class);
+
+    private final ProductoQueryService productoQueryService;
+
+    private final ProductoSearchIndex productoSearchIndex;
+
+    private final Executor taskExecutor;
+
+    public ProductoSearchService(
+        ProductoQueryService productoQueryService,
+        ProductoSearchIndex productoSearchIndex,
+        @Qualifier("taskExecutor") Executor taskExecutor
+    ) {
+        this.productoQueryService = productoQueryService;
+        this.productoSearchIndex = productoSearchIndex;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Search the productos by name and type.
+     *
+     * @param query the text to search.
+     * @param pageable the page; its sort is ignored, as the productos are ranked by relevance.
+     * @return the page of the matching productos.
+     */
+    public Page<ProductoDTO> search(String query, Pageable pageable) {
+        log.debug("Request to search Productos for query {}", query);
+        if (!productoSearchIndex.isReady()) {
+            StringFilter nombreFilter = new StringFilter();
+            nombreFilter.setContains(query);
+            ProductoCriteria criteria = new ProductoCriteria();
+            criteria.setNombreProducto(nombreFilter);
+            return productoQueryService.findProjectedByCriteria(criteria, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        }
+        Page<Long> ids = productoSearchIndex.search(query, pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, ids.getTotalElements());
+        }
+        LongFilter idFilter = new LongFilter();
+        idFilter.setIn(ids.getContent());
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setId(idFilter);
+        Map<Long, ProductoDTO> productos = productoQueryService
+            .findProjectedByCriteria(criteria, Pageable.unpaged())
+            .stream()
+            .collect(Collectors.toMap(ProductoDTO::getId, Function.identity()));
+        // A producto deleted since the search is left out of the page
+        List<ProductoDTO> content = ids.getContent().stream().map(productos::get).filter(Objects::nonNull).collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Rebuild the index from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        // Begun first, so that the events of the productos committed from now on are tracked, including the ones
+        // committed before the last producto is read
+        productoSearchIndex.beginRebuild();
+        List<ProductoDTO> last;
+        try {
+            last =
+                productoQueryService
+                    .findProjectedByCriteria(new ProductoCriteria(), PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "id")))
+                    .getContent();
+        } catch (RuntimeException e) {
+            productoSearchIndex.abortRebuild();
+            throw e;
+        }
+        long maxId = last.isEmpty() ? 0 : last.get(0).getId();
+        // Productos created after the last one read here are indexed from their events
+        List<CompletableFuture<List<ProductoSearchIndex.Document>>> chunks = new ArrayList<>();
+        for (long from = 0; from <= maxId; from += REBUILD_ID_RANGE) {
+            long fromId = from;
+            chunks.add(CompletableFuture.supplyAsync(() -> loadChunk(fromId, fromId + REBUILD_ID_RANGE), taskExecutor));
+        }
+        CompletableFuture
+            .allOf(chunks.toArray(new CompletableFuture<?>[0]))
+            .whenComplete(
+                (ignored, error) -> {
+                    if (error != null) {
+                        log.warn("Could not rebuild the search index of productos: {}", error.getMessage());
+                        productoSearchIndex.abortRebuild();
+                        return;
+                    }
+                    List<ProductoSearchIndex.Document> documents = chunks
+                        .stream()
+                        .flatMap(chunk -> chunk.join().stream())
+                        .collect(Collectors.toList());
+                    productoSearchIndex.completeRebuild(documents);
+                    log.info("Search index of productos rebuilt with {} productos", documents.size());
+                }
+            );
+    }
+
+    /**
+     * Replace the changed producto in the index, once the change is committed.
+     *
+     * @param event the change.
+     */
+    @TransactionalEventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() != Producto.class) {
+            return;
+        }
+        Long id = (Long) event.getId();
+        LongFilter idFilter = new LongFilter();
+        idFilter.setEquals(id);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setId(idFilter);
+        // Read and applied under the lock, so that concurrent changes of a producto are applied in order
+        synchronized (this) {
+            List<ProductoDTO> productos = productoQueryService.findProjectedByCriteria(criteria, Pageable.unpaged()).getContent();
+            if (productos.isEmpty()) {
+                productoSearchIndex.remove(id);
+            } else {
+                productoSearchIndex.put(productos.get(0));
+            }
+        }
+    }
+
+    private List<ProductoSearchIndex.Document> loadChunk(long fromId, long toId) {
+        LongFilter idFilter = new LongFilter();
+        idFilter.setGreaterThanOrEqual(fromId);
+        idFilter.setLessThan(toId);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setId(idFilter);
+        return productoQueryService
+            .findProjectedByCriteria(criteria, Pageable.unpaged())
+            .stream()
+            .map(ProductoSearchIndex::analyze)
+            .collect(Collectors.toList());
+    }
+}
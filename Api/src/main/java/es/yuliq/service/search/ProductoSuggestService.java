@@ -0,0 +1,128 @@
+package es.yuliq.service.search;
+
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.domain.Compra;
+import es.yuliq.domain.Producto;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.repository.VentasProjection;
+import es.yuliq.service.EntityChangedEvent;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service for the autocompletion of the names of the productos, answered by a {@link SuggestionTrie} weighted by
+ * the units sold of each name.
+ * <p>
+ * The trie is built on the first request. It is rebuilt in the background, while the current one is still
+ * served, once a change of a producto or a compra, including the compras of a checkout, is committed, or after
+ * {@code application.suggest.refresh-seconds} for the changes made behind the back of the services.
+ */
+@Service
+public class ProductoSuggestService {
+
+    private final Logger log = LoggerFactory.getLogger(ProductoSuggestService.class);
+
+    private final ProductoRepository productoRepository;
+
+    private final Executor taskExecutor;
+
+    private final long refreshNanos;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile boolean changed;
+
+    private volatile long builtAt;
+
+    private volatile SuggestionTrie trie;
+
+    public ProductoSuggestService(
+        ProductoRepository productoRepository,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productoRepository = productoRepository;
+        this.taskExecutor = taskExecutor;
+        this.refreshNanos = TimeUnit.SECONDS.toNanos(applicationProperties.getSuggest().getRefreshSeconds());
+    }
+
+    /**
+     * Suggest the names of the productos for a prefix.
+     *
+     * @param prefix the prefix of any word of the names, ignoring case and accents.
+     * @param size the number of names wanted, at most {@link SuggestionTrie#MAX_SUGGESTIONS}.
+     * @return the names, the most sold first.
+     */
+    public List<String> suggest(String prefix, int size) {
+        SuggestionTrie current = trie;
+        if (current == null) {
+            synchronized (this) {
+                current = trie;
+                if (current == null) {
+                    current = build();
+                    trie = current;
+                }
+            }
+        } else if (changed || System.nanoTime() - builtAt > refreshNanos) {
+            refresh();
+        }
+        return current.suggest(prefix, size);
+    }
+
+    /**
+     * Schedule a rebuild once a change of the names or of the units sold is committed.
+     *
+     * @param event the change.
+     */
+    @TransactionalEventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntityType() == Producto.class || event.getEntityType() == Compra.class) {
+            changed = true;
+        }
+    }
+
+    private void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(
+                () -> {
+                    try {
+                        trie = build();
+                    } catch (RuntimeException e) {
+                        log.warn("Could not rebuild the suggestions of productos: {}", e.getMessage());
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            );
+        } catch (RejectedExecutionException e) {
+            log.debug("Could not schedule the rebuild of the suggestions of productos: {}", e.getMessage());
+            refreshing.set(false);
+        }
+    }
+
+    private SuggestionTrie build() {
+        // Cleared before reading, so that a change committed during the build triggers another one
+        changed = false;
+        builtAt = System.nanoTime();
+        Map<String, Long> ventas = new HashMap<>();
+        for (VentasProjection projection : productoRepository.findVentasByNombreProducto()) {
+            ventas.put(projection.getNombreProducto(), projection.getVentas());
+        }
+        SuggestionTrie built = SuggestionTrie.of(ventas);
+        log.debug("Suggestions of productos built with {} names", built.size());
+        return built;
+    }
+}
@@ -0,0 +1,80 @@
+package es.yuliq.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Text analysis for the Spanish product names: folding, tokenization, stop words and plurals.
+ * <p>
+ * Accents and other diacritics are removed and the text is lower-cased, so that a name gives the same
+ * terms whether it is typed with accents or not, in any case. A trailing {@code s} is removed from the
+ * longer words, which folds the regular plurals ({@code "tartas"} into {@code "tarta"}); the
+ * irregular ones are left to the typo tolerance of the search.
+ */
+public final class SpanishAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a",
+        "al",
+        "con",
+        "de",
+        "del",
+        "el",
+        "en",
+        "la",
+        "las",
+        "lo",
+        "los",
+        "o",
+        "para",
+        "por",
+        "sin",
+        "un",
+        "una",
+        "unas",
+        "unos",
+        "y"
+    );
+
+    private SpanishAnalyzer() {}
+
+    /**
+     * @param text the text, may be null.
+     * @return the text without diacritics and in lower case.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param text the text, may be null.
+     * @return the terms of the text, in order, with repetitions.
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    private static String stem(String token) {
+        if (token.length() > 3 && token.endsWith("s")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
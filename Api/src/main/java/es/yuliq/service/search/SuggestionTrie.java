@@ -0,0 +1,206 @@
+package es.yuliq.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable compressed trie of weighted suggestions, answering the best completions of a prefix in the time
+ * needed to walk the prefix.
+ * <p>
+ * Suggestions are folded by {@link SpanishAnalyzer#fold} and inserted from the start of each of their words,
+ * so that {@code "lim"} completes a name such as {@code "Tarta de limon"}. Chains of nodes with a single child
+ * are merged into one edge, and every node keeps the indexes of the {@link #MAX_SUGGESTIONS} heaviest
+ * suggestions below it, computed once when the trie is built.
+ */
+public final class SuggestionTrie {
+
+    /**
+     * The most suggestions returned for a prefix.
+     */
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] texts;
+
+    private final Node root;
+
+    private SuggestionTrie(String[] texts, Node root) {
+        this.texts = texts;
+        this.root = root;
+    }
+
+    /**
+     * Build a trie. Texts which only differ by case and accents are suggested once, with the text and weight of
+     * the heaviest one.
+     *
+     * @param weights the weight of each suggestion, such as the units sold of the productos with that name.
+     * @return the trie.
+     */
+    public static SuggestionTrie of(Map<String, Long> weights) {
+        Map<String, String> textByKey = new HashMap<>();
+        Map<String, Long> weightByKey = new HashMap<>();
+        weights.forEach(
+            (text, weight) -> {
+                String key = normalize(text).trim();
+                if (key.isEmpty()) {
+                    return;
+                }
+                long current = weightByKey.getOrDefault(key, Long.MIN_VALUE);
+                if (weight > current || (weight == current && text.compareTo(textByKey.get(key)) < 0)) {
+                    textByKey.put(key, text);
+                    weightByKey.put(key, weight);
+                }
+            }
+        );
+        List<String> keys = new ArrayList<>(weightByKey.keySet());
+        // Heaviest first, so that an index is also a rank
+        Comparator<String> byWeight = Comparator.comparing(weightByKey::get, Comparator.reverseOrder());
+        keys.sort(byWeight.thenComparing(Comparator.naturalOrder()));
+        String[] texts = new String[keys.size()];
+        Builder root = new Builder();
+        for (int index = 0; index < keys.size(); index++) {
+            String key = keys.get(index);
+            texts[index] = textByKey.get(key);
+            for (int start = 0; start < key.length(); start++) {
+                if (start == 0 || key.charAt(start - 1) == ' ') {
+                    root.insert(key, start, index);
+                }
+            }
+        }
+        return new SuggestionTrie(texts, root.build(""));
+    }
+
+    /**
+     * @param prefix the prefix typed by the user.
+     * @param size the number of suggestions wanted, at most {@link #MAX_SUGGESTIONS}.
+     * @return the heaviest suggestions having a word starting with the prefix, heaviest first.
+     */
+    public List<String> suggest(String prefix, int size) {
+        int[] top = find(normalize(prefix).stripLeading());
+        int count = Math.min(Math.min(size, MAX_SUGGESTIONS), top.length);
+        List<String> suggestions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            suggestions.add(texts[top[i]]);
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    private int[] find(String prefix) {
+        Node node = root;
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.child(prefix.charAt(matched));
+            if (child == null) {
+                return NONE;
+            }
+            int remaining = prefix.length() - matched;
+            if (remaining <= child.label.length()) {
+                return child.label.startsWith(prefix.substring(matched)) ? child.top : NONE;
+            }
+            if (!prefix.startsWith(child.label, matched)) {
+                return NONE;
+            }
+            matched += child.label.length();
+            node = child;
+        }
+        return node.top;
+    }
+
+    private static String normalize(String text) {
+        return WHITESPACE.matcher(SpanishAnalyzer.fold(text)).replaceAll(" ");
+    }
+
+    private static final class Node {
+
+        private final String label;
+
+        private final char[] firstChars;
+
+        private final Node[] children;
+
+        private final int[] top;
+
+        private Node(String label, char[] firstChars, Node[] children, int[] top) {
+            this.label = label;
+            this.firstChars = firstChars;
+            this.children = children;
+            this.top = top;
+        }
+
+        private Node child(char c) {
+            int low = 0;
+            int high = firstChars.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (firstChars[middle] < c) {
+                    low = middle + 1;
+                } else if (firstChars[middle] > c) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Mutable node with one character per edge, compressed by {@link #build(String)}.
+     */
+    private static final class Builder {
+
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+
+        private final List<Integer> suggestions = new ArrayList<>();
+
+        private void insert(String key, int start, int index) {
+            Builder node = this;
+            for (int i = start; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Builder());
+            }
+            node.suggestions.add(index);
+        }
+
+        private Node build(String label) {
+            StringBuilder edge = new StringBuilder(label);
+            Builder node = this;
+            while (!label.isEmpty() && node.suggestions.isEmpty() && node.children.size() == 1) {
+                Map.Entry<Character, Builder> only = node.children.firstEntry();
+                edge.append(only.getKey());
+                node = only.getValue();
+            }
+            char[] firstChars = new char[node.children.size()];
+            Node[] children = new Node[node.children.size()];
+            // The indexes are ranks: the best suggestions are the smallest distinct indexes
+            Set<Integer> candidates = new LinkedHashSet<>(node.suggestions);
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : node.children.entrySet()) {
+                firstChars[i] = child.getKey();
+                children[i] = child.getValue().build(String.valueOf(child.getKey()));
+                for (int index : children[i].top) {
+                    candidates.add(index);
+                }
+                i++;
+            }
+            List<Integer> sorted = new ArrayList<>(candidates);
+            Collections.sort(sorted);
+            int[] top = sorted.stream().limit(MAX_SUGGESTIONS).mapToInt(Integer::intValue).toArray();
+            return new Node(edge.toString(), firstChars, children, top);
+        }
+    }
+}
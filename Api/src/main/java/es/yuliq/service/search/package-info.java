@@ -0,0 +1,4 @@
+/**
+ * In-memory full-text search over the productos, kept up to date with the committed changes.
+ */
+package es.yuliq.service.search;
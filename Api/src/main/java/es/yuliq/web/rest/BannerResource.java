@@ -1,16 +1,25 @@
 package es.yuliq.web.rest;
 
+import es.yuliq.domain.Banner;
 import es.yuliq.repository.BannerRepository;
 import es.yuliq.service.BannerQueryService;
 import es.yuliq.service.BannerService;
+import es.yuliq.service.CriteriaResultCache;
+import es.yuliq.service.KeysetPageRequest;
+import es.yuliq.service.KeysetSlice;
 import es.yuliq.service.criteria.BannerCriteria;
 import es.yuliq.service.dto.BannerDTO;
 import es.yuliq.web.rest.errors.BadRequestAlertException;
+import es.yuliq.web.rest.util.CountPaginationUtil;
+import es.yuliq.web.rest.util.CountPaginationUtil.CountMode;
+import es.yuliq.web.rest.util.EntityTagUtil;
+import es.yuliq.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -18,14 +27,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link es.yuliq.domain.Banner}.
@@ -38,6 +47,8 @@ public class BannerResource {
 
     private static final String ENTITY_NAME = "banner";
 
+    private static final Set<Class<?>> QUERY_DEPENDENCIES = Set.of(Banner.class);
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -47,10 +58,18 @@ public class BannerResource {
 
     private final BannerQueryService bannerQueryService;
 
-    public BannerResource(BannerService bannerService, BannerRepository bannerRepository, BannerQueryService bannerQueryService) {
+    private final CriteriaResultCache criteriaResultCache;
+
+    public BannerResource(
+        BannerService bannerService,
+        BannerRepository bannerRepository,
+        BannerQueryService bannerQueryService,
+        CriteriaResultCache criteriaResultCache
+    ) {
         this.bannerService = bannerService;
         this.bannerRepository = bannerRepository;
         this.bannerQueryService = bannerQueryService;
+        this.criteriaResultCache = criteriaResultCache;
     }
 
     /**
@@ -78,15 +97,18 @@ public class BannerResource {
      *
      * @param id the id of the bannerDTO to save.
      * @param bannerDTO the bannerDTO to update.
+     * @param ifMatch the entity tags the banner must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated bannerDTO,
      * or with status {@code 400 (Bad Request)} if the bannerDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the banner no longer has any of the entity tags,
      * or with status {@code 500 (Internal Server Error)} if the bannerDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/banners/{id}")
     public ResponseEntity<BannerDTO> updateBanner(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody BannerDTO bannerDTO
+        @Valid @RequestBody BannerDTO bannerDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Banner : {}, {}", id, bannerDTO);
         if (bannerDTO.getId() == null) {
@@ -99,11 +121,15 @@ public class BannerResource {
         if (!bannerRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            bannerDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, bannerQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         BannerDTO result = bannerService.save(bannerDTO);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, bannerDTO.getId().toString()))
+            .eTag(EntityTagUtil.entityTag(result.getVersion()))
             .body(result);
     }
 
@@ -112,8 +138,10 @@ public class BannerResource {
      *
      * @param id the id of the bannerDTO to save.
      * @param bannerDTO the bannerDTO to update.
+     * @param ifMatch the entity tags the banner must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated bannerDTO,
      * or with status {@code 400 (Bad Request)} if the bannerDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the banner no longer has any of the entity tags,
      * or with status {@code 404 (Not Found)} if the bannerDTO is not found,
      * or with status {@code 500 (Internal Server Error)} if the bannerDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -121,7 +149,8 @@ public class BannerResource {
     @PatchMapping(value = "/banners/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<BannerDTO> partialUpdateBanner(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody BannerDTO bannerDTO
+        @NotNull @RequestBody BannerDTO bannerDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Banner partially : {}, {}", id, bannerDTO);
         if (bannerDTO.getId() == null) {
@@ -134,10 +163,13 @@ public class BannerResource {
         if (!bannerRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            bannerDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, bannerQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         Optional<BannerDTO> result = bannerService.partialUpdate(bannerDTO);
 
-        return ResponseUtil.wrapOrNotFound(
+        return EntityTagUtil.wrapOrNotFound(
             result,
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, bannerDTO.getId().toString())
         );
@@ -148,13 +180,63 @@ public class BannerResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset pagination cursor, empty for the first page; when present the page is read after the cursor,
+     * without counting the banners, and the cursor of the next page is sent in the {@code Link} header.
+     * @param count how {@code X-Total-Count} is computed: {@code exact} (the default), {@code estimated}, flagged by
+     * {@code X-Total-Count-Approximate}, or {@code none}, in which case no total is sent.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of banners in body.
      */
     @GetMapping("/banners")
-    public ResponseEntity<List<BannerDTO>> getAllBanners(BannerCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<BannerDTO>> getAllBanners(
+        BannerCriteria criteria,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CountPaginationUtil.COUNT_PARAMETER, required = false) String count
+    ) {
         log.debug("REST request to get Banners by criteria: {}", criteria);
-        Page<BannerDTO> page = bannerQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        if (after != null) {
+            KeysetSlice<BannerDTO> slice = bannerQueryService.findProjectedByCriteria(criteria, KeysetPageRequest.of(after, pageable));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                slice
+            );
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.getNextCursor()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        CountMode countMode = CountPaginationUtil.countMode(count);
+        if (countMode == CountMode.NONE) {
+            Slice<BannerDTO> slice = criteriaResultCache.get(
+                QUERY_DEPENDENCIES,
+                "banners.slice",
+                criteria,
+                pageable,
+                () -> bannerQueryService.findProjectedSliceByCriteria(criteria, pageable)
+            );
+            HttpHeaders headers = CountPaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.hasNext()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<BannerDTO> page = countMode == CountMode.ESTIMATED
+            ? criteriaResultCache.get(
+                QUERY_DEPENDENCIES,
+                "banners.estimatedPage",
+                criteria,
+                pageable,
+                () -> bannerQueryService.findProjectedByCriteriaWithEstimatedCount(criteria, pageable)
+            )
+            : criteriaResultCache.get(
+                QUERY_DEPENDENCIES,
+                "banners.page",
+                criteria,
+                pageable,
+                () -> bannerQueryService.findProjectedByCriteria(criteria, pageable)
+            );
+        HttpHeaders headers = CountPaginationUtil.generatePaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            countMode
+        );
+        headers.setETag(EntityTagUtil.entityTag(page.getContent(), page.getTotalElements()));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -167,20 +249,31 @@ public class BannerResource {
     @GetMapping("/banners/count")
     public ResponseEntity<Long> countBanners(BannerCriteria criteria) {
         log.debug("REST request to count Banners by criteria: {}", criteria);
-        return ResponseEntity.ok().body(bannerQueryService.countByCriteria(criteria));
+        Long count = criteriaResultCache.get(
+            QUERY_DEPENDENCIES,
+            "banners.count",
+            criteria,
+            null,
+            () -> bannerQueryService.countByCriteria(criteria)
+        );
+        return ResponseEntity.ok().body(count);
     }
 
     /**
      * {@code GET  /banners/:id} : get the "id" banner.
      *
      * @param id the id of the bannerDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the bannerDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header is answered from the version of the banner.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the bannerDTO, or with status {@code 304 (Not Modified)}, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/banners/{id}")
-    public ResponseEntity<BannerDTO> getBanner(@PathVariable Long id) {
+    public ResponseEntity<BannerDTO> getBanner(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Banner : {}", id);
+        if (EntityTagUtil.checkNotModified(request, () -> bannerQueryService.findVersion(id))) {
+            return null;
+        }
         Optional<BannerDTO> bannerDTO = bannerService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(bannerDTO);
+        return EntityTagUtil.wrapOrNotFound(bannerDTO, new HttpHeaders());
     }
 
     /**
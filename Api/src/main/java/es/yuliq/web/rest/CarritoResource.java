@@ -1,29 +1,40 @@
 package es.yuliq.web.rest;
 
 import es.yuliq.repository.CarritoRepository;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.CarritoItemService;
 import es.yuliq.service.CarritoQueryService;
 import es.yuliq.service.CarritoService;
+import es.yuliq.service.KeysetPageRequest;
+import es.yuliq.service.KeysetSlice;
 import es.yuliq.service.criteria.CarritoCriteria;
 import es.yuliq.service.dto.CarritoDTO;
+import es.yuliq.service.dto.CarritoItemDTO;
+import es.yuliq.service.dto.CarritoSummaryDTO;
 import es.yuliq.web.rest.errors.BadRequestAlertException;
+import es.yuliq.web.rest.util.CountPaginationUtil;
+import es.yuliq.web.rest.util.CountPaginationUtil.CountMode;
+import es.yuliq.web.rest.util.EntityTagUtil;
+import es.yuliq.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link es.yuliq.domain.Carrito}.
@@ -45,10 +56,22 @@ public class CarritoResource {
 
     private final CarritoQueryService carritoQueryService;
 
-    public CarritoResource(CarritoService carritoService, CarritoRepository carritoRepository, CarritoQueryService carritoQueryService) {
+    private final CarritoItemService carritoItemService;
+
+    private final ProductoRepository productoRepository;
+
+    public CarritoResource(
+        CarritoService carritoService,
+        CarritoRepository carritoRepository,
+        CarritoQueryService carritoQueryService,
+        CarritoItemService carritoItemService,
+        ProductoRepository productoRepository
+    ) {
         this.carritoService = carritoService;
         this.carritoRepository = carritoRepository;
         this.carritoQueryService = carritoQueryService;
+        this.carritoItemService = carritoItemService;
+        this.productoRepository = productoRepository;
     }
 
     /**
@@ -76,15 +99,19 @@ public class CarritoResource {
      *
      * @param id the id of the carritoDTO to save.
      * @param carritoDTO the carritoDTO to update.
+     * @param ifMatch the entity tags the carrito must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated carritoDTO,
      * or with status {@code 400 (Bad Request)} if the carritoDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the carrito no longer has any of the entity tags,
+     * or with status {@code 409 (Conflict)} if the carritoDTO has an older version and the changes since cannot be merged,
      * or with status {@code 500 (Internal Server Error)} if the carritoDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/carritos/{id}")
     public ResponseEntity<CarritoDTO> updateCarrito(
         @PathVariable(value = "id", required = false) final Long id,
-        @RequestBody CarritoDTO carritoDTO
+        @RequestBody CarritoDTO carritoDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Carrito : {}, {}", id, (Object) carritoDTO);
         if (carritoDTO.getId() == null) {
@@ -97,11 +124,15 @@ public class CarritoResource {
         if (!carritoRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            carritoDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, carritoQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         CarritoDTO result = carritoService.save(carritoDTO);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, carritoDTO.getId().toString()))
+            .eTag(EntityTagUtil.entityTag(result.getVersion()))
             .body(result);
     }
     /*
@@ -122,8 +153,11 @@ public class CarritoResource {
      *
      * @param id the id of the carritoDTO to save.
      * @param carritoDTO the carritoDTO to update.
+     * @param ifMatch the entity tags the carrito must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated carritoDTO,
      * or with status {@code 400 (Bad Request)} if the carritoDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the carrito no longer has any of the entity tags,
+     * or with status {@code 409 (Conflict)} if the carritoDTO has an older version and the changes since cannot be merged,
      * or with status {@code 404 (Not Found)} if the carritoDTO is not found,
      * or with status {@code 500 (Internal Server Error)} if the carritoDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -131,7 +165,8 @@ public class CarritoResource {
     @PatchMapping(value = "/carritos/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<CarritoDTO> partialUpdateCarrito(
         @PathVariable(value = "id", required = false) final Long id,
-        @RequestBody CarritoDTO carritoDTO
+        @RequestBody CarritoDTO carritoDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Carrito partially : {}, {}", id, carritoDTO);
         if (carritoDTO.getId() == null) {
@@ -144,10 +179,13 @@ public class CarritoResource {
         if (!carritoRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            carritoDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, carritoQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         Optional<CarritoDTO> result = carritoService.partialUpdate(carritoDTO);
 
-        return ResponseUtil.wrapOrNotFound(
+        return EntityTagUtil.wrapOrNotFound(
             result,
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, carritoDTO.getId().toString())
         );
@@ -158,13 +196,45 @@ public class CarritoResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset pagination cursor, empty for the first page; when present the page is read after the cursor,
+     * without counting the carritos, and the cursor of the next page is sent in the {@code Link} header.
+     * @param count how {@code X-Total-Count} is computed: {@code exact} (the default), {@code estimated}, flagged by
+     * {@code X-Total-Count-Approximate}, or {@code none}, in which case no total is sent.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of carritos in body.
      */
     @GetMapping("/carritos")
-    public ResponseEntity<List<CarritoDTO>> getAllCarritos(CarritoCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<CarritoDTO>> getAllCarritos(
+        CarritoCriteria criteria,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CountPaginationUtil.COUNT_PARAMETER, required = false) String count
+    ) {
         log.debug("REST request to get Carritos by criteria: {}", criteria);
-        Page<CarritoDTO> page = carritoQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        if (after != null) {
+            KeysetSlice<CarritoDTO> slice = carritoQueryService.findProjectedByCriteria(criteria, KeysetPageRequest.of(after, pageable));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                slice
+            );
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.getNextCursor()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        CountMode countMode = CountPaginationUtil.countMode(count);
+        if (countMode == CountMode.NONE) {
+            Slice<CarritoDTO> slice = carritoQueryService.findProjectedSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = CountPaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.hasNext()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<CarritoDTO> page = countMode == CountMode.ESTIMATED
+            ? carritoQueryService.findProjectedByCriteriaWithEstimatedCount(criteria, pageable)
+            : carritoQueryService.findProjectedByCriteria(criteria, pageable);
+        HttpHeaders headers = CountPaginationUtil.generatePaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            countMode
+        );
+        headers.setETag(EntityTagUtil.entityTag(page.getContent(), page.getTotalElements()));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -184,13 +254,80 @@ public class CarritoResource {
      * {@code GET  /carritos/:id} : get the "id" carrito.
      *
      * @param id the id of the carritoDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the carritoDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header is answered from the version of the carrito.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the carritoDTO, or with status {@code 304 (Not Modified)}, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/carritos/{id}")
-    public ResponseEntity<CarritoDTO> getCarrito(@PathVariable Long id) {
+    public ResponseEntity<CarritoDTO> getCarrito(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Carrito : {}", id);
+        if (EntityTagUtil.checkNotModified(request, () -> carritoQueryService.findVersion(id))) {
+            return null;
+        }
         Optional<CarritoDTO> carritoDTO = carritoService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(carritoDTO);
+        return EntityTagUtil.wrapOrNotFound(carritoDTO, new HttpHeaders());
+    }
+
+    /**
+     * {@code GET  /carritos/:id/items} : get the lines of the "id" carrito.
+     *
+     * @param id the id of the carrito.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the summary of the carrito,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/carritos/{id}/items")
+    public ResponseEntity<CarritoSummaryDTO> getCarritoItems(@PathVariable Long id) {
+        log.debug("REST request to get the items of Carrito : {}", id);
+        return EntityTagUtil.wrapOrNotFound(carritoItemService.findSummary(id), new HttpHeaders());
+    }
+
+    /**
+     * {@code POST  /carritos/:id/items} : set the number of units of a producto in the "id" carrito, only writing its line.
+     *
+     * @param id the id of the carrito.
+     * @param item the producto and its number of units.
+     * @param ifMatch the entity tag of the carrito the change was made on, if any; the change still applies to a newer
+     * version if the line of the producto did not change since.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the summary of the carrito,
+     * or with status {@code 400 (Bad Request)} if the item is not valid or the producto does not exist,
+     * or with status {@code 404 (Not Found)} if the carrito does not exist,
+     * or with status {@code 409 (Conflict)} if the line of the producto changed since the entity tag.
+     */
+    @PostMapping("/carritos/{id}/items")
+    public ResponseEntity<CarritoSummaryDTO> putCarritoItem(
+        @PathVariable Long id,
+        @Valid @RequestBody CarritoItemDTO item,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        log.debug("REST request to put the item {} in Carrito : {}", item, id);
+        if (!productoRepository.existsById(item.getProductoId())) {
+            throw new BadRequestAlertException("Producto not found", ENTITY_NAME, "productonotfound");
+        }
+        Long baseVersion = EntityTagUtil.baseVersion(ifMatch, ENTITY_NAME);
+        Optional<CarritoSummaryDTO> summary = carritoItemService.putItem(id, item, baseVersion);
+        return EntityTagUtil.wrapOrNotFound(summary, HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()));
+    }
+
+    /**
+     * {@code DELETE  /carritos/:id/items/:productoId} : remove a producto from the "id" carrito, only deleting its line.
+     *
+     * @param id the id of the carrito.
+     * @param productoId the id of the producto.
+     * @param ifMatch the entity tag of the carrito the change was made on, if any; the change still applies to a newer
+     * version if the line of the producto did not change since.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the summary of the carrito,
+     * or with status {@code 404 (Not Found)},
+     * or with status {@code 409 (Conflict)} if the line of the producto changed since the entity tag.
+     */
+    @DeleteMapping("/carritos/{id}/items/{productoId}")
+    public ResponseEntity<CarritoSummaryDTO> deleteCarritoItem(
+        @PathVariable Long id,
+        @PathVariable Long productoId,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        log.debug("REST request to remove the producto {} from Carrito : {}", productoId, id);
+        Long baseVersion = EntityTagUtil.baseVersion(ifMatch, ENTITY_NAME);
+        Optional<CarritoSummaryDTO> summary = carritoItemService.removeItem(id, productoId, baseVersion);
+        return EntityTagUtil.wrapOrNotFound(summary, HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()));
     }
 
     /**
@@ -0,0 +1,118 @@
+package es.yuliq.web.rest;
+
+import es.yuliq.security.CartTokenProvider;
+import es.yuliq.service.dto.CarritoItemDTO;
+import es.yuliq.web.rest.errors.BadRequestAlertException;
+import es.yuliq.web.rest.util.CartTokenUtil;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for the carts of the anonymous visitors, which are kept in a signed token instead of a
+ * {@link es.yuliq.domain.Carrito}.
+ * <p>
+ * A missing, invalid or expired token is an empty cart. None of these operations access the database: the
+ * productos are only checked when the cart is merged into the carrito of the visitor, on login.
+ */
+@RestController
+@RequestMapping("/api")
+public class CartTokenResource {
+
+    private static final String ENTITY_NAME = "cartToken";
+
+    private final Logger log = LoggerFactory.getLogger(CartTokenResource.class);
+
+    private final CartTokenProvider cartTokenProvider;
+
+    public CartTokenResource(CartTokenProvider cartTokenProvider) {
+        this.cartTokenProvider = cartTokenProvider;
+    }
+
+    /**
+     * {@code GET  /cart-token/items} : get the items of the cart token.
+     *
+     * @param header the cart token in the {@code X-Cart-Token} header, if any.
+     * @param cookie the cart token in the {@code cart-token} cookie, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the items in body.
+     */
+    @GetMapping("/cart-token/items")
+    public List<CarritoItemDTO> getCartTokenItems(
+        @RequestHeader(name = CartTokenProvider.HEADER, required = false) String header,
+        @CookieValue(name = CartTokenProvider.COOKIE, required = false) String cookie
+    ) {
+        log.debug("REST request to get the items of a cart token");
+        return toDto(items(header, cookie));
+    }
+
+    /**
+     * {@code POST  /cart-token/items} : set the number of units of a producto in the cart token.
+     *
+     * @param item the producto and its number of units.
+     * @param header the cart token in the {@code X-Cart-Token} header, if any.
+     * @param cookie the cart token in the {@code cart-token} cookie, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the items in body and the new token in the
+     * {@code X-Cart-Token} header and the {@code cart-token} cookie, or with status {@code 400 (Bad Request)} if the
+     * item is not valid or the cart is full.
+     */
+    @PostMapping("/cart-token/items")
+    public ResponseEntity<List<CarritoItemDTO>> putCartTokenItem(
+        @Valid @RequestBody CarritoItemDTO item,
+        @RequestHeader(name = CartTokenProvider.HEADER, required = false) String header,
+        @CookieValue(name = CartTokenProvider.COOKIE, required = false) String cookie
+    ) {
+        log.debug("REST request to put the item {} in a cart token", item);
+        SortedMap<Long, Integer> items = items(header, cookie);
+        items.put(item.getProductoId(), item.getCantidad());
+        if (items.size() > cartTokenProvider.getMaxItems()) {
+            throw new BadRequestAlertException("The cart is full", ENTITY_NAME, "cartfull");
+        }
+        return withToken(items);
+    }
+
+    /**
+     * {@code DELETE  /cart-token/items/:productoId} : remove a producto from the cart token.
+     *
+     * @param productoId the id of the producto.
+     * @param header the cart token in the {@code X-Cart-Token} header, if any.
+     * @param cookie the cart token in the {@code cart-token} cookie, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)}, the items in body and the new token in the
+     * {@code X-Cart-Token} header and the {@code cart-token} cookie.
+     */
+    @DeleteMapping("/cart-token/items/{productoId}")
+    public ResponseEntity<List<CarritoItemDTO>> deleteCartTokenItem(
+        @PathVariable Long productoId,
+        @RequestHeader(name = CartTokenProvider.HEADER, required = false) String header,
+        @CookieValue(name = CartTokenProvider.COOKIE, required = false) String cookie
+    ) {
+        log.debug("REST request to remove the producto {} from a cart token", productoId);
+        SortedMap<Long, Integer> items = items(header, cookie);
+        items.remove(productoId);
+        return withToken(items);
+    }
+
+    private SortedMap<Long, Integer> items(String header, String cookie) {
+        return cartTokenProvider.parseToken(CartTokenUtil.resolveToken(header, cookie)).orElseGet(TreeMap::new);
+    }
+
+    private ResponseEntity<List<CarritoItemDTO>> withToken(SortedMap<Long, Integer> items) {
+        String token = cartTokenProvider.createToken(items);
+        return ResponseEntity
+            .ok()
+            .headers(CartTokenUtil.tokenHeaders(token, Duration.ofSeconds(cartTokenProvider.getValidityInSeconds())))
+            .body(toDto(items));
+    }
+
+    private static List<CarritoItemDTO> toDto(SortedMap<Long, Integer> items) {
+        List<CarritoItemDTO> dtos = new ArrayList<>(items.size());
+        items.forEach((productoId, cantidad) -> dtos.add(new CarritoItemDTO(productoId, cantidad)));
+        return dtos;
+    }
+}
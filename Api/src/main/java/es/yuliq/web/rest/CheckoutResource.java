@@ -0,0 +1,59 @@
+package es.yuliq.web.rest;
+
+import es.yuliq.security.SecurityUtils;
+import es.yuliq.service.CheckoutService;
+import es.yuliq.service.dto.FacturaDTO;
+import es.yuliq.web.rest.errors.BadRequestAlertException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.HeaderUtil;
+
+/**
+ * REST controller for checking out the {@link es.yuliq.domain.Carrito} of the current user.
+ */
+@RestController
+@RequestMapping("/api")
+public class CheckoutResource {
+
+    private static final String ENTITY_NAME = "factura";
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutResource.class);
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final CheckoutService checkoutService;
+
+    public CheckoutResource(CheckoutService checkoutService) {
+        this.checkoutService = checkoutService;
+    }
+
+    /**
+     * {@code POST  /checkout} : buy the lines of the latest carrito of the current user, creating a factura with a
+     * compra for each line, taking the units from the stock of the productos and emptying the carrito.
+     *
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new facturaDTO,
+     * or with status {@code 400 (Bad Request)} if the carrito is empty or some productos do not have enough units in
+     * stock, or with status {@code 409 (Conflict)} if the carrito or the stock changed meanwhile.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/checkout")
+    public ResponseEntity<FacturaDTO> checkout() throws URISyntaxException {
+        String login = SecurityUtils
+            .getCurrentUserLogin()
+            .orElseThrow(() -> new BadRequestAlertException("Current user login not found", ENTITY_NAME, "usernotfound"));
+        log.debug("REST request to check out the Carrito of User : {}", login);
+        FacturaDTO result = checkoutService
+            .checkout(login)
+            .orElseThrow(() -> new BadRequestAlertException("User could not be found", ENTITY_NAME, "usernotfound"));
+        return ResponseEntity
+            .created(new URI("/api/facturas/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+}
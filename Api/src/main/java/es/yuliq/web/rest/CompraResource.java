@@ -3,9 +3,15 @@ package es.yuliq.web.rest;
 import es.yuliq.repository.CompraRepository;
 import es.yuliq.service.CompraQueryService;
 import es.yuliq.service.CompraService;
+import es.yuliq.service.KeysetPageRequest;
+import es.yuliq.service.KeysetSlice;
 import es.yuliq.service.criteria.CompraCriteria;
 import es.yuliq.service.dto.CompraDTO;
 import es.yuliq.web.rest.errors.BadRequestAlertException;
+import es.yuliq.web.rest.util.CountPaginationUtil;
+import es.yuliq.web.rest.util.CountPaginationUtil.CountMode;
+import es.yuliq.web.rest.util.EntityTagUtil;
+import es.yuliq.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -16,14 +22,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link es.yuliq.domain.Compra}.
@@ -76,15 +82,18 @@ public class CompraResource {
      *
      * @param id the id of the compraDTO to save.
      * @param compraDTO the compraDTO to update.
+     * @param ifMatch the entity tags the compra must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated compraDTO,
      * or with status {@code 400 (Bad Request)} if the compraDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the compra no longer has any of the entity tags,
      * or with status {@code 500 (Internal Server Error)} if the compraDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/compras/{id}")
     public ResponseEntity<CompraDTO> updateCompra(
         @PathVariable(value = "id", required = false) final Long id,
-        @RequestBody CompraDTO compraDTO
+        @RequestBody CompraDTO compraDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Compra : {}, {}", id, compraDTO);
         if (compraDTO.getId() == null) {
@@ -97,11 +106,15 @@ public class CompraResource {
         if (!compraRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            compraDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, compraQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         CompraDTO result = compraService.save(compraDTO);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, compraDTO.getId().toString()))
+            .eTag(EntityTagUtil.entityTag(result.getVersion()))
             .body(result);
     }
 
@@ -110,8 +123,10 @@ public class CompraResource {
      *
      * @param id the id of the compraDTO to save.
      * @param compraDTO the compraDTO to update.
+     * @param ifMatch the entity tags the compra must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated compraDTO,
      * or with status {@code 400 (Bad Request)} if the compraDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the compra no longer has any of the entity tags,
      * or with status {@code 404 (Not Found)} if the compraDTO is not found,
      * or with status {@code 500 (Internal Server Error)} if the compraDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -119,7 +134,8 @@ public class CompraResource {
     @PatchMapping(value = "/compras/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<CompraDTO> partialUpdateCompra(
         @PathVariable(value = "id", required = false) final Long id,
-        @RequestBody CompraDTO compraDTO
+        @RequestBody CompraDTO compraDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Compra partially : {}, {}", id, compraDTO);
         if (compraDTO.getId() == null) {
@@ -132,10 +148,13 @@ public class CompraResource {
         if (!compraRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            compraDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, compraQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         Optional<CompraDTO> result = compraService.partialUpdate(compraDTO);
 
-        return ResponseUtil.wrapOrNotFound(
+        return EntityTagUtil.wrapOrNotFound(
             result,
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, compraDTO.getId().toString())
         );
@@ -146,13 +165,45 @@ public class CompraResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset pagination cursor, empty for the first page; when present the page is read after the cursor,
+     * without counting the compras, and the cursor of the next page is sent in the {@code Link} header.
+     * @param count how {@code X-Total-Count} is computed: {@code exact} (the default), {@code estimated}, flagged by
+     * {@code X-Total-Count-Approximate}, or {@code none}, in which case no total is sent.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of compras in body.
      */
     @GetMapping("/compras")
-    public ResponseEntity<List<CompraDTO>> getAllCompras(CompraCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<CompraDTO>> getAllCompras(
+        CompraCriteria criteria,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CountPaginationUtil.COUNT_PARAMETER, required = false) String count
+    ) {
         log.debug("REST request to get Compras by criteria: {}", criteria);
-        Page<CompraDTO> page = compraQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        if (after != null) {
+            KeysetSlice<CompraDTO> slice = compraQueryService.findProjectedByCriteria(criteria, KeysetPageRequest.of(after, pageable));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                slice
+            );
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.getNextCursor()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        CountMode countMode = CountPaginationUtil.countMode(count);
+        if (countMode == CountMode.NONE) {
+            Slice<CompraDTO> slice = compraQueryService.findProjectedSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = CountPaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.hasNext()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<CompraDTO> page = countMode == CountMode.ESTIMATED
+            ? compraQueryService.findProjectedByCriteriaWithEstimatedCount(criteria, pageable)
+            : compraQueryService.findProjectedByCriteria(criteria, pageable);
+        HttpHeaders headers = CountPaginationUtil.generatePaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            countMode
+        );
+        headers.setETag(EntityTagUtil.entityTag(page.getContent(), page.getTotalElements()));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -172,13 +223,17 @@ public class CompraResource {
      * {@code GET  /compras/:id} : get the "id" compra.
      *
      * @param id the id of the compraDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the compraDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header is answered from the version of the compra.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the compraDTO, or with status {@code 304 (Not Modified)}, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/compras/{id}")
-    public ResponseEntity<CompraDTO> getCompra(@PathVariable Long id) {
+    public ResponseEntity<CompraDTO> getCompra(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Compra : {}", id);
+        if (EntityTagUtil.checkNotModified(request, () -> compraQueryService.findVersion(id))) {
+            return null;
+        }
         Optional<CompraDTO> compraDTO = compraService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(compraDTO);
+        return EntityTagUtil.wrapOrNotFound(compraDTO, new HttpHeaders());
     }
 
     /**
@@ -3,9 +3,15 @@ package es.yuliq.web.rest;
 import es.yuliq.repository.FacturaRepository;
 import es.yuliq.service.FacturaQueryService;
 import es.yuliq.service.FacturaService;
+import es.yuliq.service.KeysetPageRequest;
+import es.yuliq.service.KeysetSlice;
 import es.yuliq.service.criteria.FacturaCriteria;
 import es.yuliq.service.dto.FacturaDTO;
 import es.yuliq.web.rest.errors.BadRequestAlertException;
+import es.yuliq.web.rest.util.CountPaginationUtil;
+import es.yuliq.web.rest.util.CountPaginationUtil.CountMode;
+import es.yuliq.web.rest.util.EntityTagUtil;
+import es.yuliq.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -16,14 +22,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link es.yuliq.domain.Factura}.
@@ -76,15 +82,18 @@ public class FacturaResource {
      *
      * @param id the id of the facturaDTO to save.
      * @param facturaDTO the facturaDTO to update.
+     * @param ifMatch the entity tags the factura must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated facturaDTO,
      * or with status {@code 400 (Bad Request)} if the facturaDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the factura no longer has any of the entity tags,
      * or with status {@code 500 (Internal Server Error)} if the facturaDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/facturas/{id}")
     public ResponseEntity<FacturaDTO> updateFactura(
         @PathVariable(value = "id", required = false) final Long id,
-        @RequestBody FacturaDTO facturaDTO
+        @RequestBody FacturaDTO facturaDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Factura : {}, {}", id, facturaDTO);
         if (facturaDTO.getId() == null) {
@@ -97,11 +106,15 @@ public class FacturaResource {
         if (!facturaRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            facturaDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, facturaQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         FacturaDTO result = facturaService.save(facturaDTO);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, facturaDTO.getId().toString()))
+            .eTag(EntityTagUtil.entityTag(result.getVersion()))
             .body(result);
     }
 
@@ -110,8 +123,10 @@ public class FacturaResource {
      *
      * @param id the id of the facturaDTO to save.
      * @param facturaDTO the facturaDTO to update.
+     * @param ifMatch the entity tags the factura must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated facturaDTO,
      * or with status {@code 400 (Bad Request)} if the facturaDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the factura no longer has any of the entity tags,
      * or with status {@code 404 (Not Found)} if the facturaDTO is not found,
      * or with status {@code 500 (Internal Server Error)} if the facturaDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -119,7 +134,8 @@ public class FacturaResource {
     @PatchMapping(value = "/facturas/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<FacturaDTO> partialUpdateFactura(
         @PathVariable(value = "id", required = false) final Long id,
-        @RequestBody FacturaDTO facturaDTO
+        @RequestBody FacturaDTO facturaDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Factura partially : {}, {}", id, facturaDTO);
         if (facturaDTO.getId() == null) {
@@ -132,10 +148,13 @@ public class FacturaResource {
         if (!facturaRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            facturaDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, facturaQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         Optional<FacturaDTO> result = facturaService.partialUpdate(facturaDTO);
 
-        return ResponseUtil.wrapOrNotFound(
+        return EntityTagUtil.wrapOrNotFound(
             result,
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, facturaDTO.getId().toString())
         );
@@ -146,13 +165,45 @@ public class FacturaResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset pagination cursor, empty for the first page; when present the page is read after the cursor,
+     * without counting the facturas, and the cursor of the next page is sent in the {@code Link} header.
+     * @param count how {@code X-Total-Count} is computed: {@code exact} (the default), {@code estimated}, flagged by
+     * {@code X-Total-Count-Approximate}, or {@code none}, in which case no total is sent.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of facturas in body.
      */
     @GetMapping("/facturas")
-    public ResponseEntity<List<FacturaDTO>> getAllFacturas(FacturaCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<FacturaDTO>> getAllFacturas(
+        FacturaCriteria criteria,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CountPaginationUtil.COUNT_PARAMETER, required = false) String count
+    ) {
         log.debug("REST request to get Facturas by criteria: {}", criteria);
-        Page<FacturaDTO> page = facturaQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        if (after != null) {
+            KeysetSlice<FacturaDTO> slice = facturaQueryService.findProjectedByCriteria(criteria, KeysetPageRequest.of(after, pageable));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                slice
+            );
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.getNextCursor()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        CountMode countMode = CountPaginationUtil.countMode(count);
+        if (countMode == CountMode.NONE) {
+            Slice<FacturaDTO> slice = facturaQueryService.findProjectedSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = CountPaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.hasNext()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<FacturaDTO> page = countMode == CountMode.ESTIMATED
+            ? facturaQueryService.findProjectedByCriteriaWithEstimatedCount(criteria, pageable)
+            : facturaQueryService.findProjectedByCriteria(criteria, pageable);
+        HttpHeaders headers = CountPaginationUtil.generatePaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            countMode
+        );
+        headers.setETag(EntityTagUtil.entityTag(page.getContent(), page.getTotalElements()));
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -172,13 +223,17 @@ public class FacturaResource {
      * {@code GET  /facturas/:id} : get the "id" factura.
      *
      * @param id the id of the facturaDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the facturaDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header is answered from the version of the factura.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the facturaDTO, or with status {@code 304 (Not Modified)}, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/facturas/{id}")
-    public ResponseEntity<FacturaDTO> getFactura(@PathVariable Long id) {
+    public ResponseEntity<FacturaDTO> getFactura(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Factura : {}", id);
+        if (EntityTagUtil.checkNotModified(request, () -> facturaQueryService.findVersion(id))) {
+            return null;
+        }
         Optional<FacturaDTO> facturaDTO = facturaService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(facturaDTO);
+        return EntityTagUtil.wrapOrNotFound(facturaDTO, new HttpHeaders());
     }
 
     /**
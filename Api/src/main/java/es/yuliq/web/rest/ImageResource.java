@@ -0,0 +1,266 @@
+package es.yuliq.web.rest;
+
+import es.yuliq.repository.BannerRepository;
+import es.yuliq.repository.ImagenProjection;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.image.ImageDerivativeService;
+import es.yuliq.service.image.ImageFormat;
+import es.yuliq.service.image.ImageMediaTypes;
+import es.yuliq.service.image.ImageStore;
+import es.yuliq.service.image.ImageVariant;
+import io.undertow.servlet.spec.ServletOutputStreamImpl;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Optional;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST controller serving the images of the {@link ImageStore}.
+ * <p>
+ * The content is sent straight from the image file: through Undertow's sendfile support when the
+ * response reaches the end of the file, or {@link FileChannel#transferTo} otherwise. Responses carry a
+ * strong {@code ETag} derived from the content hash and honour {@code If-None-Match}, {@code If-Range}
+ * and single {@code Range} requests.
+ * <p>
+ * The {@link ImageVariant derivatives} of an image are served in WebP to the clients accepting it, in JPEG otherwise.
+ */
+@RestController
+@RequestMapping("/api")
+public class ImageResource {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private static final String REVALIDATE = "no-cache";
+
+    private final Logger log = LoggerFactory.getLogger(ImageResource.class);
+
+    private final ImageStore imageStore;
+
+    private final ImageDerivativeService imageDerivativeService;
+
+    private final ProductoRepository productoRepository;
+
+    private final BannerRepository bannerRepository;
+
+    public ImageResource(
+        ImageStore imageStore,
+        ImageDerivativeService imageDerivativeService,
+        ProductoRepository productoRepository,
+        BannerRepository bannerRepository
+    ) {
+        this.imageStore = imageStore;
+        this.imageDerivativeService = imageDerivativeService;
+        this.productoRepository = productoRepository;
+        this.bannerRepository = bannerRepository;
+    }
+
+    /**
+     * {@code GET  /images/:hash} : get the "hash" image.
+     * <p>
+     * The content of a hash never changes, so the response can be cached forever.
+     *
+     * @param hash the SHA-256 of the image to retrieve.
+     * @param request the HTTP request.
+     * @param response the HTTP response, with status {@code 200 (OK)}, {@code 206 (Partial Content)},
+     * {@code 304 (Not Modified)}, {@code 404 (Not Found)} or {@code 416 (Range Not Satisfiable)}.
+     * @throws IOException if the image cannot be sent.
+     */
+    @GetMapping("/images/{hash}")
+    public void getImage(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get image : {}", hash);
+        serve(hash, null, IMMUTABLE, request, response);
+    }
+
+    /**
+     * {@code GET  /images/:hash/:variant} : get the "variant" derivative of the "hash" image.
+     * <p>
+     * While the derivative is not generated yet, its generation is requested and the original image is
+     * sent instead, with a {@code no-cache} directive so that clients get the derivative once it is ready.
+     *
+     * @param hash the SHA-256 of the source image.
+     * @param variant the name of the derivative, one of {@code thumbnail}, {@code card} or {@code placeholder}.
+     * @param request the HTTP request.
+     * @param response the HTTP response.
+     * @throws IOException if the image cannot be sent.
+     */
+    @GetMapping("/images/{hash}/{variant}")
+    public void getImageVariant(
+        @PathVariable String hash,
+        @PathVariable String variant,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        log.debug("REST request to get {} of image : {}", variant, hash);
+        ImageVariant imageVariant = ImageVariant.fromName(variant).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        ImageFormat format = acceptsWebp(request) && imageDerivativeService.supports(ImageFormat.WEBP)
+            ? ImageFormat.WEBP
+            : ImageFormat.JPEG;
+        Optional<FileChannel> derivative = imageDerivativeService.open(hash, imageVariant, format);
+        if (derivative.isPresent()) {
+            String etag = "\"" + hash + "-" + imageVariant.getName() + "." + format.getExtension() + "\"";
+            serve(derivative.get(), etag, format.getMediaType(), IMMUTABLE, request, response);
+        } else {
+            imageDerivativeService.generate(hash);
+            serve(hash, null, REVALIDATE, request, response);
+        }
+    }
+
+    /**
+     * {@code GET  /productos/:id/imagen} : get the image of the "id" producto.
+     * <p>
+     * The image of a producto can change, so clients must revalidate it, which costs a {@code 304} while it is unchanged.
+     *
+     * @param id the id of the producto.
+     * @param request the HTTP request.
+     * @param response the HTTP response.
+     * @throws IOException if the image cannot be sent.
+     */
+    @GetMapping("/productos/{id}/imagen")
+    public void getProductoImagen(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get the image of Producto : {}", id);
+        ImagenProjection imagen = productoRepository
+            .findImagenById(id)
+            .filter(i -> i.getImagenHash() != null)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        serve(imagen.getImagenHash(), imagen.getImagenContentType(), REVALIDATE, request, response);
+    }
+
+    /**
+     * {@code GET  /banners/:id/imagen} : get the image of the "id" banner.
+     *
+     * @param id the id of the banner.
+     * @param request the HTTP request.
+     * @param response the HTTP response.
+     * @throws IOException if the image cannot be sent.
+     */
+    @GetMapping("/banners/{id}/imagen")
+    public void getBannerImagen(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("REST request to get the image of Banner : {}", id);
+        ImagenProjection imagen = bannerRepository
+            .findImagenById(id)
+            .filter(i -> i.getImagenHash() != null)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        serve(imagen.getImagenHash(), imagen.getImagenContentType(), REVALIDATE, request, response);
+    }
+
+    private void serve(String hash, String contentType, String cacheControl, HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+        FileChannel channel = imageStore.open(hash).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        serve(channel, "\"" + hash + "\"", contentType, cacheControl, request, response);
+    }
+
+    private void serve(
+        FileChannel channel,
+        String etag,
+        String contentType,
+        String cacheControl,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        try (channel) {
+            long size = channel.size();
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            response.setContentType(contentType != null ? contentType : ImageMediaTypes.detect(channel));
+
+            long start = 0;
+            long length = size;
+            String range = request.getHeader(HttpHeaders.RANGE);
+            String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+            List<HttpRange> ranges = range != null && (ifRange == null || ifRange.equals(etag)) ? parseRanges(range) : null;
+            // Multipart byteranges are not worth it for images: serve the whole content instead
+            if (ranges != null && ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    length = ranges.get(0).getRangeEnd(size) - start + 1;
+                } catch (IllegalArgumentException e) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + length - 1) + "/" + size);
+            }
+            response.setContentLengthLong(length);
+            transfer(channel, start, length, response);
+        }
+    }
+
+    private void transfer(FileChannel channel, long start, long length, HttpServletResponse response) throws IOException {
+        if (start + length == channel.size()) {
+            ServletResponse target = response;
+            while (target instanceof ServletResponseWrapper) {
+                target = ((ServletResponseWrapper) target).getResponse();
+            }
+            ServletOutputStream outputStream = target.getOutputStream();
+            if (outputStream instanceof ServletOutputStreamImpl) {
+                // Commit through the wrappers first, so that they write their headers
+                response.flushBuffer();
+                channel.position(start);
+                ((ServletOutputStreamImpl) outputStream).transferFrom(channel);
+                return;
+            }
+        }
+        WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, output);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    /**
+     * @return the ranges of the header, or null if it is not valid, in which case it is ignored, as RFC 7233 requires.
+     */
+    private List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring the invalid Range header {}: {}", range, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean acceptsWebp(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(ImageFormat.WEBP.getMediaType());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,31 +1,53 @@
 package es.yuliq.web.rest;
 
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.enumeration.TipoProducto;
 import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.CriteriaResultCache;
+import es.yuliq.service.KeysetPageRequest;
+import es.yuliq.service.KeysetSlice;
 import es.yuliq.service.ProductoQueryService;
 import es.yuliq.service.ProductoService;
+import es.yuliq.service.catalog.CatalogPage;
+import es.yuliq.service.catalog.CatalogService;
 import es.yuliq.service.criteria.ProductoCriteria;
 import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.dto.ProductoFacetsDTO;
+import es.yuliq.service.search.ProductoSearchService;
+import es.yuliq.service.search.ProductoSuggestService;
+import es.yuliq.service.search.SuggestionTrie;
 import es.yuliq.web.rest.errors.BadRequestAlertException;
+import es.yuliq.web.rest.util.CountPaginationUtil;
+import es.yuliq.web.rest.util.CountPaginationUtil.CountMode;
+import es.yuliq.web.rest.util.EntityTagUtil;
+import es.yuliq.web.rest.util.KeysetPaginationUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link es.yuliq.domain.Producto}.
@@ -47,14 +69,30 @@ public class ProductoResource {
 
     private final ProductoQueryService productoQueryService;
 
+    private final CatalogService catalogService;
+
+    private final CriteriaResultCache criteriaResultCache;
+
+    private final ProductoSearchService productoSearchService;
+
+    private final ProductoSuggestService productoSuggestService;
+
     public ProductoResource(
         ProductoService productoService,
         ProductoRepository productoRepository,
-        ProductoQueryService productoQueryService
+        ProductoQueryService productoQueryService,
+        CatalogService catalogService,
+        CriteriaResultCache criteriaResultCache,
+        ProductoSearchService productoSearchService,
+        ProductoSuggestService productoSuggestService
     ) {
         this.productoService = productoService;
         this.productoRepository = productoRepository;
         this.productoQueryService = productoQueryService;
+        this.catalogService = catalogService;
+        this.criteriaResultCache = criteriaResultCache;
+        this.productoSearchService = productoSearchService;
+        this.productoSuggestService = productoSuggestService;
     }
 
     /**
@@ -82,15 +120,18 @@ public class ProductoResource {
      *
      * @param id the id of the productoDTO to save.
      * @param productoDTO the productoDTO to update.
+     * @param ifMatch the entity tags the producto must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated productoDTO,
      * or with status {@code 400 (Bad Request)} if the productoDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the producto no longer has any of the entity tags,
      * or with status {@code 500 (Internal Server Error)} if the productoDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/productos/{id}")
     public ResponseEntity<ProductoDTO> updateProducto(
         @PathVariable(value = "id", required = false) final Long id,
-        @Valid @RequestBody ProductoDTO productoDTO
+        @Valid @RequestBody ProductoDTO productoDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to update Producto : {}, {}", id, productoDTO);
         if (productoDTO.getId() == null) {
@@ -103,11 +144,15 @@ public class ProductoResource {
         if (!productoRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            productoDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, productoQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         ProductoDTO result = productoService.save(productoDTO);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, productoDTO.getId().toString()))
+            .eTag(EntityTagUtil.entityTag(result.getVersion()))
             .body(result);
     }
 
@@ -116,8 +161,10 @@ public class ProductoResource {
      *
      * @param id the id of the productoDTO to save.
      * @param productoDTO the productoDTO to update.
+     * @param ifMatch the entity tags the producto must still have, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated productoDTO,
      * or with status {@code 400 (Bad Request)} if the productoDTO is not valid,
+     * or with status {@code 412 (Precondition Failed)} if the producto no longer has any of the entity tags,
      * or with status {@code 404 (Not Found)} if the productoDTO is not found,
      * or with status {@code 500 (Internal Server Error)} if the productoDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -125,7 +172,8 @@ public class ProductoResource {
     @PatchMapping(value = "/productos/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<ProductoDTO> partialUpdateProducto(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody ProductoDTO productoDTO
+        @NotNull @RequestBody ProductoDTO productoDTO,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) throws URISyntaxException {
         log.debug("REST request to partial update Producto partially : {}, {}", id, productoDTO);
         if (productoDTO.getId() == null) {
@@ -138,10 +186,13 @@ public class ProductoResource {
         if (!productoRepository.existsById(id)) {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
+        if (ifMatch != null) {
+            productoDTO.setVersion(EntityTagUtil.checkIfMatch(ifMatch, productoQueryService.findVersion(id), ENTITY_NAME));
+        }
 
         Optional<ProductoDTO> result = productoService.partialUpdate(productoDTO);
 
-        return ResponseUtil.wrapOrNotFound(
+        return EntityTagUtil.wrapOrNotFound(
             result,
             HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, productoDTO.getId().toString())
         );
@@ -152,16 +203,146 @@ public class ProductoResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productos in body.
+     * @param after the keyset pagination cursor, empty for the first page; when present the page is read after the cursor,
+     * without counting the productos, and the cursor of the next page is sent in the {@code Link} header.
+     * @param count how {@code X-Total-Count} is computed: {@code exact} (the default), {@code estimated}, flagged by
+     * {@code X-Total-Count-Approximate}, or {@code none}, in which case no total is sent.
+     * @param acceptEncoding the encodings accepted by the client, for the pages served from the catalog.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productos in body; a page of
+     * all the productos in id order, with the exact count, is served from the in-memory snapshot of the catalog.
      */
     @GetMapping("/productos")
-    public ResponseEntity<List<ProductoDTO>> getAllProductos(ProductoCriteria criteria, Pageable pageable) {
+    public ResponseEntity<?> getAllProductos(
+        ProductoCriteria criteria,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(name = CountPaginationUtil.COUNT_PARAMETER, required = false) String count,
+        @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
         log.debug("REST request to get Productos by criteria: {}", criteria);
-        Page<ProductoDTO> page = productoQueryService.findByCriteria(criteria, pageable);
+        if (after == null && count == null && isCatalogOrder(pageable) && criteria.equals(new ProductoCriteria())) {
+            return catalogPage(null, pageable, acceptEncoding);
+        }
+        if (after != null) {
+            KeysetSlice<ProductoDTO> slice = productoQueryService.findProjectedByCriteria(criteria, KeysetPageRequest.of(after, pageable));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                slice
+            );
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.getNextCursor()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        CountMode countMode = CountPaginationUtil.countMode(count);
+        if (countMode == CountMode.NONE) {
+            Slice<ProductoDTO> slice = criteriaResultCache.get(
+                dependencies(criteria),
+                "productos.slice",
+                criteria,
+                pageable,
+                () -> productoQueryService.findProjectedSliceByCriteria(criteria, pageable)
+            );
+            HttpHeaders headers = CountPaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            headers.setETag(EntityTagUtil.entityTag(slice.getContent(), slice.hasNext()));
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<ProductoDTO> page = countMode == CountMode.ESTIMATED
+            ? criteriaResultCache.get(
+                dependencies(criteria),
+                "productos.estimatedPage",
+                criteria,
+                pageable,
+                () -> productoQueryService.findProjectedByCriteriaWithEstimatedCount(criteria, pageable)
+            )
+            : criteriaResultCache.get(
+                dependencies(criteria),
+                "productos.page",
+                criteria,
+                pageable,
+                () -> productoQueryService.findProjectedByCriteria(criteria, pageable)
+            );
+        HttpHeaders headers = CountPaginationUtil.generatePaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            page,
+            countMode
+        );
+        headers.setETag(EntityTagUtil.entityTag(page.getContent(), page.getTotalElements()));
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /productos/_catalog} : get a page of the catalog, in id order, from its in-memory snapshot.
+     *
+     * @param tipoproducto the type of the productos to include, all of them if absent.
+     * @param pageable the page number and size; any sort is ignored.
+     * @param acceptEncoding the encodings accepted by the client; pages of the default size are sent gzipped when accepted.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productos in body.
+     */
+    @GetMapping(value = "/productos/_catalog", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCatalog(
+        @RequestParam(required = false) TipoProducto tipoproducto,
+        Pageable pageable,
+        @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        log.debug("REST request to get a page of the catalog of Productos: {}, {}", tipoproducto, pageable);
+        return catalogPage(tipoproducto, pageable, acceptEncoding);
+    }
+
+    private ResponseEntity<byte[]> catalogPage(TipoProducto tipoproducto, Pageable pageable, String acceptEncoding) {
+        CatalogPage page = catalogService.getPage(tipoproducto, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            new PageImpl<>(Collections.emptyList(), pageable, page.getTotalElements())
+        );
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (page.getGzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_JSON).body(page.getGzip());
+        }
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_JSON).body(page.getJson());
+    }
+
+    /**
+     * @return whether the page is in the order of the catalog, by id, be it asked for or not.
+     */
+    private static boolean isCatalogOrder(Pageable pageable) {
+        return pageable.getSort().isUnsorted() || pageable.getSort().equals(Sort.by("id"));
+    }
+
+    /**
+     * {@code GET  /productos/_search?q=} : search the productos by name and type, with typo tolerance.
+     *
+     * @param q the text to search.
+     * @param pageable the pagination information; the productos are ranked by relevance, so any sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productos in body.
+     */
+    @GetMapping("/productos/_search")
+    public ResponseEntity<List<ProductoDTO>> searchProductos(@RequestParam String q, Pageable pageable) {
+        log.debug("REST request to search Productos for query {}", q);
+        Page<ProductoDTO> page = productoSearchService.search(q, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /productos/_suggest?prefix=} : suggest the names of the productos having a word starting with the prefix.
+     *
+     * @param prefix the prefix, ignoring case and accents.
+     * @param size the number of names wanted, at most {@value SuggestionTrie#MAX_SUGGESTIONS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the names in body, the most sold first, or
+     * with status {@code 400 (Bad Request)} if the size is not greater than zero.
+     */
+    @GetMapping("/productos/_suggest")
+    public ResponseEntity<List<String>> suggestProductos(
+        @RequestParam String prefix,
+        @RequestParam(defaultValue = "" + SuggestionTrie.MAX_SUGGESTIONS) int size
+    ) {
+        log.debug("REST request to suggest Productos for prefix {}", prefix);
+        if (size < 1) {
+            throw new BadRequestAlertException("Invalid number of suggestions", ENTITY_NAME, "sizeinvalid");
+        }
+        return ResponseEntity.ok().body(productoSuggestService.suggest(prefix, size));
+    }
+
     /**
      * {@code GET  /productos/count} : count all the productos.
      *
@@ -171,20 +352,60 @@ public class ProductoResource {
     @GetMapping("/productos/count")
     public ResponseEntity<Long> countProductos(ProductoCriteria criteria) {
         log.debug("REST request to count Productos by criteria: {}", criteria);
-        return ResponseEntity.ok().body(productoQueryService.countByCriteria(criteria));
+        Long count = criteriaResultCache.get(
+            dependencies(criteria),
+            "productos.count",
+            criteria,
+            null,
+            () -> productoQueryService.countByCriteria(criteria)
+        );
+        return ResponseEntity.ok().body(count);
+    }
+
+    /**
+     * {@code GET  /productos/_facets} : get the facets of the productos, to draw the filters of the catalog in one request.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param precioInterval the width of the buckets of the histogram of precio.
+     * @param caloriasInterval the width of the buckets of the histogram of calorias.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the facets in body, or with status
+     * {@code 400 (Bad Request)} if an interval is not greater than zero.
+     */
+    @GetMapping("/productos/_facets")
+    public ResponseEntity<ProductoFacetsDTO> getProductoFacets(
+        ProductoCriteria criteria,
+        @RequestParam(defaultValue = "5") double precioInterval,
+        @RequestParam(defaultValue = "100") double caloriasInterval
+    ) {
+        log.debug("REST request to get Producto facets by criteria: {}", criteria);
+        if (!(precioInterval > 0) || !(caloriasInterval > 0)) {
+            throw new BadRequestAlertException("Invalid histogram interval", ENTITY_NAME, "intervalinvalid");
+        }
+        ProductoFacetsDTO facets = criteriaResultCache.get(
+            dependencies(criteria),
+            "productos.facets:" + precioInterval + ":" + caloriasInterval,
+            criteria,
+            null,
+            () -> productoQueryService.findFacetsByCriteria(criteria, precioInterval, caloriasInterval)
+        );
+        return ResponseEntity.ok().body(facets);
     }
 
     /**
      * {@code GET  /productos/:id} : get the "id" producto.
      *
      * @param id the id of the productoDTO to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productoDTO, or with status {@code 404 (Not Found)}.
+     * @param request the request, whose {@code If-None-Match} header is answered from the version of the producto.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productoDTO, or with status {@code 304 (Not Modified)}, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/productos/{id}")
-    public ResponseEntity<ProductoDTO> getProducto(@PathVariable Long id) {
+    public ResponseEntity<ProductoDTO> getProducto(@PathVariable Long id, WebRequest request) {
         log.debug("REST request to get Producto : {}", id);
+        if (EntityTagUtil.checkNotModified(request, () -> productoQueryService.findVersion(id))) {
+            return null;
+        }
         Optional<ProductoDTO> productoDTO = productoService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(productoDTO);
+        return EntityTagUtil.wrapOrNotFound(productoDTO, new HttpHeaders());
     }
 
     /**
@@ -202,4 +423,12 @@ public class ProductoResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    /**
+     * The entity types whose changes affect the result of a criteria query: the productos of a carrito
+     * are also changed through the carrito, which owns the relationship.
+     */
+    private static Set<Class<?>> dependencies(ProductoCriteria criteria) {
+        return criteria != null && criteria.getCarritoId() != null ? Set.of(Producto.class, Carrito.class) : Set.of(Producto.class);
+    }
 }
@@ -1,8 +1,11 @@
 package es.yuliq.web.rest;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import es.yuliq.security.CartTokenProvider;
 import es.yuliq.security.jwt.JWTFilter;
 import es.yuliq.security.jwt.TokenProvider;
+import es.yuliq.service.CarritoItemService;
+import es.yuliq.web.rest.util.CartTokenUtil;
 import es.yuliq.web.rest.vm.LoginVM;
 import javax.validation.Valid;
 import org.springframework.http.HttpHeaders;
@@ -25,13 +28,37 @@ public class UserJWTController {
 
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder) {
+    private final CartTokenProvider cartTokenProvider;
+
+    private final CarritoItemService carritoItemService;
+
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        AuthenticationManagerBuilder authenticationManagerBuilder,
+        CartTokenProvider cartTokenProvider,
+        CarritoItemService carritoItemService
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
+        this.cartTokenProvider = cartTokenProvider;
+        this.carritoItemService = carritoItemService;
     }
 
+    /**
+     * {@code POST  /authenticate} : authenticate a user, merging the cart token they got while anonymous, if any, into
+     * their carrito.
+     *
+     * @param loginVM the login and password of the user.
+     * @param cartHeader the cart token in the {@code X-Cart-Token} header, if any.
+     * @param cartCookie the cart token in the {@code cart-token} cookie, if any.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the JWT in body.
+     */
     @PostMapping("/authenticate")
-    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM) {
+    public ResponseEntity<JWTToken> authorize(
+        @Valid @RequestBody LoginVM loginVM,
+        @RequestHeader(name = CartTokenProvider.HEADER, required = false) String cartHeader,
+        @CookieValue(name = CartTokenProvider.COOKIE, required = false) String cartCookie
+    ) {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
             loginVM.getUsername(),
             loginVM.getPassword()
@@ -42,6 +69,14 @@ public class UserJWTController {
         String jwt = tokenProvider.createToken(authentication, loginVM.isRememberMe());
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
+        String cartToken = CartTokenUtil.resolveToken(cartHeader, cartCookie);
+        if (cartToken != null) {
+            cartTokenProvider
+                .parseToken(cartToken)
+                .filter(items -> !items.isEmpty())
+                .ifPresent(items -> carritoItemService.mergeItems(authentication.getName(), items));
+            httpHeaders.addAll(CartTokenUtil.clearTokenHeaders());
+        }
         return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
     }
 
@@ -1,5 +1,8 @@
 package es.yuliq.web.rest.errors;
 
+import es.yuliq.service.EmptyCarritoException;
+import es.yuliq.service.InvalidCursorException;
+import es.yuliq.service.OutOfStockException;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
@@ -147,6 +150,21 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidCursorException(InvalidCursorException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "pagination", "invalidcursor"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleEmptyCarritoException(EmptyCarritoException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "checkout", "emptycarrito"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleOutOfStockException(OutOfStockException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "checkout", "outofstock"), request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(
@@ -156,6 +174,15 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePreconditionFailedAlertException(PreconditionFailedAlertException ex, NativeWebRequest request) {
+        return create(
+            ex,
+            request,
+            HeaderUtil.createFailureAlert(applicationName, true, ex.getEntityName(), ex.getErrorKey(), ex.getMessage())
+        );
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleConcurrencyFailure(ConcurrencyFailureException ex, NativeWebRequest request) {
         Problem problem = Problem.builder().withStatus(Status.CONFLICT).with(MESSAGE_KEY, ErrorConstants.ERR_CONCURRENCY_FAILURE).build();
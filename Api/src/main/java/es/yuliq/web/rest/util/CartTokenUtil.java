@@ -0,0 +1,51 @@
+package es.yuliq.web.rest.util;
+
+import es.yuliq.security.CartTokenProvider;
+import java.time.Duration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+
+/**
+ * Utility class for carrying the cart token of an anonymous visitor, which is read from the {@code X-Cart-Token}
+ * header, or else from the {@code cart-token} cookie, and sent back in both.
+ */
+public final class CartTokenUtil {
+
+    private static final String COOKIE_PATH = "/api";
+
+    private CartTokenUtil() {}
+
+    /**
+     * @param header the value of the {@code X-Cart-Token} header, may be null.
+     * @param cookie the value of the {@code cart-token} cookie, may be null.
+     * @return the token the visitor sent, or null.
+     */
+    public static String resolveToken(String header, String cookie) {
+        return header != null && !header.isEmpty() ? header : cookie;
+    }
+
+    /**
+     * @param token the new token of the cart.
+     * @param maxAge how long the browser keeps the cookie.
+     * @return the headers sending the token in the {@code X-Cart-Token} header and the {@code cart-token} cookie.
+     */
+    public static HttpHeaders tokenHeaders(String token, Duration maxAge) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(CartTokenProvider.HEADER, token);
+        headers.add(HttpHeaders.SET_COOKIE, cookie(token, maxAge).toString());
+        return headers;
+    }
+
+    /**
+     * @return the headers deleting the {@code cart-token} cookie, once the cart is merged into a carrito.
+     */
+    public static HttpHeaders clearTokenHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.SET_COOKIE, cookie("", Duration.ZERO).toString());
+        return headers;
+    }
+
+    private static ResponseCookie cookie(String token, Duration maxAge) {
+        return ResponseCookie.from(CartTokenProvider.COOKIE, token).path(COOKIE_PATH).httpOnly(true).sameSite("Lax").maxAge(maxAge).build();
+    }
+}
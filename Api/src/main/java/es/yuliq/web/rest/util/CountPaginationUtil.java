@@ -0,0 +1,112 @@
+package es.yuliq.web.rest.util;
+
+import es.yuliq.web.rest.errors.BadRequestAlertException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * Utility class for handling the count modes of the offset pagination.
+ * <p>
+ * The {@code count} request parameter chooses how {@code X-Total-Count} is computed:
+ * <ul>
+ *     <li>{@code exact}, the default: with a count query, as {@link PaginationUtil} does.</li>
+ *     <li>{@code estimated}: from a cached or planner estimate, flagged by {@code X-Total-Count-Approximate: true}.</li>
+ *     <li>{@code none}: not at all, the links only tell whether there is a next page.</li>
+ * </ul>
+ */
+public final class CountPaginationUtil {
+
+    public static final String COUNT_PARAMETER = "count";
+
+    public static final String APPROXIMATE_TOTAL_COUNT_HEADER = "X-Total-Count-Approximate";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    /**
+     * How the total number of entities is computed.
+     */
+    public enum CountMode {
+        EXACT,
+        ESTIMATED,
+        NONE,
+    }
+
+    private CountPaginationUtil() {}
+
+    /**
+     * Parse the {@code count} request parameter.
+     *
+     * @param count the value of the parameter, may be null.
+     * @return the count mode, {@link CountMode#EXACT} if none is given.
+     * @throws BadRequestAlertException if the value is not a count mode.
+     */
+    public static CountMode countMode(String count) {
+        if (count == null || count.isEmpty()) {
+            return CountMode.EXACT;
+        }
+        try {
+            return CountMode.valueOf(count.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Unknown count mode " + count, "pagination", "invalidcount");
+        }
+    }
+
+    /**
+     * Generate the pagination headers of a page.
+     *
+     * @param uriBuilder the builder of the URI of the current request.
+     * @param page the page.
+     * @param countMode how the total of the page was computed.
+     * @param <T> the type of the page content.
+     * @return the headers of {@link PaginationUtil}, flagged as approximate for an estimated count.
+     */
+    public static <T> HttpHeaders generatePaginationHttpHeaders(UriComponentsBuilder uriBuilder, Page<T> page, CountMode countMode) {
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(uriBuilder, page);
+        if (countMode == CountMode.ESTIMATED) {
+            headers.add(APPROXIMATE_TOTAL_COUNT_HEADER, Boolean.TRUE.toString());
+        }
+        return headers;
+    }
+
+    /**
+     * Generate the pagination headers of a slice, which has no total count.
+     *
+     * @param uriBuilder the builder of the URI of the current request.
+     * @param slice the slice.
+     * @param <T> the type of the slice content.
+     * @return the {@code Link} header to the next, previous and first pages.
+     */
+    public static <T> HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        List<String> links = new ArrayList<>();
+        if (slice.hasNext()) {
+            links.add(link(uriBuilder, slice.nextPageable(), "next"));
+        }
+        if (slice.hasPrevious()) {
+            links.add(link(uriBuilder, slice.previousPageable(), "prev"));
+            links.add(link(uriBuilder, slice.getPageable().first(), "first"));
+        }
+        if (!links.isEmpty()) {
+            headers.add(HttpHeaders.LINK, String.join(",", links));
+        }
+        return headers;
+    }
+
+    private static String link(UriComponentsBuilder uriBuilder, Pageable pageable, String relType) {
+        String uri = uriBuilder
+            .replaceQueryParam("page", pageable.getPageNumber())
+            .replaceQueryParam("size", pageable.getPageSize())
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+        return MessageFormat.format(HEADER_LINK_FORMAT, uri, relType);
+    }
+}
@@ -0,0 +1,137 @@
+package es.yuliq.web.rest.util;
+
+import es.yuliq.service.dto.VersionedDTO;
+import es.yuliq.web.rest.errors.PreconditionFailedAlertException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * Utility class for the entity tags of the REST resources, which are built from the versions of the entities.
+ * <p>
+ * A {@code GET} of an entity is answered with {@code 304 (Not Modified)} from its version alone, before the
+ * entity is read. The tag of a list is only known once the page is read, but Spring still answers a matching
+ * {@code If-None-Match} without serializing the body. Updates may send {@code If-Match} to only apply to the
+ * version the client has, or, for the ones merged with the changes made since, to tell the version they were made on.
+ */
+public final class EntityTagUtil {
+
+    private static final String ANY = "*";
+
+    private EntityTagUtil() {}
+
+    /**
+     * @param version the version of an entity.
+     * @return the strong entity tag of the version.
+     */
+    public static String entityTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Build the entity tag of a list from the id and version of each entity, in order. The highest version of the
+     * page would not be enough, as it does not change when an entity is deleted or moves to another page.
+     *
+     * @param content the entities of the list.
+     * @param pagination what the pagination headers tell beyond the content: the total count of a page, whether a
+     * slice has a next one or the cursor of the next page.
+     * @return the strong entity tag of the list.
+     */
+    public static String entityTag(List<? extends VersionedDTO> content, Object pagination) {
+        StringBuilder versions = new StringBuilder();
+        for (VersionedDTO dto : content) {
+            versions.append(dto.getId()).append(':').append(dto.getVersion()).append(',');
+        }
+        versions.append(pagination);
+        return "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Check the {@code If-None-Match} header of a {@code GET} of an entity against its current version only.
+     *
+     * @param request the request.
+     * @param currentVersion the query of the current version, only run when the header is present.
+     * @return whether the response was set to {@code 304 (Not Modified)}, in which case the handler must return null.
+     */
+    public static boolean checkNotModified(WebRequest request, Supplier<Optional<Long>> currentVersion) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        return currentVersion.get().map(version -> request.checkNotModified(entityTag(version))).orElse(false);
+    }
+
+    /**
+     * Check the {@code If-Match} header of an update, with the strong comparison: weak tags never match.
+     *
+     * @param ifMatch the value of the header.
+     * @param currentVersion the current version of the entity, empty if it does not exist.
+     * @param entityName the name of the entity, for the error.
+     * @return the current version, which the update must apply to.
+     * @throws PreconditionFailedAlertException if the header does not match the current version.
+     */
+    public static long checkIfMatch(String ifMatch, Optional<Long> currentVersion, String entityName) {
+        if (currentVersion.isPresent()) {
+            String current = entityTag(currentVersion.get());
+            for (String tag : ifMatch.split(",")) {
+                String trimmed = tag.trim();
+                if (ANY.equals(trimmed) || current.equals(trimmed)) {
+                    return currentVersion.get();
+                }
+            }
+        }
+        throw new PreconditionFailedAlertException("The entity was modified", entityName, "versionmismatch");
+    }
+
+    /**
+     * Read the version an update was made on from its {@code If-Match} header, for the updates that are merged with
+     * the changes made since that version instead of failing.
+     *
+     * @param ifMatch the value of the header, if any.
+     * @param entityName the name of the entity, for the error.
+     * @return the newest version of the strong tags, null if the header is absent or {@code *}.
+     * @throws PreconditionFailedAlertException if none of the tags is the one of a version.
+     */
+    public static Long baseVersion(String ifMatch, String entityName) {
+        if (ifMatch == null) {
+            return null;
+        }
+        Long newest = null;
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (ANY.equals(trimmed)) {
+                return null;
+            }
+            if (trimmed.length() > 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+                try {
+                    long version = Long.parseLong(trimmed.substring(1, trimmed.length() - 1));
+                    newest = newest == null ? version : Math.max(newest, version);
+                } catch (NumberFormatException e) {
+                    // The tag of a list, or of another server
+                }
+            }
+        }
+        if (newest == null) {
+            throw new PreconditionFailedAlertException("The entity was modified", entityName, "versionmismatch");
+        }
+        return newest;
+    }
+
+    /**
+     * Wrap the optional into a {@link ResponseEntity} with the entity tag of its version, or a {@code 404 (Not Found)}.
+     *
+     * @param maybeResponse the response to return if present.
+     * @param header the headers to add to the response.
+     * @param <X> the type of the response.
+     * @return the response.
+     */
+    public static <X extends VersionedDTO> ResponseEntity<X> wrapOrNotFound(Optional<X> maybeResponse, HttpHeaders header) {
+        maybeResponse.ifPresent(response -> header.setETag(entityTag(response.getVersion())));
+        return ResponseUtil.wrapOrNotFound(maybeResponse, header);
+    }
+}
@@ -0,0 +1,39 @@
+package es.yuliq.web.rest.util;
+
+import es.yuliq.service.KeysetSlice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset pagination.
+ * <p>
+ * Unlike {@link tech.jhipster.web.util.PaginationUtil}, no total count is sent: the only link is the
+ * one to the next page, as in <a href="https://tools.ietf.org/html/rfc8288">RFC 8288</a>.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Generate the pagination headers of a keyset slice.
+     *
+     * @param uriBuilder the builder of the URI of the current request.
+     * @param slice the slice.
+     * @param <T> the type of the slice content.
+     * @return the {@code Link} header to the next page, if any.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, KeysetSlice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext()) {
+            String next = uriBuilder
+                .replaceQueryParam(AFTER_PARAMETER, slice.getNextCursor())
+                .replaceQueryParam("size", slice.getSize())
+                .replaceQueryParam("page")
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return headers;
+    }
+}
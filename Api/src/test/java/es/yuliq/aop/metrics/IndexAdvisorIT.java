@@ -0,0 +1,52 @@
+package es.yuliq.aop.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.service.ProductoQueryService;
+import es.yuliq.service.criteria.ProductoCriteria;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.filter.StringFilter;
+
+@IntegrationTest
+@Transactional
+class IndexAdvisorIT {
+
+    private static final String CONTAINS_SHAPE = "Producto.findProjectedByCriteria(nombreProducto.contains)";
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+    @Autowired
+    private ProductoQueryService productoQueryService;
+
+    @Test
+    void filtersWithoutIndexAreReported() {
+        StringFilter nombreProducto = new StringFilter();
+        nombreProducto.setContains("tarta");
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setNombreProducto(nombreProducto);
+
+        productoQueryService.findProjectedByCriteria(criteria, PageRequest.of(0, 20));
+
+        assertThat(indexAdvisor.getShapes()).contains(CONTAINS_SHAPE);
+        // A contains is a like with a leading wildcard, which no index serves
+        assertThat(indexAdvisor.advise())
+            .anySatisfy(
+                advice -> {
+                    assertThat(advice.getShape()).isEqualTo(CONTAINS_SHAPE);
+                    assertThat(advice.getTable()).isEqualTo("producto");
+                }
+            );
+    }
+
+    @Test
+    void unfilteredQueriesAreNotRecorded() {
+        productoQueryService.findProjectedByCriteria(new ProductoCriteria(), PageRequest.of(0, 20));
+
+        assertThat(indexAdvisor.getShapes()).noneMatch(shape -> shape.endsWith("(none)"));
+    }
+}
@@ -0,0 +1,49 @@
+package es.yuliq.aop.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class IndexAdvisorTest {
+
+    @Test
+    void h2TableScansAndUnconditionedIndexesAreScans() {
+        String plan =
+            "SELECT \"PRODUCTO0_\".\"ID\" AS \"ID1_4_\"\n" +
+            "FROM \"PUBLIC\".\"PRODUCTO\" \"PRODUCTO0_\"\n" +
+            "    /* PUBLIC.PRODUCTO.tableScan */\n" +
+            "LEFT OUTER JOIN \"PUBLIC\".\"COMPRA\" \"COMPRA1_\"\n" +
+            "    /* PUBLIC.PRIMARY_KEY_7: \"ID\" = \"PRODUCTO0_\".\"COMPRA_ID\" */\n" +
+            "    ON \"PRODUCTO0_\".\"COMPRA_ID\" = \"COMPRA1_\".\"ID\"\n" +
+            "INNER JOIN \"PUBLIC\".\"FACTURA\" \"FACTURA2_\"\n" +
+            "    /* PUBLIC.PRIMARY_KEY_D */\n" +
+            "    ON 1=1\n" +
+            "WHERE LOWER(\"PRODUCTO0_\".\"NOMBRE_PRODUCTO\") LIKE ?1";
+
+        assertThat(IndexAdvisor.scannedTables(plan, false)).containsExactly("producto", "factura");
+    }
+
+    @Test
+    void h2IndexLookupsAreNotScans() {
+        String plan =
+            "SELECT \"PRODUCTO0_\".\"ID\" AS \"ID1_4_\"\n" +
+            "FROM \"PUBLIC\".\"PRODUCTO\" \"PRODUCTO0_\"\n" +
+            "    /* PUBLIC.IDX_PRODUCTO__TIPOPRODUCTO_PRECIO: \"TIPOPRODUCTO\" = ?1 */\n" +
+            "WHERE \"PRODUCTO0_\".\"TIPOPRODUCTO\" = ?1";
+
+        assertThat(IndexAdvisor.scannedTables(plan, false)).isEmpty();
+    }
+
+    @Test
+    void postgresqlSequentialScansAreScans() {
+        String plan =
+            "Limit  (cost=0.00..1.10 rows=20 width=100)\n" +
+            "  ->  Nested Loop  (cost=0.00..10.00 rows=5 width=100)\n" +
+            "        ->  Seq Scan on producto producto0_  (cost=0.00..5.00 rows=5 width=100)\n" +
+            "              Filter: (lower((nombre_producto)::text) ~~ $1)\n" +
+            "        ->  Index Scan using compra_pkey on compra compra1_  (cost=0.15..1.00 rows=1 width=8)\n" +
+            "              Index Cond: (id = producto0_.compra_id)\n";
+
+        assertThat(IndexAdvisor.scannedTables(plan, true)).containsExactly("producto");
+    }
+}
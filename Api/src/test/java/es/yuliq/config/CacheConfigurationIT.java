@@ -0,0 +1,96 @@
+package es.yuliq.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Authority;
+import es.yuliq.domain.Producto;
+import es.yuliq.repository.AuthorityRepository;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.security.AuthoritiesConstants;
+import es.yuliq.service.ProductoService;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.mapper.ProductoMapper;
+import es.yuliq.web.rest.ProductoResourceIT;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the Hibernate second-level cache regions of {@link CacheConfiguration}.
+ * <p>
+ * Not transactional, so that each service call has its own persistence context and goes through the cache.
+ */
+@IntegrationTest
+class CacheConfigurationIT {
+
+    private static final String UPDATED_NOMBRE_PRODUCTO = "BBBBBBBBBB";
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoMapper productoMapper;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long productoId;
+
+    @AfterEach
+    public void cleanup() {
+        if (productoId != null && productoRepository.existsById(productoId)) {
+            productoRepository.deleteById(productoId);
+        }
+    }
+
+    @Test
+    void productoIsCachedAndInvalidatedByTheService() {
+        ProductoDTO saved = productoService.save(productoMapper.toDto(ProductoResourceIT.createEntity(em)));
+        productoId = saved.getId();
+        assertThat(productoService.findOne(productoId)).isPresent();
+        assertThat(entityManagerFactory.getCache().contains(Producto.class, productoId)).isTrue();
+
+        double hits = hits(Producto.class.getName());
+        assertThat(productoService.findOne(productoId)).isPresent();
+        assertThat(hits(Producto.class.getName())).isGreaterThan(hits);
+
+        ProductoDTO update = new ProductoDTO();
+        update.setId(productoId);
+        update.setNombreProducto(UPDATED_NOMBRE_PRODUCTO);
+        productoService.partialUpdate(update);
+        assertThat(productoService.findOne(productoId)).map(ProductoDTO::getNombreProducto).contains(UPDATED_NOMBRE_PRODUCTO);
+
+        productoService.delete(productoId);
+        assertThat(entityManagerFactory.getCache().contains(Producto.class, productoId)).isFalse();
+        assertThat(productoService.findOne(productoId)).isEmpty();
+    }
+
+    @Test
+    void authorityIsCached() {
+        assertThat(authorityRepository.findById(AuthoritiesConstants.USER)).isPresent();
+        assertThat(entityManagerFactory.getCache().contains(Authority.class, AuthoritiesConstants.USER)).isTrue();
+    }
+
+    private double hits(String cacheName) {
+        FunctionCounter counter = meterRegistry.find("cache.gets").tags("cache", cacheName, "result", "hit").functionCounter();
+        assertThat(counter).isNotNull();
+        return counter.count();
+    }
+}
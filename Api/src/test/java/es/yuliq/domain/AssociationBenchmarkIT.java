@@ -0,0 +1,215 @@
+package es.yuliq.domain;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.web.rest.CarritoResourceIT;
+import es.yuliq.web.rest.CompraResourceIT;
+import es.yuliq.web.rest.FacturaResourceIT;
+import es.yuliq.web.rest.ProductoResourceIT;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.collection.internal.PersistentSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * JMH benchmark of the associations of the entities read by Hibernate, with carritos and facturas of 10000 items held
+ * in the {@link PersistentSet}s of a session.
+ * <p>
+ * Not transactional: the data is committed, read by the benchmark in a session of its own, then deleted. The benchmark
+ * runs in the JVM of the test, to share its database.
+ * <p>
+ * Run it with {@code ./gradlew integrationTest --tests '*AssociationBenchmarkIT' -Pbenchmark}.
+ */
+@IntegrationTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class AssociationBenchmarkIT {
+
+    private static final int ITEMS = 10000;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private static Long filledCarritoId;
+
+    private static Long emptyCarritoId;
+
+    private static Long filledFacturaId;
+
+    private static Long emptyFacturaId;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void initDatabase() {
+        entityManagerFactory = em.getEntityManagerFactory();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                Carrito filledCarrito = CarritoResourceIT.createEntity(em);
+                Factura filledFactura = FacturaResourceIT.createEntity(em);
+                em.persist(filledFactura);
+                for (int i = 0; i < ITEMS; i++) {
+                    Producto producto = ProductoResourceIT.createEntity(em);
+                    em.persist(producto);
+                    filledCarrito.getProductos().add(producto);
+                    em.persist(CompraResourceIT.createEntity(em).factura(filledFactura));
+                }
+                em.persist(filledCarrito);
+                Carrito emptyCarrito = CarritoResourceIT.createEntity(em);
+                em.persist(emptyCarrito);
+                Factura emptyFactura = FacturaResourceIT.createEntity(em);
+                em.persist(emptyFactura);
+                filledCarritoId = filledCarrito.getId();
+                emptyCarritoId = emptyCarrito.getId();
+                filledFacturaId = filledFactura.getId();
+                emptyFacturaId = emptyFactura.getId();
+            }
+        );
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                String productos = "select producto_id from rel_carrito__producto where carrito_id = ?";
+                List<Long> productoIds = jdbcTemplate.queryForList(productos, Long.class, filledCarritoId);
+                jdbcTemplate.update("delete from rel_carrito__producto where carrito_id = ?", filledCarritoId);
+                productoIds.forEach(productoId -> jdbcTemplate.update("delete from producto where id = ?", productoId));
+                jdbcTemplate.update("delete from carrito where id in (?, ?)", filledCarritoId, emptyCarritoId);
+                jdbcTemplate.update("delete from compra where factura_id = ?", filledFacturaId);
+                jdbcTemplate.update("delete from factura where id in (?, ?)", filledFacturaId, emptyFacturaId);
+            }
+        );
+        // Nothing read before the deletes is left in the second level cache
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void benchmark() throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(Benchmarks.class.getName() + "\\.")
+                .forks(0)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .build()
+        )
+            .run();
+    }
+
+    /**
+     * The benchmarks, on the entities of a session which is never flushed: they leave the associations as they found
+     * them.
+     */
+    @State(Scope.Thread)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public static class Benchmarks {
+
+        private EntityManager entityManager;
+
+        private Carrito filledCarrito;
+
+        private Carrito emptyCarrito;
+
+        private List<Producto> productos;
+
+        private Factura emptyFactura;
+
+        private List<Compra> compras;
+
+        @Setup
+        public void setUp() {
+            entityManager = entityManagerFactory.createEntityManager();
+            String carrito = "select carrito from Carrito carrito left join fetch carrito.productos where carrito.id = :id";
+            filledCarrito = entityManager.createQuery(carrito, Carrito.class).setParameter("id", filledCarritoId).getSingleResult();
+            // With their carritos, so that adding to them does not query them one by one
+            productos =
+                entityManager
+                    .createQuery(
+                        "select distinct producto from Carrito carrito join carrito.productos producto " +
+                        "left join fetch producto.carritos where carrito.id = :id",
+                        Producto.class
+                    )
+                    .setParameter("id", filledCarritoId)
+                    .getResultList();
+            emptyCarrito = entityManager.find(Carrito.class, emptyCarritoId);
+            Hibernate.initialize(emptyCarrito.getProductos());
+            compras =
+                entityManager
+                    .createQuery("select compra from Compra compra where compra.factura.id = :id", Compra.class)
+                    .setParameter("id", filledFacturaId)
+                    .getResultList();
+            emptyFactura = entityManager.find(Factura.class, emptyFacturaId);
+            Hibernate.initialize(emptyFactura.getCompras());
+        }
+
+        @TearDown
+        public void tearDown() {
+            entityManager.close();
+        }
+
+        /**
+         * Fill a carrito, then empty it, so that the productos are left as they were.
+         */
+        @Benchmark
+        public int fillAndEmptyCarrito() {
+            productos.forEach(emptyCarrito::addProducto);
+            int size = emptyCarrito.getProductos().size();
+            productos.forEach(emptyCarrito::removeProducto);
+            return size;
+        }
+
+        /**
+         * Fill a factura, then empty it; the compras are then given back their factura.
+         */
+        @Benchmark
+        public int fillAndEmptyFactura() {
+            compras.forEach(emptyFactura::addCompra);
+            int size = emptyFactura.getCompras().size();
+            compras.forEach(emptyFactura::removeCompra);
+            Factura filledFactura = entityManager.getReference(Factura.class, filledFacturaId);
+            compras.forEach(compra -> compra.setFactura(filledFactura));
+            return size;
+        }
+
+        @Benchmark
+        public int findProductosOfCarrito() {
+            int found = 0;
+            for (Producto producto : productos) {
+                if (filledCarrito.getProductos().contains(producto)) {
+                    found++;
+                }
+            }
+            return found;
+        }
+    }
+}
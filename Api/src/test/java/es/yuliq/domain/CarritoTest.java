@@ -20,4 +20,27 @@ class CarritoTest {
         carrito1.setId(null);
         assertThat(carrito1).isNotEqualTo(carrito2);
     }
+
+    @Test
+    void hashCodeFollowsTheId() {
+        Carrito carrito1 = new Carrito();
+        carrito1.setId(1L);
+        Carrito carrito2 = new Carrito();
+        carrito2.setId(1L);
+        assertThat(carrito1).hasSameHashCodeAs(carrito2);
+        carrito2.setId(2L);
+        assertThat(carrito1.hashCode()).isNotEqualTo(carrito2.hashCode());
+
+        // Given its id before it is put in a set, as when persisted first
+        Carrito carrito = new Carrito();
+        carrito.setId(3L);
+        Producto producto = new Producto();
+        producto.setId(1L);
+        carrito.addProducto(producto);
+        Carrito sameRow = new Carrito();
+        sameRow.setId(3L);
+        assertThat(producto.getCarritos()).contains(sameRow);
+        sameRow.removeProducto(producto);
+        assertThat(producto.getCarritos()).isEmpty();
+    }
 }
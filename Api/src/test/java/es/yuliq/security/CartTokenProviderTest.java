@@ -0,0 +1,94 @@
+package es.yuliq.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.security.jwt.TokenProvider;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tech.jhipster.config.JHipsterProperties;
+
+class CartTokenProviderTest {
+
+    private TokenProvider tokenProvider;
+
+    private ApplicationProperties applicationProperties;
+
+    private CartTokenProvider cartTokenProvider;
+
+    @BeforeEach
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
+        tokenProvider = new TokenProvider(jHipsterProperties);
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getCartToken().setMaxItems(3);
+        cartTokenProvider = new CartTokenProvider(tokenProvider, applicationProperties);
+    }
+
+    @Test
+    void testReturnItemsOfValidToken() {
+        Map<Long, Integer> items = new HashMap<>();
+        items.put(7L, 2);
+        items.put(3L, 1);
+
+        String token = cartTokenProvider.createToken(items);
+
+        assertThat(cartTokenProvider.parseToken(token))
+            .hasValueSatisfying(parsed -> assertThat(parsed).containsExactly(entry(3L, 1), entry(7L, 2)));
+        String emptyToken = cartTokenProvider.createToken(Collections.emptyMap());
+        assertThat(cartTokenProvider.parseToken(emptyToken)).hasValueSatisfying(parsed -> assertThat(parsed).isEmpty());
+    }
+
+    @Test
+    void testReturnEmptyWhenTokenIsTampered() {
+        String token = cartTokenProvider.createToken(Collections.singletonMap(1L, 1));
+        String signature = token.substring(token.indexOf('.'));
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(payload.replace(";1:1", ";1:9").getBytes()) + signature;
+
+        assertThat(cartTokenProvider.parseToken(tampered)).isEmpty();
+        assertThat(cartTokenProvider.parseToken(token.substring(1))).isEmpty();
+        assertThat(cartTokenProvider.parseToken("not a token")).isEmpty();
+        assertThat(cartTokenProvider.parseToken(null)).isEmpty();
+    }
+
+    @Test
+    void testReturnEmptyWhenTokenIsExpired() {
+        applicationProperties.getCartToken().setValidityInSeconds(-60);
+        String token = new CartTokenProvider(tokenProvider, applicationProperties).createToken(Collections.singletonMap(1L, 1));
+
+        assertThat(cartTokenProvider.parseToken(token)).isEmpty();
+    }
+
+    @Test
+    void testReturnEmptyWhenTokenIsJWT() {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            "anonymous",
+            "anonymous",
+            Collections.singleton(new SimpleGrantedAuthority(AuthoritiesConstants.USER))
+        );
+        String jwt = tokenProvider.createToken(authentication, false);
+
+        assertThat(cartTokenProvider.parseToken(jwt)).isEmpty();
+    }
+
+    @Test
+    void testRejectTooManyItems() {
+        Map<Long, Integer> items = new HashMap<>();
+        for (long i = 1; i <= 4; i++) {
+            items.put(i, 1);
+        }
+
+        assertThatThrownBy(() -> cartTokenProvider.createToken(items)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,352 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Producto;
+import es.yuliq.repository.CarritoRepository;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.cart.CartContents;
+import es.yuliq.service.cart.CartStore;
+import es.yuliq.service.dto.CarritoDTO;
+import es.yuliq.service.dto.CarritoItemDTO;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.impl.CarritoServiceImpl;
+import es.yuliq.service.mapper.CarritoMapper;
+import es.yuliq.web.rest.CarritoResourceIT;
+import es.yuliq.web.rest.ProductoResourceIT;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stress test of the concurrent updates of one {@link Carrito}: dozens of clients change it at once, each on the
+ * version it read just before, which the others keep moving. Each client changes its own producto, so all of their
+ * changes must be merged, none lost and none refused. The edits of the other fields of the carrito do conflict, and
+ * are made again on the new version, until each of them gets through. An update finding the version moved on in the
+ * database by another one is retried.
+ * <p>
+ * Not transactional, as the clients run in their own threads: the data is committed, then deleted.
+ */
+@IntegrationTest
+class CarritoConcurrencyIT {
+
+    private static final int CLIENTS = 32;
+
+    private static final int CHANGES = 20;
+
+    private static final int FIELD_CLIENTS = 8;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CarritoRepository carritoRepository;
+
+    @Autowired
+    private CarritoMapper carritoMapper;
+
+    @Autowired
+    private CarritoQueryService carritoQueryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private CarritoItemService carritoItemService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Carrito carrito;
+
+    private List<Producto> productos;
+
+    @BeforeEach
+    void initTest() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                carrito = CarritoResourceIT.createEntity(em);
+                em.persist(carrito);
+                productos = new ArrayList<>();
+                for (int i = 0; i < CLIENTS; i++) {
+                    Producto producto = ProductoResourceIT.createEntity(em);
+                    em.persist(producto);
+                    productos.add(producto);
+                }
+            }
+        );
+    }
+
+    @AfterEach
+    void cleanUp() {
+        carritoService.delete(carrito.getId());
+        transactionTemplate.executeWithoutResult(status -> productos.forEach(producto -> productoRepository.deleteById(producto.getId())));
+    }
+
+    @Test
+    void concurrentChangesOfOneCarritoAreAllMerged() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> clients = new ArrayList<>();
+            for (Producto producto : productos) {
+                clients.add(
+                    executor.submit(
+                        () -> {
+                            start.await();
+                            return client(producto.getId());
+                        }
+                    )
+                );
+            }
+            start.countDown();
+
+            Map<Long, Integer> expected = new HashMap<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                int cantidad = clients.get(i).get(2, TimeUnit.MINUTES);
+                if (cantidad > 0) {
+                    expected.put(productos.get(i).getId(), cantidad);
+                }
+            }
+
+            CarritoDTO found = carritoService.findOne(carrito.getId()).get();
+            // One version per change, and another one for each whole save retried after losing its lock
+            assertThat(found.getVersion()).isGreaterThanOrEqualTo((long) CLIENTS * CHANGES);
+            assertThat(found.getProductos()).extracting(ProductoDTO::getId).containsExactlyInAnyOrderElementsOf(expected.keySet());
+            assertThat(lines()).isEqualTo(expected);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void updateRolledBackIsUndone() {
+        CartContents seen = cartStore.get(carrito.getId()).get();
+        Long productoId = productos.get(0).getId();
+        CarritoDTO edited = edit(seen, 7, productoId);
+
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                carritoService.save(edited);
+                status.setRollbackOnly();
+            }
+        );
+
+        assertThat(cartStore.get(carrito.getId()).get().getItems()).isEqualTo(seen.getItems());
+        // Saved again on the same version, as when retried, it does not conflict with the one rolled back
+        carritoService.save(edited);
+        assertThat(lines()).containsOnly(entry(productoId, 1));
+        assertThat(cantidad()).isEqualTo(7);
+    }
+
+    @Test
+    void updateFindingTheVersionMovedOnIsRetried() throws Exception {
+        CartContents seen = cartStore.get(carrito.getId()).get();
+        Long productoId = productos.get(0).getId();
+        Long otherProductoId = productos.get(1).getId();
+        CartStore interfered = spy(cartStore);
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(
+            invocation -> {
+                if (attempts.incrementAndGet() == 1) {
+                    // Another client changes a line and writes it, once the first attempt has read the carrito
+                    ExecutorService other = Executors.newSingleThreadExecutor();
+                    try {
+                        other
+                            .submit(
+                                () -> {
+                                    carritoItemService.putItem(carrito.getId(), new CarritoItemDTO(otherProductoId, 2), null);
+                                    cartStore.flush(carrito.getId());
+                                }
+                            )
+                            .get(1, TimeUnit.MINUTES);
+                    } finally {
+                        other.shutdownNow();
+                    }
+                }
+                return invocation.callRealMethod();
+            }
+        )
+            .when(interfered)
+            .replace(any(), any(), any(), anyBoolean());
+        CarritoService service = new CarritoServiceImpl(
+            carritoRepository,
+            carritoMapper,
+            carritoQueryService,
+            eventPublisher,
+            interfered,
+            em,
+            transactionManager
+        );
+
+        CarritoDTO saved = service.save(edit(seen, 7, productoId));
+
+        assertThat(attempts).hasValue(2);
+        assertThat(saved.getCantidad()).isEqualTo(7);
+        assertThat(lines()).containsOnly(entry(productoId, 1), entry(otherProductoId, 2));
+        assertThat(cantidad()).isEqualTo(7);
+    }
+
+    @Test
+    void concurrentEditsOfTheFieldsAreAllApplied() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(FIELD_CLIENTS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < FIELD_CLIENTS; i++) {
+                int cantidad = 1000 + i;
+                Long productoId = productos.get(i).getId();
+                clients.add(
+                    executor.submit(
+                        () -> {
+                            start.await();
+                            fieldsClient(cantidad, productoId);
+                            return null;
+                        }
+                    )
+                );
+            }
+            start.countDown();
+            for (Future<?> client : clients) {
+                client.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < FIELD_CLIENTS; i++) {
+            expected.put(productos.get(i).getId(), 1);
+        }
+        assertThat(lines()).isEqualTo(expected);
+        assertThat(cantidad()).isBetween(1000, 1000 + FIELD_CLIENTS - 1);
+    }
+
+    /**
+     * Set the cantidad of the carrito and add a producto to it in one save, on the version read just before, and
+     * again on the new version read when another edit of the fields got there first.
+     */
+    private void fieldsClient(int cantidad, Long productoId) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                carritoService.save(edit(cartStore.get(carrito.getId()).get(), cantidad, productoId));
+                return;
+            } catch (ObjectOptimisticLockingFailureException e) {
+                assertThat(attempt).isLessThan(FIELD_CLIENTS * 10);
+            }
+        }
+    }
+
+    /**
+     * @return the carrito as edited on the version seen, with the given cantidad and a producto added.
+     */
+    private CarritoDTO edit(CartContents seen, int cantidad, Long productoId) {
+        CarritoDTO edited = new CarritoDTO();
+        edited.setId(carrito.getId());
+        edited.setVersion(seen.getVersion());
+        edited.setCantidad(cantidad);
+        edited.setFechaCarrito(carrito.getFechaCarrito());
+        seen.getItems().keySet().forEach(id -> edited.getProductos().add(producto(id)));
+        edited.getProductos().add(producto(productoId));
+        return edited;
+    }
+
+    /**
+     * Change the line of a producto, mostly on its own and every fifth time by saving the whole carrito, each time on
+     * the version read just before.
+     *
+     * @return the units of the producto left by the last change.
+     */
+    private int client(Long productoId) {
+        int cantidad = 0;
+        for (int change = 1; change <= CHANGES; change++) {
+            CartContents seen = cartStore.get(carrito.getId()).get();
+            if (change % 5 == 0) {
+                CarritoDTO edited = new CarritoDTO();
+                edited.setId(carrito.getId());
+                edited.setVersion(seen.getVersion());
+                edited.setCantidad(carrito.getCantidad());
+                edited.setFechaCarrito(carrito.getFechaCarrito());
+                for (Long id : seen.getItems().keySet()) {
+                    if (!id.equals(productoId)) {
+                        edited.getProductos().add(producto(id));
+                    }
+                }
+                // Toggled: a producto added as a whole gets one unit
+                if (cantidad == 0) {
+                    edited.getProductos().add(producto(productoId));
+                }
+                carritoService.save(edited);
+                cantidad = cantidad == 0 ? 1 : 0;
+            } else if (change % 3 == 0) {
+                carritoItemService.removeItem(carrito.getId(), productoId, seen.getVersion());
+                cantidad = 0;
+            } else {
+                carritoItemService.putItem(carrito.getId(), new CarritoItemDTO(productoId, change), seen.getVersion());
+                cantidad = change;
+            }
+        }
+        return cantidad;
+    }
+
+    private static ProductoDTO producto(Long id) {
+        ProductoDTO producto = new ProductoDTO();
+        producto.setId(id);
+        return producto;
+    }
+
+    private int cantidad() {
+        return jdbcTemplate.queryForObject("select cantidad from carrito where id = ?", Integer.class, carrito.getId());
+    }
+
+    private Map<Long, Integer> lines() {
+        Map<Long, Integer> lines = new HashMap<>();
+        jdbcTemplate.query(
+            "select producto_id, cantidad from rel_carrito__producto where carrito_id = ?",
+            rs -> {
+                lines.put(rs.getLong(1), rs.getInt(2));
+            },
+            carrito.getId()
+        );
+        return lines;
+    }
+}
@@ -0,0 +1,114 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.User;
+import es.yuliq.service.criteria.CarritoCriteria;
+import es.yuliq.service.dto.CarritoDTO;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.web.rest.CarritoResourceIT;
+import es.yuliq.web.rest.ProductoResourceIT;
+import es.yuliq.web.rest.UserResourceIT;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.filter.LongFilter;
+
+/**
+ * Integration tests for the eager pages of {@link CarritoQueryService}.
+ */
+@IntegrationTest
+@Transactional
+class CarritoQueryServiceIT {
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private CarritoQueryService carritoQueryService;
+
+    private Producto tarta;
+
+    private Producto flan;
+
+    private final List<Long> carritoIds = new ArrayList<>();
+
+    @BeforeEach
+    void initTest() {
+        tarta = ProductoResourceIT.createEntity(em);
+        em.persist(tarta);
+        flan = ProductoResourceIT.createEntity(em);
+        em.persist(flan);
+        createCarrito(3, tarta, flan);
+        createCarrito(1, tarta);
+        createCarrito(2, flan);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void eagerPageKeepsTheSortAndFetchesTheRelationships() {
+        Page<CarritoDTO> page = carritoQueryService.findWithEagerRelationshipsByCriteria(
+            ours(),
+            PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "cantidad"))
+        );
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(CarritoDTO::getCantidad).containsExactly(3, 2);
+        assertThat(productoIds(page.getContent().get(0))).containsExactlyInAnyOrder(tarta.getId(), flan.getId());
+        assertThat(productoIds(page.getContent().get(1))).containsExactly(flan.getId());
+        assertThat(page.getContent()).allSatisfy(carrito -> assertThat(carrito.getAssignedTo().getLogin()).isNotNull());
+    }
+
+    @Test
+    void eagerPageAppliesTheCriteria() {
+        CarritoCriteria criteria = ours();
+        LongFilter productoFilter = new LongFilter();
+        productoFilter.setEquals(tarta.getId());
+        criteria.setProductoId(productoFilter);
+
+        Page<CarritoDTO> page = carritoQueryService.findWithEagerRelationshipsByCriteria(
+            criteria,
+            PageRequest.of(0, 5, Sort.by(Sort.Direction.ASC, "cantidad"))
+        );
+
+        assertThat(page.getContent()).extracting(CarritoDTO::getCantidad).containsExactly(1, 3);
+        // The filter on a producto does not narrow the productos fetched with the carrito
+        assertThat(productoIds(page.getContent().get(1))).containsExactlyInAnyOrder(tarta.getId(), flan.getId());
+    }
+
+    private void createCarrito(int cantidad, Producto... productos) {
+        User user = UserResourceIT.createEntity(em);
+        em.persist(user);
+        Carrito carrito = CarritoResourceIT.createEntity(em).cantidad(cantidad);
+        carrito.setAssignedTo(user);
+        for (Producto producto : productos) {
+            carrito.addProducto(producto);
+        }
+        em.persist(carrito);
+        carritoIds.add(carrito.getId());
+    }
+
+    private CarritoCriteria ours() {
+        LongFilter idFilter = new LongFilter();
+        idFilter.setIn(carritoIds);
+        CarritoCriteria criteria = new CarritoCriteria();
+        criteria.setId(idFilter);
+        return criteria;
+    }
+
+    private static List<Long> productoIds(CarritoDTO carrito) {
+        return carrito.getProductos().stream().map(ProductoDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,170 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.User;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.repository.UserRepository;
+import es.yuliq.web.rest.CarritoResourceIT;
+import es.yuliq.web.rest.ProductoResourceIT;
+import es.yuliq.web.rest.UserResourceIT;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmark of the checkout of carritos of 1, 10 and 100 items, in latency percentiles and SQL statements run through
+ * JPA per checkout, which stay flat with the number of items as the compras and the stock updates are batched.
+ * <p>
+ * Not transactional, so that each checkout commits as it would in a request; the data is deleted afterwards.
+ * <p>
+ * Run it with {@code ./gradlew integrationTest --tests '*CheckoutBenchmarkIT' -Pbenchmark}.
+ */
+@IntegrationTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutBenchmarkIT {
+
+    private static final int MAX_ITEMS = 100;
+
+    private static final int WARMUP_ROUNDS = 50;
+
+    private static final int MEASURED_ROUNDS = 500;
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutBenchmarkIT.class);
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private CarritoItemService carritoItemService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private User user;
+
+    private Carrito carrito;
+
+    private List<Producto> productos;
+
+    @BeforeEach
+    void initDatabase() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                user = UserResourceIT.createEntity(em);
+                em.persist(user);
+                carrito = CarritoResourceIT.createEntity(em).assignedTo(user);
+                em.persist(carrito);
+                productos = new ArrayList<>();
+                for (int i = 0; i < MAX_ITEMS; i++) {
+                    Producto producto = ProductoResourceIT.createEntity(em).existencias(Integer.MAX_VALUE);
+                    em.persist(producto);
+                    productos.add(producto);
+                }
+            }
+        );
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                String facturas = "select id from factura where assigned_to_id = ?";
+                jdbcTemplate.update("delete from compra where factura_id in (" + facturas + ")", user.getId());
+                jdbcTemplate.update("delete from factura where assigned_to_id = ?", user.getId());
+            }
+        );
+        carritoService.delete(carrito.getId());
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                productos.forEach(producto -> productoRepository.deleteById(producto.getId()));
+                userRepository.deleteById(user.getId());
+            }
+        );
+    }
+
+    @Test
+    void checkout() {
+        for (int items : new int[] { 1, 10, MAX_ITEMS }) {
+            measure(items);
+        }
+    }
+
+    private void measure(int items) {
+        Map<Long, Integer> lines = new HashMap<>();
+        for (int i = 0; i < items; i++) {
+            lines.put(productos.get(i).getId(), 1 + i % 3);
+        }
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            carritoItemService.mergeItems(user.getLogin(), lines);
+            checkoutService.checkout(user.getLogin());
+        }
+        long[] nanos = new long[MEASURED_ROUNDS];
+        long statements = 0;
+        statistics.setStatisticsEnabled(true);
+        try {
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                carritoItemService.mergeItems(user.getLogin(), lines);
+                long statementsBefore = statistics.getPrepareStatementCount();
+                long start = System.nanoTime();
+                assertThat(checkoutService.checkout(user.getLogin())).isPresent();
+                nanos[round] = System.nanoTime() - start;
+                statements += statistics.getPrepareStatementCount() - statementsBefore;
+            }
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+        Arrays.sort(nanos);
+        log.info(
+            "Checkout of {} items: p50 {} us, p99 {} us, max {} us, {} JPA statements/checkout",
+            items,
+            percentile(nanos, 50) / 1000,
+            percentile(nanos, 99) / 1000,
+            nanos[nanos.length - 1] / 1000,
+            statements / MEASURED_ROUNDS
+        );
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percent / 100.0) - 1)];
+    }
+}
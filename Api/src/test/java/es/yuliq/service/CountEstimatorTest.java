@@ -0,0 +1,115 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.domain.Producto;
+import es.yuliq.service.criteria.ProductoCriteria;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tech.jhipster.service.filter.FloatFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+class CountEstimatorTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CountEstimator countEstimator;
+
+    private AtomicInteger counts;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getCountEstimate().setPlannerThreshold(1000);
+        countEstimator = new CountEstimator(new ConcurrentMapCacheManager(CountEstimator.COUNTS_CACHE), jdbcTemplate, properties);
+        counts = new AtomicInteger();
+    }
+
+    @Test
+    void reusesTheCountOfEqualCriteria() {
+        assertThat(countEstimator.estimate(Producto.class, byNombreAndPrecio("tortilla", 5F), count(7))).isEqualTo(7);
+        assertThat(countEstimator.estimate(Producto.class, byNombreAndPrecio("tortilla", 5F), count(8))).isEqualTo(7);
+        assertThat(counts).hasValue(1);
+    }
+
+    @Test
+    void countsDifferentCriteriaSeparately() {
+        assertThat(countEstimator.estimate(Producto.class, byNombreAndPrecio("tortilla", 5F), count(7))).isEqualTo(7);
+        assertThat(countEstimator.estimate(Producto.class, byNombreAndPrecio("tortilla", 6F), count(3))).isEqualTo(3);
+        assertThat(counts).hasValue(2);
+    }
+
+    @Test
+    void criteriaChangedAfterwardsDoNotAffectTheCachedCount() {
+        ProductoCriteria criteria = byNombreAndPrecio("tortilla", 5F);
+        countEstimator.estimate(Producto.class, criteria, count(7));
+        criteria.getPrecio().setEquals(6F);
+
+        assertThat(countEstimator.estimate(Producto.class, byNombreAndPrecio("tortilla", 5F), count(8))).isEqualTo(7);
+    }
+
+    @Test
+    void usesThePlannerEstimateOfLargeUnfilteredTablesOnPostgresql() {
+        databaseIs("PostgreSQL");
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("producto"))).thenReturn(List.of(250000L));
+
+        assertThat(countEstimator.estimate(Producto.class, new ProductoCriteria(), count(249000))).isEqualTo(250000);
+        assertThat(countEstimator.estimate(Producto.class, null, count(249000))).isEqualTo(250000);
+        assertThat(counts).hasValue(0);
+    }
+
+    @Test
+    void countsSmallOrNeverAnalyzedTables() {
+        databaseIs("PostgreSQL");
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("producto"))).thenReturn(List.of(-1L));
+
+        assertThat(countEstimator.estimate(Producto.class, new ProductoCriteria(), count(12))).isEqualTo(12);
+        assertThat(counts).hasValue(1);
+    }
+
+    @Test
+    void countsUnfilteredTablesOnOtherDatabases() {
+        databaseIs("H2");
+
+        assertThat(countEstimator.estimate(Producto.class, new ProductoCriteria(), count(12))).isEqualTo(12);
+        assertThat(counts).hasValue(1);
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(Long.class), any());
+    }
+
+    private void databaseIs(String product) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(product);
+    }
+
+    private LongSupplier count(long value) {
+        return () -> {
+            counts.incrementAndGet();
+            return value;
+        };
+    }
+
+    private static ProductoCriteria byNombreAndPrecio(String nombre, Float precio) {
+        ProductoCriteria criteria = new ProductoCriteria();
+        StringFilter nombreFilter = new StringFilter();
+        nombreFilter.setContains(nombre);
+        criteria.setNombreProducto(nombreFilter);
+        FloatFilter precioFilter = new FloatFilter();
+        precioFilter.setEquals(precio);
+        criteria.setPrecio(precioFilter);
+        return criteria;
+    }
+}
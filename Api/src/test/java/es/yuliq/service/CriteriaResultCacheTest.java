@@ -0,0 +1,156 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.domain.Banner;
+import es.yuliq.domain.Producto;
+import es.yuliq.service.criteria.ProductoCriteria;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import tech.jhipster.service.filter.FloatFilter;
+
+class CriteriaResultCacheTest {
+
+    private static final Set<Class<?>> PRODUCTO = Set.of(Producto.class);
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties.getCriteriaCache().setTimeToLiveSeconds(60);
+        applicationProperties.getCriteriaCache().setStaleWhileRevalidateSeconds(60);
+    }
+
+    @Test
+    void resultsAreKeyedByCriteriaValueAndPage() {
+        CriteriaResultCache cache = cache();
+
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(1);
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(1);
+        assertThat(get(cache, criteria(2f), 0)).isEqualTo(2);
+        assertThat(get(cache, criteria(1f), 1)).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentMissesRunASingleQuery() throws Exception {
+        CriteriaResultCache cache = cache();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Integer> slowLoader = () -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loads.incrementAndGet();
+        };
+        AtomicReference<Object> first = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        Thread loader = new Thread(() -> first.set(cache.get(PRODUCTO, "test", criteria(1f), null, slowLoader)));
+        Thread waiter = new Thread(() -> second.set(cache.get(PRODUCTO, "test", criteria(1f), null, slowLoader)));
+
+        loader.start();
+        loading.await();
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        loader.join();
+        waiter.join();
+
+        assertThat(loads).hasValue(1);
+        assertThat(first.get()).isEqualTo(1);
+        assertThat(second.get()).isEqualTo(1);
+    }
+
+    @Test
+    void staleResultsAreServedWhileASingleRefreshRuns() {
+        applicationProperties.getCriteriaCache().setTimeToLiveSeconds(0);
+        CriteriaResultCache cache = cache();
+
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(1);
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(1);
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(1);
+        assertThat(tasks).hasSize(1);
+        assertThat(loads).hasValue(1);
+
+        tasks.remove(0).run();
+
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(2);
+    }
+
+    @Test
+    void expiredResultsAreReloaded() {
+        applicationProperties.getCriteriaCache().setTimeToLiveSeconds(0);
+        applicationProperties.getCriteriaCache().setStaleWhileRevalidateSeconds(0);
+        CriteriaResultCache cache = cache();
+
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(1);
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(2);
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    void committedChangesDropTheDependentResults() {
+        CriteriaResultCache cache = cache();
+        get(cache, criteria(1f), 0);
+
+        cache.onEntityChanged(new EntityChangedEvent(Banner.class, 1L));
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(1);
+
+        cache.onEntityChanged(new EntityChangedEvent(Producto.class, 1L));
+        assertThat(get(cache, criteria(1f), 0)).isEqualTo(2);
+    }
+
+    @Test
+    void failedQueriesAreNotCached() {
+        CriteriaResultCache cache = cache();
+
+        assertThatThrownBy(
+                () ->
+                    cache.get(
+                        PRODUCTO,
+                        "test",
+                        null,
+                        PageRequest.of(0, 20),
+                        () -> {
+                            throw new IllegalStateException("boom");
+                        }
+                    )
+            )
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(get(cache, null, 0)).isEqualTo(1);
+    }
+
+    private CriteriaResultCache cache() {
+        return new CriteriaResultCache(tasks::add, applicationProperties);
+    }
+
+    private Object get(CriteriaResultCache cache, ProductoCriteria criteria, int page) {
+        return cache.get(PRODUCTO, "test", criteria, PageRequest.of(page, 20), loads::incrementAndGet);
+    }
+
+    private static ProductoCriteria criteria(float precio) {
+        FloatFilter precioFilter = new FloatFilter();
+        precioFilter.setEquals(precio);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setPrecio(precioFilter);
+        return criteria;
+    }
+}
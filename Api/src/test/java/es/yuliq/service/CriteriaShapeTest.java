@@ -0,0 +1,77 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import es.yuliq.service.criteria.BannerCriteria;
+import es.yuliq.service.criteria.ProductoCriteria;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tech.jhipster.service.filter.FloatFilter;
+import tech.jhipster.service.filter.InstantFilter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+class CriteriaShapeTest {
+
+    @Test
+    void criteriaWithoutFiltersAreUnfiltered() {
+        assertThat(CriteriaShape.of(null)).isEqualTo(CriteriaShape.UNFILTERED);
+        assertThat(CriteriaShape.of(new ProductoCriteria())).isEqualTo(CriteriaShape.UNFILTERED);
+        ProductoCriteria emptyFilter = new ProductoCriteria();
+        emptyFilter.setPrecio(new FloatFilter());
+        assertThat(CriteriaShape.of(emptyFilter)).isEqualTo(CriteriaShape.UNFILTERED);
+    }
+
+    @Test
+    void shapesListTheOperatorsInPropertyOrder() {
+        FloatFilter precio = new FloatFilter();
+        precio.setGreaterThan(1f);
+        precio.setLessThan(10f);
+        ProductoCriteria.TipoProductoFilter tipoproducto = new ProductoCriteria.TipoProductoFilter();
+        tipoproducto.setIn(List.of(TipoProducto.POSTRE));
+        StringFilter nombreProducto = new StringFilter();
+        nombreProducto.setContains("tarta");
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setTipoproducto(tipoproducto);
+        criteria.setPrecio(precio);
+        criteria.setNombreProducto(nombreProducto);
+
+        assertThat(CriteriaShape.of(criteria)).isEqualTo("nombreProducto.contains,precio.greaterThan,precio.lessThan,tipoproducto.in");
+    }
+
+    @Test
+    void valuesDoNotChangeTheShape() {
+        assertThat(CriteriaShape.of(byId(1L, 2L))).isEqualTo(CriteriaShape.of(byId(42L))).isEqualTo("id.in");
+
+        InstantFilter fechaPuesta = new InstantFilter();
+        fechaPuesta.setGreaterThanOrEqual(Instant.EPOCH);
+        BannerCriteria criteria = new BannerCriteria();
+        criteria.setFechaPuesta(fechaPuesta);
+        assertThat(CriteriaShape.of(criteria)).isEqualTo("fechaPuesta.greaterThanOrEqual");
+    }
+
+    @Test
+    void specifiedAndUnspecifiedAreDifferentShapes() {
+        LongFilter specified = new LongFilter();
+        specified.setSpecified(true);
+        LongFilter unspecified = new LongFilter();
+        unspecified.setSpecified(false);
+        ProductoCriteria withCompra = new ProductoCriteria();
+        withCompra.setCompraId(specified);
+        ProductoCriteria withoutCompra = new ProductoCriteria();
+        withoutCompra.setCompraId(unspecified);
+
+        assertThat(CriteriaShape.of(withCompra)).isEqualTo("compraId.specified");
+        assertThat(CriteriaShape.of(withoutCompra)).isEqualTo("compraId.unspecified");
+    }
+
+    private static ProductoCriteria byId(Long... ids) {
+        LongFilter id = new LongFilter();
+        id.setIn(List.of(ids));
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setId(id);
+        return criteria;
+    }
+}
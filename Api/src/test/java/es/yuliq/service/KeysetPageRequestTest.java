@@ -0,0 +1,63 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+class KeysetPageRequestTest {
+
+    private static final Pageable BY_FECHA = PageRequest.of(0, 50, Sort.by(Sort.Order.desc("fechaFactura"), Sort.Order.asc("id")));
+
+    @Test
+    void firstPageDefaultsToIdOrder() {
+        KeysetPageRequest request = KeysetPageRequest.of("", PageRequest.of(3, 10));
+
+        assertThat(request.isFirst()).isTrue();
+        assertThat(request.isSortedById()).isTrue();
+        assertThat(request.getDirection()).isEqualTo(Sort.Direction.ASC);
+        assertThat(request.getSize()).isEqualTo(10);
+    }
+
+    @Test
+    void cursorRoundTrip() {
+        Instant fecha = Instant.parse("2021-04-01T10:15:30Z");
+        String cursor = KeysetPageRequest.of("", BY_FECHA).cursorAfter(fecha, 42L);
+
+        KeysetPageRequest next = KeysetPageRequest.of(cursor, BY_FECHA);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(next.isFirst()).isFalse();
+        assertThat(next.getProperty()).isEqualTo("fechaFactura");
+        assertThat(next.getDirection()).isEqualTo(Sort.Direction.DESC);
+        assertThat(next.getLastId()).isEqualTo(42L);
+        assertThat(next.getLastKey(Instant.class)).isEqualTo(fecha);
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        String cursor = KeysetPageRequest.of("", BY_FECHA).cursorAfter(Instant.EPOCH, 1L);
+
+        assertThatThrownBy(() -> KeysetPageRequest.of(cursor, PageRequest.of(0, 50, Sort.by("fechaFactura"))))
+            .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> KeysetPageRequest.of("%%%", BY_FECHA)).isInstanceOf(InvalidCursorException.class);
+        String cursor = KeysetPageRequest.of("", BY_FECHA).cursorAfter("not a date", 1L);
+        KeysetPageRequest request = KeysetPageRequest.of(cursor, BY_FECHA);
+        assertThatThrownBy(() -> request.getLastKey(Instant.class)).isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void severalSortPropertiesAreRejected() {
+        Pageable pageable = PageRequest.of(0, 50, Sort.by("precio", "nombreProducto"));
+
+        assertThatThrownBy(() -> KeysetPageRequest.of("", pageable)).isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,215 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Compra;
+import es.yuliq.domain.Factura;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.User;
+import es.yuliq.service.criteria.BannerCriteria;
+import es.yuliq.service.criteria.CarritoCriteria;
+import es.yuliq.service.criteria.CompraCriteria;
+import es.yuliq.service.criteria.FacturaCriteria;
+import es.yuliq.service.criteria.ProductoCriteria;
+import es.yuliq.web.rest.BannerResourceIT;
+import es.yuliq.web.rest.CarritoResourceIT;
+import es.yuliq.web.rest.CompraResourceIT;
+import es.yuliq.web.rest.FacturaResourceIT;
+import es.yuliq.web.rest.ProductoResourceIT;
+import es.yuliq.web.rest.UserResourceIT;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Benchmark of the projection path of the query services against the entity path, in rows per second
+ * and bytes allocated per page.
+ * <p>
+ * Run it with {@code ./gradlew integrationTest --tests '*ProjectionQueryBenchmarkIT' -Pbenchmark}.
+ */
+@IntegrationTest
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProjectionQueryBenchmarkIT {
+
+    private static final int ROWS = 2000;
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int MEASURED_ROUNDS = 20;
+
+    private final Logger log = LoggerFactory.getLogger(ProjectionQueryBenchmarkIT.class);
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private ProductoQueryService productoQueryService;
+
+    @Autowired
+    private BannerQueryService bannerQueryService;
+
+    @Autowired
+    private CarritoQueryService carritoQueryService;
+
+    @Autowired
+    private CompraQueryService compraQueryService;
+
+    @Autowired
+    private FacturaQueryService facturaQueryService;
+
+    @BeforeEach
+    public void initDatabase() {
+        User user = UserResourceIT.createEntity(em);
+        em.persist(user);
+        for (int i = 0; i < ROWS; i++) {
+            Factura factura = FacturaResourceIT.createEntity(em).assignedTo(user);
+            em.persist(factura);
+            Compra compra = CompraResourceIT.createEntity(em).factura(factura);
+            em.persist(compra);
+            Producto producto = ProductoResourceIT.createEntity(em).compra(compra);
+            em.persist(producto);
+            Carrito carrito = CarritoResourceIT.createEntity(em).assignedTo(user).addProducto(producto);
+            em.persist(carrito);
+            em.persist(BannerResourceIT.createEntity(em));
+            if (i % 100 == 0) {
+                em.flush();
+                em.clear();
+                user = em.find(User.class, user.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void productos() {
+        ProductoCriteria criteria = new ProductoCriteria();
+        compare(
+            "Producto",
+            p -> productoQueryService.findByCriteria(criteria, p),
+            p -> productoQueryService.findProjectedByCriteria(criteria, p)
+        );
+    }
+
+    @Test
+    void banners() {
+        BannerCriteria criteria = new BannerCriteria();
+        compare(
+            "Banner",
+            p -> bannerQueryService.findByCriteria(criteria, p),
+            p -> bannerQueryService.findProjectedByCriteria(criteria, p)
+        );
+    }
+
+    @Test
+    void carritos() {
+        CarritoCriteria criteria = new CarritoCriteria();
+        compare(
+            "Carrito",
+            p -> carritoQueryService.findByCriteria(criteria, p),
+            p -> carritoQueryService.findProjectedByCriteria(criteria, p)
+        );
+    }
+
+    @Test
+    void compras() {
+        CompraCriteria criteria = new CompraCriteria();
+        compare(
+            "Compra",
+            p -> compraQueryService.findByCriteria(criteria, p),
+            p -> compraQueryService.findProjectedByCriteria(criteria, p)
+        );
+    }
+
+    @Test
+    void facturas() {
+        FacturaCriteria criteria = new FacturaCriteria();
+        compare(
+            "Factura",
+            p -> facturaQueryService.findByCriteria(criteria, p),
+            p -> facturaQueryService.findProjectedByCriteria(criteria, p)
+        );
+    }
+
+    private <D> void compare(String name, Function<Pageable, Page<D>> entityPath, Function<Pageable, Page<D>> projectionPath) {
+        Pageable first = PageRequest.of(0, PAGE_SIZE, Sort.by("id"));
+        assertThat(projectionPath.apply(first).getContent()).hasToString(entityPath.apply(first).getContent().toString());
+        em.clear();
+
+        Result entities = measure(entityPath);
+        Result projections = measure(projectionPath);
+        log.info("{} entity path:     {}", name, entities);
+        log.info("{} projection path: {}", name, projections);
+    }
+
+    private <D> Result measure(Function<Pageable, Page<D>> path) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            readAllPages(path);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long rows = 0;
+        long pages = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            List<Integer> sizes = readAllPages(path);
+            pages += sizes.size();
+            rows += sizes.stream().mapToLong(Integer::longValue).sum();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Result(rows * 1_000_000_000L / Math.max(1, elapsed), allocated / Math.max(1, pages));
+    }
+
+    /**
+     * Read every page, each with an empty persistence context as in a request of its own.
+     */
+    private <D> List<Integer> readAllPages(Function<Pageable, Page<D>> path) {
+        Page<D> page = path.apply(PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+        List<Integer> sizes = new ArrayList<>();
+        sizes.add(page.getNumberOfElements());
+        em.clear();
+        while (page.hasNext()) {
+            page = path.apply(page.nextPageable());
+            sizes.add(page.getNumberOfElements());
+            em.clear();
+        }
+        return sizes;
+    }
+
+    private static final class Result {
+
+        private final long rowsPerSecond;
+
+        private final long bytesPerPage;
+
+        private Result(long rowsPerSecond, long bytesPerPage) {
+            this.rowsPerSecond = rowsPerSecond;
+            this.bytesPerPage = bytesPerPage;
+        }
+
+        @Override
+        public String toString() {
+            return rowsPerSecond + " rows/s, " + bytesPerPage + " bytes allocated/page";
+        }
+    }
+}
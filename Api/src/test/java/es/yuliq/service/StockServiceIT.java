@@ -0,0 +1,210 @@
+package es.yuliq.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Producto;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.web.rest.ProductoResourceIT;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for the {@link StockService}.
+ * <p>
+ * Not transactional, as the orders run in their own threads and transactions: the data is committed, then deleted.
+ */
+@IntegrationTest
+class StockServiceIT {
+
+    private static final int PRODUCTOS = 4;
+
+    private static final int STOCK = 200;
+
+    private static final int CLIENTS = 32;
+
+    private static final int ORDERS = 25;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private List<Producto> productos;
+
+    @BeforeEach
+    void initTest() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                productos = new ArrayList<>();
+                for (int i = 0; i < PRODUCTOS; i++) {
+                    Producto producto = ProductoResourceIT.createEntity(em).existencias(STOCK);
+                    em.persist(producto);
+                    productos.add(producto);
+                }
+            }
+        );
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> productos.forEach(producto -> productoRepository.deleteById(producto.getId())));
+    }
+
+    @Test
+    void decrementTakesNothingWhenALineFails() {
+        Map<Long, Integer> lines = new HashMap<>();
+        lines.put(productos.get(0).getId(), 5);
+        lines.put(productos.get(1).getId(), STOCK + 1);
+        lines.put(productos.get(2).getId(), 7);
+
+        List<Long> failed = takeOrRollBack(lines);
+
+        assertThat(failed).containsExactly(productos.get(1).getId());
+        assertThat(productos).allSatisfy(producto -> assertThat(existencias(producto)).isEqualTo(STOCK));
+        // Nor leaves a version the copies read before do not have
+        Long version = jdbcTemplate.queryForObject("select version from producto where id = ?", Long.class, productos.get(0).getId());
+        assertThat(version).isEqualTo(productos.get(0).getVersion());
+    }
+
+    @Test
+    void decrementRefusesUnitsNotPositive() {
+        Long id = productos.get(0).getId();
+
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> stockService.decrement(Collections.singletonMap(id, -3))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> stockService.decrement(Collections.singletonMap(id, 0))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(existencias(productos.get(0))).isEqualTo(STOCK);
+    }
+
+    @Test
+    void decrementRequiresATransaction() {
+        assertThatThrownBy(() -> stockService.decrement(Collections.singletonMap(productos.get(0).getId(), 3)))
+            .isInstanceOf(IllegalTransactionStateException.class);
+        assertThat(existencias(productos.get(0))).isEqualTo(STOCK);
+    }
+
+    @Test
+    void decrementIsSeenThroughTheSecondLevelCache() {
+        Long id = productos.get(0).getId();
+        // Cached by this read
+        assertThat(transactionTemplate.execute(status -> productoRepository.findById(id).get().getExistencias())).isEqualTo(STOCK);
+
+        assertThat(transactionTemplate.execute(status -> stockService.decrement(Collections.singletonMap(id, 3)))).isEmpty();
+
+        assertThat(transactionTemplate.execute(status -> productoRepository.findById(id).get().getExistencias())).isEqualTo(STOCK - 3);
+    }
+
+    @Test
+    void concurrentOrdersNeverOversell() throws Exception {
+        Map<Long, AtomicInteger> sold = new ConcurrentHashMap<>();
+        productos.forEach(producto -> sold.put(producto.getId(), new AtomicInteger()));
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(
+                    executor.submit(
+                        () -> {
+                            start.await();
+                            for (int order = 0; order < ORDERS; order++) {
+                                Map<Long, Integer> lines = order();
+                                if (takeOrRollBack(lines).isEmpty()) {
+                                    lines.forEach((productoId, cantidad) -> sold.get(productoId).addAndGet(cantidad));
+                                } else {
+                                    refused.incrementAndGet();
+                                }
+                            }
+                            return null;
+                        }
+                    )
+                );
+            }
+            start.countDown();
+            for (Future<?> client : clients) {
+                client.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Far more units are asked for than there are, so the stock runs out
+        assertThat(refused.get()).isPositive();
+        for (Producto producto : productos) {
+            int left = existencias(producto);
+            assertThat(left).isNotNegative();
+            assertThat(left).isEqualTo(STOCK - sold.get(producto.getId()).get());
+        }
+    }
+
+    /**
+     * @return the lines of a random order of some of the productos, in a random order.
+     */
+    private Map<Long, Integer> order() {
+        List<Producto> shuffled = new ArrayList<>(productos);
+        Collections.shuffle(shuffled, ThreadLocalRandom.current());
+        int size = 1 + ThreadLocalRandom.current().nextInt(PRODUCTOS);
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        for (Producto producto : shuffled.subList(0, size)) {
+            lines.put(producto.getId(), 1 + ThreadLocalRandom.current().nextInt(3));
+        }
+        return lines;
+    }
+
+    /**
+     * Take the units of an order in a transaction of its own, rolled back if a line cannot be served, as by a checkout.
+     */
+    private List<Long> takeOrRollBack(Map<Long, Integer> lines) {
+        return transactionTemplate.execute(
+            status -> {
+                List<Long> failed = stockService.decrement(lines);
+                if (!failed.isEmpty()) {
+                    status.setRollbackOnly();
+                }
+                return failed;
+            }
+        );
+    }
+
+    private int existencias(Producto producto) {
+        return jdbcTemplate.queryForObject("select existencias from producto where id = ?", Integer.class, producto.getId());
+    }
+}
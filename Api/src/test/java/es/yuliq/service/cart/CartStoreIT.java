@@ -0,0 +1,192 @@
+package es.yuliq.service.cart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Producto;
+import es.yuliq.service.CarritoService;
+import es.yuliq.service.dto.CarritoDTO;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.web.rest.CarritoResourceIT;
+import es.yuliq.web.rest.ProductoResourceIT;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link CartStore}.
+ */
+@IntegrationTest
+@Transactional
+class CartStoreIT {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    private Carrito carrito;
+
+    private Producto tarta;
+
+    private Producto flan;
+
+    @BeforeEach
+    void initTest() {
+        carrito = CarritoResourceIT.createEntity(em);
+        em.persist(carrito);
+        tarta = ProductoResourceIT.createEntity(em);
+        em.persist(tarta);
+        flan = ProductoResourceIT.createEntity(em);
+        em.persist(flan);
+        em.flush();
+    }
+
+    @Test
+    void changesAreCoalescedAndWrittenOnFlush() {
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(tarta.getId(), 1));
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(flan.getId(), 2));
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(tarta.getId(), 0));
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(flan.getId(), items.get(flan.getId()) + 1));
+
+        assertThat(cartStore.get(carrito.getId()))
+            .hasValueSatisfying(
+                contents -> {
+                    assertThat(contents.getVersion()).isEqualTo(4);
+                    assertThat(contents.getItems()).containsExactly(entry(flan.getId(), 3));
+                }
+            );
+        assertThat(lines()).isEmpty();
+
+        cartStore.flush(carrito.getId());
+
+        assertThat(lines()).containsExactly(entry(flan.getId(), 3));
+        assertThat(version()).isEqualTo(4);
+    }
+
+    @Test
+    void changeOnAnOlderVersionIsMergedUnlessItsLineChangedSince() {
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(tarta.getId(), 1));
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(flan.getId(), 2));
+
+        // Made on version 1, before flan was added
+        assertThat(cartStore.update(carrito.getId(), 1L, items -> Collections.singletonMap(tarta.getId(), 3)))
+            .hasValueSatisfying(
+                contents -> {
+                    assertThat(contents.getVersion()).isEqualTo(3);
+                    assertThat(contents.getItems()).containsExactly(entry(tarta.getId(), 3), entry(flan.getId(), 2));
+                }
+            );
+        assertThatThrownBy(() -> cartStore.update(carrito.getId(), 1L, items -> Collections.singletonMap(flan.getId(), 0)))
+            .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(cartStore.get(carrito.getId())).map(CartContents::getVersion).contains(3L);
+    }
+
+    @Test
+    void replaceOnAnOlderVersionOnlyChangesTheProductosEditedSince() {
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(tarta.getId(), 2));
+        // Edited on version 1 to hold flan instead of tarta, while another change removed tarta then added flan
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(tarta.getId(), 0));
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(flan.getId(), 4));
+
+        assertThat(cartStore.replace(carrito.getId(), 1L, Collections.singleton(flan.getId()), true))
+            .hasValueSatisfying(contents -> assertThat(contents.getItems()).containsExactly(entry(flan.getId(), 4)));
+
+        // Still holding tarta as on version 1: it was removed since by another change, which is kept
+        assertThat(cartStore.replace(carrito.getId(), 1L, new HashSet<>(Arrays.asList(flan.getId(), tarta.getId())), false))
+            .hasValueSatisfying(contents -> assertThat(contents.getItems()).containsExactly(entry(flan.getId(), 4)));
+
+        // The other fields were edited on version 4
+        assertThatThrownBy(() -> cartStore.replace(carrito.getId(), 3L, Collections.singleton(flan.getId()), true))
+            .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void findOneWritesThePendingLines() {
+        cartStore.update(carrito.getId(), items -> Collections.singletonMap(tarta.getId(), 2));
+        em.clear();
+
+        CarritoDTO found = carritoService.findOne(carrito.getId()).get();
+
+        assertThat(found.getVersion()).isEqualTo(1L);
+        assertThat(found.getProductos()).extracting(ProductoDTO::getId).containsExactly(tarta.getId());
+    }
+
+    @Test
+    void changesLeftInTheLogAreWrittenOnStart() {
+        CartWriteAheadLog previousRun = new CartWriteAheadLog(directory);
+        previousRun.open();
+        // Already written before the restart, so skipped
+        previousRun.append(new CartChange(carrito.getId(), 0, Collections.singletonMap(flan.getId(), 9)));
+        previousRun.append(new CartChange(carrito.getId(), 1, Collections.singletonMap(tarta.getId(), 2)));
+        Map<Long, Integer> items = new HashMap<>();
+        items.put(tarta.getId(), 0);
+        items.put(flan.getId(), 1);
+        previousRun.append(new CartChange(carrito.getId(), 2, items));
+        previousRun.append(new CartChange(Long.MAX_VALUE, 1, Collections.singletonMap(flan.getId(), 1)));
+        previousRun.close();
+
+        CartWriteAheadLog writeAheadLog = new CartWriteAheadLog(directory);
+        try {
+            CartStore restarted = new CartStore(writeAheadLog, jdbcTemplate, transactionManager, eventPublisher, applicationProperties);
+            restarted.flushAll();
+
+            assertThat(lines()).containsExactly(entry(flan.getId(), 1));
+            assertThat(version()).isEqualTo(2);
+        } finally {
+            writeAheadLog.close();
+        }
+    }
+
+    private Map<Long, Integer> lines() {
+        Map<Long, Integer> lines = new HashMap<>();
+        jdbcTemplate.query(
+            "select producto_id, cantidad from rel_carrito__producto where carrito_id = ?",
+            rs -> {
+                lines.put(rs.getLong(1), rs.getInt(2));
+            },
+            carrito.getId()
+        );
+        return lines;
+    }
+
+    private long version() {
+        return jdbcTemplate.queryForObject("select version from carrito where id = ?", Long.class, carrito.getId());
+    }
+}
@@ -0,0 +1,108 @@
+package es.yuliq.service.cart;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CartWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private CartWriteAheadLog writeAheadLog;
+
+    @BeforeEach
+    public void setUp() {
+        writeAheadLog = new CartWriteAheadLog(directory);
+        assertThat(writeAheadLog.open()).isEmpty();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writeAheadLog.close();
+    }
+
+    @Test
+    void recoversAppendedChangesInOrder() {
+        Map<Long, Integer> items = new HashMap<>();
+        items.put(7L, 2);
+        items.put(3L, 0);
+        writeAheadLog.append(new CartChange(1L, 1L, items));
+        writeAheadLog.append(new CartChange(2L, 5L, Collections.singletonMap(4L, 1)));
+        writeAheadLog.roll();
+        writeAheadLog.append(new CartChange(1L, 2L, Collections.emptyMap()));
+
+        List<CartChange> recovered = reopen();
+
+        assertThat(recovered)
+            .extracting(CartChange::getCarritoId, CartChange::getVersion)
+            .containsExactly(tuple(1L, 1L), tuple(2L, 5L), tuple(1L, 2L));
+        assertThat(recovered.get(0).getItems()).isEqualTo(items);
+        assertThat(recovered.get(2).getItems()).isEmpty();
+    }
+
+    @Test
+    void ignoresTheTornEndOfASegment() throws Exception {
+        writeAheadLog.append(new CartChange(1L, 1L, Collections.singletonMap(7L, 2)));
+        writeAheadLog.append(new CartChange(1L, 2L, Collections.singletonMap(7L, 3)));
+        Path segment = segments().get(0);
+        byte[] content = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(content, content.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertThat(reopen()).extracting(CartChange::getVersion).containsExactly(1L);
+    }
+
+    @Test
+    void deletesTheSegmentsBeforeTheCurrentOne() throws Exception {
+        writeAheadLog.append(new CartChange(1L, 1L, Collections.singletonMap(7L, 2)));
+        long current = writeAheadLog.roll();
+        writeAheadLog.append(new CartChange(1L, 2L, Collections.singletonMap(7L, 3)));
+
+        writeAheadLog.deleteBefore(current);
+
+        assertThat(segments()).hasSize(1);
+        assertThat(reopen()).extracting(CartChange::getVersion).containsExactly(2L);
+    }
+
+    @Test
+    void rollKeepsAnEmptySegment() throws Exception {
+        long current = writeAheadLog.roll();
+
+        assertThat(writeAheadLog.roll()).isEqualTo(current);
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void refusesADirectoryInUse() {
+        CartWriteAheadLog other = new CartWriteAheadLog(directory);
+
+        assertThatThrownBy(other::open).isInstanceOf(CartStoreException.class);
+    }
+
+    private List<CartChange> reopen() {
+        writeAheadLog.close();
+        writeAheadLog = new CartWriteAheadLog(directory);
+        return writeAheadLog.open();
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".wal")).sorted().collect(Collectors.toList());
+        }
+    }
+}
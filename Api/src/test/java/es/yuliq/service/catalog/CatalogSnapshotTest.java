@@ -0,0 +1,68 @@
+package es.yuliq.service.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class CatalogSnapshotTest {
+
+    private static final CatalogSnapshot SNAPSHOT = CatalogSnapshot.of(
+        List.of(item(3, TipoProducto.POSTRE), item(1, TipoProducto.ENTRANTE), item(2, TipoProducto.POSTRE))
+    );
+
+    @Test
+    void pagesAreInIdOrder() {
+        assertThat(json(SNAPSHOT.getPage(null, 0, 2))).isEqualTo("[{\"id\":1},{\"id\":2}]");
+        assertThat(json(SNAPSHOT.getPage(null, 1, 2))).isEqualTo("[{\"id\":3}]");
+        assertThat(json(SNAPSHOT.getPage(null, 2, 2))).isEqualTo("[]");
+        assertThat(SNAPSHOT.getPage(null, 2, 2).getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void pagesCanBeFilteredByTipoproducto() {
+        CatalogPage page = SNAPSHOT.getPage(TipoProducto.POSTRE, 0, 20);
+
+        assertThat(json(page)).isEqualTo("[{\"id\":2},{\"id\":3}]");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(json(SNAPSHOT.getPage(TipoProducto.BEBIDA, 0, 20))).isEqualTo("[]");
+    }
+
+    @Test
+    void pagesOfTheDefaultSizeAreKeptWithTheirGzipEncoding() throws IOException {
+        CatalogPage page = SNAPSHOT.getPage(null, 0, CatalogSnapshot.CACHED_PAGE_SIZE);
+
+        assertThat(SNAPSHOT.getPage(null, 0, CatalogSnapshot.CACHED_PAGE_SIZE)).isSameAs(page);
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(page.getGzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(page.getJson());
+        }
+        assertThat(SNAPSHOT.getPage(null, 0, 2).getGzip()).isNull();
+    }
+
+    @Test
+    void changesProduceNewSnapshots() {
+        CatalogSnapshot added = SNAPSHOT.with(item(0, TipoProducto.BEBIDA));
+        CatalogSnapshot replaced = added.with(item(2, TipoProducto.ENTRANTE));
+        CatalogSnapshot removed = replaced.without(3);
+
+        assertThat(json(added.getPage(null, 0, 20))).isEqualTo("[{\"id\":0},{\"id\":1},{\"id\":2},{\"id\":3}]");
+        assertThat(json(replaced.getPage(TipoProducto.ENTRANTE, 0, 20))).isEqualTo("[{\"id\":1},{\"id\":2}]");
+        assertThat(json(removed.getPage(null, 0, 20))).isEqualTo("[{\"id\":0},{\"id\":1},{\"id\":2}]");
+        assertThat(removed.without(42)).isSameAs(removed);
+        assertThat(SNAPSHOT.size()).isEqualTo(3);
+    }
+
+    private static CatalogItem item(long id, TipoProducto tipoproducto) {
+        return new CatalogItem(id, tipoproducto, ("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String json(CatalogPage page) {
+        return new String(page.getJson(), StandardCharsets.UTF_8);
+    }
+}
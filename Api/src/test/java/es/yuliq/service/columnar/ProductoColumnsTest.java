@@ -0,0 +1,210 @@
+package es.yuliq.service.columnar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import es.yuliq.service.criteria.ProductoCriteria;
+import es.yuliq.service.dto.HistogramBucketDTO;
+import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.dto.ProductoFacetsDTO;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import tech.jhipster.service.filter.FloatFilter;
+import tech.jhipster.service.filter.IntegerFilter;
+import tech.jhipster.service.filter.LongFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+class ProductoColumnsTest {
+
+    private static final ProductoColumns COLUMNS = ProductoColumns.of(
+        List.of(
+            producto(4, 12.5f, null, 3, TipoProducto.POSTRE),
+            producto(1, 2.5f, 100, 10, TipoProducto.BEBIDA),
+            producto(3, 12.5f, 300, 0, null),
+            producto(2, 7f, 200, 10, TipoProducto.POSTRE),
+            producto(5, 30f, 200, 1, TipoProducto.ENTRANTE)
+        )
+    );
+
+    @Test
+    void equalsWinsOverTheOtherConditions() {
+        IntegerFilter calorias = new IntegerFilter();
+        calorias.setEquals(200);
+        calorias.setGreaterThan(500);
+
+        assertThat(ids(byCalorias(calorias), Pageable.unpaged())).containsExactly(2L, 5L);
+    }
+
+    @Test
+    void inWinsOverTheConditionsOtherThanEquals() {
+        FloatFilter precio = new FloatFilter();
+        precio.setIn(List.of(12.5f, 30f, 99f));
+        precio.setLessThan(1f);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setPrecio(precio);
+
+        assertThat(ids(criteria, Pageable.unpaged())).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void rangesAreIntersected() {
+        FloatFilter precio = new FloatFilter();
+        precio.setGreaterThan(2.5f);
+        precio.setLessThanOrEqual(12.5f);
+        IntegerFilter existencias = new IntegerFilter();
+        existencias.setGreaterThanOrEqual(1);
+        existencias.setLessThan(10);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setPrecio(precio);
+        criteria.setExistencias(existencias);
+
+        assertThat(ids(criteria, Pageable.unpaged())).containsExactly(4L);
+        assertThat(COLUMNS.count(criteria)).isEqualTo(1);
+    }
+
+    @Test
+    void rowsWithoutValueOnlyMatchSpecifiedFalse() {
+        IntegerFilter notEquals = new IntegerFilter();
+        notEquals.setNotEquals(200);
+        IntegerFilter notIn = new IntegerFilter();
+        notIn.setNotIn(List.of(100, 300));
+        IntegerFilter lessThan = new IntegerFilter();
+        lessThan.setLessThan(1000);
+        IntegerFilter unspecified = new IntegerFilter();
+        unspecified.setSpecified(false);
+
+        assertThat(ids(byCalorias(notEquals), Pageable.unpaged())).containsExactly(1L, 3L);
+        assertThat(ids(byCalorias(notIn), Pageable.unpaged())).containsExactly(2L, 5L);
+        assertThat(ids(byCalorias(lessThan), Pageable.unpaged())).containsExactly(1L, 2L, 3L, 5L);
+        assertThat(ids(byCalorias(unspecified), Pageable.unpaged())).containsExactly(4L);
+    }
+
+    @Test
+    void tipoproductoIsFilteredByBitmaps() {
+        ProductoCriteria.TipoProductoFilter postres = new ProductoCriteria.TipoProductoFilter();
+        postres.setIn(List.of(TipoProducto.POSTRE, TipoProducto.BEBIDA));
+        ProductoCriteria.TipoProductoFilter notPostre = new ProductoCriteria.TipoProductoFilter();
+        notPostre.setNotEquals(TipoProducto.POSTRE);
+        ProductoCriteria.TipoProductoFilter unspecified = new ProductoCriteria.TipoProductoFilter();
+        unspecified.setSpecified(false);
+
+        assertThat(ids(byTipoproducto(postres), Pageable.unpaged())).containsExactly(1L, 2L, 4L);
+        assertThat(ids(byTipoproducto(notPostre), Pageable.unpaged())).containsExactly(1L, 5L);
+        assertThat(ids(byTipoproducto(unspecified), Pageable.unpaged())).containsExactly(3L);
+    }
+
+    @Test
+    void idFiltersAreSupported() {
+        LongFilter id = new LongFilter();
+        id.setGreaterThan(2L);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setId(id);
+
+        assertThat(ids(criteria, Pageable.unpaged())).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void pagesFollowTheSort() {
+        Pageable firstPage = PageRequest.of(0, 2, Sort.by(Sort.Order.desc("precio"), Sort.Order.asc("id")));
+        Pageable secondPage = firstPage.next();
+
+        assertThat(ids(null, firstPage)).containsExactly(5L, 3L);
+        assertThat(ids(null, secondPage)).containsExactly(4L, 2L);
+        assertThat(ids(null, PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "existencias", "id")))).containsExactly(2L, 1L, 4L);
+        assertThat(ids(null, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")))).containsExactly(5L, 4L);
+
+        Page<ProductoDTO> page = COLUMNS.findAll(null, secondPage);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void unsupportedFiltersAndSortsAreReported() {
+        ProductoCriteria byNombre = new ProductoCriteria();
+        byNombre.setNombreProducto(new StringFilter());
+        ProductoCriteria byCompra = new ProductoCriteria();
+        byCompra.setCompraId(new LongFilter());
+
+        assertThat(ProductoColumns.supports(new ProductoCriteria(), Sort.by("precio", "id"))).isTrue();
+        assertThat(ProductoColumns.supports(byNombre, Sort.unsorted())).isFalse();
+        assertThat(ProductoColumns.supports(byCompra, Sort.unsorted())).isFalse();
+        assertThat(ProductoColumns.supports(null, Sort.by("nombreProducto"))).isFalse();
+        assertThat(ProductoColumns.supports(null, Sort.by("calorias"))).isFalse();
+        assertThat(ProductoColumns.supports(null, Sort.by("precio", "existencias"))).isFalse();
+    }
+
+    @Test
+    void changesProduceNewColumns() {
+        ProductoColumns added = COLUMNS.with(producto(0, 1f, 50, 5, TipoProducto.BEBIDA));
+        ProductoColumns replaced = added.with(producto(5, 1f, 50, 5, TipoProducto.BEBIDA));
+        ProductoColumns removed = replaced.without(1);
+        FloatFilter precio = new FloatFilter();
+        precio.setEquals(1f);
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setPrecio(precio);
+
+        assertThat(added.findAll(criteria, Pageable.unpaged()).map(ProductoDTO::getId)).containsExactly(0L);
+        assertThat(replaced.findAll(criteria, Pageable.unpaged()).map(ProductoDTO::getId)).containsExactly(0L, 5L);
+        assertThat(removed.size()).isEqualTo(5);
+        assertThat(removed.without(42)).isSameAs(removed);
+        assertThat(COLUMNS.count(criteria)).isZero();
+    }
+
+    @Test
+    void facetsAreCountedOverTheMatchingRows() {
+        ProductoFacetCounter all = new ProductoFacetCounter(10, 100);
+        COLUMNS.countFacets(null, all);
+        ProductoFacetsDTO facets = all.toDto();
+
+        assertThat(facets.getTipoproducto())
+            .containsEntry(TipoProducto.POSTRE, 2L)
+            .containsEntry(TipoProducto.BEBIDA, 1L)
+            .containsEntry(TipoProducto.PRINCIPAL, 0L);
+        assertThat(facets.getPrecio()).extracting(HistogramBucketDTO::getFrom).containsExactly(0.0, 10.0, 30.0);
+        assertThat(facets.getPrecio()).extracting(HistogramBucketDTO::getCount).containsExactly(2L, 2L, 1L);
+        // The producto without calorias is left out of their histogram
+        assertThat(facets.getCalorias()).extracting(HistogramBucketDTO::getCount).containsExactly(1L, 2L, 1L);
+        assertThat(facets.getInStock()).isEqualTo(4);
+        assertThat(facets.getOutOfStock()).isEqualTo(1);
+
+        ProductoCriteria.TipoProductoFilter postre = new ProductoCriteria.TipoProductoFilter();
+        postre.setEquals(TipoProducto.POSTRE);
+        ProductoFacetCounter filtered = new ProductoFacetCounter(10, 100);
+        COLUMNS.countFacets(byTipoproducto(postre), filtered);
+
+        assertThat(filtered.toDto().getPrecio()).extracting(HistogramBucketDTO::getFrom).containsExactly(0.0, 10.0);
+        assertThat(filtered.toDto().getInStock()).isEqualTo(2);
+    }
+
+    private static List<Long> ids(ProductoCriteria criteria, Pageable pageable) {
+        return COLUMNS.findAll(criteria, pageable).getContent().stream().map(ProductoDTO::getId).collect(Collectors.toList());
+    }
+
+    private static ProductoCriteria byCalorias(IntegerFilter calorias) {
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setCalorias(calorias);
+        return criteria;
+    }
+
+    private static ProductoCriteria byTipoproducto(ProductoCriteria.TipoProductoFilter tipoproducto) {
+        ProductoCriteria criteria = new ProductoCriteria();
+        criteria.setTipoproducto(tipoproducto);
+        return criteria;
+    }
+
+    private static ProductoDTO producto(long id, float precio, Integer calorias, int existencias, TipoProducto tipoproducto) {
+        ProductoDTO productoDTO = new ProductoDTO();
+        productoDTO.setId(id);
+        productoDTO.setNombreProducto("Producto " + id);
+        productoDTO.setPrecio(precio);
+        productoDTO.setCalorias(calorias);
+        productoDTO.setExistencias(existencias);
+        productoDTO.setTipoproducto(tipoproducto);
+        return productoDTO;
+    }
+}
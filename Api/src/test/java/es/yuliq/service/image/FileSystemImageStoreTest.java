@@ -0,0 +1,78 @@
+package es.yuliq.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemImageStoreTest {
+
+    private static final byte[] CONTENT = "yuliq".getBytes(StandardCharsets.UTF_8);
+
+    private static final String CONTENT_HASH = StoredImage.of(CONTENT).getHash();
+
+    @TempDir
+    Path root;
+
+    private FileSystemImageStore imageStore;
+
+    @BeforeEach
+    public void setUp() {
+        imageStore = new FileSystemImageStore(root);
+    }
+
+    @Test
+    void storeReturnsContentHashAndSize() {
+        StoredImage image = imageStore.store(CONTENT);
+
+        assertThat(image.getHash()).isEqualTo(CONTENT_HASH).hasSize(64);
+        assertThat(image.getSize()).isEqualTo(CONTENT.length);
+        assertThat(imageStore.exists(CONTENT_HASH)).isTrue();
+    }
+
+    @Test
+    void storeDeduplicatesIdenticalContent() throws Exception {
+        StoredImage first = imageStore.store(CONTENT);
+        StoredImage second = imageStore.store(CONTENT.clone());
+
+        assertThat(second).isEqualTo(first);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void readReturnsStoredContent() {
+        imageStore.store(CONTENT);
+
+        ByteBuffer buffer = imageStore.read(CONTENT_HASH).orElseThrow();
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+
+        assertThat(content).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void openReturnsChannelOverStoredContent() throws Exception {
+        imageStore.store(CONTENT);
+
+        try (FileChannel channel = imageStore.open(CONTENT_HASH).orElseThrow()) {
+            assertThat(channel.size()).isEqualTo(CONTENT.length);
+        }
+        assertThat(imageStore.open("not-a-hash")).isEmpty();
+    }
+
+    @Test
+    void readUnknownOrInvalidHashIsEmpty() {
+        assertThat(imageStore.read(CONTENT_HASH)).isEmpty();
+        assertThat(imageStore.read("../../etc/passwd")).isEmpty();
+        assertThat(imageStore.exists("not-a-hash")).isFalse();
+    }
+}
@@ -0,0 +1,88 @@
+package es.yuliq.service.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path root;
+
+    private ImageStore imageStore;
+
+    private ImageDerivativeService imageDerivativeService;
+
+    @BeforeEach
+    public void setUp() {
+        imageStore = new FileSystemImageStore(root.resolve("images"));
+        imageDerivativeService = new ImageDerivativeService(imageStore, root.resolve("derivatives"));
+    }
+
+    @Test
+    void generateWritesEveryVariant() throws IOException {
+        String hash = imageStore.store(png(1200, 600)).getHash();
+
+        imageDerivativeService.generate(hash);
+
+        assertThat(imageDerivativeService.supports(ImageFormat.JPEG)).isTrue();
+        assertDimensions(hash, ImageVariant.THUMBNAIL, 160, 80);
+        assertDimensions(hash, ImageVariant.CARD, 480, 240);
+        assertDimensions(hash, ImageVariant.PLACEHOLDER, 16, 8);
+    }
+
+    @Test
+    void generateDoesNotEnlargeSmallImages() throws IOException {
+        String hash = imageStore.store(png(100, 50)).getHash();
+
+        imageDerivativeService.generate(hash);
+
+        assertDimensions(hash, ImageVariant.CARD, 100, 50);
+    }
+
+    @Test
+    void generateSkipsUndecodableImages() {
+        String hash = imageStore.store("not an image".getBytes(StandardCharsets.UTF_8)).getHash();
+
+        imageDerivativeService.generate(hash);
+
+        assertThat(imageDerivativeService.open(hash, ImageVariant.THUMBNAIL, ImageFormat.JPEG)).isEmpty();
+    }
+
+    @Test
+    void openUnknownDerivativeIsEmpty() {
+        assertThat(imageDerivativeService.open(StoredImage.of(new byte[] { 1 }).getHash(), ImageVariant.CARD, ImageFormat.JPEG)).isEmpty();
+        assertThat(imageDerivativeService.open("../../etc", ImageVariant.CARD, ImageFormat.JPEG)).isEmpty();
+    }
+
+    private void assertDimensions(String hash, ImageVariant variant, int width, int height) throws IOException {
+        try (FileChannel channel = imageDerivativeService.open(hash, variant, ImageFormat.JPEG).orElseThrow()) {
+            BufferedImage image = ImageIO.read(Channels.newInputStream(channel));
+            assertThat(image.getWidth()).isEqualTo(width);
+            assertThat(image.getHeight()).isEqualTo(height);
+        }
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+package es.yuliq.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.yuliq.domain.enumeration.TipoProducto;
+import es.yuliq.service.dto.ProductoDTO;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+class ProductoSearchIndexTest {
+
+    private ProductoSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductoSearchIndex();
+        index.beginRebuild();
+        index.completeRebuild(
+            List.of(
+                ProductoSearchIndex.analyze(producto(1, "Tarta de lim\u00f3n", TipoProducto.POSTRE)),
+                ProductoSearchIndex.analyze(producto(2, "Limonada", TipoProducto.BEBIDA)),
+                ProductoSearchIndex.analyze(producto(3, "Tarta de chocolate con nueces", TipoProducto.POSTRE)),
+                ProductoSearchIndex.analyze(producto(4, "Croquetas de jam\u00f3n", TipoProducto.ENTRANTE)),
+                ProductoSearchIndex.analyze(producto(5, "Flan", TipoProducto.POSTRE))
+            )
+        );
+    }
+
+    @Test
+    void accentsCaseAndPluralsAreFolded() {
+        assertThat(search("LIMON")).containsExactly(1L);
+        assertThat(search("croqueta jamon")).containsExactly(4L);
+        assertThat(search("tartas")).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void typosAreTolerated() {
+        assertThat(search("tatra")).containsExactly(1L, 3L);
+        assertThat(search("chocolatte")).containsExactly(3L);
+        // Closer terms rank first
+        assertThat(search("limonda")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void shortTermsTolerateFewerTypos() {
+        assertThat(search("fl")).isEmpty();
+        assertThat(search("fla")).containsExactly(5L);
+        assertThat(search("de con")).isEmpty();
+    }
+
+    @Test
+    void resultsAreRankedByRelevance() {
+        // Both terms beat one of them, and a name beats a type
+        assertThat(search("tarta limon")).containsExactly(1L, 3L);
+        assertThat(search("postre flan")).containsExactly(5L, 1L, 3L);
+    }
+
+    @Test
+    void resultsArePaged() {
+        Page<Long> page = index.search("postre", PageRequest.of(1, 2));
+
+        assertThat(page.getContent()).containsExactly(5L);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void writesAreVisibleImmediately() {
+        index.put(producto(6, "Tarta de queso", TipoProducto.POSTRE));
+        index.put(producto(1, "Sorbete de lim\u00f3n", TipoProducto.POSTRE));
+        index.remove(3L);
+
+        assertThat(search("tarta")).containsExactly(6L);
+        assertThat(search("sorbete")).containsExactly(1L);
+    }
+
+    @Test
+    void writesDuringARebuildAreKept() {
+        index.beginRebuild();
+        index.put(producto(1, "Sorbete de lim\u00f3n", TipoProducto.POSTRE));
+        index.remove(2L);
+        index.completeRebuild(
+            List.of(
+                ProductoSearchIndex.analyze(producto(1, "Tarta de lim\u00f3n", TipoProducto.POSTRE)),
+                ProductoSearchIndex.analyze(producto(2, "Limonada", TipoProducto.BEBIDA))
+            )
+        );
+
+        assertThat(search("sorbete")).containsExactly(1L);
+        assertThat(search("tarta")).isEmpty();
+        assertThat(search("limonada")).isEmpty();
+    }
+
+    @Test
+    void editDistanceCountsTranspositionsAsOneEdit() {
+        assertThat(ProductoSearchIndex.editDistance("tatra", "tarta", 1)).isEqualTo(1);
+        assertThat(ProductoSearchIndex.editDistance("flan", "flan", 0)).isZero();
+        assertThat(ProductoSearchIndex.editDistance("chocolate", "chocolat", 2)).isEqualTo(1);
+        assertThat(ProductoSearchIndex.editDistance("croqueta", "limonada", 2)).isEqualTo(3);
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, Pageable.unpaged()).getContent();
+    }
+
+    private static ProductoDTO producto(long id, String nombreProducto, TipoProducto tipoproducto) {
+        ProductoDTO productoDTO = new ProductoDTO();
+        productoDTO.setId(id);
+        productoDTO.setNombreProducto(nombreProducto);
+        productoDTO.setTipoproducto(tipoproducto);
+        return productoDTO;
+    }
+}
@@ -0,0 +1,79 @@
+package es.yuliq.service.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Long> ventas = new HashMap<>();
+        ventas.put("Tarta de lim\u00f3n", 40L);
+        ventas.put("Limonada", 75L);
+        ventas.put("Tarta de chocolate", 90L);
+        ventas.put("Tarta de queso", 12L);
+        ventas.put("Croquetas de jam\u00f3n", 60L);
+        ventas.put("Flan", 0L);
+        trie = SuggestionTrie.of(ventas);
+    }
+
+    @Test
+    void prefixesOfAnyWordAreCompleted() {
+        assertThat(trie.suggest("lim", 10)).containsExactly("Limonada", "Tarta de lim\u00f3n");
+        assertThat(trie.suggest("jam", 10)).containsExactly("Croquetas de jam\u00f3n");
+        assertThat(trie.suggest("tarta de q", 10)).containsExactly("Tarta de queso");
+    }
+
+    @Test
+    void bestSellersComeFirst() {
+        assertThat(trie.suggest("tarta", 10)).containsExactly("Tarta de chocolate", "Tarta de lim\u00f3n", "Tarta de queso");
+        assertThat(trie.suggest("de", 10))
+            .containsExactly("Tarta de chocolate", "Croquetas de jam\u00f3n", "Tarta de lim\u00f3n", "Tarta de queso");
+    }
+
+    @Test
+    void caseAccentsAndSpacesAreIgnored() {
+        assertThat(trie.suggest("LIM\u00d3N", 10)).containsExactly("Limonada", "Tarta de lim\u00f3n");
+        assertThat(trie.suggest("  tarta   de  l", 10)).containsExactly("Tarta de lim\u00f3n");
+    }
+
+    @Test
+    void prefixesEndingInsideACompressedEdgeMatch() {
+        assertThat(trie.suggest("chocol", 10)).containsExactly("Tarta de chocolate");
+        assertThat(trie.suggest("chocolx", 10)).isEmpty();
+        assertThat(trie.suggest("chocolates", 10)).isEmpty();
+    }
+
+    @Test
+    void sizeIsCapped() {
+        assertThat(trie.suggest("tarta", 2)).containsExactly("Tarta de chocolate", "Tarta de lim\u00f3n");
+        Map<String, Long> ventas = new HashMap<>();
+        for (int i = 0; i < 2 * SuggestionTrie.MAX_SUGGESTIONS; i++) {
+            ventas.put("Postre " + i, (long) i);
+        }
+        assertThat(SuggestionTrie.of(ventas).suggest("postre", 100)).hasSize(SuggestionTrie.MAX_SUGGESTIONS).startsWith("Postre 19");
+    }
+
+    @Test
+    void namesDifferingByCaseOrAccentsAreMerged() {
+        Map<String, Long> ventas = new HashMap<>();
+        ventas.put("Tarta de lim\u00f3n", 40L);
+        ventas.put("tarta de limon", 5L);
+        SuggestionTrie merged = SuggestionTrie.of(ventas);
+
+        assertThat(merged.size()).isEqualTo(1);
+        assertThat(merged.suggest("tarta", 10)).containsExactly("Tarta de lim\u00f3n");
+    }
+
+    @Test
+    void unknownPrefixesHaveNoSuggestions() {
+        assertThat(trie.suggest("pizza", 10)).isEmpty();
+        assertThat(trie.suggest("", 10)).hasSize(6);
+    }
+}
@@ -10,6 +10,8 @@ import es.yuliq.domain.Banner;
 import es.yuliq.repository.BannerRepository;
 import es.yuliq.service.criteria.BannerCriteria;
 import es.yuliq.service.dto.BannerDTO;
+import es.yuliq.service.image.ImageStore;
+import es.yuliq.service.image.StoredImage;
 import es.yuliq.service.mapper.BannerMapper;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -25,7 +27,6 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.Base64Utils;
 
 /**
  * Integration tests for the {@link BannerResource} REST controller.
@@ -37,6 +38,10 @@ class BannerResourceIT {
 
     private static final byte[] DEFAULT_IMAGEN = TestUtil.createByteArray(1, "0");
     private static final byte[] UPDATED_IMAGEN = TestUtil.createByteArray(1, "1");
+    private static final String DEFAULT_IMAGEN_HASH = StoredImage.of(DEFAULT_IMAGEN).getHash();
+    private static final String UPDATED_IMAGEN_HASH = StoredImage.of(UPDATED_IMAGEN).getHash();
+    private static final Long DEFAULT_IMAGEN_SIZE = (long) DEFAULT_IMAGEN.length;
+    private static final Long UPDATED_IMAGEN_SIZE = (long) UPDATED_IMAGEN.length;
     private static final String DEFAULT_IMAGEN_CONTENT_TYPE = "image/jpg";
     private static final String UPDATED_IMAGEN_CONTENT_TYPE = "image/png";
 
@@ -55,6 +60,9 @@ class BannerResourceIT {
     @Autowired
     private BannerMapper bannerMapper;
 
+    @Autowired
+    private ImageStore imageStore;
+
     @Autowired
     private EntityManager em;
 
@@ -71,7 +79,8 @@ class BannerResourceIT {
      */
     public static Banner createEntity(EntityManager em) {
         Banner banner = new Banner()
-            .imagen(DEFAULT_IMAGEN)
+            .imagenHash(DEFAULT_IMAGEN_HASH)
+            .imagenSize(DEFAULT_IMAGEN_SIZE)
             .imagenContentType(DEFAULT_IMAGEN_CONTENT_TYPE)
             .fechaPuesta(DEFAULT_FECHA_PUESTA);
         return banner;
@@ -85,7 +94,8 @@ class BannerResourceIT {
      */
     public static Banner createUpdatedEntity(EntityManager em) {
         Banner banner = new Banner()
-            .imagen(UPDATED_IMAGEN)
+            .imagenHash(UPDATED_IMAGEN_HASH)
+            .imagenSize(UPDATED_IMAGEN_SIZE)
             .imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE)
             .fechaPuesta(UPDATED_FECHA_PUESTA);
         return banner;
@@ -100,8 +110,11 @@ class BannerResourceIT {
     @Transactional
     void createBanner() throws Exception {
         int databaseSizeBeforeCreate = bannerRepository.findAll().size();
-        // Create the Banner
+        // Create the Banner, uploading the image content
         BannerDTO bannerDTO = bannerMapper.toDto(banner);
+        bannerDTO.setImagenHash(null);
+        bannerDTO.setImagenSize(null);
+        bannerDTO.setImagen(DEFAULT_IMAGEN);
         restBannerMockMvc
             .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(bannerDTO)))
             .andExpect(status().isCreated());
@@ -110,7 +123,9 @@ class BannerResourceIT {
         List<Banner> bannerList = bannerRepository.findAll();
         assertThat(bannerList).hasSize(databaseSizeBeforeCreate + 1);
         Banner testBanner = bannerList.get(bannerList.size() - 1);
-        assertThat(testBanner.getImagen()).isEqualTo(DEFAULT_IMAGEN);
+        assertThat(testBanner.getImagenHash()).isEqualTo(DEFAULT_IMAGEN_HASH);
+        assertThat(testBanner.getImagenSize()).isEqualTo(DEFAULT_IMAGEN_SIZE);
+        assertThat(imageStore.exists(DEFAULT_IMAGEN_HASH)).isTrue();
         assertThat(testBanner.getImagenContentType()).isEqualTo(DEFAULT_IMAGEN_CONTENT_TYPE);
         assertThat(testBanner.getFechaPuesta()).isEqualTo(DEFAULT_FECHA_PUESTA);
     }
@@ -165,7 +180,8 @@ class BannerResourceIT {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(banner.getId().intValue())))
             .andExpect(jsonPath("$.[*].imagenContentType").value(hasItem(DEFAULT_IMAGEN_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].imagen").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGEN))))
+            .andExpect(jsonPath("$.[*].imagenHash").value(hasItem(DEFAULT_IMAGEN_HASH)))
+            .andExpect(jsonPath("$.[*].imagenSize").value(hasItem(DEFAULT_IMAGEN_SIZE.intValue())))
             .andExpect(jsonPath("$.[*].fechaPuesta").value(hasItem(DEFAULT_FECHA_PUESTA.toString())));
     }
 
@@ -182,7 +198,9 @@ class BannerResourceIT {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.id").value(banner.getId().intValue()))
             .andExpect(jsonPath("$.imagenContentType").value(DEFAULT_IMAGEN_CONTENT_TYPE))
-            .andExpect(jsonPath("$.imagen").value(Base64Utils.encodeToString(DEFAULT_IMAGEN)))
+            .andExpect(jsonPath("$.imagenHash").value(DEFAULT_IMAGEN_HASH))
+            .andExpect(jsonPath("$.imagenSize").value(DEFAULT_IMAGEN_SIZE.intValue()))
+            .andExpect(jsonPath("$.imagen").doesNotExist())
             .andExpect(jsonPath("$.fechaPuesta").value(DEFAULT_FECHA_PUESTA.toString()));
     }
 
@@ -266,7 +284,8 @@ class BannerResourceIT {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(banner.getId().intValue())))
             .andExpect(jsonPath("$.[*].imagenContentType").value(hasItem(DEFAULT_IMAGEN_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].imagen").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGEN))))
+            .andExpect(jsonPath("$.[*].imagenHash").value(hasItem(DEFAULT_IMAGEN_HASH)))
+            .andExpect(jsonPath("$.[*].imagenSize").value(hasItem(DEFAULT_IMAGEN_SIZE.intValue())))
             .andExpect(jsonPath("$.[*].fechaPuesta").value(hasItem(DEFAULT_FECHA_PUESTA.toString())));
 
         // Check, that the count call also returns 1
@@ -315,8 +334,15 @@ class BannerResourceIT {
         Banner updatedBanner = bannerRepository.findById(banner.getId()).get();
         // Disconnect from session so that the updates on updatedBanner are not directly saved in db
         em.detach(updatedBanner);
-        updatedBanner.imagen(UPDATED_IMAGEN).imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE).fechaPuesta(UPDATED_FECHA_PUESTA);
+        updatedBanner
+            .imagenHash(UPDATED_IMAGEN_HASH)
+            .imagenSize(UPDATED_IMAGEN_SIZE)
+            .imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE)
+            .fechaPuesta(UPDATED_FECHA_PUESTA);
         BannerDTO bannerDTO = bannerMapper.toDto(updatedBanner);
+        bannerDTO.setImagenHash(null);
+        bannerDTO.setImagenSize(null);
+        bannerDTO.setImagen(UPDATED_IMAGEN);
 
         restBannerMockMvc
             .perform(
@@ -330,7 +356,9 @@ class BannerResourceIT {
         List<Banner> bannerList = bannerRepository.findAll();
         assertThat(bannerList).hasSize(databaseSizeBeforeUpdate);
         Banner testBanner = bannerList.get(bannerList.size() - 1);
-        assertThat(testBanner.getImagen()).isEqualTo(UPDATED_IMAGEN);
+        assertThat(testBanner.getImagenHash()).isEqualTo(UPDATED_IMAGEN_HASH);
+        assertThat(testBanner.getImagenSize()).isEqualTo(UPDATED_IMAGEN_SIZE);
+        assertThat(imageStore.exists(UPDATED_IMAGEN_HASH)).isTrue();
         assertThat(testBanner.getImagenContentType()).isEqualTo(UPDATED_IMAGEN_CONTENT_TYPE);
         assertThat(testBanner.getFechaPuesta()).isEqualTo(UPDATED_FECHA_PUESTA);
     }
@@ -424,7 +452,8 @@ class BannerResourceIT {
         List<Banner> bannerList = bannerRepository.findAll();
         assertThat(bannerList).hasSize(databaseSizeBeforeUpdate);
         Banner testBanner = bannerList.get(bannerList.size() - 1);
-        assertThat(testBanner.getImagen()).isEqualTo(DEFAULT_IMAGEN);
+        assertThat(testBanner.getImagenHash()).isEqualTo(DEFAULT_IMAGEN_HASH);
+        assertThat(testBanner.getImagenSize()).isEqualTo(DEFAULT_IMAGEN_SIZE);
         assertThat(testBanner.getImagenContentType()).isEqualTo(DEFAULT_IMAGEN_CONTENT_TYPE);
         assertThat(testBanner.getFechaPuesta()).isEqualTo(DEFAULT_FECHA_PUESTA);
     }
@@ -441,7 +470,11 @@ class BannerResourceIT {
         Banner partialUpdatedBanner = new Banner();
         partialUpdatedBanner.setId(banner.getId());
 
-        partialUpdatedBanner.imagen(UPDATED_IMAGEN).imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE).fechaPuesta(UPDATED_FECHA_PUESTA);
+        partialUpdatedBanner
+            .imagenHash(UPDATED_IMAGEN_HASH)
+            .imagenSize(UPDATED_IMAGEN_SIZE)
+            .imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE)
+            .fechaPuesta(UPDATED_FECHA_PUESTA);
 
         restBannerMockMvc
             .perform(
@@ -455,7 +488,8 @@ class BannerResourceIT {
         List<Banner> bannerList = bannerRepository.findAll();
         assertThat(bannerList).hasSize(databaseSizeBeforeUpdate);
         Banner testBanner = bannerList.get(bannerList.size() - 1);
-        assertThat(testBanner.getImagen()).isEqualTo(UPDATED_IMAGEN);
+        assertThat(testBanner.getImagenHash()).isEqualTo(UPDATED_IMAGEN_HASH);
+        assertThat(testBanner.getImagenSize()).isEqualTo(UPDATED_IMAGEN_SIZE);
         assertThat(testBanner.getImagenContentType()).isEqualTo(UPDATED_IMAGEN_CONTENT_TYPE);
         assertThat(testBanner.getFechaPuesta()).isEqualTo(UPDATED_FECHA_PUESTA);
     }
@@ -14,6 +14,8 @@ import es.yuliq.repository.CarritoRepository;
 import es.yuliq.service.CarritoService;
 import es.yuliq.service.criteria.CarritoCriteria;
 import es.yuliq.service.dto.CarritoDTO;
+import es.yuliq.service.dto.CarritoItemDTO;
+import es.yuliq.service.dto.ProductoDTO;
 import es.yuliq.service.mapper.CarritoMapper;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -31,6 +33,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -158,6 +161,27 @@ class CarritoResourceIT {
             .andExpect(jsonPath("$.[*].fechaCarrito").value(hasItem(DEFAULT_FECHA_CARRITO.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllCarritosWithRelationships() throws Exception {
+        // Initialize the database
+        User assignedTo = UserResourceIT.createEntity(em);
+        em.persist(assignedTo);
+        Producto producto = ProductoResourceIT.createEntity(em);
+        em.persist(producto);
+        carrito.setAssignedTo(assignedTo);
+        carrito.addProducto(producto);
+        carritoRepository.saveAndFlush(carrito);
+
+        // Get all the carritoList, with the login of the user and the ids of the productos
+        restCarritoMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&id.equals=" + carrito.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].assignedTo.id").value(assignedTo.getId().intValue()))
+            .andExpect(jsonPath("$.[0].assignedTo.login").value(assignedTo.getLogin()))
+            .andExpect(jsonPath("$.[0].productos.[*].id").value(hasItem(producto.getId().intValue())));
+    }
+
     @SuppressWarnings({ "unchecked" })
     void getAllCarritosWithEagerRelationshipsIsEnabled() throws Exception {
         when(carritoServiceMock.findAllWithEagerRelationships(any())).thenReturn(new PageImpl(new ArrayList<>()));
@@ -481,6 +505,41 @@ class CarritoResourceIT {
         assertThat(testCarrito.getFechaCarrito()).isEqualTo(UPDATED_FECHA_CARRITO);
     }
 
+    @Test
+    @Transactional
+    void putCarritoWithItsProductos() throws Exception {
+        // Initialize the database
+        carritoRepository.saveAndFlush(carrito);
+        Producto producto = ProductoResourceIT.createEntity(em);
+        em.persist(producto);
+        em.flush();
+
+        // Update the fields and the productos of the carrito at once
+        Carrito updatedCarrito = carritoRepository.findById(carrito.getId()).get();
+        em.detach(updatedCarrito);
+        updatedCarrito.cantidad(UPDATED_CANTIDAD).fechaCarrito(UPDATED_FECHA_CARRITO);
+        CarritoDTO carritoDTO = carritoMapper.toDto(updatedCarrito);
+        ProductoDTO productoDTO = new ProductoDTO();
+        productoDTO.setId(producto.getId());
+        carritoDTO.getProductos().add(productoDTO);
+
+        restCarritoMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, carritoDTO.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(carritoDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cantidad").value(UPDATED_CANTIDAD))
+            .andExpect(jsonPath("$.productos[*].id").value(hasItem(producto.getId().intValue())));
+
+        // Validate the Carrito in the database
+        Carrito testCarrito = carritoRepository.findOneWithEagerRelationships(carrito.getId()).get();
+        assertThat(testCarrito.getCantidad()).isEqualTo(UPDATED_CANTIDAD);
+        assertThat(testCarrito.getFechaCarrito()).isEqualTo(UPDATED_FECHA_CARRITO);
+        assertThat(testCarrito.getProductos()).containsExactly(producto);
+    }
+
     @Test
     @Transactional
     void putNonExistingCarrito() throws Exception {
@@ -690,4 +749,125 @@ class CarritoResourceIT {
         List<Carrito> carritoList = carritoRepository.findAll();
         assertThat(carritoList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void putAndDeleteCarritoItems() throws Exception {
+        carritoRepository.saveAndFlush(carrito);
+        Producto producto = ProductoResourceIT.createEntity(em);
+        em.persist(producto);
+        em.flush();
+        double precio = producto.getPrecio();
+
+        restCarritoMockMvc
+            .perform(
+                post(ENTITY_API_URL_ID + "/items", carrito.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(producto.getId(), 3)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+            .andExpect(jsonPath("$.items.[*].productoId").value(hasItem(producto.getId().intValue())))
+            .andExpect(jsonPath("$.unidades").value(3))
+            .andExpect(jsonPath("$.total").value(3 * precio));
+
+        // Putting the producto again replaces its number of units
+        restCarritoMockMvc
+            .perform(
+                post(ENTITY_API_URL_ID + "/items", carrito.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(producto.getId(), 1)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.length()").value(1))
+            .andExpect(jsonPath("$.unidades").value(1));
+
+        restCarritoMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/items", carrito.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items.[0].cantidad").value(1));
+
+        restCarritoMockMvc
+            .perform(delete(ENTITY_API_URL_ID + "/items/{productoId}", carrito.getId(), producto.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+            .andExpect(jsonPath("$.items").isEmpty())
+            .andExpect(jsonPath("$.unidades").value(0));
+    }
+
+    @Test
+    @Transactional
+    void putCarritoItemOfMissingProductoOrCarrito() throws Exception {
+        carritoRepository.saveAndFlush(carrito);
+        Producto producto = ProductoResourceIT.createEntity(em);
+        em.persist(producto);
+        em.flush();
+
+        restCarritoMockMvc
+            .perform(
+                post(ENTITY_API_URL_ID + "/items", carrito.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(Long.MAX_VALUE, 1)))
+            )
+            .andExpect(status().isBadRequest());
+
+        restCarritoMockMvc
+            .perform(
+                post(ENTITY_API_URL_ID + "/items", carrito.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(producto.getId(), 0)))
+            )
+            .andExpect(status().isBadRequest());
+
+        restCarritoMockMvc
+            .perform(
+                post(ENTITY_API_URL_ID + "/items", Long.MAX_VALUE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(producto.getId(), 1)))
+            )
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void putCarritoItemOnAnOlderVersion() throws Exception {
+        carritoRepository.saveAndFlush(carrito);
+        Producto tarta = ProductoResourceIT.createEntity(em);
+        em.persist(tarta);
+        Producto flan = ProductoResourceIT.createEntity(em);
+        em.persist(flan);
+        em.flush();
+
+        restCarritoMockMvc
+            .perform(
+                post(ENTITY_API_URL_ID + "/items", carrito.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(tarta.getId(), 1)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        // Made on version 0, before tarta was added: merged, as it changes another line
+        restCarritoMockMvc
+            .perform(
+                post(ENTITY_API_URL_ID + "/items", carrito.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"0\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(flan.getId(), 2)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+            .andExpect(jsonPath("$.unidades").value(3));
+
+        restCarritoMockMvc
+            .perform(
+                delete(ENTITY_API_URL_ID + "/items/{productoId}", carrito.getId(), tarta.getId()).header(HttpHeaders.IF_MATCH, "\"0\"")
+            )
+            .andExpect(status().isConflict());
+
+        // The entity tag of the carrito is the one of the store, ahead of the database
+        restCarritoMockMvc
+            .perform(get(ENTITY_API_URL_ID, carrito.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+            .andExpect(status().isNotModified());
+    }
 }
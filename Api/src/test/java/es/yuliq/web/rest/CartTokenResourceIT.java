@@ -0,0 +1,121 @@
+package es.yuliq.web.rest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.config.ApplicationProperties;
+import es.yuliq.security.CartTokenProvider;
+import es.yuliq.service.dto.CarritoItemDTO;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for the {@link CartTokenResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+class CartTokenResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/cart-token/items";
+
+    @Autowired
+    private CartTokenProvider cartTokenProvider;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MockMvc restCartTokenMockMvc;
+
+    @Test
+    void getItemsOfMissingOrInvalidToken() throws Exception {
+        restCartTokenMockMvc.perform(get(ENTITY_API_URL)).andExpect(status().isOk()).andExpect(jsonPath("$").isEmpty());
+
+        restCartTokenMockMvc
+            .perform(get(ENTITY_API_URL).header(CartTokenProvider.HEADER, "invalid.token"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void putAndDeleteItems() throws Exception {
+        String token = restCartTokenMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(5L, 2)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().exists(CartTokenProvider.HEADER))
+            .andExpect(cookie().httpOnly(CartTokenProvider.COOKIE, true))
+            .andExpect(jsonPath("$.[0].productoId").value(5))
+            .andExpect(jsonPath("$.[0].cantidad").value(2))
+            .andReturn()
+            .getResponse()
+            .getHeader(CartTokenProvider.HEADER);
+
+        // The cookie carries the same cart as the header
+        token = restCartTokenMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .cookie(new Cookie(CartTokenProvider.COOKIE, token))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(3L, 1)))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].productoId").value(3))
+            .andReturn()
+            .getResponse()
+            .getHeader(CartTokenProvider.HEADER);
+
+        token = restCartTokenMockMvc
+            .perform(delete(ENTITY_API_URL + "/{productoId}", 5L).header(CartTokenProvider.HEADER, token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andReturn()
+            .getResponse()
+            .getHeader(CartTokenProvider.HEADER);
+
+        restCartTokenMockMvc
+            .perform(get(ENTITY_API_URL).header(CartTokenProvider.HEADER, token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].productoId").value(3))
+            .andExpect(jsonPath("$.[0].cantidad").value(1));
+    }
+
+    @Test
+    void putItemInFullCart() throws Exception {
+        Map<Long, Integer> items = new HashMap<>();
+        for (long productoId = 1; productoId <= applicationProperties.getCartToken().getMaxItems(); productoId++) {
+            items.put(productoId, 1);
+        }
+        String token = cartTokenProvider.createToken(items);
+
+        restCartTokenMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(CartTokenProvider.HEADER, token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(Long.MAX_VALUE, 1)))
+            )
+            .andExpect(status().isBadRequest());
+
+        // Changing a producto already in the cart is still allowed
+        restCartTokenMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .header(CartTokenProvider.HEADER, token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(new CarritoItemDTO(1L, 4)))
+            )
+            .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,146 @@
+package es.yuliq.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Compra;
+import es.yuliq.domain.Factura;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.User;
+import es.yuliq.service.CarritoItemService;
+import es.yuliq.service.cart.CartContents;
+import es.yuliq.service.cart.CartStore;
+import es.yuliq.service.dto.CarritoItemDTO;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link CheckoutResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser(CheckoutResourceIT.LOGIN)
+@Transactional
+class CheckoutResourceIT {
+
+    static final String LOGIN = "checkout-resource";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc restCheckoutMockMvc;
+
+    @Autowired
+    private CarritoItemService carritoItemService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    private User user;
+
+    private Carrito carrito;
+
+    private Producto tarta;
+
+    private Producto flan;
+
+    @BeforeEach
+    void initTest() {
+        user = UserResourceIT.createEntity(em);
+        user.setLogin(LOGIN);
+        em.persist(user);
+        carrito = CarritoResourceIT.createEntity(em).assignedTo(user);
+        em.persist(carrito);
+        tarta = ProductoResourceIT.createEntity(em).precio(2.5F).existencias(10);
+        em.persist(tarta);
+        flan = ProductoResourceIT.createEntity(em).precio(4F).existencias(3);
+        em.persist(flan);
+        em.flush();
+    }
+
+    @Test
+    void checkout() throws Exception {
+        carritoItemService.putItem(carrito.getId(), new CarritoItemDTO(tarta.getId(), 2), null);
+        carritoItemService.putItem(carrito.getId(), new CarritoItemDTO(flan.getId(), 3), null);
+
+        restCheckoutMockMvc
+            .perform(post("/api/checkout"))
+            .andExpect(status().isCreated())
+            .andExpect(header().exists("Location"))
+            .andExpect(jsonPath("$.cantidadPagada").value(17))
+            .andExpect(jsonPath("$.assignedTo.login").value(LOGIN));
+
+        // Linked to its compras in the session the checkout ran in
+        Factura factura = em
+            .createQuery("select factura from Factura factura where factura.assignedTo.id = :user", Factura.class)
+            .setParameter("user", user.getId())
+            .getSingleResult();
+        assertThat(factura.getCompras())
+            .extracting(compra -> compra.getProducto().getId(), Compra::getCantidadComprada, Compra::getPrecioPagado)
+            .containsExactlyInAnyOrder(tuple(tarta.getId(), 2, 5F), tuple(flan.getId(), 3, 12F));
+        em.clear();
+        Factura reloaded = em.find(Factura.class, factura.getId());
+        assertThat(reloaded.getCompras())
+            .extracting(compra -> compra.getProducto().getId(), Compra::getCantidadComprada, Compra::getPrecioPagado)
+            .containsExactlyInAnyOrder(tuple(tarta.getId(), 2, 5F), tuple(flan.getId(), 3, 12F));
+        assertThat(existencias(tarta)).isEqualTo(8);
+        assertThat(existencias(flan)).isZero();
+        assertThat(cartStore.get(carrito.getId())).map(CartContents::getItems).hasValueSatisfying(items -> assertThat(items).isEmpty());
+        assertThat(lineCount()).isZero();
+    }
+
+    @Test
+    void checkoutOutOfStock() throws Exception {
+        carritoItemService.putItem(carrito.getId(), new CarritoItemDTO(tarta.getId(), 2), null);
+        carritoItemService.putItem(carrito.getId(), new CarritoItemDTO(flan.getId(), 4), null);
+
+        restCheckoutMockMvc
+            .perform(post("/api/checkout"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.outofstock"));
+
+        assertThat(existencias(tarta)).isEqualTo(10);
+        assertThat(existencias(flan)).isEqualTo(3);
+        assertThat(cartStore.get(carrito.getId())).map(contents -> contents.getItems().size()).contains(2);
+    }
+
+    @Test
+    void checkoutEmptyCarrito() throws Exception {
+        restCheckoutMockMvc
+            .perform(post("/api/checkout"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.emptycarrito"));
+    }
+
+    @Test
+    @WithUnauthenticatedMockUser
+    void checkoutUnauthenticated() throws Exception {
+        restCheckoutMockMvc.perform(post("/api/checkout")).andExpect(status().isUnauthorized());
+    }
+
+    private int existencias(Producto producto) {
+        return jdbcTemplate.queryForObject("select existencias from producto where id = ?", Integer.class, producto.getId());
+    }
+
+    private int lineCount() {
+        String sql = "select count(*) from rel_carrito__producto where carrito_id = ?";
+        return jdbcTemplate.queryForObject(sql, Integer.class, carrito.getId());
+    }
+}
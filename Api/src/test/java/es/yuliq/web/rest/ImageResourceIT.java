@@ -0,0 +1,160 @@
+package es.yuliq.web.rest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Producto;
+import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.image.ImageStore;
+import es.yuliq.service.image.StoredImage;
+import java.util.Arrays;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link ImageResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class ImageResourceIT {
+
+    // PNG signature followed by a few bytes
+    private static final byte[] IMAGE = new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4, 5, 6, 7, 8 };
+
+    private static final String IMAGE_API_URL = "/api/images/{hash}";
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restImageMockMvc;
+
+    private StoredImage image;
+
+    @BeforeEach
+    public void initTest() {
+        image = imageStore.store(IMAGE);
+    }
+
+    @Test
+    void getImage() throws Exception {
+        restImageMockMvc
+            .perform(get(IMAGE_API_URL, image.getHash()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/png"))
+            .andExpect(content().bytes(IMAGE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + image.getHash() + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+    }
+
+    @Test
+    void getImageIfNoneMatch() throws Exception {
+        restImageMockMvc
+            .perform(get(IMAGE_API_URL, image.getHash()).header(HttpHeaders.IF_NONE_MATCH, "\"" + image.getHash() + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getImageRange() throws Exception {
+        restImageMockMvc
+            .perform(get(IMAGE_API_URL, image.getHash()).header(HttpHeaders.RANGE, "bytes=8-11"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-11/" + IMAGE.length))
+            .andExpect(content().bytes(Arrays.copyOfRange(IMAGE, 8, 12)));
+    }
+
+    @Test
+    void getImageRangeWithStaleIfRange() throws Exception {
+        restImageMockMvc
+            .perform(get(IMAGE_API_URL, image.getHash()).header(HttpHeaders.RANGE, "bytes=8-11").header(HttpHeaders.IF_RANGE, "\"stale\""))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void getImageUnsatisfiableRange() throws Exception {
+        restImageMockMvc
+            .perform(get(IMAGE_API_URL, image.getHash()).header(HttpHeaders.RANGE, "bytes=100-200"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + IMAGE.length));
+    }
+
+    @Test
+    void getImageMalformedRange() throws Exception {
+        // Ignored, so the whole image is sent
+        for (String range : new String[] { "bytes=eight-11", "bytes=11-8", "lines=1-2" }) {
+            restImageMockMvc
+                .perform(get(IMAGE_API_URL, image.getHash()).header(HttpHeaders.RANGE, range))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(IMAGE));
+        }
+    }
+
+    @Test
+    void getNonExistingImage() throws Exception {
+        restImageMockMvc.perform(get(IMAGE_API_URL, StoredImage.of(new byte[] { 42 }).getHash())).andExpect(status().isNotFound());
+        restImageMockMvc.perform(get(IMAGE_API_URL, "..")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getImageVariantNotGeneratedYet() throws Exception {
+        restImageMockMvc
+            .perform(get(IMAGE_API_URL + "/thumbnail", image.getHash()))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(IMAGE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + image.getHash() + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void getUnknownImageVariant() throws Exception {
+        restImageMockMvc.perform(get(IMAGE_API_URL + "/poster", image.getHash())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getProductoImagen() throws Exception {
+        Producto producto = ProductoResourceIT
+            .createEntity(em)
+            .imagenHash(image.getHash())
+            .imagenSize(image.getSize())
+            .imagenContentType("image/x-test");
+        productoRepository.saveAndFlush(producto);
+
+        restImageMockMvc
+            .perform(get("/api/productos/{id}/imagen", producto.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/x-test"))
+            .andExpect(content().bytes(IMAGE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + image.getHash() + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    @Transactional
+    void getProductoWithoutImagen() throws Exception {
+        Producto producto = ProductoResourceIT.createEntity(em).imagenHash(null).imagenSize(null);
+        productoRepository.saveAndFlush(producto);
+
+        restImageMockMvc.perform(get("/api/productos/{id}/imagen", producto.getId())).andExpect(status().isNotFound());
+    }
+}
@@ -1,7 +1,9 @@
 package es.yuliq.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -11,22 +13,30 @@ import es.yuliq.domain.Compra;
 import es.yuliq.domain.Producto;
 import es.yuliq.domain.enumeration.TipoProducto;
 import es.yuliq.repository.ProductoRepository;
+import es.yuliq.service.ProductoService;
 import es.yuliq.service.criteria.ProductoCriteria;
 import es.yuliq.service.dto.ProductoDTO;
+import es.yuliq.service.image.ImageStore;
+import es.yuliq.service.image.StoredImage;
 import es.yuliq.service.mapper.ProductoMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.Base64Utils;
 
 /**
  * Integration tests for the {@link ProductoResource} REST controller.
@@ -45,6 +55,10 @@ class ProductoResourceIT {
 
     private static final byte[] DEFAULT_IMAGEN = TestUtil.createByteArray(1, "0");
     private static final byte[] UPDATED_IMAGEN = TestUtil.createByteArray(1, "1");
+    private static final String DEFAULT_IMAGEN_HASH = StoredImage.of(DEFAULT_IMAGEN).getHash();
+    private static final String UPDATED_IMAGEN_HASH = StoredImage.of(UPDATED_IMAGEN).getHash();
+    private static final Long DEFAULT_IMAGEN_SIZE = (long) DEFAULT_IMAGEN.length;
+    private static final Long UPDATED_IMAGEN_SIZE = (long) UPDATED_IMAGEN.length;
     private static final String DEFAULT_IMAGEN_CONTENT_TYPE = "image/jpg";
     private static final String UPDATED_IMAGEN_CONTENT_TYPE = "image/png";
 
@@ -71,6 +85,12 @@ class ProductoResourceIT {
     @Autowired
     private ProductoMapper productoMapper;
 
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ImageStore imageStore;
+
     @Autowired
     private EntityManager em;
 
@@ -89,7 +109,8 @@ class ProductoResourceIT {
         Producto producto = new Producto()
             .nombreProducto(DEFAULT_NOMBRE_PRODUCTO)
             .calorias(DEFAULT_CALORIAS)
-            .imagen(DEFAULT_IMAGEN)
+            .imagenHash(DEFAULT_IMAGEN_HASH)
+            .imagenSize(DEFAULT_IMAGEN_SIZE)
             .imagenContentType(DEFAULT_IMAGEN_CONTENT_TYPE)
             .precio(DEFAULT_PRECIO)
             .existencias(DEFAULT_EXISTENCIAS)
@@ -107,7 +128,8 @@ class ProductoResourceIT {
         Producto producto = new Producto()
             .nombreProducto(UPDATED_NOMBRE_PRODUCTO)
             .calorias(UPDATED_CALORIAS)
-            .imagen(UPDATED_IMAGEN)
+            .imagenHash(UPDATED_IMAGEN_HASH)
+            .imagenSize(UPDATED_IMAGEN_SIZE)
             .imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE)
             .precio(UPDATED_PRECIO)
             .existencias(UPDATED_EXISTENCIAS)
@@ -124,8 +146,11 @@ class ProductoResourceIT {
     @Transactional
     void createProducto() throws Exception {
         int databaseSizeBeforeCreate = productoRepository.findAll().size();
-        // Create the Producto
+        // Create the Producto, uploading the image content
         ProductoDTO productoDTO = productoMapper.toDto(producto);
+        productoDTO.setImagenHash(null);
+        productoDTO.setImagenSize(null);
+        productoDTO.setImagen(DEFAULT_IMAGEN);
         restProductoMockMvc
             .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(productoDTO)))
             .andExpect(status().isCreated());
@@ -136,7 +161,9 @@ class ProductoResourceIT {
         Producto testProducto = productoList.get(productoList.size() - 1);
         assertThat(testProducto.getNombreProducto()).isEqualTo(DEFAULT_NOMBRE_PRODUCTO);
         assertThat(testProducto.getCalorias()).isEqualTo(DEFAULT_CALORIAS);
-        assertThat(testProducto.getImagen()).isEqualTo(DEFAULT_IMAGEN);
+        assertThat(testProducto.getImagenHash()).isEqualTo(DEFAULT_IMAGEN_HASH);
+        assertThat(testProducto.getImagenSize()).isEqualTo(DEFAULT_IMAGEN_SIZE);
+        assertThat(imageStore.exists(DEFAULT_IMAGEN_HASH)).isTrue();
         assertThat(testProducto.getImagenContentType()).isEqualTo(DEFAULT_IMAGEN_CONTENT_TYPE);
         assertThat(testProducto.getPrecio()).isEqualTo(DEFAULT_PRECIO);
         assertThat(testProducto.getExistencias()).isEqualTo(DEFAULT_EXISTENCIAS);
@@ -231,12 +258,189 @@ class ProductoResourceIT {
             .andExpect(jsonPath("$.[*].nombreProducto").value(hasItem(DEFAULT_NOMBRE_PRODUCTO)))
             .andExpect(jsonPath("$.[*].calorias").value(hasItem(DEFAULT_CALORIAS)))
             .andExpect(jsonPath("$.[*].imagenContentType").value(hasItem(DEFAULT_IMAGEN_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].imagen").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGEN))))
+            .andExpect(jsonPath("$.[*].imagenHash").value(hasItem(DEFAULT_IMAGEN_HASH)))
+            .andExpect(jsonPath("$.[*].imagenSize").value(hasItem(DEFAULT_IMAGEN_SIZE.intValue())))
             .andExpect(jsonPath("$.[*].precio").value(hasItem(DEFAULT_PRECIO.doubleValue())))
             .andExpect(jsonPath("$.[*].existencias").value(hasItem(DEFAULT_EXISTENCIAS)))
             .andExpect(jsonPath("$.[*].tipoproducto").value(hasItem(DEFAULT_TIPOPRODUCTO.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllProductosWithCursor() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+        Producto other = createEntity(em).nombreProducto(UPDATED_NOMBRE_PRODUCTO);
+        productoRepository.saveAndFlush(other);
+        String filter = "&size=1&sort=nombreProducto,asc&sort=id&id.in=" + producto.getId() + "," + other.getId();
+
+        // Get the first page, with a link to the next one
+        MvcResult first = restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "?after=" + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(producto.getId().intValue()))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andReturn();
+        Matcher cursor = Pattern.compile("after=([^&>]+)").matcher(first.getResponse().getHeader(HttpHeaders.LINK));
+        assertThat(cursor.find()).isTrue();
+
+        // Get the last page
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "?after=" + cursor.group(1) + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(other.getId().intValue()))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    void getAllProductosWithInvalidCursor() throws Exception {
+        restProductoMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
+
+        // The cursor must match the sort
+        String cursor = Base64.getUrlEncoder().encodeToString("id|ASC|1|1".getBytes(StandardCharsets.UTF_8));
+        restProductoMockMvc.perform(get(ENTITY_API_URL + "?sort=id,desc&after=" + cursor)).andExpect(status().isBadRequest());
+
+        // Nullable columns cannot be seeked on
+        restProductoMockMvc.perform(get(ENTITY_API_URL + "?sort=calorias,asc&after=")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllProductosWithoutCount() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+        Producto other = createEntity(em);
+        productoRepository.saveAndFlush(other);
+        String filter = "&size=1&sort=id&id.in=" + producto.getId() + "," + other.getId();
+
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "?count=none&page=0" + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(producto.getId().intValue()))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")));
+
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "?count=none&page=1" + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(other.getId().intValue()))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"prev\"")));
+    }
+
+    @Test
+    @Transactional
+    void getAllProductosWithEstimatedCount() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+        productoRepository.saveAndFlush(createEntity(em));
+        String filter = "id.greaterThanOrEqual=" + producto.getId();
+
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "?count=estimated&size=1&sort=id&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(header().string("X-Total-Count-Approximate", "true"));
+
+        // The count of the same criteria is reused until it expires
+        productoRepository.saveAndFlush(createEntity(em));
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "?" + filter + "&size=1&count=estimated"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"));
+
+        // The exact count is the default
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1&sort=id&id.in=" + producto.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(header().doesNotExist("X-Total-Count-Approximate"));
+    }
+
+    @Test
+    @Transactional
+    void getAllProductosWithInvalidCount() throws Exception {
+        restProductoMockMvc.perform(get(ENTITY_API_URL + "?count=sometimes")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void suggestProductosWithInvalidSize() throws Exception {
+        restProductoMockMvc.perform(get(ENTITY_API_URL + "/_suggest?prefix=tar&size=0")).andExpect(status().isBadRequest());
+        restProductoMockMvc.perform(get(ENTITY_API_URL + "/_suggest?prefix=tar&size=-1")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getCatalogFollowsCommittedChanges() throws Exception {
+        // Not transactional, as the catalog snapshot only follows committed changes
+        String catalog = ENTITY_API_URL + "/_catalog?tipoproducto=" + UPDATED_TIPOPRODUCTO + "&size=2000";
+        restProductoMockMvc.perform(get(catalog)).andExpect(status().isOk());
+
+        ProductoDTO saved = productoService.save(productoMapper.toDto(producto.tipoproducto(UPDATED_TIPOPRODUCTO)));
+        try {
+            restProductoMockMvc
+                .perform(get(catalog))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.[?(@.id == " + saved.getId() + ")].nombreProducto").value(DEFAULT_NOMBRE_PRODUCTO));
+
+            ProductoDTO update = new ProductoDTO();
+            update.setId(saved.getId());
+            update.setNombreProducto(UPDATED_NOMBRE_PRODUCTO);
+            productoService.partialUpdate(update);
+            restProductoMockMvc
+                .perform(get(catalog))
+                .andExpect(jsonPath("$.[?(@.id == " + saved.getId() + ")].nombreProducto").value(UPDATED_NOMBRE_PRODUCTO));
+
+            // Pages of the default size are precompressed
+            restProductoMockMvc
+                .perform(get(ENTITY_API_URL + "/_catalog").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().exists("X-Total-Count"));
+        } finally {
+            productoService.delete(saved.getId());
+        }
+        restProductoMockMvc.perform(get(catalog)).andExpect(jsonPath("$.[*].id").value(not(hasItem(saved.getId().intValue()))));
+    }
+
+    @Test
+    void getAllProductosUnfilteredFromTheCatalog() throws Exception {
+        // Not transactional, as the catalog snapshot only follows committed changes
+        ProductoDTO saved = productoService.save(productoMapper.toDto(producto));
+        try {
+            restProductoMockMvc
+                .perform(get(ENTITY_API_URL + "?size=2000"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().exists("X-Total-Count"))
+                .andExpect(jsonPath("$.[?(@.id == " + saved.getId() + ")].nombreProducto").value(DEFAULT_NOMBRE_PRODUCTO));
+
+            // In id order too when asked for, and gzipped at the default size
+            restProductoMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=id,asc").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+
+            // Any other order is read from the database
+            restProductoMockMvc
+                .perform(get(ENTITY_API_URL + "?sort=id,desc").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        } finally {
+            productoService.delete(saved.getId());
+        }
+    }
+
     @Test
     @Transactional
     void getProducto() throws Exception {
@@ -252,12 +456,92 @@ class ProductoResourceIT {
             .andExpect(jsonPath("$.nombreProducto").value(DEFAULT_NOMBRE_PRODUCTO))
             .andExpect(jsonPath("$.calorias").value(DEFAULT_CALORIAS))
             .andExpect(jsonPath("$.imagenContentType").value(DEFAULT_IMAGEN_CONTENT_TYPE))
-            .andExpect(jsonPath("$.imagen").value(Base64Utils.encodeToString(DEFAULT_IMAGEN)))
+            .andExpect(jsonPath("$.imagenHash").value(DEFAULT_IMAGEN_HASH))
+            .andExpect(jsonPath("$.imagenSize").value(DEFAULT_IMAGEN_SIZE.intValue()))
+            .andExpect(jsonPath("$.imagen").doesNotExist())
             .andExpect(jsonPath("$.precio").value(DEFAULT_PRECIO.doubleValue()))
             .andExpect(jsonPath("$.existencias").value(DEFAULT_EXISTENCIAS))
             .andExpect(jsonPath("$.tipoproducto").value(DEFAULT_TIPOPRODUCTO.toString()));
     }
 
+    @Test
+    @Transactional
+    void getProductoWithIfNoneMatch() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+        String entityTag = "\"" + producto.getVersion() + "\"";
+
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL_ID, producto.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag));
+
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL_ID, producto.getId()).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(content().string(""));
+
+        // Any update gives a new version
+        producto.setPrecio(UPDATED_PRECIO);
+        productoRepository.saveAndFlush(producto);
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL_ID, producto.getId()).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + producto.getVersion() + "\""));
+    }
+
+    @Test
+    @Transactional
+    void getProductoFacets() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+        Producto other = createEntity(em).precio(7F).calorias(null).existencias(0).tipoproducto(TipoProducto.POSTRE);
+        productoRepository.saveAndFlush(other);
+        String filter = "id.greaterThanOrEqual=" + producto.getId();
+
+        restProductoMockMvc
+            .perform(get(ENTITY_API_URL + "/_facets?precioInterval=5&" + filter))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.tipoproducto.ENTRANTE").value(1))
+            .andExpect(jsonPath("$.tipoproducto.POSTRE").value(1))
+            .andExpect(jsonPath("$.tipoproducto.BEBIDA").value(0))
+            .andExpect(jsonPath("$.precio.length()").value(2))
+            .andExpect(jsonPath("$.precio.[0].from").value(5.0))
+            .andExpect(jsonPath("$.precio.[0].to").value(10.0))
+            .andExpect(jsonPath("$.precio.[1].from").value(200.0))
+            .andExpect(jsonPath("$.precio.[1].count").value(1))
+            .andExpect(jsonPath("$.calorias.length()").value(1))
+            .andExpect(jsonPath("$.calorias.[0].from").value(1000.0))
+            .andExpect(jsonPath("$.inStock").value(1))
+            .andExpect(jsonPath("$.outOfStock").value(1));
+
+        restProductoMockMvc.perform(get(ENTITY_API_URL + "/_facets?precioInterval=0")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllProductosWithIfNoneMatch() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+        String url = ENTITY_API_URL + "?sort=id&id.equals=" + producto.getId();
+
+        String entityTag = restProductoMockMvc
+            .perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restProductoMockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, entityTag)).andExpect(status().isNotModified());
+
+        // The tag of the list follows the versions of its productos
+        producto.setPrecio(UPDATED_PRECIO);
+        productoRepository.saveAndFlush(producto);
+        restProductoMockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, entityTag)).andExpect(status().isOk());
+    }
+
     @Test
     @Transactional
     void getProductosByIdFiltering() throws Exception {
@@ -768,7 +1052,8 @@ class ProductoResourceIT {
             .andExpect(jsonPath("$.[*].nombreProducto").value(hasItem(DEFAULT_NOMBRE_PRODUCTO)))
             .andExpect(jsonPath("$.[*].calorias").value(hasItem(DEFAULT_CALORIAS)))
             .andExpect(jsonPath("$.[*].imagenContentType").value(hasItem(DEFAULT_IMAGEN_CONTENT_TYPE)))
-            .andExpect(jsonPath("$.[*].imagen").value(hasItem(Base64Utils.encodeToString(DEFAULT_IMAGEN))))
+            .andExpect(jsonPath("$.[*].imagenHash").value(hasItem(DEFAULT_IMAGEN_HASH)))
+            .andExpect(jsonPath("$.[*].imagenSize").value(hasItem(DEFAULT_IMAGEN_SIZE.intValue())))
             .andExpect(jsonPath("$.[*].precio").value(hasItem(DEFAULT_PRECIO.doubleValue())))
             .andExpect(jsonPath("$.[*].existencias").value(hasItem(DEFAULT_EXISTENCIAS)))
             .andExpect(jsonPath("$.[*].tipoproducto").value(hasItem(DEFAULT_TIPOPRODUCTO.toString())));
@@ -822,12 +1107,16 @@ class ProductoResourceIT {
         updatedProducto
             .nombreProducto(UPDATED_NOMBRE_PRODUCTO)
             .calorias(UPDATED_CALORIAS)
-            .imagen(UPDATED_IMAGEN)
+            .imagenHash(UPDATED_IMAGEN_HASH)
+            .imagenSize(UPDATED_IMAGEN_SIZE)
             .imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE)
             .precio(UPDATED_PRECIO)
             .existencias(UPDATED_EXISTENCIAS)
             .tipoproducto(UPDATED_TIPOPRODUCTO);
         ProductoDTO productoDTO = productoMapper.toDto(updatedProducto);
+        productoDTO.setImagenHash(null);
+        productoDTO.setImagenSize(null);
+        productoDTO.setImagen(UPDATED_IMAGEN);
 
         restProductoMockMvc
             .perform(
@@ -843,7 +1132,9 @@ class ProductoResourceIT {
         Producto testProducto = productoList.get(productoList.size() - 1);
         assertThat(testProducto.getNombreProducto()).isEqualTo(UPDATED_NOMBRE_PRODUCTO);
         assertThat(testProducto.getCalorias()).isEqualTo(UPDATED_CALORIAS);
-        assertThat(testProducto.getImagen()).isEqualTo(UPDATED_IMAGEN);
+        assertThat(testProducto.getImagenHash()).isEqualTo(UPDATED_IMAGEN_HASH);
+        assertThat(testProducto.getImagenSize()).isEqualTo(UPDATED_IMAGEN_SIZE);
+        assertThat(imageStore.exists(UPDATED_IMAGEN_HASH)).isTrue();
         assertThat(testProducto.getImagenContentType()).isEqualTo(UPDATED_IMAGEN_CONTENT_TYPE);
         assertThat(testProducto.getPrecio()).isEqualTo(UPDATED_PRECIO);
         assertThat(testProducto.getExistencias()).isEqualTo(UPDATED_EXISTENCIAS);
@@ -915,6 +1206,58 @@ class ProductoResourceIT {
         assertThat(productoList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void putProductoWithIfMatch() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+        long version = producto.getVersion();
+        ProductoDTO productoDTO = productoMapper.toDto(producto);
+        productoDTO.setNombreProducto(UPDATED_NOMBRE_PRODUCTO);
+
+        restProductoMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, productoDTO.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (version + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(productoDTO))
+            )
+            .andExpect(status().isPreconditionFailed());
+        assertThat(productoRepository.findById(producto.getId()).get().getNombreProducto()).isEqualTo(DEFAULT_NOMBRE_PRODUCTO);
+
+        restProductoMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, productoDTO.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(productoDTO))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""));
+        assertThat(productoRepository.findById(producto.getId()).get().getNombreProducto()).isEqualTo(UPDATED_NOMBRE_PRODUCTO);
+    }
+
+    @Test
+    @Transactional
+    void patchProductoWithStaleVersion() throws Exception {
+        // Initialize the database
+        productoRepository.saveAndFlush(producto);
+
+        ProductoDTO productoDTO = new ProductoDTO();
+        productoDTO.setId(producto.getId());
+        productoDTO.setVersion(producto.getVersion() + 1);
+        productoDTO.setNombreProducto(UPDATED_NOMBRE_PRODUCTO);
+
+        restProductoMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, productoDTO.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(productoDTO))
+            )
+            .andExpect(status().isConflict());
+        assertThat(productoRepository.findById(producto.getId()).get().getNombreProducto()).isEqualTo(DEFAULT_NOMBRE_PRODUCTO);
+    }
+
     @Test
     @Transactional
     void partialUpdateProductoWithPatch() throws Exception {
@@ -943,7 +1286,8 @@ class ProductoResourceIT {
         Producto testProducto = productoList.get(productoList.size() - 1);
         assertThat(testProducto.getNombreProducto()).isEqualTo(DEFAULT_NOMBRE_PRODUCTO);
         assertThat(testProducto.getCalorias()).isEqualTo(DEFAULT_CALORIAS);
-        assertThat(testProducto.getImagen()).isEqualTo(DEFAULT_IMAGEN);
+        assertThat(testProducto.getImagenHash()).isEqualTo(DEFAULT_IMAGEN_HASH);
+        assertThat(testProducto.getImagenSize()).isEqualTo(DEFAULT_IMAGEN_SIZE);
         assertThat(testProducto.getImagenContentType()).isEqualTo(DEFAULT_IMAGEN_CONTENT_TYPE);
         assertThat(testProducto.getPrecio()).isEqualTo(DEFAULT_PRECIO);
         assertThat(testProducto.getExistencias()).isEqualTo(DEFAULT_EXISTENCIAS);
@@ -965,7 +1309,8 @@ class ProductoResourceIT {
         partialUpdatedProducto
             .nombreProducto(UPDATED_NOMBRE_PRODUCTO)
             .calorias(UPDATED_CALORIAS)
-            .imagen(UPDATED_IMAGEN)
+            .imagenHash(UPDATED_IMAGEN_HASH)
+            .imagenSize(UPDATED_IMAGEN_SIZE)
             .imagenContentType(UPDATED_IMAGEN_CONTENT_TYPE)
             .precio(UPDATED_PRECIO)
             .existencias(UPDATED_EXISTENCIAS)
@@ -985,7 +1330,8 @@ class ProductoResourceIT {
         Producto testProducto = productoList.get(productoList.size() - 1);
         assertThat(testProducto.getNombreProducto()).isEqualTo(UPDATED_NOMBRE_PRODUCTO);
         assertThat(testProducto.getCalorias()).isEqualTo(UPDATED_CALORIAS);
-        assertThat(testProducto.getImagen()).isEqualTo(UPDATED_IMAGEN);
+        assertThat(testProducto.getImagenHash()).isEqualTo(UPDATED_IMAGEN_HASH);
+        assertThat(testProducto.getImagenSize()).isEqualTo(UPDATED_IMAGEN_SIZE);
         assertThat(testProducto.getImagenContentType()).isEqualTo(UPDATED_IMAGEN_CONTENT_TYPE);
         assertThat(testProducto.getPrecio()).isEqualTo(UPDATED_PRECIO);
         assertThat(testProducto.getExistencias()).isEqualTo(UPDATED_EXISTENCIAS);
@@ -0,0 +1,171 @@
+package es.yuliq.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Compra;
+import es.yuliq.domain.Factura;
+import es.yuliq.domain.Producto;
+import es.yuliq.domain.User;
+import es.yuliq.service.CarritoQueryService;
+import es.yuliq.service.CarritoService;
+import es.yuliq.service.CompraService;
+import es.yuliq.service.FacturaService;
+import es.yuliq.service.ProductoService;
+import es.yuliq.service.criteria.CarritoCriteria;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests of the number of SQL statements run to read a page of entities with their relations, which
+ * must not grow with the size of the page.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@Transactional
+class StatementCountIT {
+
+    private static final int SMALL_PAGE = 2;
+
+    private static final int LARGE_PAGE = 6;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private CarritoQueryService carritoQueryService;
+
+    @Autowired
+    private FacturaService facturaService;
+
+    @Autowired
+    private CompraService compraService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void initTest() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        for (int i = 0; i < LARGE_PAGE; i++) {
+            User user = UserResourceIT.createEntity(em);
+            em.persist(user);
+            Factura factura = FacturaResourceIT.createEntity(em);
+            factura.setAssignedTo(user);
+            em.persist(factura);
+            Compra compra = CompraResourceIT.createEntity(em);
+            compra.setFactura(factura);
+            em.persist(compra);
+            Producto producto = ProductoResourceIT.createEntity(em);
+            producto.setCompra(compra);
+            em.persist(producto);
+            Carrito carrito = CarritoResourceIT.createEntity(em);
+            carrito.setAssignedTo(user);
+            carrito.addProducto(producto);
+            carrito.addProducto(ProductoResourceIT.createEntity(em));
+            carrito.getProductos().forEach(em::persist);
+            em.persist(carrito);
+        }
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void getAllCarritos() throws Exception {
+        assertStatementCountDoesNotDependOnPageSize(
+            size -> restMockMvc.perform(get("/api/carritos?sort=id,desc&size=" + size)).andExpect(status().isOk())
+        );
+    }
+
+    @Test
+    void getAllFacturas() throws Exception {
+        assertStatementCountDoesNotDependOnPageSize(
+            size -> restMockMvc.perform(get("/api/facturas?sort=id,desc&size=" + size)).andExpect(status().isOk())
+        );
+    }
+
+    @Test
+    void getAllCompras() throws Exception {
+        assertStatementCountDoesNotDependOnPageSize(
+            size -> restMockMvc.perform(get("/api/compras?sort=id,desc&size=" + size)).andExpect(status().isOk())
+        );
+    }
+
+    @Test
+    void findAllCarritoEntities() throws Exception {
+        assertStatementCountDoesNotDependOnPageSize(size -> carritoService.findAll(page(size)));
+        assertStatementCountDoesNotDependOnPageSize(size -> carritoService.findAllWithEagerRelationships(page(size)));
+        assertStatementCountDoesNotDependOnPageSize(size -> carritoQueryService.findByCriteria(new CarritoCriteria(), page(size)));
+        assertStatementCountDoesNotDependOnPageSize(
+            size -> carritoQueryService.findWithEagerRelationshipsByCriteria(new CarritoCriteria(), page(size))
+        );
+    }
+
+    @Test
+    void findAllFacturaEntities() throws Exception {
+        assertStatementCountDoesNotDependOnPageSize(size -> facturaService.findAll(page(size)));
+    }
+
+    @Test
+    void findAllCompraEntities() throws Exception {
+        assertStatementCountDoesNotDependOnPageSize(size -> compraService.findAll(page(size)));
+    }
+
+    @Test
+    void findAllProductoEntities() throws Exception {
+        assertStatementCountDoesNotDependOnPageSize(size -> productoService.findAll(page(size)));
+    }
+
+    private void assertStatementCountDoesNotDependOnPageSize(PageRead read) throws Exception {
+        long small = countStatements(read, SMALL_PAGE);
+        long large = countStatements(read, LARGE_PAGE);
+        assertThat(large).as("statements for a page of %d, then of %d", SMALL_PAGE, LARGE_PAGE).isEqualTo(small);
+    }
+
+    private long countStatements(PageRead read, int size) throws Exception {
+        em.flush();
+        em.clear();
+        // Neither page may be answered from the second level cache filled by the other one
+        em.getEntityManagerFactory().getCache().evictAll();
+        statistics.clear();
+        read.read(size);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static Pageable page(int size) {
+        return PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    @FunctionalInterface
+    private interface PageRead {
+        void read(int size) throws Exception;
+    }
+}
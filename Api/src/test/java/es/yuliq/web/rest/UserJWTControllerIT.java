@@ -1,18 +1,30 @@
 package es.yuliq.web.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import es.yuliq.IntegrationTest;
+import es.yuliq.domain.Carrito;
+import es.yuliq.domain.Producto;
 import es.yuliq.domain.User;
 import es.yuliq.repository.UserRepository;
+import es.yuliq.security.CartTokenProvider;
+import es.yuliq.service.CarritoItemService;
+import es.yuliq.service.dto.CarritoItemDTO;
+import es.yuliq.service.dto.CarritoSummaryDTO;
 import es.yuliq.web.rest.vm.LoginVM;
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -34,6 +46,15 @@ class UserJWTControllerIT {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CartTokenProvider cartTokenProvider;
+
+    @Autowired
+    private CarritoItemService carritoItemService;
+
+    @Autowired
+    private EntityManager em;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -95,4 +116,52 @@ class UserJWTControllerIT {
             .andExpect(jsonPath("$.id_token").doesNotExist())
             .andExpect(header().doesNotExist("Authorization"));
     }
+
+    @Test
+    @Transactional
+    void testAuthorizeMergesCartToken() throws Exception {
+        User user = new User();
+        user.setLogin("user-jwt-controller-cart");
+        user.setEmail("user-jwt-controller-cart@example.com");
+        user.setActivated(true);
+        user.setPassword(passwordEncoder.encode("test"));
+        userRepository.saveAndFlush(user);
+        Carrito carrito = CarritoResourceIT.createEntity(em).assignedTo(user);
+        em.persist(carrito);
+        Producto inCarrito = ProductoResourceIT.createEntity(em);
+        em.persist(inCarrito);
+        Producto notInCarrito = ProductoResourceIT.createEntity(em);
+        em.persist(notInCarrito);
+        em.flush();
+        carritoItemService.putItem(carrito.getId(), new CarritoItemDTO(inCarrito.getId(), 2), null);
+
+        Map<Long, Integer> items = new HashMap<>();
+        items.put(inCarrito.getId(), 1);
+        items.put(notInCarrito.getId(), 3);
+        items.put(Long.MAX_VALUE, 1);
+        LoginVM login = new LoginVM();
+        login.setUsername("user-jwt-controller-cart");
+        login.setPassword("test");
+        String cartToken = cartTokenProvider.createToken(items);
+        // The same token sent again, as by a client retrying its login
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc
+                .perform(
+                    post("/api/authenticate")
+                        .header(CartTokenProvider.HEADER, cartToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(login))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id_token").isNotEmpty())
+                .andExpect(cookie().maxAge(CartTokenProvider.COOKIE, 0));
+        }
+
+        // A producto already in the carrito keeps the larger units, the missing producto is left out, and merging the
+        // cart again changed nothing
+        CarritoSummaryDTO summary = carritoItemService.findSummary(carrito.getId()).get();
+        assertThat(summary.getItems())
+            .extracting(CarritoItemDTO::getProductoId, CarritoItemDTO::getCantidad)
+            .containsExactlyInAnyOrder(tuple(inCarrito.getId(), 2), tuple(notInCarrito.getId(), 3));
+    }
 }
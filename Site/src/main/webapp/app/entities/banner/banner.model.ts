@@ -4,6 +4,8 @@ export interface IBanner {
   id?: number;
   imagenContentType?: string | null;
   imagen?: string | null;
+  imagenHash?: string | null;
+  imagenSize?: number | null;
   fechaPuesta?: dayjs.Dayjs;
 }
 
@@ -12,6 +14,8 @@ export class Banner implements IBanner {
     public id?: number,
     public imagenContentType?: string | null,
     public imagen?: string | null,
+    public imagenHash?: string | null,
+    public imagenSize?: number | null,
     public fechaPuesta?: dayjs.Dayjs
   ) {}
 }
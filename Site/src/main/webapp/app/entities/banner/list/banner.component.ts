@@ -10,6 +10,7 @@ import { ITEMS_PER_PAGE } from 'app/config/pagination.constants';
 import { BannerService } from '../service/banner.service';
 import { BannerDeleteDialogComponent } from '../delete/banner-delete-dialog.component';
 import { DataUtils } from 'app/core/util/data-util.service';
+import { ApplicationConfigService } from 'app/core/config/application-config.service';
 
 @Component({
   selector: 'jhi-banner',
@@ -30,7 +31,8 @@ export class BannerComponent implements OnInit {
     protected activatedRoute: ActivatedRoute,
     protected dataUtils: DataUtils,
     protected router: Router,
-    protected modalService: NgbModal
+    protected modalService: NgbModal,
+    protected applicationConfigService: ApplicationConfigService
   ) {}
 
   loadPage(page?: number, dontNavigate?: boolean): void {
@@ -67,6 +69,10 @@ export class BannerComponent implements OnInit {
     return this.dataUtils.byteSize(base64String);
   }
 
+  imagenUrl(imagenHash: string): string {
+    return this.applicationConfigService.getEndpointFor(`api/images/${imagenHash}`);
+  }
+
   openFile(base64String: string, contentType: string | null | undefined): void {
     return this.dataUtils.openFile(base64String, contentType);
   }
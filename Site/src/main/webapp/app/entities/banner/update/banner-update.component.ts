@@ -24,6 +24,8 @@ export class BannerUpdateComponent implements OnInit {
   editForm = this.fb.group({
     id: [],
     imagen: [null, []],
+    imagenHash: [],
+    imagenSize: [],
     imagenContentType: [],
     fechaPuesta: [null, [Validators.required]],
   });
@@ -101,6 +103,8 @@ export class BannerUpdateComponent implements OnInit {
     this.editForm.patchValue({
       id: banner.id,
       imagen: banner.imagen,
+      imagenHash: banner.imagenHash,
+      imagenSize: banner.imagenSize,
       imagenContentType: banner.imagenContentType,
       fechaPuesta: banner.fechaPuesta ? banner.fechaPuesta.format(DATE_TIME_FORMAT) : null,
     });
@@ -112,6 +116,8 @@ export class BannerUpdateComponent implements OnInit {
       id: this.editForm.get(['id'])!.value,
       imagenContentType: this.editForm.get(['imagenContentType'])!.value,
       imagen: this.editForm.get(['imagen'])!.value,
+      imagenHash: this.editForm.get(['imagenHash'])!.value,
+      imagenSize: this.editForm.get(['imagenSize'])!.value,
       fechaPuesta: this.editForm.get(['fechaPuesta'])!.value
         ? dayjs(this.editForm.get(['fechaPuesta'])!.value, DATE_TIME_FORMAT)
         : undefined,
@@ -3,6 +3,7 @@ import { ActivatedRoute } from '@angular/router';
 
 import { IProducto } from '../producto.model';
 import { DataUtils } from 'app/core/util/data-util.service';
+import { ApplicationConfigService } from 'app/core/config/application-config.service';
 
 @Component({
   selector: 'jhi-producto-detail',
@@ -11,7 +12,11 @@ import { DataUtils } from 'app/core/util/data-util.service';
 export class ProductoDetailComponent implements OnInit {
   producto: IProducto | null = null;
 
-  constructor(protected dataUtils: DataUtils, protected activatedRoute: ActivatedRoute) {}
+  constructor(
+    protected dataUtils: DataUtils,
+    protected activatedRoute: ActivatedRoute,
+    protected applicationConfigService: ApplicationConfigService
+  ) {}
 
   ngOnInit(): void {
     this.activatedRoute.data.subscribe(({ producto }) => {
@@ -23,6 +28,10 @@ export class ProductoDetailComponent implements OnInit {
     return this.dataUtils.byteSize(base64String);
   }
 
+  imagenUrl(imagenHash: string): string {
+    return this.applicationConfigService.getEndpointFor(`api/images/${imagenHash}`);
+  }
+
   openFile(base64String: string, contentType: string | null | undefined): void {
     this.dataUtils.openFile(base64String, contentType);
   }
@@ -17,6 +17,7 @@ import { LoginService } from 'app/login/login.service';
 import { SessionStorageService } from 'ngx-webstorage';
 import { AccountService } from 'app/core/auth/account.service';
 import { ProfileService } from 'app/layouts/profiles/profile.service';
+import { ApplicationConfigService } from 'app/core/config/application-config.service';
 
 @Component({
   selector: 'jhi-producto',
@@ -60,7 +61,8 @@ export class ProductoComponent implements OnInit {
 
     private sessionStorage: SessionStorageService,
     private accountService: AccountService,
-    private profileService: ProfileService
+    private profileService: ProfileService,
+    private applicationConfigService: ApplicationConfigService
   ) {
     this.links = {
       last: 0,
@@ -80,6 +82,10 @@ export class ProductoComponent implements OnInit {
     this.loadPage();
   }
 
+  imagenUrl(imagenHash: string, variant: string): string {
+    return this.applicationConfigService.getEndpointFor(`api/images/${imagenHash}/${variant}`);
+  }
+
   isAuthenticated(): boolean {
     return this.accountService.isAuthenticated();
   }
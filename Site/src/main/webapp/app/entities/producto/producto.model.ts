@@ -8,6 +8,8 @@ export interface IProducto {
   calorias?: number | null;
   imagenContentType?: string | null;
   imagen?: string | null;
+  imagenHash?: string | null;
+  imagenSize?: number | null;
   precio?: number;
   existencias?: number;
   tipoproducto?: TipoProducto | null;
@@ -22,6 +24,8 @@ export class Producto implements IProducto {
     public calorias?: number | null,
     public imagenContentType?: string | null,
     public imagen?: string | null,
+    public imagenHash?: string | null,
+    public imagenSize?: number | null,
     public precio?: number,
     public existencias?: number,
     public tipoproducto?: TipoProducto | null,
@@ -27,6 +27,8 @@ export class ProductoUpdateComponent implements OnInit {
     nombreProducto: [null, [Validators.required, Validators.maxLength(250)]],
     calorias: [null, [Validators.max(1000)]],
     imagen: [null, []],
+    imagenHash: [],
+    imagenSize: [],
     imagenContentType: [],
     precio: [null, [Validators.required, Validators.max(200)]],
     existencias: [null, [Validators.required, Validators.max(50)]],
@@ -111,6 +113,8 @@ export class ProductoUpdateComponent implements OnInit {
       nombreProducto: producto.nombreProducto,
       calorias: producto.calorias,
       imagen: producto.imagen,
+      imagenHash: producto.imagenHash,
+      imagenSize: producto.imagenSize,
       imagenContentType: producto.imagenContentType,
       precio: producto.precio,
       existencias: producto.existencias,
@@ -137,6 +141,8 @@ export class ProductoUpdateComponent implements OnInit {
       calorias: this.editForm.get(['calorias'])!.value,
       imagenContentType: this.editForm.get(['imagenContentType'])!.value,
       imagen: this.editForm.get(['imagen'])!.value,
+      imagenHash: this.editForm.get(['imagenHash'])!.value,
+      imagenSize: this.editForm.get(['imagenSize'])!.value,
       precio: this.editForm.get(['precio'])!.value,
       existencias: this.editForm.get(['existencias'])!.value,
       tipoproducto: this.editForm.get(['tipoproducto'])!.value,